@@ -63,6 +63,13 @@ public class ArtifactoryInstaller extends BinaryInstaller {
      * Look for all configured server ids and return the specific one matched the given id.
      */
     JFrogPlatformInstance getSpecificServer(String id) {
+        return findServer(id);
+    }
+
+    /**
+     * Look for all configured server ids and return the specific one matched the given id, with its global credentials.
+     */
+    static JFrogPlatformInstance findServer(String id) {
         List<JFrogPlatformInstance> jfrogInstances = JFrogPlatformBuilder.getJFrogPlatformInstances();
         if (jfrogInstances != null && !jfrogInstances.isEmpty()) {
             for (JFrogPlatformInstance jfrogPlatformInstance : jfrogInstances) {
@@ -1,35 +1,39 @@
 package io.jenkins.plugins.jfrog;
 
 import hudson.FilePath;
+import hudson.model.Executor;
 import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.model.Run;
 import hudson.model.TaskListener;
-import hudson.remoting.VirtualChannel;
 import hudson.tools.ToolInstallation;
 import hudson.tools.ToolInstaller;
 import hudson.tools.ToolInstallerDescriptor;
 import hudson.util.Secret;
+import io.jenkins.plugins.jfrog.callables.ArtifactoryHttpClients;
+import io.jenkins.plugins.jfrog.callables.CliDownloadSource;
+import io.jenkins.plugins.jfrog.callables.CliInstallProbe;
+import io.jenkins.plugins.jfrog.callables.CliToolJanitor;
+import io.jenkins.plugins.jfrog.callables.CliToolUse;
+import io.jenkins.plugins.jfrog.callables.HedgedSourceRace;
 import io.jenkins.plugins.jfrog.callables.JFrogCliDownloader;
 import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
 import io.jenkins.plugins.jfrog.configuration.JenkinsProxyConfiguration;
-import jenkins.MasterToSlaveFileCallable;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.Header;
 import org.jfrog.build.extractor.clientConfiguration.client.artifactory.ArtifactoryManager;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 
-import static org.jfrog.build.client.DownloadResponse.SHA256_HEADER_NAME;
-
 /**
  * Installer for JFrog CLI binary.
  *
@@ -52,53 +56,68 @@ public abstract class BinaryInstaller extends ToolInstaller {
     private static final int DEFAULT_INSTALL_TIMEOUT_MINUTES = 5;
 
     /**
-     * Per-node synchronization locks for installation coordination.
-     * Key: installation path + binary name (see {@link #createLockKey})
-     * Value: ReentrantLock used to serialize installations to the same path
+     * Environment variable that overrides the default number of concurrent HTTP Range requests used to download
+     * the CLI binary. Set to 1 to download in a single stream.
      *
-     * <p>The map grows by one entry per unique (agent path, binary) combination encountered
-     * during the lifetime of the Jenkins JVM. In typical deployments the number of distinct
-     * tool installation paths is small and bounded, so the unbounded growth is acceptable.
-     * If the entry count ever becomes a concern, entries can be evicted after a successful
-     * installation without loss of correctness (a new lock will be created on the
-     * next access).</p>
+     * <pre>
+     *   export JFROG_CLI_DOWNLOAD_CONNECTIONS=8
+     * </pre>
      */
-    private static final ConcurrentHashMap<String, ReentrantLock> NODE_INSTALLATION_LOCKS = new ConcurrentHashMap<>();
+    static final String DOWNLOAD_CONNECTIONS_ENV_VAR = "JFROG_CLI_DOWNLOAD_CONNECTIONS";
+    private static final int DEFAULT_DOWNLOAD_CONNECTIONS = 4;
+    private static final int MAX_DOWNLOAD_CONNECTIONS = 16;
 
     /**
-     * Per-pipeline installation verification cache (LRU, max 1000 entries).
-     * Key: nodeName + tool path + agent OS + binary name
-     * Value: pipeline run identifier (derived from the build's log storage)
+     * Environment variable that overrides the default size limit (in MB) of the agent-side store of previously
+     * downloaded CLI binaries. Set to 0 to disable the store.
      *
-     * <p>Once a tool is verified in a pipeline run, all subsequent stages in the same run
-     * skip the version check entirely — avoiding repeated HTTP HEAD requests to Artifactory.
-     * A new pipeline run produces a different run ID, so it gets its own verification.
-     * The agent OS is included in the key to distinguish same-path installations on
-     * agents with different architectures (e.g., linux-amd64 vs linux-arm64).</p>
-     */
-    private static final int MAX_CACHE_SIZE = 1000;
-    private static final Map<String, String> VERIFIED_IN_RUN = Collections.synchronizedMap(
-            new LinkedHashMap<String, String>(MAX_CACHE_SIZE, 0.75f, true) {
-                @Override
-                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
-                    return size() > MAX_CACHE_SIZE;
-                }
-            });
+     * <pre>
+     *   export JFROG_CLI_AGENT_STORE_MB=2048
+     * </pre>
+     */
+    static final String AGENT_STORE_SIZE_ENV_VAR = "JFROG_CLI_AGENT_STORE_MB";
+    private static final int DEFAULT_AGENT_STORE_SIZE_MB = 1024;
 
     /**
-     * Cache of agent OS details to avoid repeated remote calls (LRU, max 100 entries).
-     * Key: nodeName + tool location remote path
-     * Value: OS details string (e.g., "linux-amd64", "mac-arm64")
+     * Environment variable that overrides the default budget (in MB) for the installed CLI binaries of all the JFrog
+     * CLI tools of an agent. When exceeded, the least recently used binaries are deleted. Set to 0 to disable.
+     *
+     * <pre>
+     *   export JFROG_CLI_AGENT_TOOLS_MB=8192
+     * </pre>
      */
-    private static final Map<String, String> AGENT_OS_CACHE = Collections.synchronizedMap(
-            new LinkedHashMap<String, String>(MAX_CACHE_SIZE, 0.75f, true) {
-                @Override
-                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
-                    return size() > MAX_CACHE_SIZE;
-                }
-            });
+    static final String AGENT_TOOLS_SIZE_ENV_VAR = "JFROG_CLI_AGENT_TOOLS_MB";
+    private static final int DEFAULT_AGENT_TOOLS_SIZE_MB = 4096;
+
+    /**
+     * Environment variable that overrides the default age (in hours) after which the temporary files of interrupted
+     * CLI downloads are deleted.
+     *
+     * <pre>
+     *   export JFROG_CLI_TEMP_MAX_AGE_HOURS=12
+     * </pre>
+     */
+    static final String TEMP_MAX_AGE_ENV_VAR = "JFROG_CLI_TEMP_MAX_AGE_HOURS";
+    private static final int DEFAULT_TEMP_MAX_AGE_HOURS = 24;
+
+    /**
+     * In-flight installations, for installation coordination.
+     * Key: node + installation path + binary name (see {@link #createLockKey})
+     * Value: the installation that currently runs for the path
+     *
+     * <p>Only one installation per path runs at a time. Callers that need the same binary subscribe to the
+     * in-flight installation and complete as soon as it does, instead of each waiting for a lock and then checking
+     * the installation again. An entry is removed as soon as its installation completes, so the map only holds the
+     * installations that currently run.</p>
+     */
+    private static final ConcurrentHashMap<String, InFlightInstallation> IN_FLIGHT_INSTALLATIONS = new ConcurrentHashMap<>();
+    /**
+     * The interval of the progress reports to the callers that wait for an in-flight installation. Changed by tests.
+     */
+    static volatile long progressReportIntervalMillis = TimeUnit.SECONDS.toMillis(30);
 
     private static final String BUILT_IN_NODE = "built-in";
+    private static final long SOURCE_RACE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
 
     protected BinaryInstaller(String label) {
         super(label);
@@ -117,6 +136,16 @@ public abstract class BinaryInstaller extends ToolInstaller {
         return location;
     }
 
+    /**
+     * @param tool the tool being installed.
+     * @param node the computer on which the tool is installed.
+     * @return Node's filesystem location of the directory that contains the tool directories, or null if the tool
+     * location has no parent.
+     */
+    FilePath getToolsRoot(ToolInstallation tool, Node node) {
+        return preferredLocation(tool, node).getParent();
+    }
+
     public abstract static class DescriptorImpl<T extends BinaryInstaller> extends ToolInstallerDescriptor<T> {
         /**
          * This ID needs to be unique, and needs to match the ID token in the JSON update file.
@@ -136,10 +165,17 @@ public abstract class BinaryInstaller extends ToolInstaller {
      * 1. Fast path (no lock): binary exists and sha256 check passes — return immediately.
      *    When the server does not return a sha256 header, the check treats "no hash" as
      *    "up-to-date", so a missing or empty sha256 file never causes a re-download loop.
-     * 2. Slow path (lock + download): acquire a ReentrantLock (configurable timeout, default
-     *    5 min) and call the downloader.  Re-check version inside the lock in case a
-     *    concurrent stage just finished.
-     * 3. Fallbacks: if the lock times out or the download fails, use any existing valid binary
+     * 2. Slow path (single-flight install): the first caller for a node and tool location becomes
+     *    the leader and calls the downloader.  Concurrent callers subscribe to the leader's
+     *    in-flight installation (configurable timeout, default 5 min), report its progress to
+     *    their own logs and complete as soon as it does, without checking the version again.
+     *    Callers that need a different version wait for the leader and then install on their own.
+     *    When the controller-side cache is enabled (see {@link ControllerCliCache}), the binary is
+     *    copied from the controller instead.
+     *    This only coordinates the stages of this controller. On the agent, the installers also hold a file-based
+     *    lease on the tool directory, so that agents and controllers sharing a tool directory don't download the CLI
+     *    at the same time.
+     * 3. Fallbacks: if the wait times out or the download fails, use any existing valid binary
      *    rather than failing the pipeline.  Only throw when there is truly nothing to run.
      *
      * @param toolLocation Target directory for CLI installation
@@ -156,106 +192,305 @@ public abstract class BinaryInstaller extends ToolInstaller {
                                                        JFrogPlatformInstance instance, String repository,
                                                        String binaryName, String nodeName)
             throws IOException, InterruptedException {
+        return performJfrogCliInstallation(toolLocation, log, version,
+                Collections.singletonList(new CliDownloadSource(instance, repository)), binaryName, nodeName);
+    }
+
+    /**
+     * Same as {@link #performJfrogCliInstallation(FilePath, TaskListener, String, JFrogPlatformInstance, String, String, String)},
+     * with several sources to download the CLI from.
+     * The source that responded fastest to the node is used to check the installed version. When the CLI needs to
+     * be downloaded, the sources are raced from the agent (see {@link HedgedSourceRace}), and the binary is
+     * downloaded from the winner.
+     *
+     * @param sources The sources to download the CLI from, in order of preference. Must not be empty.
+     */
+    public static FilePath performJfrogCliInstallation(FilePath toolLocation, TaskListener log, String version,
+                                                       List<CliDownloadSource> sources, String binaryName,
+                                                       String nodeName) throws IOException, InterruptedException {
 
         FilePath cliPath = toolLocation.child(binaryName);
 
         // Node.getNodeName() returns "" for the built-in (master) node.
         String node = StringUtils.defaultIfBlank(nodeName, BUILT_IN_NODE);
 
+        // The fastest source of the node is the one the installed version is checked against
+        sources = SourceLatencies.order(node, sources);
+        JFrogPlatformInstance instance = sources.get(0).getInstance();
+        String repository = sources.get(0).getRepository();
+
         // Cache agent OS per node+path to handle agents with identical tool paths but different architectures.
+        // When it isn't cached, it is collected by the installation probe, together with the state of the installed CLI.
         String toolPath = toolLocation.getRemote();
         String osCacheKey = node + ":" + toolPath;
-        String agentOs = AGENT_OS_CACHE.get(osCacheKey);
+        String agentOs = InstallLedger.getOs(osCacheKey);
+        CliInstallProbe.Result probe = null;
         if (agentOs == null) {
-            try {
-                agentOs = toolLocation.act(new MasterToSlaveFileCallable<String>() {
-                    @Override
-                    public String invoke(File f, VirtualChannel channel) throws IOException {
-                        return OsUtils.getOsDetails();
-                    }
-                });
-            } catch (Exception e) {
-                LOGGER.warning("Failed to get agent OS details: " + e.getMessage());
-                agentOs = "unknown";
-            }
-            AGENT_OS_CACHE.put(osCacheKey, agentOs);
+            probe = probe(toolLocation, binaryName);
+            agentOs = probe == null ? "unknown" : probe.getOsDetails();
+            InstallLedger.putOs(osCacheKey, agentOs);
         }
 
         String cacheKey = node + ":" + toolPath + "/" + agentOs + "/" + binaryName;
         LOGGER.fine("Agent OS detected: " + agentOs + " for node: " + node + " tool: " + toolPath);
 
-        // Per-pipeline cache: skip re-verification if already checked in this pipeline run.
+        // Per-build cache: skip re-verification if already checked in this build.
         String currentRunId = getCurrentRunId(log);
-        if (currentRunId != null && currentRunId.equals(VERIFIED_IN_RUN.get(cacheKey))) {
-            LOGGER.fine("CLI already verified in this pipeline run, skipping check for: " + cacheKey);
-            return toolLocation;
+        if (currentRunId != null && InstallLedger.isVerified(cacheKey, currentRunId)) {
+            // The binary may have been evicted (see CliToolJanitor) or replaced since it was verified
+            String installedSha256 = useInstalledCli(toolLocation, binaryName);
+            if (installedSha256 != null && InstallLedger.isVerified(cacheKey, currentRunId, installedSha256)) {
+                LOGGER.fine("CLI already verified in this build, skipping check for: " + cacheKey);
+                return toolLocation;
+            }
+            LOGGER.fine("CLI verified in this build is no longer installed or changed, checking again: " + cacheKey);
+            InstallLedger.invalidate(cacheKey);
+        }
+
+        // Pin '[RELEASE]' to a concrete version, so that the version check and the download get the same binary
+        String resolvedVersion = version;
+        if (StringUtils.isBlank(version) && !"unknown".equals(agentOs)) {
+            resolvedVersion = ReleaseVersionResolver.resolve(instance, repository, agentOs, binaryName);
         }
 
         // Fast path: binary exists and is already the correct version — skip lock entirely.
-        if (isValidCliInstallation(cliPath, log) && isCorrectVersion(toolLocation, instance, repository, version, binaryName, agentOs, log)) {
+        // All the facts about the installed CLI come from a single agent call.
+        if (probe == null) {
+            probe = probe(toolLocation, binaryName);
+        }
+        if (probe != null && probe.getStaleTempFiles() > 0) {
+            cleanToolDirectories(toolLocation.getParent(), toolLocation.getName(), log);
+        }
+        boolean validCliExists = isValidCliInstallation(probe, cliPath, log);
+        if (validCliExists && isCorrectVersion(probe, instance, repository, resolvedVersion, binaryName, agentOs, log)) {
             log.getLogger().println("[BinaryInstaller] CLI already installed and up-to-date, skipping download");
-            markVerified(cacheKey, currentRunId);
+            InstallLedger.markVerified(cacheKey, currentRunId, probe.getLocalSha256());
             return toolLocation;
         }
 
-        // Slow path: need to install or upgrade.
-        String lockKey = createLockKey(toolLocation, binaryName);
-        ReentrantLock installationLock = NODE_INSTALLATION_LOCKS.computeIfAbsent(lockKey, k -> new ReentrantLock());
-
+        // Slow path: need to install or upgrade. Only one installation per node and tool location runs at a time.
+        // Concurrent callers that need the same binary subscribe to the in-flight installation instead of repeating it.
+        String lockKey = createLockKey(node, toolLocation, binaryName);
+        String installTarget = createInstallTarget(instance, repository, resolvedVersion, agentOs);
         int timeoutMinutes = getInstallTimeoutMinutes();
-        log.getLogger().println("[BinaryInstaller] Acquiring installation lock for: " + lockKey + " (timeout: " + timeoutMinutes + " min)");
-
-        if (!installationLock.tryLock(timeoutMinutes, TimeUnit.MINUTES)) {
-            log.getLogger().println("[BinaryInstaller] WARNING: Could not acquire installation lock within " + timeoutMinutes + " minutes for: " + lockKey);
-            if (isValidCliInstallation(cliPath, log)) {
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(timeoutMinutes);
+        // Effectively final copies, for the installation of the leader
+        List<CliDownloadSource> orderedSources = sources;
+        String os = agentOs;
+        String targetVersion = resolvedVersion;
+        CliInstallProbe.Result installedProbe = validCliExists ? probe : null;
+        InstallResult result = installSingleFlight(lockKey, installTarget, StringUtils.defaultIfBlank(currentRunId, "another build"),
+                deadline, log, (installation, recheck) -> {
+                    // If another installation completed since the fast path, the installed CLI must be checked again
+                    CliInstallProbe.Result validProbe = installedProbe;
+                    if (recheck) {
+                        CliInstallProbe.Result recheckProbe = probe(toolLocation, binaryName);
+                        validProbe = isValidCliInstallation(recheckProbe, cliPath, log) ? recheckProbe : null;
+                    }
+                    return installAsLeader(installation, toolLocation, cliPath, log, targetVersion, orderedSources, node,
+                            binaryName, os, timeoutMinutes, validProbe, recheck);
+                });
+        if (result == InstallResult.TIMED_OUT) {
+            log.getLogger().println("[BinaryInstaller] WARNING: JFrog CLI installation didn't complete within " + timeoutMinutes + " minutes for: " + lockKey);
+            if (isValidCliInstallation(toolLocation, cliPath, log)) {
                 log.getLogger().println("[BinaryInstaller] Using existing binary while installation is in progress: " + cliPath.getRemote());
                 return toolLocation;
             }
             throw new IOException("Timed out after " + timeoutMinutes + " minutes waiting for JFrog CLI installation and no binary exists at: " + cliPath.getRemote() +
                     ". Set " + INSTALL_TIMEOUT_ENV_VAR + " to increase the timeout.");
         }
+        if (result == InstallResult.VERIFIED) {
+            // The sha256 of the binary that was installed or checked, so that the fast path notices if it is replaced
+            InstallLedger.markVerified(cacheKey, currentRunId, useInstalledCli(toolLocation, binaryName));
+        }
+        return toolLocation;
+    }
 
-        log.getLogger().println("[BinaryInstaller] Lock acquired, proceeding with installation");
-        try {
-            // Re-check inside the lock — a concurrent stage may have just finished.
-            boolean validCliExists = isValidCliInstallation(cliPath, log);
-            if (validCliExists && isCorrectVersion(toolLocation, instance, repository, version, binaryName, agentOs, log)) {
+    /**
+     * Runs an installation of a tool location once for all the concurrent callers. The first caller becomes the leader
+     * and runs the installation, the others wait for it and complete on its result. Callers that need another install
+     * target, or whose leader was aborted, wait for the leader and then try to lead an installation of their own.
+     *
+     * @param lockKey       - The node, tool location and binary name (see {@link #createLockKey})
+     * @param installTarget - The binary the caller needs (see {@link #createInstallTarget})
+     * @param owner         - The build of the caller, reported to the waiting callers
+     * @param deadline      - The time to stop waiting at
+     * @param leader        - The installation to run if the caller becomes the leader
+     * @return VERIFIED or FALLBACK as returned by the installation of the leader, or TIMED_OUT.
+     * @throws IOException if the installation of the leader failed and there is no existing binary to fall back to
+     */
+    static InstallResult installSingleFlight(String lockKey, String installTarget, String owner, long deadline,
+                                             TaskListener log, LeaderInstallation leader) throws IOException, InterruptedException {
+        boolean waited = false;
+        while (true) {
+            InFlightInstallation installation = new InFlightInstallation(installTarget, owner);
+            InFlightInstallation inFlight = IN_FLIGHT_INSTALLATIONS.putIfAbsent(lockKey, installation);
+            if (inFlight == null) {
+                try {
+                    boolean verified = leader.install(installation, waited);
+                    installation.future.complete(verified);
+                    return verified ? InstallResult.VERIFIED : InstallResult.FALLBACK;
+                } catch (IOException | InterruptedException | RuntimeException e) {
+                    installation.future.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    IN_FLIGHT_INSTALLATIONS.remove(lockKey, installation);
+                }
+            }
+
+            waited = true;
+            log.getLogger().println("[BinaryInstaller] JFrog CLI is being installed by " + inFlight.owner + ", waiting for it to complete");
+            InstallResult result = awaitInstallation(inFlight, deadline, log);
+            if (result == InstallResult.TIMED_OUT) {
+                return result;
+            }
+            if (!installTarget.equals(inFlight.target) || result == InstallResult.ABORTED) {
+                // The in-flight installation was of another version, or its build was aborted - install on our own
+                continue;
+            }
+            if (result == InstallResult.FAILED) {
+                throw new IOException("JFrog CLI installation by " + inFlight.owner + " failed and no existing binary is available: " +
+                        inFlight.getFailureMessage());
+            }
+            log.getLogger().println("[BinaryInstaller] JFrog CLI was installed by " + inFlight.owner + ", skipping download");
+            return result;
+        }
+    }
+
+    /**
+     * Installs or upgrades the CLI. Called by the single caller that leads the installation of a tool location.
+     *
+     * @param installation - The in-flight installation, used to report progress to the waiting callers
+     * @param sources      - The sources to download the CLI from, the preferred one first
+     * @param node         - The name of the node
+     * @param validProbe   - The probe of the tool location if a valid CLI binary is installed, null otherwise
+     * @param recheck      - True if another installation completed since the caller checked the installed version
+     * @return true if the CLI is installed and up-to-date, false if the installation failed but an existing binary can be used.
+     * @throws IOException if the installation failed and there is no existing binary to fall back to
+     */
+    private static boolean installAsLeader(InFlightInstallation installation, FilePath toolLocation, FilePath cliPath,
+                                           TaskListener log, String version, List<CliDownloadSource> sources,
+                                           String node, String binaryName, String agentOs, int timeoutMinutes,
+                                           CliInstallProbe.Result validProbe, boolean recheck) throws IOException, InterruptedException {
+        JFrogPlatformInstance instance = sources.get(0).getInstance();
+        String repository = sources.get(0).getRepository();
+        if (recheck && validProbe != null) {
+            installation.status = "checking the installed version";
+            if (isCorrectVersion(validProbe, instance, repository, version, binaryName, agentOs, log)) {
                 log.getLogger().println("[BinaryInstaller] CLI was installed by a concurrent stage, skipping download");
-                markVerified(cacheKey, currentRunId);
-                return toolLocation;
+                return true;
             }
+        }
+
+        if (validProbe != null) {
+            log.getLogger().println("[BinaryInstaller] CLI version mismatch detected, upgrading");
+        } else {
+            log.getLogger().println("[BinaryInstaller] No valid CLI installation found, downloading");
+        }
 
-            if (validCliExists) {
-                log.getLogger().println("[BinaryInstaller] CLI version mismatch detected, upgrading");
-            } else {
-                log.getLogger().println("[BinaryInstaller] No valid CLI installation found, downloading");
+        try {
+            installation.status = "installing from the controller cache";
+            if (!installFromControllerCache(toolLocation, log, version, instance, repository, binaryName, agentOs)) {
+                installation.status = DownloadBandwidth.isLimited(node) ? "downloading, throttled" : "downloading";
+                String expectedSha256 = getExpectedSha256OrNull(instance, repository, version, agentOs, binaryName, log);
+                download(toolLocation, log, version, sources, node, binaryName, expectedSha256, timeoutMinutes);
+            }
+            log.getLogger().println("[BinaryInstaller] CLI installation completed successfully");
+            cleanToolDirectories(toolLocation.getParent(), toolLocation.getName(), log);
+            return true;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            // Download failed. If an older binary is still present, keep the pipeline running.
+            // The upgrade will be retried on the next run.
+            if (isValidCliInstallation(toolLocation, cliPath, log)) {
+                log.getLogger().println("[BinaryInstaller] WARNING: Download failed (" + e.getMessage() +
+                        "), falling back to existing binary at: " + cliPath.getRemote());
+                return false;
             }
+            // No binary to fall back to — this is a genuine unrecoverable failure.
+            throw new IOException("JFrog CLI download failed and no existing binary is available: " + e.getMessage(), e);
+        }
+    }
 
+    /**
+     * Downloads the CLI on the agent. With several sources, the fastest source is found with hedged requests from the
+     * agent, and the other sources are tried in order if the download from it fails.
+     *
+     * @param expectedSha256 - The sha256 of the binary, or null if the controller couldn't resolve it
+     */
+    private static void download(FilePath toolLocation, TaskListener log, String version, List<CliDownloadSource> sources,
+                                 String node, String binaryName, String expectedSha256, int timeoutMinutes)
+            throws IOException, InterruptedException {
+        JenkinsProxyConfiguration proxyConfiguration = new JenkinsProxyConfiguration();
+        List<CliDownloadSource> ordered = sources;
+        if (sources.size() > 1) {
             try {
-                JenkinsProxyConfiguration proxyConfiguration = new JenkinsProxyConfiguration();
-                toolLocation.act(new JFrogCliDownloader(proxyConfiguration, version, instance, log, repository, binaryName));
-                log.getLogger().println("[BinaryInstaller] CLI installation completed successfully");
-                markVerified(cacheKey, currentRunId);
-            } catch (Exception e) {
-                // Download failed. If an older binary is still present, keep the pipeline running.
-                // The upgrade will be retried on the next run.
-                if (isValidCliInstallation(cliPath, log)) {
-                    log.getLogger().println("[BinaryInstaller] WARNING: Download failed (" + e.getMessage() +
-                            "), falling back to existing binary at: " + cliPath.getRemote());
-                    return toolLocation;
+                HedgedSourceRace.Result race = toolLocation.act(new HedgedSourceRace(proxyConfiguration, sources, version, binaryName,
+                        expectedSha256, SourceLatencies.getHedgeDelayMillis(node, sources.get(0)), SOURCE_RACE_TIMEOUT_MILLIS, log));
+                ordered = new ArrayList<>();
+                for (int index : race.getRanking()) {
+                    ordered.add(sources.get(index));
+                    if (race.hasResponded(index)) {
+                        SourceLatencies.record(node, sources.get(index), race.getLatencyMillis()[index]);
+                    } else {
+                        // Aborted when another source won: only tells that the source is at least this slow
+                        SourceLatencies.recordLowerBound(node, sources.get(index), race.getLatencyMillis()[index]);
+                    }
+                }
+                if (expectedSha256 == null) {
+                    expectedSha256 = StringUtils.trimToNull(race.getSha256());
                 }
-                // No binary to fall back to — this is a genuine unrecoverable failure.
-                throw new IOException("JFrog CLI download failed and no existing binary is available: " + e.getMessage(), e);
+            } catch (IOException e) {
+                log.getLogger().println("[BinaryInstaller] WARNING: Failed to find the fastest download source (" + e.getMessage() +
+                        "), trying the sources in order");
             }
+        }
+        IOException failure = null;
+        for (CliDownloadSource source : ordered) {
+            // The allocation of the site bandwidth budget is held for the duration of the download
+            try (DownloadBandwidth.Allocation allocation = DownloadBandwidth.allocate(node)) {
+                toolLocation.act(new JFrogCliDownloader(proxyConfiguration, version, source.getInstance(), log, source.getRepository(),
+                        binaryName, expectedSha256, getDownloadConnections(), getContentStoreMaxBytes(), timeoutMinutes,
+                        DownloadBandwidth.getAgentBytesPerSecond(), DownloadBandwidth.export(toolLocation, allocation)));
+                return;
+            } catch (IOException e) {
+                if (ordered.size() > 1) {
+                    log.getLogger().println("[BinaryInstaller] WARNING: Download from " + source + " failed: " + e.getMessage());
+                }
+                failure = e;
+            }
+        }
+        throw failure;
+    }
 
-            return toolLocation;
-
-        } finally {
-            installationLock.unlock();
-            log.getLogger().println("[BinaryInstaller] Installation lock released for: " + lockKey);
+    /**
+     * Waits for an in-flight installation to complete, and reports its progress to the log of the waiting build.
+     *
+     * @param inFlight - The installation to wait for
+     * @param deadline - The time to stop waiting at
+     * @return the outcome of the installation.
+     */
+    private static InstallResult awaitInstallation(InFlightInstallation inFlight, long deadline, TaskListener log) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return InstallResult.TIMED_OUT;
+            }
+            try {
+                return inFlight.future.get(Math.min(remaining, progressReportIntervalMillis), TimeUnit.MILLISECONDS) ?
+                        InstallResult.VERIFIED : InstallResult.FALLBACK;
+            } catch (TimeoutException e) {
+                log.getLogger().println("[BinaryInstaller] Still waiting for the JFrog CLI installation by " + inFlight.owner +
+                        " (" + inFlight.status + ", " + TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - start) + "s)");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                return cause instanceof InterruptedException ? InstallResult.ABORTED : InstallResult.FAILED;
+            }
         }
     }
-    
+
     /**
      * Returns the lock-acquisition timeout in minutes.
      * Reads {@value #INSTALL_TIMEOUT_ENV_VAR} from the environment; falls back to
@@ -279,107 +514,268 @@ public abstract class BinaryInstaller extends ToolInstaller {
     }
 
     /**
-     * Extracts a unique pipeline run identifier from the TaskListener.
-     * <p>
-     * In Pipeline builds, the TaskListener wraps a FileLogStorage whose log file path
-     * contains the job name and build number (e.g., "jobs/my-job/builds/42/log").
-     * This path is guaranteed unique per pipeline run.
-     * <p>
-     * Falls back to null for non-Pipeline builds (Freestyle, etc.) where the listener
-     * structure is different — the caller treats null as "don't cache".
-     * <p>
-     * <b>Fragile:</b> This relies on internal field names in workflow-api and workflow-support.
-     * Tested with Jenkins {@literal >=} 2.462.3 and workflow-cps. If a future Jenkins update
-     * renames these fields, the catch block returns null and caching degrades gracefully
-     * (repeated version checks, no failure). Re-verify after major Jenkins core upgrades.
+     * Returns the number of concurrent HTTP Range requests used to download the CLI binary.
+     * Reads {@value #DOWNLOAD_CONNECTIONS_ENV_VAR} from the environment; falls back to
+     * {@value #DEFAULT_DOWNLOAD_CONNECTIONS} if the variable is absent or invalid.
+     * Values are clamped to the range 1-{@value #MAX_DOWNLOAD_CONNECTIONS}.
      */
-    private static String getCurrentRunId(TaskListener log) {
-        try {
-            // Reflection chain (workflow-api / workflow-support internals):
-            // CloseableTaskListener → mainDelegate (BufferedBuildListener) → out (IndexOutputStream) → this$0 (FileLogStorage) → log (File)
-            java.lang.reflect.Field mainField = log.getClass().getDeclaredField("mainDelegate");
-            mainField.setAccessible(true);
-            Object buildListener = mainField.get(log);
-
-            java.lang.reflect.Field outField = buildListener.getClass().getDeclaredField("out");
-            outField.setAccessible(true);
-            Object indexOut = outField.get(buildListener);
+    static int getDownloadConnections() {
+        String envValue = System.getenv(DOWNLOAD_CONNECTIONS_ENV_VAR);
+        if (StringUtils.isNotBlank(envValue)) {
+            try {
+                int parsed = Integer.parseInt(envValue.trim());
+                return Math.max(1, Math.min(parsed, MAX_DOWNLOAD_CONNECTIONS));
+            } catch (NumberFormatException e) {
+                LOGGER.warning(DOWNLOAD_CONNECTIONS_ENV_VAR + "=" + envValue + " is not a valid integer, using default " + DEFAULT_DOWNLOAD_CONNECTIONS);
+            }
+        }
+        return DEFAULT_DOWNLOAD_CONNECTIONS;
+    }
 
-            java.lang.reflect.Field storageField = indexOut.getClass().getDeclaredField("this$0");
-            storageField.setAccessible(true);
-            Object fileLogStorage = storageField.get(indexOut);
+    /**
+     * Returns the maximum total size in bytes of the agent-side store of previously downloaded CLI binaries,
+     * or 0 if the store is disabled.
+     * Reads {@value #AGENT_STORE_SIZE_ENV_VAR} from the environment; falls back to
+     * {@value #DEFAULT_AGENT_STORE_SIZE_MB} MB if the variable is absent or invalid.
+     */
+    static long getContentStoreMaxBytes() {
+        long sizeMb = DEFAULT_AGENT_STORE_SIZE_MB;
+        String envValue = System.getenv(AGENT_STORE_SIZE_ENV_VAR);
+        if (StringUtils.isNotBlank(envValue)) {
+            try {
+                sizeMb = Math.max(0, Long.parseLong(envValue.trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.warning(AGENT_STORE_SIZE_ENV_VAR + "=" + envValue + " is not a valid integer, using default " + DEFAULT_AGENT_STORE_SIZE_MB + " MB");
+            }
+        }
+        return sizeMb * 1024 * 1024;
+    }
 
-            java.lang.reflect.Field logField = fileLogStorage.getClass().getDeclaredField("log");
-            logField.setAccessible(true);
-            File logFile = (File) logField.get(fileLogStorage);
+    /**
+     * Returns the maximum total size in bytes of the installed CLI binaries of an agent, or 0 if unlimited.
+     * Reads {@value #AGENT_TOOLS_SIZE_ENV_VAR} from the environment; falls back to
+     * {@value #DEFAULT_AGENT_TOOLS_SIZE_MB} MB if the variable is absent or invalid.
+     */
+    static long getToolsMaxBytes() {
+        long sizeMb = DEFAULT_AGENT_TOOLS_SIZE_MB;
+        String envValue = System.getenv(AGENT_TOOLS_SIZE_ENV_VAR);
+        if (StringUtils.isNotBlank(envValue)) {
+            try {
+                sizeMb = Math.max(0, Long.parseLong(envValue.trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.warning(AGENT_TOOLS_SIZE_ENV_VAR + "=" + envValue + " is not a valid integer, using default " + DEFAULT_AGENT_TOOLS_SIZE_MB + " MB");
+            }
+        }
+        return sizeMb * 1024 * 1024;
+    }
 
-            return logFile.getPath();
-        } catch (Exception e) {
-            // Non-Pipeline build or different Jenkins version — fall back gracefully
-            LOGGER.fine("Could not determine pipeline run ID: " + e.getMessage());
-            return null;
+    /**
+     * Returns the age in milliseconds after which abandoned temporary files are deleted.
+     * Reads {@value #TEMP_MAX_AGE_ENV_VAR} from the environment; falls back to
+     * {@value #DEFAULT_TEMP_MAX_AGE_HOURS} hours if the variable is absent, invalid or less than 1.
+     */
+    static long getTempMaxAgeMillis() {
+        String envValue = System.getenv(TEMP_MAX_AGE_ENV_VAR);
+        if (StringUtils.isNotBlank(envValue)) {
+            try {
+                int parsed = Integer.parseInt(envValue.trim());
+                if (parsed >= 1) {
+                    return TimeUnit.HOURS.toMillis(parsed);
+                }
+                LOGGER.warning(TEMP_MAX_AGE_ENV_VAR + "=" + envValue + " is less than 1, using default " + DEFAULT_TEMP_MAX_AGE_HOURS + " hours");
+            } catch (NumberFormatException e) {
+                LOGGER.warning(TEMP_MAX_AGE_ENV_VAR + "=" + envValue + " is not a valid integer, using default " + DEFAULT_TEMP_MAX_AGE_HOURS + " hours");
+            }
         }
+        return TimeUnit.HOURS.toMillis(DEFAULT_TEMP_MAX_AGE_HOURS);
     }
 
-    private static void markVerified(String cacheKey, String currentRunId) {
-        if (currentRunId == null) {
+    /**
+     * Deletes abandoned temporary files and evicts the least recently used CLI binaries in the directory that
+     * contains the tool directories (see {@link CliToolJanitor}).
+     * Failures are logged and ignored, as the cleanup is only a housekeeping task.
+     *
+     * @param toolsRoot       - The directory that contains the tool directories
+     * @param keepToolDirName - The name of a tool directory that must not be evicted, or null
+     */
+    static void cleanToolDirectories(FilePath toolsRoot, String keepToolDirName, TaskListener log) throws InterruptedException {
+        if (toolsRoot == null) {
             return;
         }
-        VERIFIED_IN_RUN.put(cacheKey, currentRunId);
+        try {
+            toolsRoot.act(new CliToolJanitor(getToolsMaxBytes(), getTempMaxAgeMillis(), getContentStoreMaxBytes(), keepToolDirName, log));
+        } catch (IOException e) {
+            LOGGER.warning("Failed to clean up the JFrog CLI tool directories in " + toolsRoot.getRemote() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Installs the CLI from the controller-side binary cache, if enabled.
+     * Any failure is logged and reported as "not installed", so the caller falls back to downloading on the agent.
+     *
+     * @return true if the CLI was installed from the controller cache.
+     */
+    private static boolean installFromControllerCache(FilePath toolLocation, TaskListener log, String version,
+                                                      JFrogPlatformInstance instance, String repository,
+                                                      String binaryName, String agentOs) throws InterruptedException {
+        if (!ControllerCliCache.isEnabled()) {
+            return false;
+        }
+        try {
+            return ControllerCliCache.install(toolLocation, log, version, instance, repository, binaryName, agentOs);
+        } catch (IOException e) {
+            log.getLogger().println("[BinaryInstaller] WARNING: Installation from the controller cache failed (" + e.getMessage() +
+                    "), downloading directly on the agent");
+            return false;
+        }
+    }
+
+    /**
+     * Returns the externalizable ID of the build this installation runs for (e.g. "folder/job#42"), so that the CLI is
+     * verified once per build rather than once per stage or step.
+     * <p>
+     * Freestyle and Matrix builds install their tools on the executor thread of the build. Pipeline 'tool' steps run
+     * on other threads, so their build is the one {@link ToolStepListener} recorded for the listener of the step.
+     * The build is never guessed from the executors of the node, which may run several builds, or several branches
+     * of the same build.
+     * <p>
+     * Returns null if the build can't be identified. The caller treats null as "don't cache".
+     *
+     * @param log - The listener the tool installer received.
+     */
+    static String getCurrentRunId(TaskListener log) {
+        Executor executor = Executor.currentExecutor();
+        if (executor != null) {
+            Run<?, ?> run = getRootRun(executor.getCurrentExecutable());
+            if (run != null) {
+                return run.getExternalizableId();
+            }
+        }
+        String runId = ToolStepListener.getRunId(log);
+        if (runId == null) {
+            LOGGER.fine("Could not determine the build of the JFrog CLI installation");
+        }
+        return runId;
+    }
+
+    /**
+     * Returns the top-level build of an executable, e.g. the Pipeline run of a 'node' block, or the Matrix build of
+     * a Matrix configuration run if the Matrix plugin reports it as the parent.
+     */
+    private static Run<?, ?> getRootRun(Queue.Executable executable) {
+        Run<?, ?> run = null;
+        // Bounded, in case of a cyclic parent chain
+        for (int depth = 0; executable != null && depth < 10; depth++) {
+            if (executable instanceof Run) {
+                run = (Run<?, ?>) executable;
+            }
+            executable = executable.getParentExecutable();
+        }
+        return run;
+    }
+
+    /**
+     * Same as {@link #getExpectedSha256}, but returns null on failure, so that the downloader will send the
+     * HEAD request itself.
+     */
+    private static String getExpectedSha256OrNull(JFrogPlatformInstance instance, String repository, String version,
+                                                  String agentOsDetails, String binaryName, TaskListener log) throws InterruptedException {
+        try {
+            return getExpectedSha256(instance, repository, version, agentOsDetails, binaryName, log);
+        } catch (IOException e) {
+            LOGGER.fine("Failed to get the expected CLI sha256 on the controller: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
      * Creates a unique lock key for the installation location.
      * Version is excluded so all operations targeting the same binary path are serialized.
+     * The node is included, as agents commonly share the same tool paths.
      */
-    private static String createLockKey(FilePath toolLocation, String binaryName) {
+    private static String createLockKey(String node, FilePath toolLocation, String binaryName) {
         try {
-            return toolLocation.getRemote() + "/" + binaryName;
+            return node + ":" + toolLocation.getRemote() + "/" + binaryName;
         } catch (Exception e) {
             // Fallback to a simpler key if remote path access fails
-            return "unknown-tool-location/" + binaryName;
+            return node + ":unknown-tool-location/" + binaryName;
         }
     }
+
+    /**
+     * Identifies the binary an installation installs. Callers with the same target can share a single installation.
+     */
+    private static String createInstallTarget(JFrogPlatformInstance instance, String repository, String version, String agentOs) {
+        return instance.inferArtifactoryUrl() + createCliUrlSuffix(repository, version, agentOs, "");
+    }
     
     /**
-     * Checks if a valid CLI installation already exists at the specified location.
-     * 
-     * @param cliPath Path to the CLI binary
-     * @param log Task listener for logging
-     * @return true if valid CLI exists, false otherwise
+     * Collects the OS of the agent and the state of the installed CLI in a single agent call (see {@link CliInstallProbe}).
+     *
+     * @return the probe result, or null if the agent couldn't be probed.
      */
+    private static CliInstallProbe.Result probe(FilePath toolLocation, String binaryName) throws InterruptedException {
+        try {
+            return toolLocation.act(new CliInstallProbe(binaryName, getTempMaxAgeMillis()));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warning("Failed to probe the JFrog CLI installation: " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
-     * Checks existence, size (> 1 MB), and executable permission in a single agent RPC.
+     * Records that the build uses the installed CLI, so that it is not evicted (see {@link CliToolUse}).
+     *
+     * @return the content of the sha256 file of the binary, an empty string if there is none, or null if the binary
+     * is not installed or the agent couldn't be reached.
      */
-    private static boolean isValidCliInstallation(FilePath cliPath, TaskListener log) {
+    private static String useInstalledCli(FilePath toolLocation, String binaryName) throws InterruptedException {
         try {
-            long[] result = cliPath.act(new MasterToSlaveFileCallable<long[]>() {
-                @Override
-                public long[] invoke(File file, VirtualChannel channel) {
-                    if (!file.exists() || file.isDirectory()) {
-                        return new long[]{0, 0};
-                    }
-                    String name = file.getName().toLowerCase();
-                    boolean executable = name.endsWith(".exe") || file.canExecute();
-                    return new long[]{file.length(), executable ? 1 : 0};
-                }
-            });
-            if (result[0] > 1024 * 1024 && result[1] == 1) {
-                log.getLogger().println("[BinaryInstaller] Found existing CLI: " + cliPath.getRemote() +
-                        " (size: " + (result[0] / 1024 / 1024) + "MB)");
-                return true;
-            }
-        } catch (Exception e) {
-            LOGGER.warning("Failed to check existing CLI installation: " + e.getMessage());
+            return toolLocation.act(new CliToolUse(binaryName));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warning("Failed to check the JFrog CLI installation: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Same as {@link #isValidCliInstallation(CliInstallProbe.Result, FilePath, TaskListener)}, with a new probe of the tool location.
+     */
+    private static boolean isValidCliInstallation(FilePath toolLocation, FilePath cliPath, TaskListener log) throws InterruptedException {
+        return isValidCliInstallation(probe(toolLocation, cliPath.getName()), cliPath, log);
+    }
+
+    /**
+     * Checks existence, size (> 1 MB), executable permission and integrity of the installed CLI.
+     * The binary is checked against its sha256 file, but is only rehashed if its size, modification time or inode
+     * changed since it was last verified (see {@link ChecksumUtils#verifyInstalledBinary(File)}).
+     *
+     * @param probe   The probe of the tool location, null if it failed
+     * @param cliPath Path to the CLI binary
+     * @param log     Task listener for logging
+     * @return true if valid CLI exists, false otherwise
+     */
+    private static boolean isValidCliInstallation(CliInstallProbe.Result probe, FilePath cliPath, TaskListener log) {
+        if (probe == null) {
+            return false;
+        }
+        if (probe.getSize() > 0 && !probe.isIntact()) {
+            log.getLogger().println("[BinaryInstaller] Existing CLI doesn't match its sha256, it will be re-installed: " + cliPath.getRemote());
+            return false;
+        }
+        if (probe.getSize() > 1024 * 1024 && probe.isExecutable()) {
+            log.getLogger().println("[BinaryInstaller] Found existing CLI: " + cliPath.getRemote() +
+                    " (size: " + (probe.getSize() / 1024 / 1024) + "MB)");
+            return true;
         }
         return false;
     }
-    
+
     /**
      * Check if the installed CLI is the correct version by comparing SHA256 hashes.
      * This prevents unnecessary downloads when the CLI is already up-to-date.
-     * 
-     * @param toolLocation Directory containing the CLI
+     *
+     * @param probe The probe of the tool location, with the local sha256
      * @param instance JFrog platform instance for version checking
      * @param repository Repository containing the CLI
      * @param version Version to check
@@ -387,51 +783,20 @@ public abstract class BinaryInstaller extends ToolInstaller {
      * @param log Task listener for logging
      * @return true if CLI is the correct version, false otherwise
      */
-    private static boolean isCorrectVersion(FilePath toolLocation, JFrogPlatformInstance instance,
-                                          String repository, String version, String binaryName,
-                                          String agentOsDetails, TaskListener log) {
+    private static boolean isCorrectVersion(CliInstallProbe.Result probe, JFrogPlatformInstance instance,
+                                            String repository, String version, String binaryName,
+                                            String agentOsDetails, TaskListener log) {
         try {
-            JenkinsProxyConfiguration proxyConfiguration = new JenkinsProxyConfiguration();
-            String cliUrlSuffix = String.format("/%s/v2-jf/%s/jfrog-cli-%s/%s", repository,
-                                               StringUtils.defaultIfBlank(version, "[RELEASE]"),
-                                               agentOsDetails, binaryName);
-            
-            JenkinsBuildInfoLog buildInfoLog = new JenkinsBuildInfoLog(log);
-            String artifactoryUrl = instance.inferArtifactoryUrl();
-            
-            try (ArtifactoryManager manager = new ArtifactoryManager(artifactoryUrl, 
-                    Secret.toString(instance.getCredentialsConfig().getUsername()),
-                    Secret.toString(instance.getCredentialsConfig().getPassword()), 
-                    Secret.toString(instance.getCredentialsConfig().getAccessToken()), buildInfoLog)) {
-                
-                if (proxyConfiguration.isProxyConfigured(artifactoryUrl)) {
-                    manager.setProxyConfiguration(proxyConfiguration);
+            // Get expected SHA256 from Artifactory (cached controller-wide for a short TTL)
+            String expectedSha256 = getExpectedSha256(instance, repository, version, agentOsDetails, binaryName, log);
+            if (expectedSha256.isEmpty()) {
+                log.getLogger().println("[BinaryInstaller] WARNING: No SHA256 available from server — cannot verify version, assuming up-to-date (upgrade may be delayed)");
+                if (probe.isStaleSha256FileDeleted()) {
+                    log.getLogger().println("[BinaryInstaller] Cleaned up stale 0-byte sha256 file");
                 }
-                
-                // Get expected SHA256 from Artifactory
-                String expectedSha256 = getArtifactSha256(manager, cliUrlSuffix);
-                if (expectedSha256.isEmpty()) {
-                    log.getLogger().println("[BinaryInstaller] WARNING: No SHA256 available from server — cannot verify version, assuming up-to-date (upgrade may be delayed)");
-                    // Clean up stale 0-byte sha256 file left by older plugin versions
-                    cleanupStaleSha256File(toolLocation, log);
-                    return true;
-                }
-                
-                // Check local SHA256 file
-                return toolLocation.act(new MasterToSlaveFileCallable<Boolean>() {
-                    @Override
-                    public Boolean invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
-                        File sha256File = new File(f, "sha256");
-                        if (!sha256File.exists()) {
-                            return false;
-                        }
-                        
-                        String localSha256 = new String(Files.readAllBytes(sha256File.toPath()), StandardCharsets.UTF_8);
-                        return StringUtils.equals(expectedSha256, localSha256);
-                    }
-                });
+                return true;
             }
-            
+            return StringUtils.equals(expectedSha256, probe.getLocalSha256());
         } catch (Exception e) {
             log.getLogger().println("[BinaryInstaller] Version check failed: " + e.getMessage() + ", proceeding with download check");
             return false; // If version check fails, let download process handle it
@@ -439,45 +804,109 @@ public abstract class BinaryInstaller extends ToolInstaller {
     }
 
     /**
-     * Removes a stale 0-byte sha256 file left behind by older plugin versions.
-     * The file has no effect on current behaviour but can confuse operators inspecting
-     * the tool directory.
+     * Returns the sha256 of the CLI binary in Artifactory.
+     * The HEAD request is sent at most once per {@link Sha256LookupCache} TTL for each binary, with the shared client
+     * of the Artifactory host (see {@link ArtifactoryHttpClients}).
+     *
+     * @return the sha256, or an empty string if the server did not provide one.
      */
-    private static void cleanupStaleSha256File(FilePath toolLocation, TaskListener log) {
-        try {
-            toolLocation.act(new MasterToSlaveFileCallable<Void>() {
-                @Override
-                public Void invoke(File f, VirtualChannel channel) throws IOException {
-                    File sha256File = new File(f, "sha256");
-                    if (sha256File.exists() && sha256File.length() == 0) {
-                        if (sha256File.delete()) {
-                            log.getLogger().println("[BinaryInstaller] Cleaned up stale 0-byte sha256 file");
-                        }
-                    }
-                    return null;
-                }
-            });
-        } catch (Exception e) {
-            // Best-effort cleanup — not worth failing the build
-            LOGGER.warning("Failed to clean up stale sha256 file: " + e.getMessage());
+    static String getExpectedSha256(JFrogPlatformInstance instance, String repository, String version,
+                                    String agentOsDetails, String binaryName, TaskListener log) throws IOException, InterruptedException {
+        String cliUrlSuffix = createCliUrlSuffix(repository, version, agentOsDetails, binaryName);
+        String artifactoryUrl = instance.inferArtifactoryUrl();
+        return Sha256LookupCache.lookup(artifactoryUrl + cliUrlSuffix, () -> {
+            JenkinsProxyConfiguration proxyConfiguration = new JenkinsProxyConfiguration();
+            return ArtifactoryHttpClients.getSha256(artifactoryUrl + cliUrlSuffix,
+                    Secret.toString(instance.getCredentialsConfig().getUsername()),
+                    Secret.toString(instance.getCredentialsConfig().getPassword()),
+                    Secret.toString(instance.getCredentialsConfig().getAccessToken()),
+                    proxyConfiguration.isProxyConfigured(artifactoryUrl) ? proxyConfiguration : null);
+        });
+    }
+
+    /**
+     * @return the path of the CLI binary in the repository, for example "/jfrog-cli/v2-jf/[RELEASE]/jfrog-cli-linux-amd64/jf".
+     */
+    static String createCliUrlSuffix(String repository, String version, String agentOsDetails, String binaryName) {
+        return String.format("/%s/v2-jf/%s/jfrog-cli-%s/%s", repository,
+                StringUtils.defaultIfBlank(version, "[RELEASE]"), agentOsDetails, binaryName);
+    }
+
+    /**
+     * Creates an ArtifactoryManager for the given instance, using the Jenkins proxy configuration.
+     * Must be called on the controller.
+     */
+    static ArtifactoryManager createArtifactoryManager(JFrogPlatformInstance instance, TaskListener log) {
+        JenkinsProxyConfiguration proxyConfiguration = new JenkinsProxyConfiguration();
+        String artifactoryUrl = instance.inferArtifactoryUrl();
+        ArtifactoryManager manager = new ArtifactoryManager(artifactoryUrl,
+                Secret.toString(instance.getCredentialsConfig().getUsername()),
+                Secret.toString(instance.getCredentialsConfig().getPassword()),
+                Secret.toString(instance.getCredentialsConfig().getAccessToken()), new JenkinsBuildInfoLog(log));
+        if (proxyConfiguration.isProxyConfigured(artifactoryUrl)) {
+            manager.setProxyConfiguration(proxyConfiguration);
         }
+        return manager;
+    }
+
+    enum InstallResult {
+        /**
+         * The CLI was installed and is up-to-date.
+         */
+        VERIFIED,
+        /**
+         * The installation failed, but an existing binary can be used.
+         */
+        FALLBACK,
+        /**
+         * The installation failed and there is no binary to use.
+         */
+        FAILED,
+        /**
+         * The build that ran the installation was aborted.
+         */
+        ABORTED,
+        TIMED_OUT
+    }
+
+    /**
+     * The installation run by the leader of a tool location, see {@link #installSingleFlight}.
+     */
+    @FunctionalInterface
+    interface LeaderInstallation {
+        /**
+         * @param installation - The in-flight installation, used to report progress to the waiting callers
+         * @param recheck      - True if another installation completed since the caller checked the installed version
+         * @return true if the CLI is installed and up-to-date, false if the installation failed but an existing binary can be used.
+         * @throws IOException if the installation failed and there is no existing binary to fall back to
+         */
+        boolean install(InFlightInstallation installation, boolean recheck) throws IOException, InterruptedException;
     }
 
     /**
-     * Get SHA256 hash from Artifactory headers (same logic as in JFrogCliDownloader)
+     * An installation that is running for a node and tool location.
      */
-    private static String getArtifactSha256(ArtifactoryManager manager, String cliUrlSuffix) throws IOException {
-        Header[] headers = manager.downloadHeaders(cliUrlSuffix);
-        for (Header header : headers) {
-            String headerName = header.getName();
-            if (headerName.equalsIgnoreCase(SHA256_HEADER_NAME) ||
-                    headerName.equalsIgnoreCase("X-Artifactory-Checksum-Sha256")) {
-                return header.getValue();
+    static class InFlightInstallation {
+        /**
+         * Completes with true if the CLI was installed and is up-to-date, or false if an existing binary is used.
+         */
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private final String target;
+        private final String owner;
+        volatile String status = "starting";
+
+        private InFlightInstallation(String target, String owner) {
+            this.target = target;
+            this.owner = owner;
+        }
+
+        private String getFailureMessage() {
+            try {
+                future.getNow(null);
+                return "";
+            } catch (Exception e) {
+                return e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
             }
         }
-        return "";
     }
-    
 }
-
-
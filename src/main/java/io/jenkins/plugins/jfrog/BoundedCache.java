@@ -0,0 +1,158 @@
+package io.jenkins.plugins.jfrog;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * A concurrent map with a maximum size, that evicts the least recently used entries approximately.
+ * <p>
+ * Reads don't take any lock: a hit only records the time of the access in the entry, and at most once per
+ * {@link #ACCESS_GRANULARITY_NANOS}, so parallel reads of the same entry don't contend on it. When the cache grows past
+ * its maximum size by a margin, the writer that noticed it evicts the least recently used entries in a batch, down to
+ * the maximum size. Other writers don't wait for the eviction.
+ * <p>
+ * Eviction is approximate: accesses within the same {@link #ACCESS_GRANULARITY_NANOS} are not ordered, and the cache
+ * may hold slightly more entries than its maximum size between evictions.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+class BoundedCache<K, V> {
+    private static final long ACCESS_GRANULARITY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ConcurrentHashMap<K, Entry<V>> map = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final int maxSize;
+    /**
+     * The size above which entries are evicted. The margin above the maximum size amortizes the cost of an eviction
+     * over many writes.
+     */
+    private final int evictionThreshold;
+
+    BoundedCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.evictionThreshold = maxSize + Math.max(1, maxSize / 10);
+    }
+
+    V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.touch();
+        return entry.value;
+    }
+
+    /**
+     * @return the previous value, or null if there was none.
+     */
+    V put(K key, V value) {
+        Entry<V> previous = map.put(key, new Entry<>(value));
+        evictIfNeeded();
+        return previous == null ? null : previous.value;
+    }
+
+    /**
+     * @return the current value, or null if the value was added.
+     */
+    V putIfAbsent(K key, V value) {
+        Entry<V> current = map.putIfAbsent(key, new Entry<>(value));
+        if (current != null) {
+            return current.value;
+        }
+        evictIfNeeded();
+        return null;
+    }
+
+    /**
+     * Removes the entry if its value is equal to the given value.
+     *
+     * @return true if the entry was removed.
+     */
+    boolean remove(K key, V value) {
+        Entry<V> current = map.get(key);
+        return current != null && Objects.equals(current.value, value) && map.remove(key, current);
+    }
+
+    /**
+     * Removes the entries whose key matches the filter.
+     */
+    void removeKeysIf(Predicate<K> filter) {
+        map.keySet().removeIf(filter);
+    }
+
+    /**
+     * @return a copy of the entries, in no particular order.
+     */
+    List<Map.Entry<K, V>> snapshot() {
+        List<Map.Entry<K, V>> entries = new ArrayList<>(map.size());
+        map.forEach((key, entry) -> entries.add(new AbstractMap.SimpleImmutableEntry<>(key, entry.value)));
+        return entries;
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    void clear() {
+        map.clear();
+    }
+
+    private void evictIfNeeded() {
+        if (map.size() <= evictionThreshold || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int excess = map.size() - maxSize;
+            if (excess <= 0) {
+                return;
+            }
+            // The access times are copied, as they may change while the entries are sorted
+            List<Candidate<K, V>> candidates = new ArrayList<>(map.size());
+            map.forEach((key, entry) -> candidates.add(new Candidate<>(key, entry)));
+            candidates.sort(Comparator.comparingLong(candidate -> candidate.accessed));
+            for (int i = 0; i < excess && i < candidates.size(); i++) {
+                Candidate<K, V> eldest = candidates.get(i);
+                map.remove(eldest.key, eldest.entry);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static class Candidate<K, V> {
+        private final K key;
+        private final Entry<V> entry;
+        private final long accessed;
+
+        private Candidate(K key, Entry<V> entry) {
+            this.key = key;
+            this.entry = entry;
+            this.accessed = entry.accessed;
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private volatile long accessed = System.nanoTime();
+
+        private Entry(V value) {
+            this.value = value;
+        }
+
+        private void touch() {
+            long now = System.nanoTime();
+            if (now - accessed > ACCESS_GRANULARITY_NANOS) {
+                accessed = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package io.jenkins.plugins.jfrog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jenkins.plugins.jfrog.models.BuildInfoOutputModel;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.jfrog.build.extractor.BuildInfoExtractorUtils.createMapper;
+
+/**
+ * Finds the build-info URL in the output of 'jf rt build-publish', while the command prints it.
+ */
+public class BuildInfoOutputScanner extends JsonOutputScanner {
+    private static final ObjectMapper mapper = createMapper();
+    private volatile String buildInfoUrl;
+
+    @Override
+    protected void onObject(JsonNode object) {
+        try {
+            BuildInfoOutputModel buildInfoOutputModel = mapper.treeToValue(object, BuildInfoOutputModel.class);
+            if (buildInfoOutputModel != null && isNotBlank(buildInfoOutputModel.getBuildInfoUiUrl())) {
+                buildInfoUrl = buildInfoOutputModel.getBuildInfoUiUrl();
+            }
+        } catch (JsonProcessingException e) {
+            // Not the result of 'jf rt build-publish'
+        }
+    }
+
+    /**
+     * @return the build-info URL, or null if it was not found in the output.
+     */
+    public String getBuildInfoUrl() {
+        return buildInfoUrl;
+    }
+}
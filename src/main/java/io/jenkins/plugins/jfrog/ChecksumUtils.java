@@ -0,0 +1,116 @@
+package io.jenkins.plugins.jfrog;
+
+import hudson.Util;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Checksum helpers for JFrog CLI binaries.
+ * Safe to use both on the controller and inside agents.
+ */
+public class ChecksumUtils {
+    /**
+     * The name of the file that contains the JFrog CLI binary sha256, next to the binary.
+     */
+    public static final String SHA256_FILE_NAME = "sha256";
+    /**
+     * The name of the file that records the size, modification time and file key (inode) of the binary when its
+     * sha256 was last verified. As long as these don't change, the binary doesn't need to be hashed again.
+     */
+    public static final String VERIFICATION_STAMP_FILE_NAME = "sha256.stamp";
+    private static final String SHA256_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @return a new SHA-256 message digest.
+     */
+    public static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance(SHA256_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Calculate the sha256 of a file.
+     *
+     * @param file - The file to hash
+     * @return lowercase hex-encoded sha256 of the file content.
+     * @throws IOException if the file cannot be read.
+     */
+    public static String sha256Hex(File file) throws IOException {
+        MessageDigest digest = newSha256Digest();
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return Util.toHexString(digest.digest());
+    }
+
+    /**
+     * Proves the integrity of an installed binary against the sha256 file in its directory.
+     * The binary is hashed only if its size, modification time or file key changed since it was last verified.
+     *
+     * @param binary - The installed binary
+     * @return false if the binary doesn't match the recorded sha256. True if it matches, or if there is no recorded sha256.
+     * @throws IOException if the files cannot be read.
+     */
+    public static boolean verifyInstalledBinary(File binary) throws IOException {
+        File sha256File = new File(binary.getParentFile(), SHA256_FILE_NAME);
+        if (!sha256File.isFile()) {
+            return true;
+        }
+        String expectedSha256 = new String(Files.readAllBytes(sha256File.toPath()), StandardCharsets.UTF_8).trim();
+        if (expectedSha256.isEmpty()) {
+            return true;
+        }
+        File stampFile = new File(binary.getParentFile(), VERIFICATION_STAMP_FILE_NAME);
+        if (stampFile.isFile()) {
+            String stamp = new String(Files.readAllBytes(stampFile.toPath()), StandardCharsets.UTF_8);
+            if (stamp.equals(createVerificationStamp(binary, expectedSha256))) {
+                return true;
+            }
+        }
+        if (!StringUtils.equalsIgnoreCase(expectedSha256, sha256Hex(binary))) {
+            return false;
+        }
+        writeVerificationStamp(binary, expectedSha256);
+        return true;
+    }
+
+    /**
+     * Records that the binary was verified against the given sha256, so that it won't be hashed again until it changes.
+     *
+     * @param binary - The installed binary
+     * @param sha256 - The verified sha256
+     * @throws IOException if the stamp file cannot be written.
+     */
+    public static void writeVerificationStamp(File binary, String sha256) throws IOException {
+        File stampFile = new File(binary.getParentFile(), VERIFICATION_STAMP_FILE_NAME);
+        File tempFile = new File(binary.getParentFile(), VERIFICATION_STAMP_FILE_NAME + ".tmp");
+        Files.write(tempFile.toPath(), createVerificationStamp(binary, sha256).getBytes(StandardCharsets.UTF_8));
+        Files.move(tempFile.toPath(), stampFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String createVerificationStamp(File binary, String sha256) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(binary.toPath(), BasicFileAttributes.class);
+        // The file key is the device and inode on Unix. It is null on Windows.
+        Object fileKey = attributes.fileKey();
+        return StringUtils.lowerCase(sha256) + " " + attributes.size() + " " + attributes.lastModifiedTime().toMillis() +
+                " " + (fileKey == null ? "" : fileKey);
+    }
+}
@@ -0,0 +1,188 @@
+package io.jenkins.plugins.jfrog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import hudson.FilePath;
+import hudson.model.Job;
+import io.jenkins.plugins.jfrog.actions.JFrogCliConfigEncryption;
+import io.jenkins.plugins.jfrog.callables.JFrogCliConfigFileWriter;
+import io.jenkins.plugins.jfrog.configuration.Credentials;
+import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
+import io.jenkins.plugins.jfrog.plugins.PluginsUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.jenkinsci.plugins.plaincredentials.StringCredentials;
+import org.jfrog.build.client.Version;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Writes the JFrog CLI config of servers configured in Jenkins, as the 'jf c add' command would write it, so that
+ * configuring the servers doesn't take a 'jf c add' process per server.
+ * <p>
+ * The secrets are encrypted with the key of the run (see {@link JFrogCliConfigEncryption}), the way the CLI encrypts
+ * them: AES-256-GCM with a random 12-byte nonce, stored as the base64 of the nonce followed by the sealed secret.
+ * The format is only written for the CLI versions known to read it. Other versions are configured with 'jf c add'.
+ */
+public class CliConfigWriter {
+    /**
+     * The version of the config format.
+     */
+    static final String CONFIG_VERSION = "6";
+    static final String CONFIG_FILE_NAME = "jfrog-cli.conf.v" + CONFIG_VERSION;
+    /**
+     * The CLI versions that read the config format written here: from this version, and below the next major version.
+     */
+    static final Version MIN_CLI_VERSION = new Version("2.31.3");
+    static final Version UNSUPPORTED_CLI_VERSION = new Version("3.0.0");
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * @param cliVersion - The version of the CLI on the agent, or null if unknown
+     * @return true if the config of the CLI version can be written without running 'jf c add'.
+     */
+    static boolean isSupported(Version cliVersion) {
+        return cliVersion != null && cliVersion.isAtLeast(MIN_CLI_VERSION) && !cliVersion.isAtLeast(UNSUPPORTED_CLI_VERSION);
+    }
+
+    /**
+     * Adds servers to the config of the JFrog CLI home directory in a single call to the agent.
+     *
+     * @param jfrogHomeTempDir - The JFrog CLI home directory of the run, on the agent
+     * @param instances        - The servers to add
+     * @param defaultServerId  - The ID of the default server
+     * @param job              - The job, to look up the credentials of the servers
+     * @param encryption       - The encryption key of the run
+     * @return false if the servers could not be added, as the CLI converted the config to another format.
+     */
+    static boolean write(FilePath jfrogHomeTempDir, List<JFrogPlatformInstance> instances, String defaultServerId, Job<?, ?> job, JFrogCliConfigEncryption encryption) throws IOException, InterruptedException {
+        String key = encryption.shouldEncrypt() ? encryption.getKey() : null;
+        ArrayNode servers = MAPPER.createArrayNode();
+        for (JFrogPlatformInstance instance : instances) {
+            boolean isDefault = instance.getId().equals(defaultServerId);
+            String credentialsId = instance.getCredentialsConfig().getCredentialsId();
+            StringCredentials accessTokenCredentials = PluginsUtils.accessTokenCredentialsLookup(credentialsId, job);
+            if (accessTokenCredentials != null) {
+                servers.add(createServer(instance, null, null, accessTokenCredentials.getSecret().getPlainText(), isDefault, key));
+            } else {
+                Credentials credentials = PluginsUtils.credentialsLookup(credentialsId, job);
+                servers.add(createServer(instance, credentials.getPlainTextUsername(), credentials.getPlainTextPassword(), null, isDefault, key));
+            }
+        }
+        return jfrogHomeTempDir.act(new JFrogCliConfigFileWriter(CONFIG_FILE_NAME, createConfig(servers, key != null)));
+    }
+
+    static String createConfig(ArrayNode servers, boolean encrypted) throws IOException {
+        ObjectNode config = MAPPER.createObjectNode();
+        config.set("servers", servers);
+        config.put("version", CONFIG_VERSION);
+        if (encrypted) {
+            config.put("enc", true);
+        }
+        return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(config);
+    }
+
+    /**
+     * Creates the config of a server, with the values 'jf c add' would derive from its arguments: the URLs of all the
+     * services are derived from the platform URL, unless the Artifactory, Distribution or Xray URL is set. The fields
+     * are in the order the CLI writes them.
+     *
+     * @param instance    - The server
+     * @param user        - The username, or null when using an access token
+     * @param password    - The password, or null when using an access token
+     * @param accessToken - The access token, or null when using a username and password
+     * @param isDefault   - True for the default server. As with 'jf c add', it is the first server configured in Jenkins.
+     * @param key         - The encryption key, or null to leave the secrets in plain text
+     */
+    static ObjectNode createServer(JFrogPlatformInstance instance, String user, String password, String accessToken, boolean isDefault, String key) throws IOException {
+        String url = addTrailingSlash(instance.getUrl());
+        ObjectNode server = MAPPER.createObjectNode();
+        server.put("url", url);
+        server.put("artifactoryUrl", addTrailingSlash(instance.inferArtifactoryUrl()));
+        server.put("distributionUrl", addTrailingSlash(instance.inferDistributionUrl()));
+        server.put("xrayUrl", addTrailingSlash(instance.inferXrayUrl()));
+        server.put("missionControlUrl", url + "mc/");
+        server.put("pipelinesUrl", url + "pipelines/");
+        server.put("accessUrl", url + "access/");
+        server.put("lifecycleUrl", url + "lifecycle/");
+        if (StringUtils.isBlank(user) && StringUtils.isNotBlank(accessToken)) {
+            user = extractUsername(accessToken);
+        }
+        if (StringUtils.isNotBlank(user)) {
+            // Like 'jf c add', as Artifactory saves the usernames in lowercase
+            server.put("user", user.toLowerCase());
+        }
+        if (StringUtils.isNotEmpty(password)) {
+            server.put("password", encrypt(password, key));
+        }
+        if (StringUtils.isNotEmpty(accessToken)) {
+            server.put("accessToken", encrypt(accessToken, key));
+        }
+        server.put("serverId", instance.getId());
+        if (isDefault) {
+            // Like 'jf c add', which omits false values
+            server.put("isDefault", true);
+        }
+        return server;
+    }
+
+    /**
+     * Encrypts a secret the way the CLI does.
+     *
+     * @param secret - The secret
+     * @param key    - The 32 characters encryption key, or null to leave the secret in plain text
+     * @return the base64 of the nonce followed by the encrypted secret and its authentication tag.
+     */
+    static String encrypt(String secret, String key) throws IOException {
+        if (key == null) {
+            return secret;
+        }
+        try {
+            byte[] nonce = new byte[NONCE_LENGTH];
+            RANDOM.nextBytes(nonce);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "AES"), new GCMParameterSpec(TAG_LENGTH_BITS, nonce));
+            byte[] sealed = cipher.doFinal(secret.getBytes(StandardCharsets.UTF_8));
+            byte[] encrypted = new byte[nonce.length + sealed.length];
+            System.arraycopy(nonce, 0, encrypted, 0, nonce.length);
+            System.arraycopy(sealed, 0, encrypted, nonce.length, sealed.length);
+            return Base64.getEncoder().encodeToString(encrypted);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to encrypt the JFrog CLI config", e);
+        }
+    }
+
+    /**
+     * Extracts the username from the subject of an access token, for example "jfrt@01abc/users/admin".
+     * Like 'jf c add', leaves the username empty if the token is not a JWT.
+     */
+    static String extractUsername(String accessToken) {
+        String[] parts = StringUtils.split(accessToken, '.');
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            JsonNode payload = MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            String subject = payload.path("sub").asText("");
+            return subject.contains("/users/") ? StringUtils.substringAfterLast(subject, "/users/") : null;
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    private static String addTrailingSlash(String url) {
+        return StringUtils.appendIfMissing(url, "/");
+    }
+}
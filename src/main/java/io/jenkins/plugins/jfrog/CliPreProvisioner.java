@@ -0,0 +1,376 @@
+package io.jenkins.plugins.jfrog;
+
+import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Computer;
+import hudson.model.LoadBalancer;
+import hudson.model.Node;
+import hudson.model.Project;
+import hudson.model.Queue;
+import hudson.model.TaskListener;
+import hudson.model.queue.MappingWorksheet;
+import hudson.slaves.ComputerListener;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstaller;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.LogTaskListener;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Installs the JFrog CLI tools on the agents in the background, so that builds find the CLI already installed and
+ * up-to-date instead of downloading it in their critical path.
+ * <p>
+ * When enabled, the tools that have an automatic installer are installed:
+ * <ul>
+ *     <li>on every agent, as soon as it comes online,</li>
+ *     <li>on the node a queued item is about to be assigned to, if the item may use the CLI and the node wasn't
+ *     provisioned recently,</li>
+ *     <li>periodically on all online agents, for the tools that install the latest version ('[RELEASE]'), so that
+ *     new releases are installed off the build path.</li>
+ * </ul>
+ * Installations run on a fixed-size thread pool, so that a scale-up of many agents doesn't send all the downloads
+ * to Artifactory at once. The thread pool is shut down when Jenkins terminates. The installations themselves go
+ * through {@link BinaryInstaller}, so they are coordinated with the installations started by builds.
+ */
+public class CliPreProvisioner {
+    private static final Logger LOGGER = Logger.getLogger(CliPreProvisioner.class.getName());
+
+    /**
+     * Environment variable that enables the background pre-provisioning and sets the maximum number of concurrent
+     * installations. Pre-provisioning is disabled when the variable is absent, invalid or less than 1.
+     *
+     * <pre>
+     *   export JFROG_CLI_PREPROVISION_CONCURRENCY=4
+     * </pre>
+     */
+    static final String CONCURRENCY_ENV_VAR = "JFROG_CLI_PREPROVISION_CONCURRENCY";
+    private static final int MAX_CONCURRENCY = 32;
+
+    /**
+     * Environment variable that overrides the default interval (in minutes) of the background refresh of the tools
+     * that install the latest version. Set to 0 to disable the refresh.
+     *
+     * <pre>
+     *   export JFROG_CLI_REFRESH_INTERVAL_MINUTES=30
+     * </pre>
+     */
+    static final String REFRESH_INTERVAL_ENV_VAR = "JFROG_CLI_REFRESH_INTERVAL_MINUTES";
+    private static final int DEFAULT_REFRESH_INTERVAL_MINUTES = 60;
+
+    /**
+     * A node that was provisioned within this period is not provisioned again when a queued item is assigned to it.
+     */
+    private static final long PREFETCH_QUIET_PERIOD_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Key: node name, and the mode of the provisioning (see {@link #createScheduleKey}). Value: the last time the node
+     * was scheduled for provisioning in this mode.
+     * Makes sure that a node is queued at most once, no matter how many items are assigned to it. The refresh of the
+     * latest versions doesn't install all the tools, so it doesn't count as a provisioning of the assigned nodes.
+     */
+    private static final ConcurrentHashMap<String, Long> SCHEDULED = new ConcurrentHashMap<>();
+    private static volatile ExecutorService executor;
+
+    /**
+     * Replaces {@value #CONCURRENCY_ENV_VAR} when set to a positive value. Used by tests.
+     */
+    static volatile int concurrencyOverride;
+
+    /**
+     * Returns the maximum number of concurrent background installations, or 0 if pre-provisioning is disabled.
+     * Reads {@value #CONCURRENCY_ENV_VAR} from the environment. Values are clamped to 1-{@value #MAX_CONCURRENCY}.
+     */
+    static int getConcurrency() {
+        if (concurrencyOverride > 0) {
+            return Math.min(concurrencyOverride, MAX_CONCURRENCY);
+        }
+        String envValue = System.getenv(CONCURRENCY_ENV_VAR);
+        if (StringUtils.isBlank(envValue)) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Math.min(Integer.parseInt(envValue.trim()), MAX_CONCURRENCY));
+        } catch (NumberFormatException e) {
+            LOGGER.warning(CONCURRENCY_ENV_VAR + "=" + envValue + " is not a valid integer, JFrog CLI pre-provisioning is disabled");
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the interval of the background refresh in minutes, or 0 if the refresh is disabled.
+     * Reads {@value #REFRESH_INTERVAL_ENV_VAR} from the environment; falls back to
+     * {@value #DEFAULT_REFRESH_INTERVAL_MINUTES} minutes if the variable is absent or invalid.
+     */
+    static int getRefreshIntervalMinutes() {
+        String envValue = System.getenv(REFRESH_INTERVAL_ENV_VAR);
+        if (StringUtils.isNotBlank(envValue)) {
+            try {
+                return Math.max(0, Integer.parseInt(envValue.trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.warning(REFRESH_INTERVAL_ENV_VAR + "=" + envValue + " is not a valid integer, using default " + DEFAULT_REFRESH_INTERVAL_MINUTES + " minutes");
+            }
+        }
+        return DEFAULT_REFRESH_INTERVAL_MINUTES;
+    }
+
+    /**
+     * Schedules the installation of the JFrog CLI tools on the node.
+     *
+     * @param node             - The node to install on
+     * @param latestOnly       - If true, only the tools that install the latest version are installed
+     * @param quietPeriodMillis - Skip the node if it was scheduled within this period, in the same mode or, for the
+     *                          latest versions, for all the tools
+     * @return true if the installation was scheduled.
+     */
+    static boolean schedule(Node node, boolean latestOnly, long quietPeriodMillis) {
+        int concurrency = getConcurrency();
+        if (concurrency < 1 || node == null || node.getNumExecutors() < 1) {
+            return false;
+        }
+        String nodeName = StringUtils.defaultIfBlank(node.getNodeName(), "built-in");
+        long now = System.currentTimeMillis();
+        if (latestOnly && isRecent(SCHEDULED.get(createScheduleKey(nodeName, false)), now, quietPeriodMillis)) {
+            // All the tools, including the ones of the latest versions, were installed recently
+            return false;
+        }
+        String key = createScheduleKey(nodeName, latestOnly);
+        Long previous = SCHEDULED.get(key);
+        if (isRecent(previous, now, quietPeriodMillis)) {
+            return false;
+        }
+        boolean scheduled = previous == null ? SCHEDULED.putIfAbsent(key, now) == null : SCHEDULED.replace(key, previous, now);
+        if (!scheduled) {
+            // Scheduled concurrently by another thread
+            return false;
+        }
+        getExecutor(concurrency).submit(() -> provision(node, nodeName, latestOnly));
+        return true;
+    }
+
+    private static String createScheduleKey(String nodeName, boolean latestOnly) {
+        return latestOnly ? nodeName + " (latest)" : nodeName;
+    }
+
+    private static boolean isRecent(Long scheduledAt, long now, long quietPeriodMillis) {
+        return scheduledAt != null && now - scheduledAt < quietPeriodMillis;
+    }
+
+    /**
+     * Forgets when the node was scheduled, in all modes.
+     */
+    private static void forget(Computer computer) {
+        String nodeName = StringUtils.defaultIfBlank(computer.getName(), "built-in");
+        SCHEDULED.remove(createScheduleKey(nodeName, false));
+        SCHEDULED.remove(createScheduleKey(nodeName, true));
+    }
+
+    /**
+     * Returns the thread pool of the installations. Its size is the concurrency at the time of the first installation.
+     */
+    private static synchronized ExecutorService getExecutor(int concurrency) {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(concurrency,
+                    new NamingThreadFactory(new DaemonThreadFactory(), "jfrog-cli-preprovision"));
+        }
+        return executor;
+    }
+
+    private static void provision(Node node, String nodeName, boolean latestOnly) {
+        Computer computer = node.toComputer();
+        if (computer == null || computer.isOffline()) {
+            return;
+        }
+        TaskListener listener = new LogTaskListener(LOGGER, Level.FINE);
+        for (JfrogInstallation installation : getAutomaticInstallations(latestOnly)) {
+            try {
+                LOGGER.fine("Pre-provisioning JFrog CLI tool '" + installation.getName() + "' on node: " + nodeName);
+                installation.forNode(node, listener);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // The build will retry the installation in its own critical path
+                LOGGER.log(Level.WARNING, "Failed to pre-provision JFrog CLI tool '" + installation.getName() + "' on node " + nodeName, e);
+            }
+        }
+    }
+
+    /**
+     * @param latestOnly - If true, return only the tools that install the latest version
+     * @return the configured JFrog CLI tools that have an automatic installer.
+     */
+    private static List<JfrogInstallation> getAutomaticInstallations(boolean latestOnly) {
+        List<JfrogInstallation> installations = new ArrayList<>();
+        JfrogInstallation.DescriptorImpl descriptor = Jenkins.get().getDescriptorByType(JfrogInstallation.DescriptorImpl.class);
+        if (descriptor == null) {
+            return installations;
+        }
+        for (JfrogInstallation installation : descriptor.getInstallations()) {
+            InstallSourceProperty installSource = installation.getProperties().get(InstallSourceProperty.class);
+            if (installSource == null) {
+                // Manual installation
+                continue;
+            }
+            for (ToolInstaller installer : installSource.installers) {
+                if (installer instanceof BinaryInstaller && (!latestOnly || installsLatestVersion(installer))) {
+                    installations.add(installation);
+                    break;
+                }
+            }
+        }
+        return installations;
+    }
+
+    /**
+     * @return true if the installer installs the latest JFrog CLI version ('[RELEASE]').
+     */
+    static boolean installsLatestVersion(ToolInstaller installer) {
+        if (installer instanceof MultiSourceInstaller) {
+            return StringUtils.isBlank(((MultiSourceInstaller) installer).getVersion());
+        }
+        return installer instanceof ArtifactoryInstaller && StringUtils.isBlank(((ArtifactoryInstaller) installer).getVersion());
+    }
+
+    /**
+     * Stops the installations when Jenkins terminates.
+     */
+    @Terminator
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Drops the thread pool and the scheduled nodes. Used by tests.
+     */
+    static synchronized void reset() {
+        shutdown();
+        SCHEDULED.clear();
+    }
+
+    /**
+     * @return false if the task is known not to use JFrog CLI: a Freestyle project without a JFrog CLI build step,
+     * wrapper or publisher. The tools of Pipelines and of other types of jobs are only known when they run, so they
+     * may use it.
+     */
+    static boolean mayUseJfrogCli(Queue.Task task) {
+        Queue.Task ownerTask = task.getOwnerTask();
+        if (!(ownerTask instanceof Project)) {
+            return true;
+        }
+        Project<?, ?> project = (Project<?, ?>) ownerTask;
+        return project.getBuildersList().get(JfrogBuilder.class) != null ||
+                project.getBuildWrappersList().get(JfrogCliWrapper.class) != null ||
+                project.getPublishersList().get(JfrogBuildInfoPublisher.class) != null;
+    }
+
+    /**
+     * Provisions agents as soon as they come online.
+     */
+    @Extension
+    @SuppressWarnings("unused")
+    public static class OnlineListener extends ComputerListener {
+        @Override
+        public void onOnline(Computer computer, TaskListener listener) {
+            // Always provision a node that (re)connects, as it may be a fresh cloud agent with the same name
+            forget(computer);
+            schedule(computer.getNode(), false, 0);
+        }
+
+        @Override
+        public void onOffline(Computer computer, OfflineCause cause) {
+            forget(computer);
+        }
+    }
+
+    /**
+     * Decorates the load balancer of the queue with an {@link AssignmentLoadBalancer}.
+     */
+    @Initializer(after = InitMilestone.EXTENSIONS_AUGMENTED)
+    public static void decorateLoadBalancer() {
+        Queue queue = Jenkins.get().getQueue();
+        if (!(queue.getLoadBalancer() instanceof AssignmentLoadBalancer)) {
+            queue.setLoadBalancer(new AssignmentLoadBalancer(queue.getLoadBalancer()));
+        }
+    }
+
+    /**
+     * Provisions the node a queued item is about to be assigned to. The load balancer maps the item to the executors
+     * of a node, and the item then leaves the queue to start on them. The mapping of the decorated load balancer is
+     * kept as it is, and the item is never blocked: a build that starts installing the CLI before the provisioning
+     * completes waits for the same installation (see {@link BinaryInstaller}). Runs while the queue is locked, so it
+     * only records the node and hands the installation to the thread pool.
+     */
+    static class AssignmentLoadBalancer extends LoadBalancer {
+        private final LoadBalancer delegate;
+
+        AssignmentLoadBalancer(LoadBalancer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public MappingWorksheet.Mapping map(Queue.Task task, MappingWorksheet worksheet) {
+            MappingWorksheet.Mapping mapping = delegate.map(task, worksheet);
+            // Flyweight tasks, such as the Pipeline runs themselves, don't run tools on their executor
+            if (mapping == null || task instanceof Queue.FlyweightTask || getConcurrency() < 1 || !mayUseJfrogCli(task)) {
+                return mapping;
+            }
+            for (int i = 0; i < mapping.size(); i++) {
+                MappingWorksheet.ExecutorChunk chunk = mapping.assigned(i);
+                if (chunk != null) {
+                    schedule(chunk.node, false, PREFETCH_QUIET_PERIOD_MILLIS);
+                }
+            }
+            return mapping;
+        }
+    }
+
+    /**
+     * Periodically upgrades the tools that install the latest version on all online nodes.
+     */
+    @Extension
+    @SuppressWarnings("unused")
+    public static class RefreshWork extends AsyncPeriodicWork {
+        public RefreshWork() {
+            super("JFrog CLI refresh");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            int intervalMinutes = getRefreshIntervalMinutes();
+            // A disabled refresh still wakes up once a day, and does nothing
+            return TimeUnit.MINUTES.toMillis(intervalMinutes > 0 ? intervalMinutes : TimeUnit.DAYS.toMinutes(1));
+        }
+
+        @Override
+        protected void execute(TaskListener listener) {
+            int intervalMinutes = getRefreshIntervalMinutes();
+            if (intervalMinutes < 1 || getConcurrency() < 1) {
+                return;
+            }
+            // Let the refresh of a node that was provisioned a moment ago be skipped
+            long quietPeriodMillis = TimeUnit.MINUTES.toMillis(intervalMinutes) / 2;
+            for (Computer computer : Jenkins.get().getComputers()) {
+                if (computer.isOnline()) {
+                    schedule(computer.getNode(), true, quietPeriodMillis);
+                }
+            }
+        }
+    }
+}
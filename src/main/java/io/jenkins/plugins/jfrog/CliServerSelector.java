@@ -0,0 +1,117 @@
+package io.jenkins.plugins.jfrog;
+
+import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Selects the JFrog Platform instances a JFrog CLI command needs, so that a step only configures those instances.
+ * <p>
+ * A command needs the default instance, which is the first instance configured in Jenkins, and the instances it
+ * references: with the server ID options of the command (for example '--server-id' or '--server-id-deploy'), in its
+ * spec files, or in the build tool configs of the working directory (for example '.jfrog/projects/maven.yaml').
+ * The 'jf config' commands need all the instances.
+ */
+public class CliServerSelector {
+    private static final String SERVER_ID_OPTION = "--server-id";
+    private static final String SPEC_OPTION = "--spec";
+    private static final Set<String> CONFIG_COMMANDS = Set.of("c", "config");
+
+    /**
+     * @return the server IDs set with the server ID options of the command, for example '--server-id=server-1' or
+     * '--server-id-resolve server-2'.
+     */
+    static Set<String> getServerIds(String[] args) {
+        Set<String> serverIds = new HashSet<>();
+        for (int i = 0; i < args.length; i++) {
+            String option = StringUtils.substringBefore(args[i], "=");
+            if (!option.startsWith(SERVER_ID_OPTION)) {
+                continue;
+            }
+            String value = getOptionValue(args, i);
+            if (StringUtils.isNotBlank(value)) {
+                serverIds.add(value);
+            }
+        }
+        return serverIds;
+    }
+
+    /**
+     * @return the paths of the spec files of the command, as provided with the '--spec' option.
+     */
+    static List<String> getSpecFiles(String[] args) {
+        List<String> specFiles = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!SPEC_OPTION.equals(StringUtils.substringBefore(args[i], "="))) {
+                continue;
+            }
+            String value = getOptionValue(args, i);
+            if (StringUtils.isNotBlank(value)) {
+                specFiles.add(value);
+            }
+        }
+        return specFiles;
+    }
+
+    /**
+     * Returns the value of the option at the given index, in the form '--option=value' or '--option value'.
+     */
+    private static String getOptionValue(String[] args, int index) {
+        if (args[index].contains("=")) {
+            return StringUtils.substringAfter(args[index], "=");
+        }
+        if (index + 1 < args.length && !args[index + 1].startsWith("-")) {
+            return args[index + 1];
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the command needs all the instances, for example 'jf c show'.
+     */
+    static boolean requiresAllServers(String[] args) {
+        return args.length == 0 || CONFIG_COMMANDS.contains(args[0]);
+    }
+
+    /**
+     * Selects the instances a command needs, in the order they are configured in Jenkins.
+     *
+     * @param instances  - The instances configured in Jenkins
+     * @param args       - The arguments of the command
+     * @param referenced - The server IDs referenced in the spec files and the build tool configs of the command
+     * @return the default instance, followed by the other instances the command needs.
+     */
+    static List<JFrogPlatformInstance> select(List<JFrogPlatformInstance> instances, String[] args, Collection<String> referenced) {
+        if (instances.isEmpty() || requiresAllServers(args)) {
+            return instances;
+        }
+        Set<String> serverIds = getServerIds(args);
+        serverIds.addAll(referenced);
+        List<JFrogPlatformInstance> selected = new ArrayList<>();
+        selected.add(instances.get(0));
+        for (JFrogPlatformInstance instance : instances.subList(1, instances.size())) {
+            if (serverIds.contains(instance.getId())) {
+                selected.add(instance);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * @return the instances that are not in the given set of configured server IDs.
+     */
+    static List<JFrogPlatformInstance> getMissing(List<JFrogPlatformInstance> instances, Collection<String> configured) {
+        List<JFrogPlatformInstance> missing = new ArrayList<>();
+        for (JFrogPlatformInstance instance : instances) {
+            if (!configured.contains(instance.getId())) {
+                missing.add(instance);
+            }
+        }
+        return missing;
+    }
+}
@@ -0,0 +1,77 @@
+package io.jenkins.plugins.jfrog;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstaller;
+import hudson.util.LogTaskListener;
+import jenkins.model.Jenkins;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically reclaims disk space in the JFrog CLI tool directories of all online nodes: deletes the temporary files
+ * of interrupted downloads, and evicts the least recently used CLI binaries when the agent exceeds its budget.
+ * The same cleanup also runs on the agent after each installation (see {@link BinaryInstaller}).
+ */
+@Extension
+@SuppressWarnings("unused")
+public class CliToolCleanup extends AsyncPeriodicWork {
+    private static final Logger LOGGER = Logger.getLogger(CliToolCleanup.class.getName());
+
+    public CliToolCleanup() {
+        super("JFrog CLI tool cleanup");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.HOURS.toMillis(6);
+    }
+
+    @Override
+    protected void execute(TaskListener listener) throws InterruptedException {
+        for (Computer computer : Jenkins.get().getComputers()) {
+            Node node = computer.getNode();
+            if (node != null && computer.isOnline()) {
+                clean(node);
+            }
+        }
+    }
+
+    /**
+     * Cleans the directories that contain the JFrog CLI tool directories of the node.
+     * Tools that share a parent directory are cleaned once.
+     */
+    static void clean(Node node) throws InterruptedException {
+        TaskListener listener = new LogTaskListener(LOGGER, Level.FINE);
+        JfrogInstallation.DescriptorImpl descriptor = Jenkins.get().getDescriptorByType(JfrogInstallation.DescriptorImpl.class);
+        if (descriptor == null) {
+            return;
+        }
+        Set<String> cleanedRoots = new HashSet<>();
+        for (JfrogInstallation installation : descriptor.getInstallations()) {
+            InstallSourceProperty installSource = installation.getProperties().get(InstallSourceProperty.class);
+            if (installSource == null) {
+                // Manual installation, not managed by the plugin
+                continue;
+            }
+            for (ToolInstaller installer : installSource.installers) {
+                if (!(installer instanceof BinaryInstaller)) {
+                    continue;
+                }
+                FilePath toolsRoot = ((BinaryInstaller) installer).getToolsRoot(installation, node);
+                if (toolsRoot != null && cleanedRoots.add(toolsRoot.getRemote())) {
+                    BinaryInstaller.cleanToolDirectories(toolsRoot, null, listener);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package io.jenkins.plugins.jfrog;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.jfrog.callables.BinaryDelta;
+import io.jenkins.plugins.jfrog.callables.JFrogCliCacheInstaller;
+import io.jenkins.plugins.jfrog.callables.JFrogCliDeltaPatcher;
+import io.jenkins.plugins.jfrog.callables.JFrogCliSignatureCollector;
+import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang3.StringUtils;
+import org.jfrog.build.extractor.clientConfiguration.client.artifactory.ArtifactoryManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Controller-side cache of JFrog CLI binaries.
+ * <p>
+ * When enabled, each binary is downloaded once into JENKINS_HOME and then copied to the agents over the remoting
+ * channel, instead of having every agent download it from Artifactory on its own.
+ * Entries are keyed by the binary's sha256, so a '[RELEASE]' lookup and a pinned version that resolve to the same
+ * binary share a single entry. The total size of the cache is bounded, and the least recently used binaries are
+ * evicted first.
+ * <p>
+ * When an agent upgrades from a binary it already has, only a delta from that binary is copied (see {@link BinaryDelta}).
+ */
+public class ControllerCliCache {
+    private static final Logger LOGGER = Logger.getLogger(ControllerCliCache.class.getName());
+
+    /**
+     * Environment variable that enables the controller-side cache and sets its size limit (in MB).
+     * The cache is disabled when the variable is absent, invalid or less than 1.
+     *
+     * <pre>
+     *   export JFROG_CLI_CONTROLLER_CACHE_MB=1024
+     * </pre>
+     */
+    static final String CACHE_SIZE_ENV_VAR = "JFROG_CLI_CONTROLLER_CACHE_MB";
+    static final String CACHE_DIR_NAME = "jfrog-cli-cache";
+    private static final Pattern SHA256_PATTERN = Pattern.compile("^[a-fA-F0-9]{64}$");
+    private static final String DELTA_FILE_INFIX = ".delta-from-";
+    /**
+     * A delta larger than this ratio of the binary is not worth the extra round trips, and the full binary is copied.
+     */
+    private static final double MAX_DELTA_RATIO = 0.75;
+
+    /**
+     * Per-sha256 monitors, making sure that a binary is downloaded into the cache only once, even when several
+     * agents request it at the same time.
+     */
+    private static final ConcurrentHashMap<String, Object> FETCH_LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * @return true if the controller-side cache is enabled.
+     */
+    static boolean isEnabled() {
+        return getMaxCacheBytes() > 0;
+    }
+
+    /**
+     * Returns the maximum total size of the cache in bytes, or 0 if the cache is disabled.
+     * Reads {@value #CACHE_SIZE_ENV_VAR} from the environment.
+     */
+    static long getMaxCacheBytes() {
+        String envValue = System.getenv(CACHE_SIZE_ENV_VAR);
+        if (StringUtils.isBlank(envValue)) {
+            return 0;
+        }
+        try {
+            long parsed = Long.parseLong(envValue.trim());
+            if (parsed >= 1) {
+                return parsed * 1024 * 1024;
+            }
+            LOGGER.warning(CACHE_SIZE_ENV_VAR + "=" + envValue + " is less than 1, controller CLI cache is disabled");
+        } catch (NumberFormatException e) {
+            LOGGER.warning(CACHE_SIZE_ENV_VAR + "=" + envValue + " is not a valid integer, controller CLI cache is disabled");
+        }
+        return 0;
+    }
+
+    /**
+     * Installs JFrog CLI on the agent from the controller cache. Downloads the binary into the cache first if needed.
+     *
+     * @param toolLocation Target directory for CLI installation on the agent
+     * @param log          Task listener for logging progress
+     * @param version      CLI version to install (blank = latest)
+     * @param instance     JFrog platform instance for download
+     * @param repository   Repository containing the CLI binary
+     * @param binaryName   Name of the CLI binary file
+     * @param agentOs      OS details of the agent (e.g. "linux-amd64")
+     * @return true if the CLI was installed, false if the cache can't be used for this binary (no sha256 from server).
+     * @throws IOException          If fetching, copying or verifying the binary fails
+     * @throws InterruptedException If interrupted
+     */
+    static boolean install(FilePath toolLocation, TaskListener log, String version, JFrogPlatformInstance instance,
+                           String repository, String binaryName, String agentOs) throws IOException, InterruptedException {
+        CachedBinary cachedBinary = getOrFetch(log, version, instance, repository, binaryName, agentOs);
+        if (cachedBinary == null) {
+            return false;
+        }
+        String tempFileName = binaryName + ".tmp.controller." + System.currentTimeMillis() + "." + System.nanoTime();
+        FilePath temporaryFile = toolLocation.child(tempFileName);
+        try {
+            if (!copyDelta(toolLocation, cachedBinary, binaryName, tempFileName, log)) {
+                log.getLogger().println("[ControllerCliCache] Copying cached CLI to agent: " + temporaryFile.getRemote());
+                new FilePath(cachedBinary.file).copyTo(temporaryFile);
+            }
+            toolLocation.act(new JFrogCliCacheInstaller(tempFileName, binaryName, cachedBinary.sha256,
+                    BinaryInstaller.getContentStoreMaxBytes(), BinaryInstaller.getInstallTimeoutMinutes(), log));
+        } finally {
+            temporaryFile.delete();
+        }
+        return true;
+    }
+
+    /**
+     * Upgrades the CLI on the agent with a delta from its installed binary, instead of copying the full binary.
+     * The delta is computed once for each pair of binaries, and kept in the cache entry of the new binary.
+     *
+     * @return true if the new binary was rebuilt into the temporary file and matches its sha256,
+     * false if the full binary should be copied.
+     */
+    private static boolean copyDelta(FilePath toolLocation, CachedBinary cachedBinary, String binaryName,
+                                     String tempFileName, TaskListener log) throws InterruptedException {
+        FilePath agentDeltaFile = toolLocation.child(tempFileName + ".delta");
+        try {
+            FilePath installedSha256File = toolLocation.child(ChecksumUtils.SHA256_FILE_NAME);
+            String installedSha256 = installedSha256File.exists() ? installedSha256File.readToString().trim().toLowerCase() : "";
+            if (!SHA256_PATTERN.matcher(installedSha256).matches() || installedSha256.equals(cachedBinary.sha256)) {
+                return false;
+            }
+            File deltaFile = getOrComputeDelta(toolLocation, cachedBinary, binaryName, installedSha256);
+            if (deltaFile == null) {
+                return false;
+            }
+            log.getLogger().println("[ControllerCliCache] Copying delta from the installed CLI to agent: " +
+                    (deltaFile.length() / 1024) + "KB instead of " + (cachedBinary.file.length() / 1024) + "KB");
+            new FilePath(deltaFile).copyTo(agentDeltaFile);
+            String actualSha256 = toolLocation.act(new JFrogCliDeltaPatcher(agentDeltaFile.getName(), binaryName, tempFileName));
+            if (!StringUtils.equalsIgnoreCase(actualSha256, cachedBinary.sha256)) {
+                log.getLogger().println("[ControllerCliCache] CLI rebuilt from the delta doesn't match, copying the full binary");
+                // Don't send the same delta to other agents
+                Files.deleteIfExists(deltaFile.toPath());
+                toolLocation.child(tempFileName).delete();
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            log.getLogger().println("[ControllerCliCache] Failed to upgrade the CLI with a delta (" + e.getMessage() + "), copying the full binary");
+            return false;
+        } finally {
+            try {
+                agentDeltaFile.delete();
+            } catch (IOException e) {
+                LOGGER.fine("Failed to delete " + agentDeltaFile.getRemote() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the delta from the installed binary to the cached binary, computing it on the first request.
+     *
+     * @return the delta file, or null if the installed binary can't be used or the delta is too large to be worth it.
+     */
+    private static File getOrComputeDelta(FilePath toolLocation, CachedBinary cachedBinary, String binaryName,
+                                          String installedSha256) throws IOException, InterruptedException {
+        File entryDir = cachedBinary.file.getParentFile();
+        File deltaFile = new File(entryDir, binaryName + DELTA_FILE_INFIX + installedSha256);
+        synchronized (FETCH_LOCKS.computeIfAbsent(cachedBinary.sha256 + DELTA_FILE_INFIX + installedSha256, k -> new Object())) {
+            if (!deltaFile.isFile()) {
+                BinaryDelta.Signatures signatures = toolLocation.act(new JFrogCliSignatureCollector(binaryName, installedSha256));
+                if (signatures == null) {
+                    return null;
+                }
+                File temporaryFile = new File(entryDir, deltaFile.getName() + ".tmp." + System.nanoTime());
+                try {
+                    long copiedBytes = BinaryDelta.computeDelta(cachedBinary.file, signatures, temporaryFile);
+                    LOGGER.fine("Computed JFrog CLI delta " + deltaFile + ": " + copiedBytes + " bytes reused, " + temporaryFile.length() + " bytes to send");
+                    if (temporaryFile.length() > cachedBinary.file.length() * MAX_DELTA_RATIO) {
+                        // An empty delta records that the delta isn't worth sending, so that it's not computed again
+                        Files.write(temporaryFile.toPath(), new byte[0]);
+                    }
+                    Files.move(temporaryFile.toPath(), deltaFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temporaryFile.toPath());
+                }
+            }
+        }
+        return deltaFile.length() > 0 ? deltaFile : null;
+    }
+
+    /**
+     * Returns the cached binary, downloading it into the cache on a miss.
+     *
+     * @return the cached binary, or null if the server didn't provide a sha256 to key and verify the binary with.
+     */
+    private static CachedBinary getOrFetch(TaskListener log, String version, JFrogPlatformInstance instance,
+                                           String repository, String binaryName, String agentOs) throws IOException, InterruptedException {
+        String sha256 = BinaryInstaller.getExpectedSha256(instance, repository, version, agentOs, binaryName, log);
+        if (!SHA256_PATTERN.matcher(sha256).matches()) {
+            log.getLogger().println("[ControllerCliCache] No SHA256 available from server — skipping the controller cache");
+            return null;
+        }
+        sha256 = sha256.toLowerCase();
+        File cacheRoot = getCacheRoot();
+        File entryDir = new File(cacheRoot, sha256);
+        File cachedFile = new File(entryDir, binaryName);
+        synchronized (FETCH_LOCKS.computeIfAbsent(sha256, k -> new Object())) {
+            if (cachedFile.isFile()) {
+                // Mark as recently used for the LRU eviction
+                if (!cachedFile.setLastModified(System.currentTimeMillis())) {
+                    LOGGER.fine("Failed to update the last modified time of " + cachedFile);
+                }
+                log.getLogger().println("[ControllerCliCache] Found CLI in the controller cache: " + sha256);
+                return new CachedBinary(cachedFile, sha256);
+            }
+            String cliUrlSuffix = BinaryInstaller.createCliUrlSuffix(repository, version, agentOs, binaryName);
+            Files.createDirectories(entryDir.toPath());
+            File temporaryFile = new File(entryDir, binaryName + ".tmp." + System.nanoTime());
+            try (ArtifactoryManager manager = BinaryInstaller.createArtifactoryManager(instance, log)) {
+                log.getLogger().println("[ControllerCliCache] Downloading CLI into the controller cache from: " + instance.inferArtifactoryUrl() + cliUrlSuffix);
+                manager.downloadToFile(cliUrlSuffix, temporaryFile.getPath());
+                String actualSha256 = ChecksumUtils.sha256Hex(temporaryFile);
+                if (!StringUtils.equalsIgnoreCase(actualSha256, sha256)) {
+                    throw new IOException("Checksum mismatch for downloaded CLI: expected " + sha256 + " but got " + actualSha256);
+                }
+                Files.move(temporaryFile.toPath(), cachedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+        }
+        evict(cacheRoot, getMaxCacheBytes(), entryDir);
+        return new CachedBinary(cachedFile, sha256);
+    }
+
+    static File getCacheRoot() {
+        return new File(Jenkins.get().getRootDir(), CACHE_DIR_NAME);
+    }
+
+    /**
+     * Deletes the least recently used cache entries until the total size of the cache is within the limit.
+     *
+     * @param cacheRoot - The cache root directory
+     * @param maxBytes  - Maximum total size of the cache
+     * @param keep      - An entry directory that must not be evicted (the one that is about to be used)
+     */
+    static void evict(File cacheRoot, long maxBytes, File keep) {
+        File[] entryDirs = cacheRoot.listFiles(File::isDirectory);
+        if (entryDirs == null) {
+            return;
+        }
+        List<CacheEntry> entries = new ArrayList<>();
+        long totalBytes = 0;
+        for (File entryDir : entryDirs) {
+            CacheEntry entry = new CacheEntry(entryDir);
+            entries.add(entry);
+            totalBytes += entry.size;
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+        for (CacheEntry entry : entries) {
+            if (totalBytes <= maxBytes) {
+                return;
+            }
+            if (entry.dir.equals(keep)) {
+                continue;
+            }
+            try {
+                Util.deleteRecursive(entry.dir);
+                totalBytes -= entry.size;
+                LOGGER.fine("Evicted JFrog CLI cache entry: " + entry.dir);
+            } catch (IOException e) {
+                LOGGER.warning("Failed to evict JFrog CLI cache entry " + entry.dir + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static class CachedBinary {
+        private final File file;
+        private final String sha256;
+
+        private CachedBinary(File file, String sha256) {
+            this.file = file;
+            this.sha256 = sha256;
+        }
+    }
+
+    private static class CacheEntry {
+        private final File dir;
+        private long size;
+        private long lastUsed;
+
+        private CacheEntry(File dir) {
+            this.dir = dir;
+            this.lastUsed = dir.lastModified();
+            File[] files = dir.listFiles(File::isFile);
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                size += file.length();
+                lastUsed = Math.max(lastUsed, file.lastModified());
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package io.jenkins.plugins.jfrog;
+
+import hudson.FilePath;
+import hudson.model.Node;
+import hudson.model.labels.LabelAtom;
+import hudson.remoting.Channel;
+import hudson.remoting.VirtualChannel;
+import io.jenkins.plugins.jfrog.callables.DownloadThrottle;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Controller-side bandwidth budgets of JFrog CLI downloads.
+ * <p>
+ * A site is a node label with a bandwidth budget, for example the label of all the agents in a datacenter. The budget
+ * is shared equally by the CLI downloads that run at the same time on the nodes with the label. A download on a node
+ * with several such labels gets the smallest of its shares. Agents ask for their current share every second (see
+ * {@link DownloadThrottle}), so the budget is redistributed as downloads start and complete, and the total bandwidth
+ * of the downloads of a site stays within its budget. A download is never refused: when many downloads share a budget,
+ * each of them is slower, but all of them progress.
+ */
+public class DownloadBandwidth {
+    private static final Logger LOGGER = Logger.getLogger(DownloadBandwidth.class.getName());
+
+    /**
+     * Environment variable that limits the bandwidth (in KB/s) of all the CLI downloads of an agent. Unlimited if unset.
+     *
+     * <pre>
+     *   export JFROG_CLI_AGENT_DOWNLOAD_KBPS=10240
+     * </pre>
+     */
+    static final String AGENT_LIMIT_ENV_VAR = "JFROG_CLI_AGENT_DOWNLOAD_KBPS";
+
+    /**
+     * Environment variable that sets the bandwidth budgets (in KB/s) of sites, as comma-separated label=budget pairs.
+     *
+     * <pre>
+     *   export JFROG_CLI_SITE_DOWNLOAD_KBPS=dc-east=51200,dc-west=20480
+     * </pre>
+     */
+    static final String SITE_BUDGETS_ENV_VAR = "JFROG_CLI_SITE_DOWNLOAD_KBPS";
+
+    /**
+     * The downloads in progress, by site label. Guarded by the class lock.
+     */
+    private static final Map<String, Set<Allocation>> ACTIVE = new HashMap<>();
+
+    /**
+     * Returns the bandwidth limit of all the CLI downloads of an agent in bytes per second, or 0 for unlimited.
+     * Reads {@value #AGENT_LIMIT_ENV_VAR} from the environment.
+     */
+    static long getAgentBytesPerSecond() {
+        String envValue = System.getenv(AGENT_LIMIT_ENV_VAR);
+        if (StringUtils.isBlank(envValue)) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(envValue.trim())) * 1024;
+        } catch (NumberFormatException e) {
+            LOGGER.warning(AGENT_LIMIT_ENV_VAR + "=" + envValue + " is not a valid integer, downloads are not limited");
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the bandwidth budgets of the sites in bytes per second, by label.
+     * Reads {@value #SITE_BUDGETS_ENV_VAR} from the environment.
+     */
+    static Map<String, Long> getSiteBudgets() {
+        return parseSiteBudgets(System.getenv(SITE_BUDGETS_ENV_VAR));
+    }
+
+    static Map<String, Long> parseSiteBudgets(String value) {
+        Map<String, Long> budgets = new LinkedHashMap<>();
+        for (String entry : StringUtils.split(StringUtils.defaultString(value), ',')) {
+            String label = StringUtils.trim(StringUtils.substringBefore(entry, "="));
+            String budget = StringUtils.trim(StringUtils.substringAfter(entry, "="));
+            try {
+                long kbps = Long.parseLong(budget);
+                if (StringUtils.isNotEmpty(label) && kbps > 0) {
+                    budgets.put(label, kbps * 1024);
+                    continue;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            LOGGER.warning(SITE_BUDGETS_ENV_VAR + " entry '" + entry + "' is not in the form label=KB/s, ignoring it");
+        }
+        return budgets;
+    }
+
+    /**
+     * @return true if the CLI downloads of the node are limited by the agent limit or by the budget of a site.
+     */
+    static boolean isLimited(String nodeName) {
+        return getAgentBytesPerSecond() > 0 || !getSites(nodeName, getSiteBudgets()).isEmpty();
+    }
+
+    /**
+     * Allocates a share of the budgets of the sites of a node to a new download.
+     *
+     * @param nodeName - The name of the node
+     * @return the allocation, to close when the download completes, or null if none of the labels of the node has a budget.
+     */
+    static Allocation allocate(String nodeName) {
+        Map<String, Long> budgets = getSiteBudgets();
+        if (budgets.isEmpty()) {
+            return null;
+        }
+        return allocate(getSites(nodeName, budgets));
+    }
+
+    static synchronized Allocation allocate(Map<String, Long> sites) {
+        if (sites.isEmpty()) {
+            return null;
+        }
+        Allocation allocation = new Allocation(sites);
+        for (String site : sites.keySet()) {
+            ACTIVE.computeIfAbsent(site, k -> new HashSet<>()).add(allocation);
+        }
+        return allocation;
+    }
+
+    /**
+     * Returns the allocation as it can be sent to the agent of the given path: a proxy on a remote agent, so that the
+     * agent gets the share as it changes.
+     */
+    static DownloadThrottle.Share export(FilePath target, Allocation allocation) {
+        if (allocation == null) {
+            return null;
+        }
+        VirtualChannel channel = target.getChannel();
+        if (channel instanceof Channel) {
+            return ((Channel) channel).export(DownloadThrottle.Share.class, allocation);
+        }
+        return allocation;
+    }
+
+    /**
+     * @return the budgets of the labels of the node, by label.
+     */
+    private static Map<String, Long> getSites(String nodeName, Map<String, Long> budgets) {
+        if (budgets.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return Collections.emptyMap();
+        }
+        Node node = StringUtils.isBlank(nodeName) || "built-in".equals(nodeName) ? jenkins : jenkins.getNode(nodeName);
+        if (node == null) {
+            return Collections.emptyMap();
+        }
+        List<String> labels = new ArrayList<>();
+        for (LabelAtom label : node.getAssignedLabels()) {
+            labels.add(label.getName());
+        }
+        return getSites(labels, budgets);
+    }
+
+    static Map<String, Long> getSites(Collection<String> labels, Map<String, Long> budgets) {
+        Map<String, Long> sites = new TreeMap<>();
+        for (String label : labels) {
+            Long budget = budgets.get(label);
+            if (budget != null) {
+                sites.put(label, budget);
+            }
+        }
+        return sites;
+    }
+
+    /**
+     * Forget all the downloads in progress. Used by tests.
+     */
+    static synchronized void clear() {
+        ACTIVE.clear();
+    }
+
+    /**
+     * The share of the site budgets of a download in progress.
+     */
+    static class Allocation implements DownloadThrottle.Share, Closeable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The budgets of the sites of the download's node in bytes per second, by label.
+         */
+        private final Map<String, Long> sites;
+
+        private Allocation(Map<String, Long> sites) {
+            this.sites = sites;
+        }
+
+        @Override
+        public long getBytesPerSecond() {
+            synchronized (DownloadBandwidth.class) {
+                String site = getLimitingSite();
+                return sites.get(site) / countDownloads(site);
+            }
+        }
+
+        @Override
+        public String describe() {
+            synchronized (DownloadBandwidth.class) {
+                String site = getLimitingSite();
+                int downloads = countDownloads(site);
+                return "site '" + site + "' budget of " + DownloadThrottle.formatRate(sites.get(site)) +
+                        (downloads > 1 ? " shared by " + downloads + " downloads" : "");
+            }
+        }
+
+        /**
+         * @return the site that gives the download the smallest share.
+         */
+        private String getLimitingSite() {
+            String limitingSite = null;
+            long smallestShare = Long.MAX_VALUE;
+            for (Map.Entry<String, Long> site : sites.entrySet()) {
+                long share = site.getValue() / countDownloads(site.getKey());
+                if (share < smallestShare) {
+                    smallestShare = share;
+                    limitingSite = site.getKey();
+                }
+            }
+            return limitingSite;
+        }
+
+        private static int countDownloads(String site) {
+            Set<Allocation> downloads = ACTIVE.get(site);
+            return downloads == null ? 1 : Math.max(1, downloads.size());
+        }
+
+        @Override
+        public void close() {
+            synchronized (DownloadBandwidth.class) {
+                for (String site : sites.keySet()) {
+                    Set<Allocation> downloads = ACTIVE.get(site);
+                    if (downloads != null && downloads.remove(this) && downloads.isEmpty()) {
+                        ACTIVE.remove(site);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package io.jenkins.plugins.jfrog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.Channel;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.ComputerListener;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.model.Jenkins;
+import jenkins.model.NodeListener;
+import jenkins.util.Timer;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controller-side ledger of the facts {@link BinaryInstaller} learned about the JFrog CLI installations of the nodes:
+ * the OS of the agents and the builds in which each installation was verified.
+ * <p>
+ * The ledger is kept in memory and persisted to {@code $JENKINS_HOME/jfrog-cli-install-ledger.json}, so that a
+ * controller restart doesn't make the first wave of builds probe all the agents and check Artifactory at the same
+ * time. It is loaded on first use rather than when Jenkins starts, and saved in the background shortly after it
+ * changes.
+ * <p>
+ * The facts of a node are invalidated when a different agent connects under the same node name, which is detected
+ * by a fingerprint of the agent (host name and creation time of its root directory), and dropped when the node is
+ * deleted. A verification is only trusted while the installed binary has the sha256 it was verified with.
+ */
+public class InstallLedger {
+    private static final Logger LOGGER = Logger.getLogger(InstallLedger.class.getName());
+    static final String LEDGER_FILE_NAME = "jfrog-cli-install-ledger.json";
+    /**
+     * Incremented when the format of the ledger changes. Ledgers of other versions are discarded.
+     */
+    static final int FORMAT_VERSION = 1;
+    private static final int MAX_CACHE_SIZE = 1000;
+    private static final long SAVE_DELAY_SECONDS = 10;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Per-build installation verification cache (approximate LRU, max 1000 entries).
+     * Key: nodeName + tool path + agent OS + binary name
+     * Value: the externalizable ID of the build (see {@link BinaryInstaller#getCurrentRunId}) and the verified sha256
+     * <p>
+     * The caches are read by every installation's fast path, so they don't lock on reads (see {@link BoundedCache}).
+     */
+    private static final BoundedCache<String, Verification> VERIFIED_IN_RUN = new BoundedCache<>(MAX_CACHE_SIZE);
+
+    /**
+     * Cache of agent OS details to avoid repeated remote calls (approximate LRU, max 1000 entries).
+     * Key: nodeName + tool location remote path
+     * Value: OS details string (e.g., "linux-amd64", "mac-arm64")
+     */
+    private static final BoundedCache<String, String> AGENT_OS_CACHE = new BoundedCache<>(MAX_CACHE_SIZE);
+
+    /**
+     * Key: node name. Value: the fingerprint of the agent that the facts of the node were learned from
+     * (approximate LRU, max 1000 entries).
+     */
+    private static final BoundedCache<String, String> FINGERPRINTS = new BoundedCache<>(MAX_CACHE_SIZE);
+
+    private static volatile boolean loaded;
+    private static final AtomicBoolean SAVE_SCHEDULED = new AtomicBoolean();
+
+    /**
+     * @param osCacheKey - Node name + ":" + tool location remote path
+     * @return the OS details of the agent, or null if unknown.
+     */
+    static String getOs(String osCacheKey) {
+        ensureLoaded();
+        return AGENT_OS_CACHE.get(osCacheKey);
+    }
+
+    static void putOs(String osCacheKey, String osDetails) {
+        ensureLoaded();
+        if (!osDetails.equals(AGENT_OS_CACHE.put(osCacheKey, osDetails))) {
+            scheduleSave();
+        }
+    }
+
+    /**
+     * @return true if the installation was verified in the given build.
+     */
+    static boolean isVerified(String cacheKey, String runId) {
+        ensureLoaded();
+        Verification verification = VERIFIED_IN_RUN.get(cacheKey);
+        return verification != null && verification.runId.equals(runId);
+    }
+
+    /**
+     * @param sha256 - The sha256 of the installed binary, or null or empty if unknown
+     * @return true if the installation was verified in the given build, and its binary didn't change since then.
+     * False if the sha256 of the verified or of the installed binary is unknown, as a change can't be ruled out.
+     */
+    static boolean isVerified(String cacheKey, String runId, String sha256) {
+        ensureLoaded();
+        Verification verification = VERIFIED_IN_RUN.get(cacheKey);
+        if (verification == null || !verification.runId.equals(runId)) {
+            return false;
+        }
+        return verification.sha256 != null && verification.sha256.equals(StringUtils.trimToNull(sha256));
+    }
+
+    /**
+     * Records that the installation was verified in the given build.
+     *
+     * @param sha256 - The sha256 of the verified binary, or null if unknown
+     */
+    static void markVerified(String cacheKey, String runId, String sha256) {
+        if (runId == null) {
+            return;
+        }
+        ensureLoaded();
+        VERIFIED_IN_RUN.put(cacheKey, new Verification(runId, StringUtils.trimToNull(sha256)));
+        scheduleSave();
+    }
+
+    /**
+     * Invalidates the verification of an installation, for example when its binary is no longer installed.
+     */
+    static void invalidate(String cacheKey) {
+        ensureLoaded();
+        Verification verification = VERIFIED_IN_RUN.get(cacheKey);
+        if (verification != null && VERIFIED_IN_RUN.remove(cacheKey, verification)) {
+            scheduleSave();
+        }
+    }
+
+    /**
+     * Invalidates the facts of the node if the agent that connected isn't the one they were learned from.
+     * The same agent keeps its facts when it reconnects, for example after a controller restart: a binary that was
+     * replaced while it was disconnected is noticed by the sha256 check of the verifications.
+     *
+     * @param nodeName    - The node name
+     * @param fingerprint - The fingerprint of the agent that connected
+     */
+    static void onConnected(String nodeName, String fingerprint) {
+        ensureLoaded();
+        String previous = FINGERPRINTS.put(nodeName, fingerprint);
+        if (fingerprint.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            LOGGER.fine("A different agent connected as node '" + nodeName + "', invalidating its JFrog CLI installation facts");
+        }
+        removeNodeFacts(nodeName);
+    }
+
+    /**
+     * Drops the facts of a deleted node.
+     */
+    static void onDeleted(String nodeName) {
+        ensureLoaded();
+        FINGERPRINTS.removeKeysIf(nodeName::equals);
+        removeNodeFacts(nodeName);
+    }
+
+    private static void removeNodeFacts(String nodeName) {
+        String prefix = nodeName + ":";
+        VERIFIED_IN_RUN.removeKeysIf(key -> key.startsWith(prefix));
+        AGENT_OS_CACHE.removeKeysIf(key -> key.startsWith(prefix));
+        scheduleSave();
+    }
+
+    /**
+     * Drop all entries, without loading the persisted ledger. Used by tests.
+     */
+    static void clear() {
+        VERIFIED_IN_RUN.clear();
+        AGENT_OS_CACHE.clear();
+        FINGERPRINTS.clear();
+        loaded = true;
+    }
+
+    private static void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (InstallLedger.class) {
+            if (loaded) {
+                return;
+            }
+            File ledgerFile = getLedgerFile();
+            if (ledgerFile != null && ledgerFile.isFile()) {
+                try {
+                    read(MAPPER.readTree(ledgerFile));
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to load the JFrog CLI installation ledger, starting with an empty one: " + ledgerFile, e);
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    private static void scheduleSave() {
+        if (getLedgerFile() == null || !SAVE_SCHEDULED.compareAndSet(false, true)) {
+            return;
+        }
+        Timer.get().schedule(() -> {
+            SAVE_SCHEDULED.set(false);
+            save();
+        }, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    static synchronized void save() {
+        File ledgerFile = getLedgerFile();
+        if (ledgerFile == null) {
+            return;
+        }
+        File temporaryFile = new File(ledgerFile.getPath() + ".tmp");
+        try {
+            MAPPER.writeValue(temporaryFile, write());
+            Files.move(temporaryFile.toPath(), ledgerFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save the JFrog CLI installation ledger: " + ledgerFile, e);
+        }
+    }
+
+    static ObjectNode write() {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("version", FORMAT_VERSION);
+        ObjectNode fingerprints = root.putObject("fingerprints");
+        for (Map.Entry<String, String> entry : FINGERPRINTS.snapshot()) {
+            fingerprints.put(entry.getKey(), entry.getValue());
+        }
+        ObjectNode os = root.putObject("os");
+        for (Map.Entry<String, String> entry : AGENT_OS_CACHE.snapshot()) {
+            // A failed probe is only remembered until the next restart
+            if (!"unknown".equals(entry.getValue())) {
+                os.put(entry.getKey(), entry.getValue());
+            }
+        }
+        ObjectNode verified = root.putObject("verified");
+        for (Map.Entry<String, Verification> entry : VERIFIED_IN_RUN.snapshot()) {
+            ObjectNode verification = verified.putObject(entry.getKey());
+            verification.put("run", entry.getValue().runId);
+            if (entry.getValue().sha256 != null) {
+                verification.put("sha256", entry.getValue().sha256);
+            }
+        }
+        return root;
+    }
+
+    static void read(JsonNode root) {
+        if (root.path("version").asInt() != FORMAT_VERSION) {
+            LOGGER.info("Discarding JFrog CLI installation ledger of version " + root.path("version").asText());
+            return;
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = root.path("fingerprints").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            // Fingerprints of agents that already reconnected since the restart take precedence
+            FINGERPRINTS.putIfAbsent(entry.getKey(), entry.getValue().asText());
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = root.path("os").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            AGENT_OS_CACHE.putIfAbsent(entry.getKey(), entry.getValue().asText());
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = root.path("verified").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            String runId = entry.getValue().path("run").asText(null);
+            if (runId != null) {
+                VERIFIED_IN_RUN.putIfAbsent(entry.getKey(), new Verification(runId, entry.getValue().path("sha256").asText(null)));
+            }
+        }
+    }
+
+    private static File getLedgerFile() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins == null ? null : new File(jenkins.getRootDir(), LEDGER_FILE_NAME);
+    }
+
+    /**
+     * @return a fingerprint that identifies the agent process' machine, so that a new agent with the same node name
+     * can be told apart from a reconnection of the same agent.
+     */
+    static String getFingerprint(FilePath root) throws IOException, InterruptedException {
+        return root.act(new MasterToSlaveFileCallable<String>() {
+            @Override
+            public String invoke(File f, VirtualChannel channel) throws IOException {
+                BasicFileAttributes attributes = Files.readAttributes(f.toPath(), BasicFileAttributes.class);
+                return InetAddress.getLocalHost().getHostName() + "/" + attributes.creationTime().toMillis();
+            }
+        });
+    }
+
+    private static class Verification {
+        private final String runId;
+        private final String sha256;
+
+        private Verification(String runId, String sha256) {
+            this.runId = runId;
+            this.sha256 = sha256;
+        }
+    }
+
+    /**
+     * Drops the facts of a node when it is deleted, for example a cloud agent that was terminated.
+     */
+    @Extension
+    @SuppressWarnings("unused")
+    public static class DeleteListener extends NodeListener {
+        @Override
+        protected void onDeleted(@NonNull Node node) {
+            InstallLedger.onDeleted(StringUtils.defaultIfBlank(node.getNodeName(), "built-in"));
+        }
+    }
+
+    /**
+     * Invalidates the facts of a node when a different agent connects under its name.
+     */
+    @Extension
+    @SuppressWarnings("unused")
+    public static class ConnectListener extends ComputerListener {
+        @Override
+        public void preOnline(Computer computer, Channel channel, FilePath root, TaskListener listener) {
+            String nodeName = StringUtils.defaultIfBlank(computer.getName(), "built-in");
+            try {
+                onConnected(nodeName, getFingerprint(root));
+            } catch (IOException e) {
+                // Can't tell whether it is the same agent, so don't trust what was learned about the node
+                LOGGER.fine("Failed to fingerprint agent '" + nodeName + "': " + e.getMessage());
+                onConnected(nodeName, "unknown/" + System.currentTimeMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
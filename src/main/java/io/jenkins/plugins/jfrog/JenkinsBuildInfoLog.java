@@ -24,7 +24,8 @@ public class JenkinsBuildInfoLog implements Log {
 
     public void info(String message) {
         listener.getLogger().println(message);
-        logger.info(message);
+        // Already in the build log
+        logger.fine(message);
     }
 
     public void warn(String message) {
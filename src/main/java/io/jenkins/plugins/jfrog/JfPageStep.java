@@ -0,0 +1,104 @@
+package io.jenkins.plugins.jfrog;
+
+import hudson.Extension;
+import lombok.Getter;
+import org.jenkinsci.plugins.workflow.steps.*;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Set;
+
+import static io.jenkins.plugins.jfrog.callables.CliResultParser.ROOT;
+
+/**
+ * Reads a page of the items of an array of a {@link JfResult}, for example:
+ * <pre>
+ *   jfPage result: found, offset: 0, limit: 100
+ *   jfPage result: uploaded, array: 'files', offset: 0, limit: 100
+ * </pre>
+ * The items are read from the agent by the step, rather than by a method of the result, so that the Pipeline isn't
+ * blocked while they are read.
+ */
+@Getter
+@SuppressWarnings("unused")
+public class JfPageStep extends Step {
+    private final JfResult result;
+    private String array = ROOT;
+    private int offset;
+    private int limit = JfResult.MAX_PAGE_SIZE;
+
+    @DataBoundConstructor
+    public JfPageStep(JfResult result) {
+        this.result = result;
+    }
+
+    /**
+     * @param array - The name of the array. Not set when the output is an array, as with 'jf rt search'.
+     */
+    @DataBoundSetter
+    public void setArray(String array) {
+        this.array = array == null ? ROOT : array;
+    }
+
+    @DataBoundSetter
+    public void setOffset(int offset) {
+        this.offset = offset;
+    }
+
+    @DataBoundSetter
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(result, array, offset, limit, context);
+    }
+
+    public static class Execution extends SynchronousNonBlockingStepExecution<List<Object>> {
+        private final JfResult result;
+        private final String array;
+        private final int offset;
+        private final int limit;
+
+        protected Execution(JfResult result, String array, int offset, int limit, @Nonnull StepContext context) {
+            super(context);
+            this.result = result;
+            this.array = array;
+            this.offset = offset;
+            this.limit = limit;
+        }
+
+        /**
+         * @return the items, as maps, lists, strings, numbers and booleans. Empty after the end of the array.
+         */
+        @Override
+        protected List<Object> run() throws Exception {
+            if (result == null) {
+                throw new IllegalArgumentException("The result must be set to the result of a 'jf' step with format: 'json'");
+            }
+            return result.readPage(array, offset, limit);
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+        @Override
+        public String getFunctionName() {
+            return "jfPage";
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return "Read a page of the items of a jf result";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of();
+        }
+    }
+}
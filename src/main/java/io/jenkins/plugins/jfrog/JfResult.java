@@ -0,0 +1,124 @@
+package io.jenkins.plugins.jfrog;
+
+import hudson.FilePath;
+import io.jenkins.plugins.jfrog.callables.CliResultPage;
+import io.jenkins.plugins.jfrog.callables.CliResultParser;
+import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static io.jenkins.plugins.jfrog.callables.CliResultParser.ROOT;
+
+/**
+ * The result of a 'jf' step run with {@code format: 'json'}.
+ * <p>
+ * The JSON output of the command is parsed on the agent. The result keeps its fields, and the number of items of its
+ * arrays. The items stay in a file on the agent, and are read a page at a time with the 'jfPage' step (see
+ * {@link JfPageStep}), so that the result is small in the state of the pipeline and in the memory of the controller.
+ * The file is deleted when the build completes.
+ */
+public class JfResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /**
+     * The maximal number of items of a page.
+     */
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final FilePath resultFile;
+    private final LinkedHashMap<String, Object> fields;
+    private final LinkedHashSet<String> omitted;
+    private final LinkedHashMap<String, Integer> arrays;
+
+    JfResult(FilePath resultFile, CliResultParser.Result result) {
+        this.resultFile = resultFile;
+        this.fields = result.getFields();
+        this.omitted = result.getOmitted();
+        this.arrays = result.getArrays();
+    }
+
+    /**
+     * Parses the JSON output of a command.
+     *
+     * @param resultFile - The file on the agent, with the stdout of the command
+     */
+    static JfResult parse(FilePath resultFile) throws IOException, InterruptedException {
+        return new JfResult(resultFile, resultFile.act(new CliResultParser()));
+    }
+
+    /**
+     * @return the names of the fields and arrays of the output.
+     */
+    @Whitelisted
+    public Set<String> getNames() {
+        Set<String> names = new LinkedHashSet<>(fields.keySet());
+        names.addAll(omitted);
+        names.addAll(arrays.keySet());
+        names.remove(ROOT);
+        return names;
+    }
+
+    /**
+     * @param field - The name of the field
+     * @return the value of a field of the output, as a map, list, string, number or boolean. Null for the arrays,
+     * which are read with the 'jfPage' step.
+     * @throws IllegalArgumentException if the field is too large to be kept in the result.
+     */
+    @Whitelisted
+    public Object get(String field) {
+        if (omitted.contains(field)) {
+            throw new IllegalArgumentException("The '" + field + "' field of the output is too large to be kept in the result. " +
+                    "Run the command with format: 'text' to get the full output");
+        }
+        return fields.get(field);
+    }
+
+    /**
+     * @param array - The name of the array
+     * @return the number of items of an array of the output, or -1 if there is no such array.
+     */
+    @Whitelisted
+    public int getSize(String array) {
+        return arrays.getOrDefault(array, -1);
+    }
+
+    /**
+     * @return the number of items of the output, when it is an array, as with 'jf rt search'. -1 otherwise.
+     */
+    @Whitelisted
+    public int getSize() {
+        return getSize(ROOT);
+    }
+
+    /**
+     * Reads a page of the items of an array of the output from the agent. Not called from the script, which would
+     * block the Pipeline while reading, but from the 'jfPage' step.
+     *
+     * @param array  - The name of the array, or {@link CliResultParser#ROOT} if the output is an array
+     * @param offset - The index of the first item
+     * @param limit  - The maximal number of items, up to {@value #MAX_PAGE_SIZE}
+     * @return the items, as maps, lists, strings, numbers and booleans.
+     */
+    List<Object> readPage(String array, int offset, int limit) throws IOException, InterruptedException {
+        int size = arrays.getOrDefault(array, -1);
+        if (size < 0) {
+            throw new IllegalArgumentException("The output of the command has no '" + array + "' array");
+        }
+        if (offset < 0 || limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("The offset must not be negative, and the limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (offset >= size) {
+            return List.of();
+        }
+        return resultFile.act(new CliResultPage(array, offset, limit));
+    }
+
+    @Override
+    public String toString() {
+        return "JfResult{fields=" + fields + ", omitted=" + omitted + ", arrays=" + arrays + "}";
+    }
+}
@@ -1,41 +1,54 @@
 package io.jenkins.plugins.jfrog;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import org.jfrog.build.client.Version;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import hudson.*;
 import hudson.model.Job;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.remoting.Channel;
+import hudson.remoting.RemoteOutputStream;
 import hudson.util.ArgumentListBuilder;
 import io.jenkins.plugins.jfrog.actions.BuildInfoBuildBadgeAction;
 import io.jenkins.plugins.jfrog.actions.JFrogCliConfigEncryption;
+import io.jenkins.plugins.jfrog.callables.CliBinaryUse;
+import io.jenkins.plugins.jfrog.callables.CliCommandRunner;
+import io.jenkins.plugins.jfrog.callables.CliServerReferences;
+import io.jenkins.plugins.jfrog.callables.CliVersionLookup;
+import io.jenkins.plugins.jfrog.callables.ConfiguredServers;
 import io.jenkins.plugins.jfrog.configuration.Credentials;
 import io.jenkins.plugins.jfrog.configuration.JFrogPlatformBuilder;
 import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
-import io.jenkins.plugins.jfrog.models.BuildInfoOutputModel;
 import io.jenkins.plugins.jfrog.plugins.PluginsUtils;
 import lombok.Getter;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 import org.jenkinsci.plugins.workflow.steps.*;
 import org.jfrog.build.api.util.Log;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import javax.annotation.Nonnull;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.InflaterOutputStream;
 
 import static io.jenkins.plugins.jfrog.JfrogInstallation.JFROG_BINARY_PATH;
 import static org.apache.commons.lang3.StringUtils.*;
-import static org.jfrog.build.extractor.BuildInfoExtractorUtils.createMapper;
 
 /**
  * @author gail
@@ -43,9 +56,28 @@ import static org.jfrog.build.extractor.BuildInfoExtractorUtils.createMapper;
 @Getter
 @SuppressWarnings("unused")
 public class JfStep extends Step {
-    private static final ObjectMapper mapper = createMapper();
+    private static final Logger LOGGER = Logger.getLogger(JfStep.class.getName());
     protected String[] args;
+    /**
+     * True to return the output of the command. When false, the step returns null, and the output is not kept.
+     */
+    protected boolean captureOutput = true;
+    /**
+     * The format of the result of the step: {@value #FORMAT_TEXT} for the output of the command, or
+     * {@value #FORMAT_JSON} for a {@link JfResult} of its JSON output.
+     */
+    protected String format = FORMAT_TEXT;
+    static final String FORMAT_TEXT = "text";
+    static final String FORMAT_JSON = "json";
     static final Version MIN_CLI_VERSION_PASSWORD_STDIN = new Version("2.31.3");
+    /**
+     * The directory in the build directory of the run, where the output of the commands is spilled.
+     */
+    static final String OUTPUT_DIR = "jfrog-cli-output";
+    /**
+     * The directory in the JFrog CLI home directory of the run, where the JSON output of the commands is written.
+     */
+    static final String RESULTS_DIR = "jenkins-results";
 
     @DataBoundConstructor
     public JfStep(Object args) {
@@ -57,6 +89,19 @@ public class JfStep extends Step {
         this.args = split(args.toString());
     }
 
+    @DataBoundSetter
+    public void setCaptureOutput(boolean captureOutput) {
+        this.captureOutput = captureOutput;
+    }
+
+    @DataBoundSetter
+    public void setFormat(String format) {
+        if (!equalsAny(format, FORMAT_TEXT, FORMAT_JSON)) {
+            throw new IllegalArgumentException("Unsupported format '" + format + "'. The supported formats are '" + FORMAT_TEXT + "' and '" + FORMAT_JSON + "'");
+        }
+        this.format = format;
+    }
+
     /**
      * Retrieves the version of the JFrog CLI.
      *
@@ -67,6 +112,136 @@ public class JfStep extends Step {
      * @throws InterruptedException If the process is interrupted while waiting for the command to complete.
      */
     public static Version getJfrogCliVersion(Launcher.ProcStarter launcher, String jfrogBinaryPath) throws IOException, InterruptedException {
+        return new Version(readJfrogCliVersion(launcher, jfrogBinaryPath));
+    }
+
+    /**
+     * Retrieves the version of the JFrog CLI from the agent's version cache, keyed by the identity of the binary
+     * (see {@link io.jenkins.plugins.jfrog.callables.CliVersionCache}). Runs 'jf -v' only if the binary changed since its version was cached, and caches
+     * the version it returns. The cache is best-effort: if it can't be read or written, the version is read from the
+     * binary.
+     * The cache is only used with the launchers of the controller and the agents, including when they are decorated.
+     * The launchers of plugins such as the Docker plugin may run a different binary than the one found at the same path
+     * on the agent.
+     *
+     * @param workspace       The workspace of the step, on the agent.
+     * @param env             The environment variables of the step.
+     * @param launcher        The launcher of the step.
+     * @param jfrogBinaryPath The path to the JFrog CLI binary.
+     * @return The version of the JFrog CLI.
+     * @throws IOException          If an I/O error occurs while executing the command or reading the output.
+     * @throws InterruptedException If the process is interrupted while waiting for the command to complete.
+     */
+    public static Version getJfrogCliVersion(FilePath workspace, EnvVars env, Launcher launcher, String jfrogBinaryPath)
+            throws IOException, InterruptedException {
+        boolean cacheable = isVersionCacheable(launcher);
+        if (cacheable) {
+            try {
+                String cachedVersion = workspace.act(new CliVersionLookup(jfrogBinaryPath, null));
+                if (cachedVersion != null) {
+                    return new Version(cachedVersion);
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.FINE, "Failed to look up the cached version of " + jfrogBinaryPath, e);
+            }
+        }
+        String version = readJfrogCliVersion(launcher.launch().envs(env).pwd(workspace), jfrogBinaryPath);
+        if (cacheable) {
+            try {
+                workspace.act(new CliVersionLookup(jfrogBinaryPath, version));
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.FINE, "Failed to cache the version of " + jfrogBinaryPath, e);
+            }
+        }
+        return new Version(version);
+    }
+
+    /**
+     * @return true if the launcher runs commands on the controller or on an agent, possibly through decorators, rather
+     * than through a launcher of a plugin, for example to run them inside a Docker container.
+     */
+    static boolean isVersionCacheable(Launcher launcher) {
+        while (launcher instanceof Launcher.DecoratedLauncher) {
+            if (isPluginLauncher(launcher)) {
+                return false;
+            }
+            launcher = ((Launcher.DecoratedLauncher) launcher).getInner();
+        }
+        return (launcher instanceof Launcher.LocalLauncher || launcher instanceof Launcher.RemoteLauncher) && !isPluginLauncher(launcher);
+    }
+
+    /**
+     * @return true if the launcher is provided by another plugin, for example to run commands inside a Docker container.
+     */
+    static boolean isPluginLauncher(Launcher launcher) {
+        return launcher.getClass().getName().contains("org.jenkinsci.plugins");
+    }
+
+    /**
+     * Runs a 'jf' command and waits for it to complete.
+     * <p>
+     * On an agent, the command is run by {@link CliCommandRunner}, which sends the output to the controller in
+     * compressed batches. The output is inflated into the stdout of the command on the controller, usually a
+     * {@link JfTaskListener} that copies it to the build log and to the captures of the output. Commands on the
+     * controller, commands that read stdin and commands of launchers provided by other plugins are run by the launcher.
+     *
+     * @param launcher    - The launcher of the step
+     * @param procStarter - The command, its environment, working directory and stdout
+     * @return the exit code of the command.
+     */
+    public static int runCommand(Launcher launcher, Launcher.ProcStarter procStarter) throws IOException, InterruptedException {
+        return runCommand(launcher, procStarter, null);
+    }
+
+    /**
+     * Runs a 'jf' command and waits for it to complete, see {@link #runCommand(Launcher, Launcher.ProcStarter)}.
+     *
+     * @param launcher    - The launcher of the step
+     * @param procStarter - The command, its environment, working directory and stdout
+     * @param resultFile  - The file on the agent to write the stdout of the command to, or null. When set, only the
+     *                    stderr of the command, where the CLI writes its log, is written to the stdout of the starter.
+     * @return the exit code of the command.
+     */
+    public static int runCommand(Launcher launcher, Launcher.ProcStarter procStarter, FilePath resultFile) throws IOException, InterruptedException {
+        FilePath pwd = procStarter.pwd();
+        OutputStream stdout = procStarter.stdout();
+        if (!(launcher instanceof Launcher.RemoteLauncher) || pwd == null || stdout == null || procStarter.stdin() != null) {
+            recordBinaryUse(pwd, procStarter.cmds());
+            if (resultFile == null) {
+                return procStarter.join();
+            }
+            try (OutputStream result = resultFile.write()) {
+                return procStarter.stdout(result).stderr(stdout).join();
+            }
+        }
+        try (InflaterOutputStream output = new InflaterOutputStream(CloseShieldOutputStream.wrap(stdout))) {
+            int exitCode = pwd.act(new CliCommandRunner(procStarter.cmds(), procStarter.masks(), procStarter.envs(), procStarter.quiet(),
+                    new RemoteOutputStream(launcher.getListener().getLogger()), new RemoteOutputStream(output),
+                    resultFile != null ? resultFile.getRemote() : null));
+            // Wait for the output sent by the agent to be written
+            if (pwd.getChannel() instanceof Channel) {
+                ((Channel) pwd.getChannel()).syncIO();
+            }
+            return exitCode;
+        }
+    }
+
+    /**
+     * Records that the build runs the binary of a tool directory, so that it is not evicted while the build runs
+     * (see {@link CliBinaryUse}). Commands run by {@link CliCommandRunner} record it on the agent.
+     */
+    private static void recordBinaryUse(FilePath pwd, List<String> cmds) throws InterruptedException {
+        if (pwd == null || cmds.isEmpty()) {
+            return;
+        }
+        try {
+            pwd.act(new CliBinaryUse(cmds.get(0)));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to record the use of " + cmds.get(0), e);
+        }
+    }
+
+    private static String readJfrogCliVersion(Launcher.ProcStarter launcher, String jfrogBinaryPath) throws IOException, InterruptedException {
         try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
             ArgumentListBuilder builder = new ArgumentListBuilder();
             builder.add(jfrogBinaryPath).add("-v");
@@ -79,26 +254,32 @@ public class JfStep extends Step {
                 throw new IOException("Failed to get JFrog CLI version: " + outputStream.toString(StandardCharsets.UTF_8));
             }
             String versionOutput = outputStream.toString(StandardCharsets.UTF_8).trim();
-            String version = StringUtils.substringAfterLast(versionOutput, " ");
-            return new Version(version);
+            return StringUtils.substringAfterLast(versionOutput, " ");
         }
     }
 
     @Override
     public StepExecution start(StepContext context) {
-        return new Execution(args, context);
+        return new Execution(args, captureOutput, FORMAT_JSON.equals(format), context);
     }
 
-    public static class Execution extends SynchronousNonBlockingStepExecution<String> {
+    public static class Execution extends SynchronousNonBlockingStepExecution<Object> {
         private final String[] args;
+        private final boolean captureOutput;
+        private final boolean json;
 
-        protected Execution(String[] args, @Nonnull StepContext context) {
+        protected Execution(String[] args, boolean captureOutput, boolean json, @Nonnull StepContext context) {
             super(context);
             this.args = args;
+            this.captureOutput = captureOutput;
+            this.json = json;
         }
 
+        /**
+         * @return the output of the command, null if it is not captured, or a {@link JfResult} in the JSON format.
+         */
         @Override
-        protected String run() throws Exception {
+        protected Object run() throws Exception {
             // Get the step context
             Launcher launcher = getContext().get(Launcher.class);
             FilePath workspace = getContext().get(FilePath.class);
@@ -118,24 +299,52 @@ public class JfStep extends Step {
                 builder = builder.toWindowsCommand();
             }
 
-            String output;
-            try (ByteArrayOutputStream taskOutputStream = new ByteArrayOutputStream()) {
-                JfTaskListener jfTaskListener = new JfTaskListener(listener, taskOutputStream);
+            Object output;
+            // In the JSON format, the stdout of the command is written to a file on the agent, and parsed there.
+            // Otherwise, it is kept in a bounded buffer, and spilled to the build directory if it doesn't fit.
+            FilePath resultFile = json ? createResultFile(workspace, run) : null;
+            OutputCapture outputCapture = captureOutput && !json ? OutputCapture.create(new File(run.getRootDir(), OUTPUT_DIR)) : null;
+            // The build-info URL is found while 'jf rt build-publish' prints it
+            BuildInfoOutputScanner buildInfoScanner = json ? null : createBuildInfoOutputScanner(args);
+            try {
+                JfTaskListener jfTaskListener = new JfTaskListener(listener, outputCapture, buildInfoScanner);
                 Launcher.ProcStarter jfLauncher = setupJFrogEnvironment(run, env, launcher, jfTaskListener, workspace, jfrogBinaryPath, isWindows, passwordStdinSupported);
                 // Running the 'jf' command
-                int exitValue = jfLauncher.cmds(builder).join();
-                output = taskOutputStream.toString(StandardCharsets.UTF_8);
+                int exitValue = runCommand(launcher, jfLauncher.cmds(builder), resultFile);
                 if (exitValue != 0) {
                     throw new RuntimeException("Running 'jf' command failed with exit code " + exitValue);
                 }
-                addBuildInfoActionIfNeeded(args, new JenkinsBuildInfoLog(listener), run, taskOutputStream);
+                if (resultFile != null) {
+                    JfResult result = JfResult.parse(resultFile);
+                    if (isBuildPublishCommand(args)) {
+                        addBuildInfoAction(new JenkinsBuildInfoLog(listener), run, Objects.toString(result.get("buildInfoUiUrl"), null), result.toString());
+                    }
+                    output = result;
+                } else {
+                    output = outputCapture != null ? outputCapture.getOutput() : null;
+                    addBuildInfoActionIfNeeded(new JenkinsBuildInfoLog(listener), run, buildInfoScanner);
+                }
             } catch (Exception e) {
                 String errorMessage = "Couldn't execute 'jf' command. " + ExceptionUtils.getRootCauseMessage(e);
                 throw new RuntimeException(errorMessage, e);
+            } finally {
+                if (outputCapture != null) {
+                    outputCapture.delete();
+                }
             }
             return output;
         }
 
+        /**
+         * Creates the file of the JSON output of the command, in the JFrog CLI home directory of the run on the agent,
+         * which is deleted when the build completes.
+         */
+        private static FilePath createResultFile(FilePath workspace, Run<?, ?> run) throws IOException, InterruptedException {
+            FilePath resultsDir = Utils.createAndGetJfrogCliHomeTempDir(workspace, String.valueOf(run.getNumber())).child(RESULTS_DIR);
+            resultsDir.mkdirs();
+            return resultsDir.createTempFile("result", ".json");
+        }
+
         /**
          * Get JFrog CLI path in agent, according to the JFROG_BINARY_PATH environment variable.
          * The JFROG_BINARY_PATH also can be set implicitly in Declarative Pipeline by choosing the JFrog CLI tool or
@@ -174,7 +383,7 @@ public class JfStep extends Step {
         }
 
         /**
-         * Configure all JFrog relevant environment variables and all servers (if they haven't been configured yet).
+         * Configure all JFrog relevant environment variables and the servers the command needs (if they haven't been configured yet).
          *
          * @param run                    running as part of a specific build
          * @param env                    environment variables applicable to this step
@@ -205,10 +414,12 @@ public class JfStep extends Step {
             FilePath jfrogHomeTempDir = Utils.createAndGetJfrogCliHomeTempDir(workspace, String.valueOf(run.getNumber()));
             CliEnvConfigurator.configureCliEnv(env, jfrogHomeTempDir, jfrogCliConfigEncryption);
             Launcher.ProcStarter jfLauncher = launcher.launch().envs(env).pwd(workspace).stdout(listener);
-            // Configure all servers, skip if all server ids have already been configured.
-            if (shouldConfig(jfrogHomeTempDir)) {
+            // Configure the servers the command needs, skip if they have already been configured.
+            List<JFrogPlatformInstance> missingServers = getMissingServers(args, workspace, jfrogHomeTempDir);
+            if (!missingServers.isEmpty()) {
                 logIfNoToolProvided(env, listener);
-                configAllServers(jfLauncher, jfrogBinaryPath, isWindows, run.getParent(), passwordStdinSupported);
+                Version cliVersion = getJfrogCliVersion(workspace, env, launcher, jfrogBinaryPath);
+                configServersForBuilder(missingServers, jfrogHomeTempDir, jfrogCliConfigEncryption, cliVersion, jfLauncher, jfrogBinaryPath, isWindows, run.getParent(), passwordStdinSupported);
             }
             return jfLauncher;
         }
@@ -231,12 +442,10 @@ public class JfStep extends Step {
             TaskListener listener = getContext().get(TaskListener.class);
             JenkinsBuildInfoLog buildInfoLog = new JenkinsBuildInfoLog(listener);
             String readJFrogCliPwdStdinSupport = environmentVariables.get("JFROG_CLI_PASSWORD_STDIN_SUPPORT", "");
-            Launcher.ProcStarter procStarter = launcher.launch().envs(environmentVariables).pwd(workspace);
-            Version currentCliVersion = getJfrogCliVersion(procStarter, jfrogBinaryPath);
+            Version currentCliVersion = getJfrogCliVersion(workspace, environmentVariables, launcher, jfrogBinaryPath);
             boolean isMinimumCLIVersionPasswdSTDIN = currentCliVersion.isAtLeast(MIN_CLI_VERSION_PASSWORD_STDIN);
             if (StringUtils.isBlank(readJFrogCliPwdStdinSupport)) {
-                boolean isPluginLauncher = launcher.getClass().getName().contains("org.jenkinsci.plugins");
-                if (isPluginLauncher) {
+                if (isPluginLauncher(launcher)) {
                     buildInfoLog.debug("Password stdin is not supported,Launcher is a plugin launcher.");
                     return false;
                 }
@@ -251,49 +460,60 @@ public class JfStep extends Step {
         }
 
         /**
-         * Before we run a 'jf' command for the first time, we want to configure all servers first.
-         * We know that all servers have already been configured if there is a "jfrog-cli.conf" file in the ".jfrog" home directory.
+         * Returns the servers a command needs that are not configured yet in the JFrog CLI home directory: the default
+         * server and the servers the command references (see {@link CliServerSelector}). The other servers are
+         * configured by the steps that need them.
          *
-         * @param jfrogHomeTempDir - The temp ".jfrog" directory path.
+         * @param args             - The arguments of the command
+         * @param workspace        - The working directory of the command
+         * @param jfrogHomeTempDir - The temp ".jfrog" directory path
+         * @return the servers to configure, in the order they are configured in Jenkins.
          */
-        private boolean shouldConfig(FilePath jfrogHomeTempDir) throws IOException, InterruptedException {
-            List<FilePath> filesList = jfrogHomeTempDir.list();
-            for (FilePath file : filesList) {
-                if (file.getName().contains("jfrog-cli.conf")) {
-                    return false;
-                }
+        public static List<JFrogPlatformInstance> getMissingServers(String[] args, FilePath workspace, FilePath jfrogHomeTempDir) throws IOException, InterruptedException {
+            List<JFrogPlatformInstance> jfrogInstances = JFrogPlatformBuilder.getJFrogPlatformInstances();
+            if (jfrogInstances == null || jfrogInstances.isEmpty()) {
+                return Collections.emptyList();
             }
-            return true;
-        }
-
-        /**
-         * Locally configure all servers that was configured in the Jenkins UI.
-         */
-        private void configAllServers(Launcher.ProcStarter launcher, String jfrogBinaryPath, boolean isWindows, Job<?, ?> job, boolean passwordStdinSupported) throws IOException, InterruptedException {
-            configAllServersForBuilder(launcher, jfrogBinaryPath, isWindows, job, passwordStdinSupported);
+            CliServerReferences.Result references = jfrogHomeTempDir.act(new CliServerReferences(workspace.getRemote(), CliServerSelector.getSpecFiles(args)));
+            List<JFrogPlatformInstance> selected = CliServerSelector.select(jfrogInstances, args, references.getReferenced());
+            return CliServerSelector.getMissing(selected, references.getConfigured());
         }
 
         /**
-         * Public static method to configure all servers - used by both Pipeline and Freestyle builders.
+         * Configure servers - used by both Pipeline and Freestyle builders.
+         * The JFrog CLI config is written directly to the JFrog CLI home directory if the config format of the CLI
+         * version is known. Otherwise, the servers are configured using the 'jf c add' command.
+         *
+         * @param jfrogInstances   - The servers to configure
+         * @param jfrogHomeTempDir - The temp ".jfrog" directory path
+         * @param encryption       - The encryption key of the run
+         * @param cliVersion       - The version of the CLI on the agent, or null if unknown
          */
-        public static void configAllServersForBuilder(Launcher.ProcStarter launcher, String jfrogBinaryPath, boolean isWindows, Job<?, ?> job, boolean passwordStdinSupported) throws IOException, InterruptedException {
-            // Config all servers using the 'jf c add' command.
-            List<JFrogPlatformInstance> jfrogInstances = JFrogPlatformBuilder.getJFrogPlatformInstances();
-            if (jfrogInstances != null && !jfrogInstances.isEmpty()) {
-                for (JFrogPlatformInstance jfrogPlatformInstance : jfrogInstances) {
-                    // Build 'jf' command
-                    ArgumentListBuilder builder = new ArgumentListBuilder();
-                    addConfigArguments(builder, jfrogPlatformInstance, job, jfrogBinaryPath, job, launcher, passwordStdinSupported);
-                    if (isWindows) {
-                        builder = builder.toWindowsCommand();
-                    }
-                    // Running 'jf' command
-                    int exitValue = launcher.cmds(builder).join();
-                    if (exitValue != 0) {
-                        throw new RuntimeException("Running 'jf' command failed with exit code " + exitValue);
-                    }
+        public static void configServersForBuilder(List<JFrogPlatformInstance> jfrogInstances, FilePath jfrogHomeTempDir, JFrogCliConfigEncryption encryption,
+                                                   Version cliVersion, Launcher.ProcStarter launcher, String jfrogBinaryPath, boolean isWindows, Job<?, ?> job,
+                                                   boolean passwordStdinSupported) throws IOException, InterruptedException {
+            // As with 'jf c add', the default server is the first server configured in Jenkins
+            String defaultServerId = JFrogPlatformBuilder.getJFrogPlatformInstances().get(0).getId();
+            if (CliConfigWriter.isSupported(cliVersion) && CliConfigWriter.write(jfrogHomeTempDir, jfrogInstances, defaultServerId, job, encryption)) {
+                return;
+            }
+            // Config the servers using the 'jf c add' command.
+            List<String> serverIds = new ArrayList<>();
+            for (JFrogPlatformInstance jfrogPlatformInstance : jfrogInstances) {
+                // Build 'jf' command
+                ArgumentListBuilder builder = new ArgumentListBuilder();
+                addConfigArguments(builder, jfrogPlatformInstance, job, jfrogBinaryPath, job, launcher, passwordStdinSupported);
+                if (isWindows) {
+                    builder = builder.toWindowsCommand();
                 }
+                // Running 'jf' command
+                int exitValue = launcher.cmds(builder).join();
+                if (exitValue != 0) {
+                    throw new RuntimeException("Running 'jf' command failed with exit code " + exitValue);
+                }
+                serverIds.add(jfrogPlatformInstance.getId());
             }
+            jfrogHomeTempDir.act(new ConfiguredServers(serverIds));
         }
 
         private static void addConfigArguments(ArgumentListBuilder builder, JFrogPlatformInstance jfrogPlatformInstance, Job<?, ?> job1, String jfrogBinaryPath, Job<?, ?> job, Launcher.ProcStarter launcher, boolean passwordStdinSupported) {
@@ -350,51 +570,57 @@ public class JfStep extends Step {
         builder.add("--xray-url=" + jfrogPlatformInstance.inferXrayUrl());
     }
 
+    /**
+     * @param args - The command arguments
+     * @return true if the command is 'jf rt bp' or 'jf rt build-publish'.
+     */
+    static boolean isBuildPublishCommand(String[] args) {
+        return args.length >= 2 &&
+                args[0].equals("rt") &&
+                equalsAny(args[1], "bp", "build-publish");
+    }
+
+    /**
+     * Create a scanner of the output of the command, if the command is 'jf rt bp' or 'jf rt build-publish'.
+     *
+     * @param args - The command arguments
+     * @return the scanner to copy the output to, or null for other commands.
+     */
+    static BuildInfoOutputScanner createBuildInfoOutputScanner(String[] args) {
+        return isBuildPublishCommand(args) ? new BuildInfoOutputScanner() : null;
+    }
+
     /**
      * Add build-info Action if the command is 'jf rt bp' or 'jf rt build-publish'.
      *
      * @param log              - Task logger
      * @param run              - The Jenkins project
-     * @param taskOutputStream - Task's output stream
+     * @param buildInfoScanner - The scanner of the task's output, or null if the command is not 'jf rt build-publish'
      */
-    static void addBuildInfoActionIfNeeded(String[] args, Log log, Run<?, ?> run, ByteArrayOutputStream taskOutputStream) {
-        if (args.length < 2 ||
-                !args[0].equals("rt") ||
-                !equalsAny(args[1], "bp", "build-publish")) {
-            return;
-        }
-
-        // Search for '{' and '}' in the output of 'jf rt build-publish'
-        String taskOutput = taskOutputStream.toString(StandardCharsets.UTF_8);
-        taskOutput = substringBetween(taskOutput, "{", "}");
-        if (taskOutput == null) {
-            logIllegalBuildPublishOutput(log, taskOutputStream);
+    static void addBuildInfoActionIfNeeded(Log log, Run<?, ?> run, BuildInfoOutputScanner buildInfoScanner) {
+        if (buildInfoScanner == null) {
             return;
         }
+        addBuildInfoAction(log, run, buildInfoScanner.getBuildInfoUrl(),
+                defaultString(buildInfoScanner.getLastCandidate(), "the build-info URL was not found"));
+    }
 
-        // Parse the output into BuildInfoOutputModel to extract the build-info URL
-        BuildInfoOutputModel buildInfoOutputModel;
-        try {
-            buildInfoOutputModel = mapper.readValue("{" + taskOutput + "}", BuildInfoOutputModel.class);
-            if (buildInfoOutputModel == null) {
-                logIllegalBuildPublishOutput(log, taskOutputStream);
-                return;
-            }
-        } catch (JsonProcessingException e) {
-            logIllegalBuildPublishOutput(log, taskOutputStream);
-            log.warn(ExceptionUtils.getRootCauseMessage(e));
+    /**
+     * Add the build-info Action of the output of 'jf rt build-publish'.
+     *
+     * @param log          - Task logger
+     * @param run          - The Jenkins project
+     * @param buildInfoUrl - The build-info URL, or null if it was not found in the output
+     * @param output       - The output, to report when the URL was not found
+     */
+    private static void addBuildInfoAction(Log log, Run<?, ?> run, String buildInfoUrl, String output) {
+        if (isBlank(buildInfoUrl)) {
+            log.warn("Illegal build-publish output: " + output);
             return;
         }
-        String buildInfoUrl = buildInfoOutputModel.getBuildInfoUiUrl();
 
         // Add the BuildInfoBuildBadgeAction action into the job to show the build-info button
-        if (isNotBlank(buildInfoUrl)) {
-            run.addAction(new BuildInfoBuildBadgeAction(buildInfoUrl));
-        }
-    }
-
-    private static void logIllegalBuildPublishOutput(Log log, ByteArrayOutputStream taskOutputStream) {
-        log.warn("Illegal build-publish output: " + taskOutputStream.toString(StandardCharsets.UTF_8));
+        run.addAction(new BuildInfoBuildBadgeAction(buildInfoUrl));
     }
 
     @Extension
@@ -5,9 +5,11 @@ import hudson.model.TaskListener;
 import hudson.remoting.RemoteOutputStream;
 import org.apache.commons.io.output.TeeOutputStream;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * @author yahavi
@@ -15,15 +17,31 @@ import java.nio.charset.StandardCharsets;
 public class JfTaskListener implements TaskListener {
     private final RemoteOutputStream output;
     private final TaskListener taskListener;
+    private transient PrintStream logger;
 
-    public JfTaskListener(TaskListener taskListener, ByteArrayOutputStream outputStream) {
-        this.output = new RemoteOutputStream(outputStream);
+    /**
+     * @param taskListener  - The listener of the task
+     * @param outputStreams - The streams to copy the output to. Null streams are skipped.
+     */
+    public JfTaskListener(TaskListener taskListener, OutputStream... outputStreams) {
+        OutputStream outputStream = Arrays.stream(outputStreams)
+                .filter(Objects::nonNull)
+                .reduce(TeeOutputStream::new)
+                .orElse(null);
+        this.output = outputStream != null ? new RemoteOutputStream(outputStream) : null;
         this.taskListener = taskListener;
     }
 
+    /**
+     * The logger is created once, instead of a new copying stream on each call.
+     */
     @NonNull
     @Override
-    public PrintStream getLogger() {
-        return new PrintStream(new TeeOutputStream(taskListener.getLogger(), output), true, StandardCharsets.UTF_8);
+    public synchronized PrintStream getLogger() {
+        if (logger == null) {
+            logger = output == null ? taskListener.getLogger() :
+                    new PrintStream(new TeeOutputStream(taskListener.getLogger(), output), true, StandardCharsets.UTF_8);
+        }
+        return logger;
     }
 }
@@ -15,16 +15,19 @@ import hudson.tasks.Publisher;
 import hudson.util.ArgumentListBuilder;
 import hudson.util.ListBoxModel;
 import io.jenkins.plugins.jfrog.actions.JFrogCliConfigEncryption;
+import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
 import org.apache.commons.lang3.StringUtils;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
 import javax.annotation.Nonnull;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.List;
 
 import static io.jenkins.plugins.jfrog.JfStep.addBuildInfoActionIfNeeded;
+import static io.jenkins.plugins.jfrog.JfStep.getJfrogCliVersion;
+import static io.jenkins.plugins.jfrog.JfStep.runCommand;
 import static io.jenkins.plugins.jfrog.JfrogInstallation.JFROG_BINARY_PATH;
 
 /**
@@ -129,30 +132,35 @@ public class JfrogBuildInfoPublisher extends Notifier {
         listener.getLogger().println("[JFrog Build Info] Build name: " + env.get("JFROG_CLI_BUILD_NAME"));
         listener.getLogger().println("[JFrog Build Info] Build number: " + env.get("JFROG_CLI_BUILD_NUMBER"));
 
-        try (ByteArrayOutputStream taskOutputStream = new ByteArrayOutputStream()) {
-            JfTaskListener jfTaskListener = new JfTaskListener(listener, taskOutputStream);
+        // The output isn't kept. The build-info URL is found while 'jf rt build-publish' prints it.
+        BuildInfoOutputScanner buildInfoScanner = new BuildInfoOutputScanner();
+        try {
+            JfTaskListener jfTaskListener = new JfTaskListener(listener, buildInfoScanner);
             Launcher.ProcStarter jfLauncher = launcher.launch()
                     .envs(env)
                     .pwd(workspace)
                     .stdout(jfTaskListener);
 
             // Configure servers if needed
-            if (shouldConfig(jfrogHomeTempDir)) {
-                JfStep.Execution.configAllServersForBuilder(
+            String[] args = {"rt", "bp"};
+            List<JFrogPlatformInstance> missingServers = JfStep.Execution.getMissingServers(args, workspace, jfrogHomeTempDir);
+            if (!missingServers.isEmpty()) {
+                org.jfrog.build.client.Version cliVersion = getJfrogCliVersion(workspace, env, launcher, jfrogBinaryPath);
+                JfStep.Execution.configServersForBuilder(
+                        missingServers, jfrogHomeTempDir, jfrogCliConfigEncryption, cliVersion,
                         jfLauncher, jfrogBinaryPath, isWindows, build.getParent(), false
                 );
             }
 
             // Run 'jf rt bp'
-            int exitValue = jfLauncher.cmds(builder).join();
+            int exitValue = runCommand(launcher, jfLauncher.cmds(builder));
             if (exitValue != 0) {
                 listener.error("[JFrog Build Info] Failed to publish build info (exit code: " + exitValue + ")");
                 return false;
             }
 
             // Add build info badge to Jenkins UI
-            String[] args = {"rt", "bp"};
-            addBuildInfoActionIfNeeded(args, new JenkinsBuildInfoLog(listener), build, taskOutputStream);
+            addBuildInfoActionIfNeeded(new JenkinsBuildInfoLog(listener), build, buildInfoScanner);
             
             listener.getLogger().println("[JFrog Build Info] Build info published successfully");
             return true;
@@ -162,16 +170,6 @@ public class JfrogBuildInfoPublisher extends Notifier {
         }
     }
 
-    /**
-     * Check if servers need to be configured.
-     */
-    private boolean shouldConfig(FilePath jfrogHomeTempDir) throws IOException, InterruptedException {
-        if (jfrogHomeTempDir == null || !jfrogHomeTempDir.exists()) {
-            return true;
-        }
-        return !jfrogHomeTempDir.child("jfrog-cli.conf").exists();
-    }
-
     /**
      * Get the JFrog installation by name.
      */
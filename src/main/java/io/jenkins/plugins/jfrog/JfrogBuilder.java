@@ -14,6 +14,7 @@ import hudson.tasks.Builder;
 import hudson.util.ArgumentListBuilder;
 import hudson.util.ListBoxModel;
 import io.jenkins.plugins.jfrog.actions.JFrogCliConfigEncryption;
+import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
 import lombok.Getter;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -23,7 +24,6 @@ import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
 import javax.annotation.Nonnull;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.List;
@@ -40,7 +40,6 @@ import static org.apache.commons.lang3.StringUtils.split;
  */
 @Getter
 public class JfrogBuilder extends Builder {
-    private static final String JFROG_CLI_CONFIG_FILE = "jfrog-cli.conf";
     
     private String command;
     private String jfrogInstallation;
@@ -136,22 +135,24 @@ public class JfrogBuilder extends Builder {
             builder = builder.toWindowsCommand();
         }
 
-        try (ByteArrayOutputStream taskOutputStream = new ByteArrayOutputStream()) {
-            JfTaskListener jfTaskListener = new JfTaskListener(listener, taskOutputStream);
+        // The output isn't kept. The build-info URL is found while 'jf rt build-publish' prints it.
+        BuildInfoOutputScanner buildInfoScanner = createBuildInfoOutputScanner(args);
+        try {
+            JfTaskListener jfTaskListener = new JfTaskListener(listener, buildInfoScanner);
             Launcher.ProcStarter jfLauncher = setupJFrogEnvironment(
-                    build, env, launcher, jfTaskListener, workspace, 
+                    args, build, env, launcher, jfTaskListener, workspace, 
                     jfrogBinaryPath, isWindows, passwordStdinSupported, listener  // Pass original listener for console logging
             );
 
             // Running the 'jf' command
-            int exitValue = jfLauncher.cmds(builder).join();
+            int exitValue = runCommand(launcher, jfLauncher.cmds(builder));
             if (exitValue != 0) {
                 listener.error("Running 'jf' command failed with exit code " + exitValue);
                 listener.error("Please check the console output above for detailed error information.");
                 return false;
             }
 
-            addBuildInfoActionIfNeeded(args, new JenkinsBuildInfoLog(listener), build, taskOutputStream);
+            addBuildInfoActionIfNeeded(new JenkinsBuildInfoLog(listener), build, buildInfoScanner);
             return true;
         } catch (IOException e) {
             if (e.getMessage() != null && (e.getMessage().contains("No such file or directory") 
@@ -222,6 +223,7 @@ public class JfrogBuilder extends Builder {
      * is intended to persist for the duration of the build. Cleanup of this directory should be handled
      * by the build completion logic if necessary, not within this method.</p>
      *
+     * @param args                     The arguments of the JFrog CLI command
      * @param run                      The current build/run
      * @param env                      Environment variables for the build
      * @param launcher                 The launcher to execute commands
@@ -236,7 +238,7 @@ public class JfrogBuilder extends Builder {
      * @throws InterruptedException If the operation is interrupted
      */
     private Launcher.ProcStarter setupJFrogEnvironment(
-            Run<?, ?> run, EnvVars env, Launcher launcher, TaskListener cliOutputListener,
+            String[] args, Run<?, ?> run, EnvVars env, Launcher launcher, TaskListener cliOutputListener,
             FilePath workspace, String jfrogBinaryPath, boolean isWindows,
             boolean passwordStdinSupported, TaskListener consoleListener
     ) throws IOException, InterruptedException {
@@ -250,33 +252,19 @@ public class JfrogBuilder extends Builder {
         CliEnvConfigurator.configureCliEnv(env, jfrogHomeTempDir, jfrogCliConfigEncryption);
         Launcher.ProcStarter jfLauncher = launcher.launch().envs(env).pwd(workspace).stdout(cliOutputListener);
 
-        // Configure all servers, skip if all server ids have already been configured.
-        if (shouldConfig(jfrogHomeTempDir)) {
+        // Configure the servers the command needs, skip if they have already been configured.
+        List<JFrogPlatformInstance> missingServers = JfStep.Execution.getMissingServers(args, workspace, jfrogHomeTempDir);
+        if (!missingServers.isEmpty()) {
             logIfNoToolProvided(env, consoleListener);
-            JfStep.Execution.configAllServersForBuilder(
+            org.jfrog.build.client.Version cliVersion = getJfrogCliVersion(workspace, env, launcher, jfrogBinaryPath);
+            JfStep.Execution.configServersForBuilder(
+                    missingServers, jfrogHomeTempDir, jfrogCliConfigEncryption, cliVersion,
                     jfLauncher, jfrogBinaryPath, isWindows, run.getParent(), passwordStdinSupported
             );
         }
         return jfLauncher;
     }
 
-    /**
-     * Check if servers need to be configured.
-     */
-    private boolean shouldConfig(FilePath jfrogHomeTempDir) throws IOException, InterruptedException {
-        if (jfrogHomeTempDir == null || !jfrogHomeTempDir.exists()) {
-            return true;
-        }
-        
-        List<FilePath> filesList = jfrogHomeTempDir.list();
-        for (FilePath file : filesList) {
-            if (file != null && file.getName().contains(JFROG_CLI_CONFIG_FILE)) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     /**
      * Log if no JFrog CLI tool was provided.
      */
@@ -296,14 +284,11 @@ public class JfrogBuilder extends Builder {
         try {
             JenkinsBuildInfoLog buildInfoLog = new JenkinsBuildInfoLog(listener);
             String readJFrogCliPwdStdinSupport = env.get("JFROG_CLI_PASSWORD_STDIN_SUPPORT", "");
-            Launcher.ProcStarter procStarter = launcher.launch().envs(env).pwd(workspace);
-            
-            org.jfrog.build.client.Version currentCliVersion = getJfrogCliVersion(procStarter, jfrogBinaryPath);
+            org.jfrog.build.client.Version currentCliVersion = getJfrogCliVersion(workspace, env, launcher, jfrogBinaryPath);
             boolean isMinimumCLIVersionPasswdSTDIN = currentCliVersion.isAtLeast(JfStep.MIN_CLI_VERSION_PASSWORD_STDIN);
             
             if (StringUtils.isBlank(readJFrogCliPwdStdinSupport)) {
-                boolean isPluginLauncher = launcher.getClass().getName().contains("org.jenkinsci.plugins");
-                if (isPluginLauncher) {
+                if (JfStep.isPluginLauncher(launcher)) {
                     buildInfoLog.debug("Password stdin is not supported, Launcher is a plugin launcher.");
                     return false;
                 }
@@ -0,0 +1,124 @@
+package io.jenkins.plugins.jfrog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds the JSON objects that a JFrog CLI command prints, such as the result of 'jf rt build-publish', while the output
+ * is written, without keeping the output.
+ * <p>
+ * An object starts with a '{' at the beginning of a line, as the CLI prints its results, while its log lines start with
+ * a timestamp. The scanner follows the nesting of the objects and arrays, and skips the braces in strings, so that it
+ * finds the end of nested objects. Each complete object is parsed and passed to {@link #onObject(JsonNode)}.
+ * Candidates that are not valid JSON are ignored, and so are objects larger than {@link #MAX_OBJECT_SIZE}.
+ */
+public abstract class JsonOutputScanner extends OutputStream {
+    static final int MAX_OBJECT_SIZE = 1024 * 1024;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ByteArrayOutputStream candidate = new ByteArrayOutputStream();
+    private boolean inCandidate;
+    private boolean lineStart = true;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private String lastCandidate;
+
+    /**
+     * Called with each JSON object found in the output.
+     */
+    protected abstract void onObject(JsonNode object);
+
+    @Override
+    public synchronized void write(int b) {
+        scan(b);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            scan(b[i]);
+        }
+    }
+
+    private void scan(int b) {
+        if (!inCandidate) {
+            if (b == '\n') {
+                lineStart = true;
+            } else if (b == '{' && lineStart) {
+                inCandidate = true;
+                candidate.reset();
+                candidate.write(b);
+                depth = 1;
+                inString = false;
+                escaped = false;
+            } else if (b != ' ' && b != '\t' && b != '\r') {
+                lineStart = false;
+            }
+            return;
+        }
+        candidate.write(b);
+        if (candidate.size() > MAX_OBJECT_SIZE) {
+            // Not an object, or too large to be a result
+            inCandidate = false;
+            candidate.reset();
+            lineStart = b == '\n';
+            return;
+        }
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (b == '\\') {
+                escaped = true;
+            } else if (b == '"') {
+                inString = false;
+            }
+            return;
+        }
+        switch (b) {
+            case '"':
+                inString = true;
+                break;
+            case '{':
+            case '[':
+                depth++;
+                break;
+            case '}':
+            case ']':
+                if (--depth == 0) {
+                    inCandidate = false;
+                    lineStart = false;
+                    complete();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void complete() {
+        lastCandidate = candidate.toString(StandardCharsets.UTF_8);
+        candidate.reset();
+        JsonNode object;
+        try {
+            object = MAPPER.readTree(lastCandidate);
+        } catch (IOException e) {
+            return;
+        }
+        if (object != null && object.isObject()) {
+            onObject(object);
+        }
+    }
+
+    /**
+     * @return the last candidate object found in the output, valid or not, for error messages. Null if there was none.
+     */
+    public synchronized String getLastCandidate() {
+        return lastCandidate;
+    }
+}
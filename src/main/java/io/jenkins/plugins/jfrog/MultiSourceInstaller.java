@@ -0,0 +1,127 @@
+package io.jenkins.plugins.jfrog;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.tools.ToolInstallation;
+import hudson.util.FormValidation;
+import io.jenkins.plugins.jfrog.callables.CliDownloadSource;
+import io.jenkins.plugins.jfrog.configuration.JFrogPlatformBuilder;
+import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Download and install JFrog CLI from the fastest of several sources, for example an Artifactory remote repository
+ * close to the agents, with 'releases.jfrog.io' as a fallback.
+ */
+@Getter
+@SuppressWarnings("unused")
+public class MultiSourceInstaller extends BinaryInstaller {
+    private final List<CliSource> sources;
+    private final String version;
+
+    @DataBoundConstructor
+    public MultiSourceInstaller(List<CliSource> sources, String version) {
+        super(null);
+        this.sources = sources == null ? Collections.emptyList() : new ArrayList<>(sources);
+        this.version = StringUtils.trim(version);
+    }
+
+    @Override
+    public FilePath performInstallation(ToolInstallation tool, Node node, TaskListener log) throws IOException, InterruptedException {
+        List<CliDownloadSource> downloadSources = new ArrayList<>();
+        for (CliSource source : getSources()) {
+            downloadSources.add(source.resolve());
+        }
+        if (downloadSources.isEmpty()) {
+            throw new IOException("No JFrog CLI download source is configured.");
+        }
+        String binaryName = Utils.getJfrogCliBinaryName(!node.createLauncher(log).isUnix());
+        return performJfrogCliInstallation(getToolLocation(tool, node), log, getVersion(), downloadSources, binaryName, node.getNodeName());
+    }
+
+    /**
+     * A source to download JFrog CLI from: a remote repository in a configured Artifactory, or 'releases.jfrog.io'
+     * if no server ID is set.
+     */
+    @Getter
+    public static class CliSource extends AbstractDescribableImpl<CliSource> {
+        private final String serverId;
+        private final String repository;
+
+        @DataBoundConstructor
+        public CliSource(String serverId, String repository) {
+            this.serverId = StringUtils.trimToEmpty(serverId);
+            this.repository = StringUtils.trim(repository);
+        }
+
+        CliDownloadSource resolve() throws IOException {
+            if (StringUtils.isBlank(serverId)) {
+                return new CliDownloadSource(ReleasesInstaller.createReleasesInstance(),
+                        StringUtils.defaultIfBlank(repository, ReleasesInstaller.RELEASES_REPOSITORY));
+            }
+            JFrogPlatformInstance server = ArtifactoryInstaller.findServer(serverId);
+            if (server == null) {
+                throw new IOException("Server id '" + serverId + "' doesn't exists.");
+            }
+            return new CliDownloadSource(server, repository);
+        }
+
+        @Extension
+        public static final class DescriptorImpl extends Descriptor<CliSource> {
+            @Nonnull
+            @Override
+            public String getDisplayName() {
+                return "JFrog CLI source";
+            }
+
+            /**
+             * Necessary for displaying all configured server Ids. Used in the Jelly to show the server IDs.
+             *
+             * @return All pre configured servers Ids
+             */
+            public List<JFrogPlatformInstance> getServerIds() {
+                return JFrogPlatformBuilder.getJFrogPlatformInstances();
+            }
+
+            @POST
+            public FormValidation doCheckRepository(@QueryParameter String serverId, @QueryParameter String repository) {
+                if (StringUtils.isNotBlank(serverId) && StringUtils.isBlank(repository)) {
+                    return FormValidation.error("Required");
+                }
+                return FormValidation.ok();
+            }
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends BinaryInstaller.DescriptorImpl<MultiSourceInstaller> {
+        @Nonnull
+        public String getDisplayName() {
+            return "Install from the fastest of several sources";
+        }
+
+        @Override
+        public boolean isApplicable(Class<? extends ToolInstallation> toolType) {
+            return toolType == JfrogInstallation.class;
+        }
+
+        @POST
+        public FormValidation doCheckVersion(@QueryParameter String version) {
+            return ArtifactoryInstaller.validateCliVersion(version);
+        }
+    }
+}
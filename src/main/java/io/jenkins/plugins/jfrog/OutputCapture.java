@@ -0,0 +1,197 @@
+package io.jenkins.plugins.jfrog;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.logging.Logger;
+
+/**
+ * Captures the output of a JFrog CLI command on the controller, with a bounded memory footprint.
+ * <p>
+ * The last bytes of the output are kept in a ring buffer in memory. When a spill file is provided, the bytes that
+ * leave the buffer are appended to it, so that the whole output can be read when the command completes. Without a
+ * spill file, only the end of the output is kept.
+ */
+public class OutputCapture extends OutputStream {
+    private static final Logger LOGGER = Logger.getLogger(OutputCapture.class.getName());
+
+    /**
+     * Environment variable that sets the size (in KB) of the in-memory buffer of the output of a command. Default 1024.
+     *
+     * <pre>
+     *   export JFROG_CLI_OUTPUT_BUFFER_KB=4096
+     * </pre>
+     */
+    static final String BUFFER_KB_ENV_VAR = "JFROG_CLI_OUTPUT_BUFFER_KB";
+    static final int DEFAULT_BUFFER_KB = 1024;
+
+    private final byte[] buffer;
+    private final File spillFile;
+    /**
+     * The position of the oldest byte in the buffer.
+     */
+    private int start;
+    private int length;
+    private long spilled;
+    private OutputStream spill;
+
+    /**
+     * @param bufferSize - The size of the in-memory buffer
+     * @param spillFile  - The file to append the bytes that leave the buffer to, or null to drop them
+     */
+    OutputCapture(int bufferSize, File spillFile) {
+        this.buffer = new byte[bufferSize];
+        this.spillFile = spillFile;
+    }
+
+    /**
+     * Creates a capture of the whole output, that spills to a file in the given directory.
+     * The size of the buffer is read from {@value #BUFFER_KB_ENV_VAR}.
+     *
+     * @param spillDir - The directory of the spill file, for example in the build directory of the run
+     */
+    static OutputCapture create(File spillDir) throws IOException {
+        Files.createDirectories(spillDir.toPath());
+        return new OutputCapture(getBufferSize(), File.createTempFile("jf-output", ".log", spillDir));
+    }
+
+    static int getBufferSize() {
+        String envValue = System.getenv(BUFFER_KB_ENV_VAR);
+        if (StringUtils.isBlank(envValue)) {
+            return DEFAULT_BUFFER_KB * 1024;
+        }
+        try {
+            int kb = Integer.parseInt(envValue.trim());
+            if (kb > 0) {
+                return (int) Math.min(Integer.MAX_VALUE - 8, kb * 1024L);
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        LOGGER.warning(BUFFER_KB_ENV_VAR + "=" + envValue + " is not a valid positive integer, using the default of " + DEFAULT_BUFFER_KB);
+        return DEFAULT_BUFFER_KB * 1024;
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        int capacity = buffer.length;
+        if (len >= capacity) {
+            // The whole buffer and the beginning of the new bytes leave the buffer
+            evict(length);
+            drop(b, off, len - capacity);
+            off += len - capacity;
+            len = capacity;
+        } else if (length + len > capacity) {
+            evict(length + len - capacity);
+        }
+        int end = (start + length) % capacity;
+        int firstPart = Math.min(len, capacity - end);
+        System.arraycopy(b, off, buffer, end, firstPart);
+        System.arraycopy(b, off + firstPart, buffer, 0, len - firstPart);
+        length += len;
+    }
+
+    /**
+     * Removes the oldest bytes from the buffer, and appends them to the spill file.
+     */
+    private void evict(int count) throws IOException {
+        int firstPart = Math.min(count, buffer.length - start);
+        drop(buffer, start, firstPart);
+        drop(buffer, 0, count - firstPart);
+        start = (start + count) % buffer.length;
+        length -= count;
+    }
+
+    private void drop(byte[] b, int off, int len) throws IOException {
+        if (len <= 0) {
+            return;
+        }
+        spilled += len;
+        if (spillFile == null) {
+            return;
+        }
+        if (spill == null) {
+            spill = new FileOutputStream(spillFile, true);
+        }
+        spill.write(b, off, len);
+    }
+
+    /**
+     * @return true if the beginning of the output is not in memory.
+     */
+    synchronized boolean isSpilled() {
+        return spilled > 0;
+    }
+
+    /**
+     * @return the end of the output that is in memory.
+     */
+    public synchronized String getTail() {
+        return new String(getBuffered(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the whole output, read from the spill file and the buffer.
+     * @throws IllegalStateException if the beginning of the output was dropped, as there is no spill file.
+     */
+    public synchronized String getOutput() throws IOException {
+        if (spilled == 0) {
+            return getTail();
+        }
+        if (spillFile == null) {
+            throw new IllegalStateException("The output was not captured");
+        }
+        closeSpill();
+        try (InputStream inputStream = new SequenceInputStream(new FileInputStream(spillFile), new ByteArrayInputStream(getBuffered()))) {
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+
+    private byte[] getBuffered() {
+        byte[] bytes = new byte[length];
+        int firstPart = Math.min(length, buffer.length - start);
+        System.arraycopy(buffer, start, bytes, 0, firstPart);
+        System.arraycopy(buffer, 0, bytes, firstPart, length - firstPart);
+        return bytes;
+    }
+
+    /**
+     * Closes the spill file. It is reopened if more output is written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closeSpill();
+    }
+
+    private void closeSpill() throws IOException {
+        if (spill != null) {
+            spill.close();
+            spill = null;
+        }
+    }
+
+    /**
+     * Deletes the spill file. To call when the output is no longer needed.
+     */
+    public synchronized void delete() throws IOException {
+        closeSpill();
+        if (spillFile != null) {
+            Files.deleteIfExists(spillFile.toPath());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package io.jenkins.plugins.jfrog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.util.Secret;
+import io.jenkins.plugins.jfrog.callables.ArtifactoryHttpClients;
+import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
+import io.jenkins.plugins.jfrog.configuration.JenkinsProxyConfiguration;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Controller-wide resolution of the latest JFrog CLI version ('[RELEASE]') to a concrete version.
+ * <p>
+ * When no version is configured, the CLI URLs would contain '[RELEASE]', which Artifactory resolves independently for
+ * each request. The HEAD request that gets the sha256 and the download that follows it could then resolve to different
+ * releases while a new release is being published. Instead, the latest version is resolved once per
+ * {@link Sha256LookupCache} TTL for each (Artifactory URL, repository, OS-arch, binary) combination, and the concrete
+ * version is used in all the URLs of the installation.
+ * <p>
+ * The version is the one Artifactory itself resolves '[RELEASE]' to: the storage API is asked for the info of the
+ * binary under '[RELEASE]', and returns the resolved path and the sha256 of the binary in a single request. The sha256
+ * is cached for the concrete version, so that the version check that follows doesn't send another request. If the
+ * version can't be resolved, '[RELEASE]' is used as before, and the failure is only cached for
+ * {@value #FAILURE_TTL_SECONDS} seconds.
+ */
+public class ReleaseVersionResolver {
+    private static final Logger LOGGER = Logger.getLogger(ReleaseVersionResolver.class.getName());
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern VERSION_PATTERN = Pattern.compile("^\\d+(\\.\\d+)*$");
+    private static final String RELEASES_FOLDER = "v2-jf";
+    static final int FAILURE_TTL_SECONDS = 30;
+    private static final int MAX_CACHE_SIZE = 1000;
+
+    private static final ConcurrentHashMap<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the concrete latest version of the CLI binary.
+     *
+     * @param instance   - JFrog platform instance to download from
+     * @param repository - Repository containing the CLI binary
+     * @param agentOs    - The OS-arch of the agent, for example "linux-amd64"
+     * @param binaryName - Name of the CLI binary file
+     * @return the concrete version, or an empty string if it couldn't be resolved and '[RELEASE]' should be used.
+     * @throws InterruptedException if interrupted while waiting for the in-flight resolution
+     */
+    static String resolve(JFrogPlatformInstance instance, String repository, String agentOs, String binaryName)
+            throws InterruptedException {
+        String key = instance.inferArtifactoryUrl() + "/" + repository + "/" + agentOs + "/" + binaryName;
+        long ttlMillis = TimeUnit.SECONDS.toMillis(Sha256LookupCache.getTtlSeconds());
+        while (true) {
+            Entry entry = ENTRIES.get(key);
+            if (entry != null && !entry.isExpired(ttlMillis)) {
+                return entry.await();
+            }
+            Entry fresh = new Entry();
+            boolean leader = entry == null ? ENTRIES.putIfAbsent(key, fresh) == null : ENTRIES.replace(key, entry, fresh);
+            if (!leader) {
+                // Another thread has just started a resolution for this key - wait for it
+                continue;
+            }
+            try {
+                // A failed resolution is cached too, briefly, so that the storage API isn't called on every installation
+                String version = load(instance, repository, agentOs, binaryName);
+                fresh.complete(version);
+                purgeExpired(ttlMillis);
+                return version;
+            } catch (InterruptedException | RuntimeException e) {
+                ENTRIES.remove(key, fresh);
+                // The waiting callers use '[RELEASE]'
+                fresh.complete(StringUtils.EMPTY);
+                throw e;
+            }
+        }
+    }
+
+    private static String load(JFrogPlatformInstance instance, String repository, String agentOs, String binaryName)
+            throws InterruptedException {
+        String artifactoryUrl = instance.inferArtifactoryUrl();
+        String releaseUrl = artifactoryUrl + "/api/storage" + BinaryInstaller.createCliUrlSuffix(repository, null, agentOs, binaryName);
+        Release release;
+        try {
+            JenkinsProxyConfiguration proxyConfiguration = new JenkinsProxyConfiguration();
+            release = parseRelease(ArtifactoryHttpClients.getContent(releaseUrl,
+                    Secret.toString(instance.getCredentialsConfig().getUsername()),
+                    Secret.toString(instance.getCredentialsConfig().getPassword()),
+                    Secret.toString(instance.getCredentialsConfig().getAccessToken()),
+                    proxyConfiguration.isProxyConfigured(artifactoryUrl) ? proxyConfiguration : null));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.fine("Failed to resolve the latest JFrog CLI version with " + releaseUrl + ", using [RELEASE]: " + e.getMessage());
+            return StringUtils.EMPTY;
+        }
+        if (release == null) {
+            LOGGER.fine("The latest JFrog CLI version wasn't resolved by " + releaseUrl + ", using [RELEASE]");
+            return StringUtils.EMPTY;
+        }
+        cacheSha256(artifactoryUrl + BinaryInstaller.createCliUrlSuffix(repository, release.version, agentOs, binaryName), release.sha256);
+        LOGGER.fine("Resolved the latest JFrog CLI version in " + artifactoryUrl + "/" + repository + ": " + release.version);
+        return release.version;
+    }
+
+    /**
+     * Caches the sha256 of the binary for the version check that follows. A missing sha256 isn't cached, as the
+     * version check would take it for an up-to-date binary: the version check asks the server for it instead.
+     *
+     * @param key    - Artifactory URL + CLI URL suffix of the concrete version
+     * @param sha256 - The sha256 of the binary in the storage API response, or an empty string
+     */
+    static void cacheSha256(String key, String sha256) throws InterruptedException {
+        if (StringUtils.isBlank(sha256)) {
+            return;
+        }
+        try {
+            Sha256LookupCache.lookup(key, () -> sha256);
+        } catch (IOException e) {
+            // The loader doesn't throw
+        }
+    }
+
+    /**
+     * Parses the response of the storage API for the binary under '[RELEASE]'.
+     *
+     * @param storageJson - The file info, for example
+     *                    {"path": "/v2-jf/2.70.0/jfrog-cli-linux-amd64/jf", "checksums": {"sha256": "..."}}
+     * @return the version of the resolved path and the sha256 of the binary, or null if the path doesn't contain a
+     * concrete version.
+     */
+    static Release parseRelease(String storageJson) throws IOException {
+        JsonNode info = MAPPER.readTree(storageJson);
+        if (info == null) {
+            return null;
+        }
+        String[] path = StringUtils.split(info.path("path").asText(), '/');
+        if (path.length < 2 || !RELEASES_FOLDER.equals(path[0]) || !VERSION_PATTERN.matcher(path[1]).matches()) {
+            return null;
+        }
+        return new Release(path[1], info.path("checksums").path("sha256").asText());
+    }
+
+    static class Release {
+        final String version;
+        final String sha256;
+
+        Release(String version, String sha256) {
+            this.version = version;
+            this.sha256 = sha256;
+        }
+    }
+
+    /**
+     * Drop all cached entries. Used by tests.
+     */
+    static void clear() {
+        ENTRIES.clear();
+    }
+
+    private static void purgeExpired(long ttlMillis) {
+        if (ENTRIES.size() > MAX_CACHE_SIZE) {
+            ENTRIES.values().removeIf(entry -> entry.isExpired(ttlMillis));
+        }
+    }
+
+    private static class Entry {
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        private volatile long loadedAt;
+        private volatile boolean failed;
+
+        private void complete(String version) {
+            loadedAt = System.currentTimeMillis();
+            failed = version.isEmpty();
+            future.complete(version);
+        }
+
+        /**
+         * An in-flight resolution never expires, so that concurrent callers join it. A failed resolution expires
+         * after {@value ReleaseVersionResolver#FAILURE_TTL_SECONDS} seconds at most.
+         */
+        private boolean isExpired(long ttlMillis) {
+            if (failed) {
+                ttlMillis = Math.min(ttlMillis, TimeUnit.SECONDS.toMillis(FAILURE_TTL_SECONDS));
+            }
+            return future.isDone() && System.currentTimeMillis() - loadedAt >= ttlMillis;
+        }
+
+        private String await() throws InterruptedException {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                return StringUtils.EMPTY;
+            }
+        }
+    }
+}
@@ -21,7 +21,7 @@ import javax.annotation.Nonnull;
  */
 public class ReleasesInstaller extends ArtifactoryInstaller {
     private static final String RELEASES_ARTIFACTORY_URL = "https://releases.jfrog.io/artifactory";
-    private static final String RELEASES_REPOSITORY = "jfrog-cli";
+    static final String RELEASES_REPOSITORY = "jfrog-cli";
 
     @DataBoundConstructor
     public ReleasesInstaller() {
@@ -44,6 +44,13 @@ public class ReleasesInstaller extends ArtifactoryInstaller {
 
     @Override
     JFrogPlatformInstance getSpecificServer(String id) {
+        return createReleasesInstance();
+    }
+
+    /**
+     * @return The JFrogPlatformInstance matches 'Releases.jfrog.io' with only the relevant Artifactory URL and no credentials.
+     */
+    static JFrogPlatformInstance createReleasesInstance() {
         CredentialsConfig emptyCred = new CredentialsConfig(StringUtils.EMPTY, Credentials.EMPTY_CREDENTIALS);
         return new JFrogPlatformInstance(StringUtils.EMPTY, StringUtils.EMPTY, emptyCred, RELEASES_ARTIFACTORY_URL, StringUtils.EMPTY, StringUtils.EMPTY);
     }
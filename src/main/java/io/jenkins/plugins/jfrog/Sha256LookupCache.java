@@ -0,0 +1,149 @@
+package io.jenkins.plugins.jfrog;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Controller-wide cache of the JFrog CLI binaries sha256, as returned by Artifactory in the HEAD response headers.
+ * <p>
+ * Without this cache, every pipeline run on every node sends a HEAD request to Artifactory to check if the installed
+ * CLI is up-to-date. With it, the server is checked once per TTL for each (Artifactory URL, repository, version,
+ * OS-arch, binary) combination. Refreshes are single-flight: concurrent lookups of the same key wait for the one
+ * in-flight request instead of sending their own.
+ */
+public class Sha256LookupCache {
+    private static final Logger LOGGER = Logger.getLogger(Sha256LookupCache.class.getName());
+
+    /**
+     * Environment variable that overrides the default TTL of the cache (in seconds).
+     * Set to 0 to disable the cache and check the server on every installation.
+     *
+     * <pre>
+     *   export JFROG_CLI_SHA256_CACHE_TTL_SECONDS=600
+     * </pre>
+     */
+    static final String TTL_ENV_VAR = "JFROG_CLI_SHA256_CACHE_TTL_SECONDS";
+    private static final int DEFAULT_TTL_SECONDS = 300;
+    private static final int MAX_CACHE_SIZE = 1000;
+
+    private static final ConcurrentHashMap<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    /**
+     * Loads the sha256 from the server.
+     */
+    interface Sha256Loader {
+        String load() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Returns the cached sha256 of the given key, or loads it if it is missing or expired.
+     *
+     * @param key    - Artifactory URL + CLI URL suffix (repository, version, OS-arch and binary name)
+     * @param loader - Sends the actual request to the server
+     * @return the sha256, or an empty string if the server did not provide one.
+     * An empty sha256 is not cached, as the version check takes it for an up-to-date binary.
+     * @throws IOException          if the lookup failed. Failures are not cached.
+     * @throws InterruptedException if interrupted while waiting for the in-flight lookup
+     */
+    static String lookup(String key, Sha256Loader loader) throws IOException, InterruptedException {
+        long ttlMillis = TimeUnit.SECONDS.toMillis(getTtlSeconds());
+        if (ttlMillis <= 0) {
+            return loader.load();
+        }
+        while (true) {
+            Entry entry = ENTRIES.get(key);
+            if (entry != null && !entry.isExpired(ttlMillis)) {
+                return entry.await();
+            }
+            Entry fresh = new Entry();
+            boolean leader = entry == null ? ENTRIES.putIfAbsent(key, fresh) == null : ENTRIES.replace(key, entry, fresh);
+            if (!leader) {
+                // Another thread has just started a lookup for this key - wait for it
+                continue;
+            }
+            try {
+                String sha256 = StringUtils.defaultString(loader.load());
+                fresh.complete(sha256);
+                if (StringUtils.isBlank(sha256)) {
+                    // The waiting callers get the empty sha256, and the next lookup asks the server again
+                    ENTRIES.remove(key, fresh);
+                }
+                purgeExpired(ttlMillis);
+                return sha256;
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                ENTRIES.remove(key, fresh);
+                fresh.future.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the TTL in seconds.
+     * Reads {@value #TTL_ENV_VAR} from the environment; falls back to {@value #DEFAULT_TTL_SECONDS} seconds if the
+     * variable is absent or invalid.
+     */
+    static int getTtlSeconds() {
+        String envValue = System.getenv(TTL_ENV_VAR);
+        if (StringUtils.isNotBlank(envValue)) {
+            try {
+                int parsed = Integer.parseInt(envValue.trim());
+                if (parsed >= 0) {
+                    return parsed;
+                }
+                LOGGER.warning(TTL_ENV_VAR + "=" + envValue + " is negative, using default " + DEFAULT_TTL_SECONDS + " seconds");
+            } catch (NumberFormatException e) {
+                LOGGER.warning(TTL_ENV_VAR + "=" + envValue + " is not a valid integer, using default " + DEFAULT_TTL_SECONDS + " seconds");
+            }
+        }
+        return DEFAULT_TTL_SECONDS;
+    }
+
+    /**
+     * Drop all cached entries. Used by tests.
+     */
+    static void clear() {
+        ENTRIES.clear();
+    }
+
+    private static void purgeExpired(long ttlMillis) {
+        if (ENTRIES.size() > MAX_CACHE_SIZE) {
+            ENTRIES.values().removeIf(entry -> entry.isExpired(ttlMillis));
+        }
+    }
+
+    private static class Entry {
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        private volatile long loadedAt;
+
+        private void complete(String sha256) {
+            loadedAt = System.currentTimeMillis();
+            future.complete(sha256);
+        }
+
+        /**
+         * An in-flight lookup never expires, so that concurrent callers join it.
+         */
+        private boolean isExpired(long ttlMillis) {
+            return future.isDone() && System.currentTimeMillis() - loadedAt >= ttlMillis;
+        }
+
+        private String await() throws IOException, InterruptedException {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException("Failed to get the JFrog CLI sha256: " + cause.getMessage(), cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package io.jenkins.plugins.jfrog;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Node;
+import io.jenkins.plugins.jfrog.callables.CliDownloadSource;
+import jenkins.model.NodeListener;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Controller-side memory of how fast each JFrog CLI download source responds to each node, as measured by the
+ * hedged requests of {@link MultiSourceInstaller}. Used to try the fastest source of a node first.
+ * The latency is a moving average, so that a single slow response doesn't demote a source for good.
+ * The latencies of a node are dropped when the node is deleted.
+ */
+public class SourceLatencies {
+    private static final double SMOOTHING_FACTOR = 0.3;
+    private static final long MIN_HEDGE_DELAY_MILLIS = 100;
+    private static final long DEFAULT_HEDGE_DELAY_MILLIS = 500;
+
+    /**
+     * Key: node name. Value: the average latency in milliseconds of each source, by source key.
+     */
+    private static final ConcurrentHashMap<String, Map<String, Double>> LATENCIES = new ConcurrentHashMap<>();
+
+    /**
+     * Records a response time of a source to a node.
+     */
+    static void record(String node, CliDownloadSource source, long latencyMillis) {
+        if (latencyMillis <= 0) {
+            return;
+        }
+        LATENCIES.computeIfAbsent(node, k -> new ConcurrentHashMap<>())
+                .merge(source.getKey(), (double) latencyMillis,
+                        (average, latest) -> average + SMOOTHING_FACTOR * (latest - average));
+    }
+
+    /**
+     * Records that a source didn't respond to a node within the given time, as its request was aborted when another
+     * source won the race. The actual response time is unknown but at least this long, so the average latency of the
+     * source is raised towards it, and never lowered.
+     */
+    static void recordLowerBound(String node, CliDownloadSource source, long elapsedMillis) {
+        if (elapsedMillis <= 0) {
+            return;
+        }
+        LATENCIES.computeIfAbsent(node, k -> new ConcurrentHashMap<>())
+                .merge(source.getKey(), (double) elapsedMillis,
+                        (average, bound) -> bound > average ? average + SMOOTHING_FACTOR * (bound - average) : average);
+    }
+
+    /**
+     * Orders the sources by their latency to the node. Sources that were never measured keep their configured order,
+     * after the measured ones.
+     */
+    static List<CliDownloadSource> order(String node, List<CliDownloadSource> sources) {
+        Map<String, Double> latencies = LATENCIES.get(node);
+        List<CliDownloadSource> ordered = new ArrayList<>(sources);
+        if (latencies != null) {
+            ordered.sort(Comparator.comparingDouble(source -> latencies.getOrDefault(source.getKey(), Double.MAX_VALUE)));
+        }
+        return ordered;
+    }
+
+    /**
+     * Returns the time to wait for the preferred source of the node before also trying the next one: twice its
+     * average latency, or a default if it was never measured.
+     */
+    static long getHedgeDelayMillis(String node, CliDownloadSource preferred) {
+        Map<String, Double> latencies = LATENCIES.get(node);
+        Double latency = latencies == null ? null : latencies.get(preferred.getKey());
+        if (latency == null) {
+            return DEFAULT_HEDGE_DELAY_MILLIS;
+        }
+        return Math.max(MIN_HEDGE_DELAY_MILLIS, Math.round(2 * latency));
+    }
+
+    /**
+     * Forgets the latencies of a deleted node.
+     */
+    static void onDeleted(String node) {
+        LATENCIES.remove(node);
+    }
+
+    /**
+     * Forget all latencies. Used by tests.
+     */
+    static void clear() {
+        LATENCIES.clear();
+    }
+
+    /**
+     * Drops the latencies of a node when it is deleted, for example a cloud agent that was terminated.
+     */
+    @Extension
+    @SuppressWarnings("unused")
+    public static class DeleteListener extends NodeListener {
+        @Override
+        protected void onDeleted(@NonNull Node node) {
+            SourceLatencies.onDeleted(StringUtils.defaultIfBlank(node.getNodeName(), "built-in"));
+        }
+    }
+}
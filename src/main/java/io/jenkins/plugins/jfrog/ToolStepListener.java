@@ -0,0 +1,56 @@
+package io.jenkins.plugins.jfrog;
+
+import com.google.common.collect.MapMaker;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.workflow.flow.StepListener;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers the build of each Pipeline 'tool' step, including the tools of declarative Pipelines.
+ * <p>
+ * The tool installers only receive the listener of the step, which is the listener the step context holds, so the
+ * build is looked up by the listener (see {@link BinaryInstaller#getCurrentRunId}). The listeners are weakly held, and
+ * are released with their steps.
+ */
+@SuppressWarnings("unused")
+@Extension
+public class ToolStepListener implements StepListener {
+    private static final Logger LOGGER = Logger.getLogger(ToolStepListener.class.getName());
+    private static final String TOOL_STEP = "tool";
+
+    // Weak keys are compared by identity
+    private static final Map<TaskListener, String> RUN_IDS = new MapMaker().weakKeys().makeMap();
+
+    @Override
+    public void notifyOfNewStep(@NonNull Step step, @NonNull StepContext context) {
+        if (!TOOL_STEP.equals(step.getDescriptor().getFunctionName())) {
+            return;
+        }
+        try {
+            Run<?, ?> run = context.get(Run.class);
+            TaskListener listener = context.get(TaskListener.class);
+            if (run != null && listener != null) {
+                RUN_IDS.put(listener, run.getExternalizableId());
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Could not determine the build of a tool step", e);
+        }
+    }
+
+    /**
+     * @param listener - The listener a tool installer received.
+     * @return the externalizable ID of the build of the tool step with this listener, or null if the listener isn't
+     * the listener of a tool step.
+     */
+    static String getRunId(TaskListener listener) {
+        return listener == null ? null : RUN_IDS.get(listener);
+    }
+}
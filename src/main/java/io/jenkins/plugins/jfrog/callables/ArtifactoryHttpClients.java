@@ -0,0 +1,255 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.Util;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.ServiceUnavailableRetryStrategy;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.util.EntityUtils;
+import org.jfrog.build.client.ProxyConfiguration;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.jfrog.build.client.DownloadResponse.SHA256_HEADER_NAME;
+
+/**
+ * The HTTP clients used to send the requests of the JFrog CLI installation to Artifactory.
+ * <p>
+ * A client is shared by all the installations of the JVM that connect to the same Artifactory host through the same
+ * proxy, so that the HEAD request that resolves the sha256 of the CLI and the download that follows it reuse the same
+ * keep-alive connections, instead of paying a DNS lookup, a TCP connection and a TLS handshake for each request.
+ * Idle connections are closed after {@value #IDLE_CONNECTION_TIMEOUT_SECONDS} seconds.
+ * <p>
+ * The credentials are sent in the Authorization header of each request, and cookies are disabled, so installations
+ * that use different credentials can safely share a client. The Authorization header is only sent to the host of the
+ * request: it is removed from redirects to other hosts, such as the cloud storage URLs of Artifactory direct cloud
+ * downloads, which must not get the credentials and reject requests with a second authentication mechanism.
+ * <p>
+ * As with the client of ArtifactoryManager, failed connections and 5xx responses are retried
+ * {@value #MAX_RETRIES} times.
+ * Runs inside an agent or the controller.
+ */
+public class ArtifactoryHttpClients {
+    static final int MAX_CONNECTIONS_PER_ROUTE = 16;
+    private static final int MAX_CONNECTIONS_TOTAL = 64;
+    private static final int TIMEOUT_MILLIS = (int) TimeUnit.MINUTES.toMillis(5);
+    private static final long IDLE_CONNECTION_TIMEOUT_SECONDS = 60;
+    /**
+     * Connections are not reused after this period, so that DNS changes of the Artifactory host are picked up.
+     */
+    private static final long CONNECTION_TIME_TO_LIVE_MINUTES = 10;
+    static final int MAX_RETRIES = 3;
+    private static final long RETRY_INTERVAL_MILLIS = 1000;
+    /**
+     * The context attribute with the host of the original request, before redirects.
+     */
+    private static final String ORIGIN_HOST_ATTRIBUTE = "jfrog.origin-host";
+
+    /**
+     * Key: Artifactory origin and proxy, see {@link #createKey(String, ProxyConfiguration)}. Value: the shared client.
+     */
+    private static final ConcurrentHashMap<String, CloseableHttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared client for the URL and proxy. The client must not be closed.
+     *
+     * @param url                - A URL on the Artifactory host
+     * @param proxyConfiguration - Proxy to use, or null to connect directly
+     */
+    static CloseableHttpClient getClient(String url, ProxyConfiguration proxyConfiguration) {
+        return CLIENTS.computeIfAbsent(createKey(url, proxyConfiguration), k -> createClient(proxyConfiguration));
+    }
+
+    /**
+     * @return the key of the shared client: the scheme, host and port of the URL, and the proxy.
+     * The proxy password is hashed, so that it's not kept in memory in plain text for longer than needed.
+     */
+    static String createKey(String url, ProxyConfiguration proxyConfiguration) {
+        URI uri = URI.create(ParallelRangeDownloader.encodeUrl(url));
+        String key = uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+        if (proxyConfiguration == null || StringUtils.isBlank(proxyConfiguration.host)) {
+            return key;
+        }
+        String passwordHash = Util.toHexString(ChecksumUtils.newSha256Digest()
+                .digest(StringUtils.defaultString(proxyConfiguration.password).getBytes(StandardCharsets.UTF_8)));
+        return key + " via " + proxyConfiguration.host + ":" + proxyConfiguration.port + ":" +
+                StringUtils.defaultString(proxyConfiguration.username) + ":" + passwordHash;
+    }
+
+    private static CloseableHttpClient createClient(ProxyConfiguration proxyConfiguration) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(TIMEOUT_MILLIS)
+                .setSocketTimeout(TIMEOUT_MILLIS)
+                .build();
+        HttpClientBuilder builder = HttpClients.custom()
+                .setDefaultRequestConfig(requestConfig)
+                .setMaxConnPerRoute(MAX_CONNECTIONS_PER_ROUTE)
+                .setMaxConnTotal(MAX_CONNECTIONS_TOTAL)
+                .setConnectionTimeToLive(CONNECTION_TIME_TO_LIVE_MINUTES, TimeUnit.MINUTES)
+                .evictIdleConnections(IDLE_CONNECTION_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .evictExpiredConnections()
+                .disableCookieManagement()
+                .setUserAgent("jenkins-jfrog-plugin")
+                .addInterceptorLast(ArtifactoryHttpClients::removeCrossHostAuthorization)
+                // The requests are idempotent, so they are retried even if they were sent. Timeouts and aborted
+                // requests are not retried.
+                .setRetryHandler(new DefaultHttpRequestRetryHandler(MAX_RETRIES, true,
+                        Arrays.asList(InterruptedIOException.class, UnknownHostException.class, SSLException.class)) {
+                })
+                .setServiceUnavailableRetryStrategy(new ServerErrorRetryStrategy());
+        if (proxyConfiguration != null && StringUtils.isNotBlank(proxyConfiguration.host)) {
+            builder.setProxy(new HttpHost(proxyConfiguration.host, proxyConfiguration.port));
+            if (StringUtils.isNotBlank(proxyConfiguration.username)) {
+                CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+                credentialsProvider.setCredentials(new AuthScope(proxyConfiguration.host, proxyConfiguration.port),
+                        new UsernamePasswordCredentials(proxyConfiguration.username, proxyConfiguration.password));
+                builder.setDefaultCredentialsProvider(credentialsProvider);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Removes the Authorization header of the request when it is sent to another host than the original request,
+     * after a redirect. The redirects of HttpClient copy the headers of the original request.
+     */
+    static void removeCrossHostAuthorization(HttpRequest request, HttpContext context) {
+        HttpHost target = HttpCoreContext.adapt(context).getTargetHost();
+        Object origin = context.getAttribute(ORIGIN_HOST_ATTRIBUTE);
+        if (origin == null) {
+            context.setAttribute(ORIGIN_HOST_ATTRIBUTE, target);
+        } else if (!origin.equals(target)) {
+            request.removeHeaders(HttpHeaders.AUTHORIZATION);
+        }
+    }
+
+    /**
+     * Retries the requests that got a 5xx response.
+     */
+    private static class ServerErrorRetryStrategy implements ServiceUnavailableRetryStrategy {
+        @Override
+        public boolean retryRequest(HttpResponse response, int executionCount, HttpContext context) {
+            return executionCount <= MAX_RETRIES && response.getStatusLine().getStatusCode() >= 500;
+        }
+
+        @Override
+        public long getRetryInterval() {
+            return RETRY_INTERVAL_MILLIS;
+        }
+    }
+
+    /**
+     * Adds the Artifactory credentials to the request. They are not sent to the targets of redirects to other hosts.
+     *
+     * @param request     - The request
+     * @param username    - Username for basic authentication, may be blank
+     * @param password    - Password for basic authentication, may be blank
+     * @param accessToken - Access token for bearer authentication, may be blank. Takes precedence over username and password.
+     */
+    static void setAuthorization(HttpRequestBase request, String username, String password, String accessToken) {
+        if (StringUtils.isNotBlank(accessToken)) {
+            request.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken);
+        } else if (StringUtils.isNotBlank(username)) {
+            String credentials = username + ":" + StringUtils.defaultString(password);
+            request.setHeader(HttpHeaders.AUTHORIZATION, "Basic " +
+                    Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Sends a HEAD request to Artifactory to get the sha256 of a file.
+     *
+     * @param url                - The full URL of the file
+     * @param username           - Username for basic authentication, may be blank
+     * @param password           - Password for basic authentication, may be blank
+     * @param accessToken        - Access token for bearer authentication, may be blank
+     * @param proxyConfiguration - Proxy to use, or null to connect directly
+     * @return the sha256, or an empty string if the server did not provide one.
+     * @throws IOException if the request fails or the file doesn't exist.
+     */
+    public static String getSha256(String url, String username, String password, String accessToken,
+                                   ProxyConfiguration proxyConfiguration) throws IOException {
+        HttpHead request = new HttpHead(ParallelRangeDownloader.encodeUrl(url));
+        setAuthorization(request, username, password, accessToken);
+        return getSha256(request, url, proxyConfiguration);
+    }
+
+    /**
+     * Sends a prepared HEAD request to Artifactory to get the sha256 of a file.
+     * The request can be aborted from another thread.
+     *
+     * @param request            - The HEAD request, with its credentials
+     * @param url                - The full URL of the file
+     * @param proxyConfiguration - Proxy to use, or null to connect directly
+     * @return the sha256, or an empty string if the server did not provide one.
+     * @throws IOException if the request fails, is aborted, or the file doesn't exist.
+     */
+    static String getSha256(HttpHead request, String url, ProxyConfiguration proxyConfiguration) throws IOException {
+        try (CloseableHttpResponse response = getClient(url, proxyConfiguration).execute(request)) {
+            int status = response.getStatusLine().getStatusCode();
+            if (status < 200 || status >= 300) {
+                throw new IOException("Failed to get the headers of " + url + ": " + response.getStatusLine());
+            }
+            for (String headerName : new String[]{SHA256_HEADER_NAME, "X-Artifactory-Checksum-Sha256"}) {
+                Header header = response.getFirstHeader(headerName);
+                if (header != null) {
+                    return header.getValue();
+                }
+            }
+            return StringUtils.EMPTY;
+        }
+    }
+
+    /**
+     * Sends a GET request to Artifactory and returns the response body.
+     * Used for small REST API responses, not for downloading files.
+     *
+     * @param url                - The full URL
+     * @param username           - Username for basic authentication, may be blank
+     * @param password           - Password for basic authentication, may be blank
+     * @param accessToken        - Access token for bearer authentication, may be blank
+     * @param proxyConfiguration - Proxy to use, or null to connect directly
+     * @return the response body.
+     * @throws IOException if the request fails.
+     */
+    public static String getContent(String url, String username, String password, String accessToken,
+                                    ProxyConfiguration proxyConfiguration) throws IOException {
+        HttpGet request = new HttpGet(ParallelRangeDownloader.encodeUrl(url));
+        setAuthorization(request, username, password, accessToken);
+        try (CloseableHttpResponse response = getClient(url, proxyConfiguration).execute(request)) {
+            int status = response.getStatusLine().getStatusCode();
+            if (status < 200 || status >= 300) {
+                throw new IOException("Failed to get " + url + ": " + response.getStatusLine());
+            }
+            return response.getEntity() == null ? StringUtils.EMPTY : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        }
+    }
+}
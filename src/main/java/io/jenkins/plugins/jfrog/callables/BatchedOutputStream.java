@@ -0,0 +1,103 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches the output of a command, so that it is sent to the controller in a few large writes instead of a write per
+ * line. The buffered bytes are written when the buffer is full, at the latest a given delay after they were buffered,
+ * and when the stream is closed. Calls to {@link #flush()} don't write a partial batch.
+ * The delayed writes run on an executor of the caller, as the Jenkins timer isn't available on agents.
+ * Runs inside an agent.
+ */
+class BatchedOutputStream extends OutputStream {
+    private final OutputStream out;
+    private final byte[] buffer;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService flusher;
+    private int count;
+    private ScheduledFuture<?> scheduledWrite;
+    private IOException writeError;
+
+    /**
+     * @param out            - The stream to write the batches to. It is flushed after each batch.
+     * @param batchSize      - The maximal size of a batch
+     * @param maxDelayMillis - The maximal time bytes are kept in the buffer
+     * @param flusher        - The executor of the delayed writes
+     */
+    BatchedOutputStream(OutputStream out, int batchSize, long maxDelayMillis, ScheduledExecutorService flusher) {
+        this.out = out;
+        this.buffer = new byte[batchSize];
+        this.maxDelayMillis = maxDelayMillis;
+        this.flusher = flusher;
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        if (count == buffer.length) {
+            writeBatch();
+        }
+        buffer[count++] = (byte) b;
+        scheduleWrite();
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (len >= buffer.length) {
+            writeBatch();
+            out.write(b, off, len);
+            out.flush();
+            return;
+        }
+        if (count + len > buffer.length) {
+            writeBatch();
+        }
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+        scheduleWrite();
+    }
+
+    private void scheduleWrite() {
+        if (scheduledWrite == null) {
+            scheduledWrite = flusher.schedule(this::timedWrite, maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void timedWrite() {
+        scheduledWrite = null;
+        try {
+            writeBatch();
+        } catch (IOException e) {
+            // Reported to the next writer
+            writeError = e;
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        if (writeError != null) {
+            throw writeError;
+        }
+        if (count == 0) {
+            return;
+        }
+        out.write(buffer, 0, count);
+        count = 0;
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (scheduledWrite != null) {
+            scheduledWrite.cancel(false);
+            scheduledWrite = null;
+        }
+        try {
+            writeBatch();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.Util;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Block-matching binary delta between two versions of the JFrog CLI, in the spirit of rsync.
+ * <p>
+ * The agent splits its installed binary into fixed-size blocks and sends the checksums of the blocks
+ * ({@link Signatures}) to the controller. The controller scans the new binary with a rolling checksum, and writes a
+ * delta that copies the blocks the agent already has, and contains only the bytes it doesn't. The agent rebuilds the
+ * new binary from its installed binary and the delta. The rebuilt binary must always be verified against the sha256 of
+ * the new binary, as the block checksums don't guarantee a correct match.
+ */
+public class BinaryDelta {
+    static final int BLOCK_SIZE = 8 * 1024;
+    private static final int MAX_LITERAL_SIZE = 64 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAGIC = 0x4A46444C54413031L; // "JFDLTA01"
+    private static final byte OP_COPY = 1;
+    private static final byte OP_DATA = 2;
+    private static final byte OP_END = 3;
+
+    /**
+     * The checksums of the blocks of a binary. The last block is ignored if it's shorter than the block size.
+     */
+    public static class Signatures implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int blockSize;
+        private final int[] weak;
+        private final long[] strong;
+
+        Signatures(int blockSize, int[] weak, long[] strong) {
+            this.blockSize = blockSize;
+            this.weak = weak;
+            this.strong = strong;
+        }
+
+        int getBlockCount() {
+            return weak.length;
+        }
+    }
+
+    /**
+     * Computes the block checksums of a binary.
+     */
+    static Signatures computeSignatures(File file) throws IOException {
+        int blocks = (int) (file.length() / BLOCK_SIZE);
+        int[] weak = new int[blocks];
+        long[] strong = new long[blocks];
+        byte[] block = new byte[BLOCK_SIZE];
+        MessageDigest digest = ChecksumUtils.newSha256Digest();
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE))) {
+            for (int i = 0; i < blocks; i++) {
+                inputStream.readFully(block);
+                weak[i] = new RollingChecksum(block, BLOCK_SIZE).get();
+                strong[i] = strongChecksum(digest, block, 0, BLOCK_SIZE, null, 0);
+            }
+        }
+        return new Signatures(BLOCK_SIZE, weak, strong);
+    }
+
+    /**
+     * Writes the delta that rebuilds the target from a binary with the given block checksums.
+     *
+     * @param target - The new binary
+     * @param base   - The block checksums of the binary the delta is applied to
+     * @param delta  - The delta file to write
+     * @return the number of bytes of the target that are copied from the base binary.
+     */
+    public static long computeDelta(File target, Signatures base, File delta) throws IOException {
+        Map<Integer, List<Integer>> blocksByWeak = new HashMap<>();
+        // Most positions of the target don't match any block, and are rejected by this table without a map lookup
+        boolean[] weakFilter = new boolean[1 << 16];
+        for (int i = 0; i < base.getBlockCount(); i++) {
+            blocksByWeak.computeIfAbsent(base.weak[i], k -> new ArrayList<>(1)).add(i);
+            weakFilter[filterIndex(base.weak[i])] = true;
+        }
+        int blockSize = base.blockSize;
+        MessageDigest digest = ChecksumUtils.newSha256Digest();
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(target.toPath()), BUFFER_SIZE);
+             DeltaWriter writer = new DeltaWriter(delta, blockSize)) {
+            // The window is a circular buffer of the last blockSize bytes of the target
+            byte[] window = new byte[blockSize];
+            int windowLength = fill(inputStream, window, 0, blockSize);
+            int windowStart = 0;
+            RollingChecksum checksum = new RollingChecksum(window, windowLength);
+            while (windowLength == blockSize) {
+                int weak = checksum.get();
+                int match = weakFilter[filterIndex(weak)] ? findBlock(blocksByWeak.get(weak), base, digest, window, windowStart) : -1;
+                if (match >= 0) {
+                    writer.copy(match, blockSize);
+                    windowLength = fill(inputStream, window, 0, blockSize);
+                    windowStart = 0;
+                    checksum = new RollingChecksum(window, windowLength);
+                    continue;
+                }
+                int next = inputStream.read();
+                writer.literal(window[windowStart]);
+                if (next < 0) {
+                    // Less than a block is left, it can't match
+                    for (int i = 1; i < blockSize; i++) {
+                        writer.literal(window[(windowStart + i) % blockSize]);
+                    }
+                    windowLength = 0;
+                    break;
+                }
+                checksum.roll(window[windowStart], (byte) next);
+                window[windowStart] = (byte) next;
+                windowStart = (windowStart + 1) % blockSize;
+            }
+            for (int i = 0; i < windowLength; i++) {
+                writer.literal(window[i]);
+            }
+            return writer.copiedBytes;
+        }
+    }
+
+    /**
+     * Rebuilds the target from the base binary and the delta.
+     *
+     * @param base   - The binary the delta was computed for
+     * @param delta  - The delta file
+     * @param output - The file to write the rebuilt target into
+     * @return lowercase hex-encoded sha256 of the rebuilt target.
+     */
+    static String applyDelta(File base, File delta, File output) throws IOException {
+        MessageDigest digest = ChecksumUtils.newSha256Digest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (RandomAccessFile baseFile = new RandomAccessFile(base, "r");
+             DataInputStream deltaStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(delta.toPath()), BUFFER_SIZE));
+             OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(output.toPath()), BUFFER_SIZE)) {
+            if (deltaStream.readLong() != MAGIC) {
+                throw new IOException("Invalid JFrog CLI delta file: " + delta.getAbsolutePath());
+            }
+            int blockSize = deltaStream.readInt();
+            while (true) {
+                byte op = deltaStream.readByte();
+                if (op == OP_END) {
+                    break;
+                }
+                long remaining;
+                if (op == OP_COPY) {
+                    baseFile.seek((long) deltaStream.readInt() * blockSize);
+                    remaining = (long) deltaStream.readInt() * blockSize;
+                } else if (op == OP_DATA) {
+                    remaining = deltaStream.readInt();
+                } else {
+                    throw new IOException("Invalid JFrog CLI delta operation: " + op);
+                }
+                while (remaining > 0) {
+                    int length = (int) Math.min(buffer.length, remaining);
+                    if (op == OP_COPY) {
+                        baseFile.readFully(buffer, 0, length);
+                    } else {
+                        deltaStream.readFully(buffer, 0, length);
+                    }
+                    outputStream.write(buffer, 0, length);
+                    digest.update(buffer, 0, length);
+                    remaining -= length;
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated JFrog CLI delta or base binary: " + e.getMessage(), e);
+        }
+        return Util.toHexString(digest.digest());
+    }
+
+    private static int filterIndex(int weak) {
+        return (weak ^ (weak >>> 16)) & 0xffff;
+    }
+
+    private static int findBlock(List<Integer> candidates, Signatures base, MessageDigest digest, byte[] window, int windowStart) {
+        if (candidates == null) {
+            return -1;
+        }
+        long strong = strongChecksum(digest, window, windowStart, window.length - windowStart, window, windowStart);
+        for (int candidate : candidates) {
+            if (base.strong[candidate] == strong) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the first 8 bytes of the sha256 of the first range followed by the beginning of the second array.
+     */
+    private static long strongChecksum(MessageDigest digest, byte[] first, int offset, int length, byte[] second, int secondLength) {
+        digest.reset();
+        digest.update(first, offset, length);
+        if (second != null) {
+            digest.update(second, 0, secondLength);
+        }
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    private static int fill(InputStream inputStream, byte[] buffer, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = inputStream.read(buffer, offset + total, length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * The rsync weak checksum of a window, which can be moved by one byte in constant time.
+     */
+    static class RollingChecksum {
+        private final int length;
+        private int a;
+        private int b;
+
+        RollingChecksum(byte[] window, int length) {
+            this.length = length;
+            for (int i = 0; i < length; i++) {
+                a += window[i] & 0xff;
+                b += (length - i) * (window[i] & 0xff);
+            }
+        }
+
+        void roll(byte out, byte in) {
+            a += (in & 0xff) - (out & 0xff);
+            b += a - length * (out & 0xff);
+        }
+
+        int get() {
+            return (a & 0xffff) | (b << 16);
+        }
+    }
+
+    private static class DeltaWriter implements AutoCloseable {
+        private final DataOutputStream outputStream;
+        private final byte[] literal = new byte[MAX_LITERAL_SIZE];
+        private int literalLength;
+        private int copyStart = -1;
+        private int copyBlocks;
+        private long copiedBytes;
+
+        private DeltaWriter(File delta, int blockSize) throws IOException {
+            outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(delta.toPath()), BUFFER_SIZE));
+            outputStream.writeLong(MAGIC);
+            outputStream.writeInt(blockSize);
+        }
+
+        private void copy(int block, int blockSize) throws IOException {
+            flushLiteral();
+            copiedBytes += blockSize;
+            if (copyStart >= 0 && copyStart + copyBlocks == block) {
+                // Consecutive blocks are merged into a single operation
+                copyBlocks++;
+                return;
+            }
+            flushCopy();
+            copyStart = block;
+            copyBlocks = 1;
+        }
+
+        private void literal(byte value) throws IOException {
+            flushCopy();
+            if (literalLength == literal.length) {
+                flushLiteral();
+            }
+            literal[literalLength++] = value;
+        }
+
+        private void flushCopy() throws IOException {
+            if (copyStart >= 0) {
+                outputStream.writeByte(OP_COPY);
+                outputStream.writeInt(copyStart);
+                outputStream.writeInt(copyBlocks);
+                copyStart = -1;
+            }
+        }
+
+        private void flushLiteral() throws IOException {
+            if (literalLength > 0) {
+                outputStream.writeByte(OP_DATA);
+                outputStream.writeInt(literalLength);
+                outputStream.write(literal, 0, literalLength);
+                literalLength = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flushCopy();
+                flushLiteral();
+                outputStream.writeByte(OP_END);
+            } finally {
+                outputStream.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+
+import java.io.File;
+
+/**
+ * Records that a build runs a command with the JFrog CLI binary of a tool directory, so that {@link CliToolJanitor}
+ * doesn't evict it while the build runs. Used for the commands that are not run by {@link CliCommandRunner}, which
+ * records it itself.
+ * Runs inside an agent.
+ */
+@AllArgsConstructor
+public class CliBinaryUse extends MasterToSlaveFileCallable<Void> {
+    /**
+     * The path of the binary, as passed to the command line.
+     */
+    private String binaryPath;
+
+    @Override
+    public Void invoke(File workingDir, VirtualChannel channel) {
+        CliToolJanitor.touchLastUsedOfBinary(binaryPath);
+        return null;
+    }
+}
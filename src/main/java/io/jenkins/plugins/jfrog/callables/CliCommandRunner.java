@@ -0,0 +1,91 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.Launcher;
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
+import hudson.util.StreamTaskListener;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Runs a JFrog CLI command in the working directory, and sends its output to the controller in compressed batches,
+ * instead of a remote write per chunk of output. The controller inflates the output with an
+ * {@link java.util.zip.InflaterOutputStream}.
+ * Runs inside an agent.
+ */
+@AllArgsConstructor
+public class CliCommandRunner extends MasterToSlaveFileCallable<Integer> {
+    static final int BATCH_SIZE = 64 * 1024;
+    static final long BATCH_DELAY_MILLIS = 200;
+
+    private List<String> cmds;
+    /**
+     * The arguments to mask in the command line printed to the log, or null.
+     */
+    private boolean[] masks;
+    private String[] envs;
+    /**
+     * True to not print the command line.
+     */
+    private boolean quiet;
+    /**
+     * The log on the controller, that receives the command line. It is not part of the output of the command.
+     */
+    private RemoteOutputStream log;
+    /**
+     * The stream on the controller, that receives the deflated output.
+     */
+    private RemoteOutputStream output;
+    /**
+     * The file to write the stdout of the command to, or null. When set, only the stderr of the command, where the
+     * CLI writes its log, is sent to the controller.
+     */
+    private String resultFile;
+
+    /**
+     * @return the exit code of the command.
+     */
+    @Override
+    public Integer invoke(File workingDir, VirtualChannel channel) throws IOException, InterruptedException {
+        // A build that runs the CLI uses its tool directory, which must not be evicted while the build runs
+        CliToolJanitor.touchLastUsedOfBinary(cmds.get(0));
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jfrog-cli-output-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Each batch is sync-flushed, so that the controller can inflate it when it arrives
+        try (OutputStream batched = new BatchedOutputStream(new DeflaterOutputStream(output, deflater, BATCH_SIZE, true),
+                BATCH_SIZE, BATCH_DELAY_MILLIS, flusher);
+             OutputStream result = resultFile != null ? new FileOutputStream(resultFile) : null) {
+            StreamTaskListener listener = new StreamTaskListener(log, StandardCharsets.UTF_8);
+            Launcher.ProcStarter procStarter = new Launcher.LocalLauncher(listener).launch()
+                    .cmds(cmds)
+                    .masks(masks)
+                    .envs(envs)
+                    .quiet(quiet)
+                    .pwd(workingDir);
+            if (result != null) {
+                procStarter.stdout(result).stderr(batched);
+            } else {
+                procStarter.stdout(batched);
+            }
+            return procStarter.join();
+        } finally {
+            flusher.shutdownNow();
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.Util;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Agent-side content-addressable store of JFrog CLI binaries, keyed by sha256.
+ * <p>
+ * The store is shared by all the JFrog CLI tool installations of the agent and is located next to them, in
+ * {@code <tools>/io.jenkins.plugins.jfrog.JfrogInstallation/jfrog-cas/<sha256>/<binary>}. Each downloaded binary is
+ * added to the store, so that installing the same binary in another tool directory, or rolling back to a previous
+ * version, creates a hard link to the stored binary instead of downloading it again. If hard links are not supported
+ * by the file system, the binary is copied.
+ * <p>
+ * The total size of the binaries that are not used by any tool directory is bounded, and the least recently used
+ * binaries are evicted first.
+ * Runs inside an agent.
+ */
+class CliContentStore {
+    static final String STORE_DIR_NAME = "jfrog-cas";
+    private static final Pattern SHA256_PATTERN = Pattern.compile("^[a-f0-9]{64}$");
+
+    private final File storeRoot;
+    private final long maxBytes;
+    private final TaskListener log;
+
+    /**
+     * @param toolLocation - The tool directory of a JFrog CLI installation. The store is created next to it.
+     * @param maxBytes     - Maximum total size of the store. 0 disables the store.
+     * @param log          - The logger
+     */
+    CliContentStore(File toolLocation, long maxBytes, TaskListener log) {
+        this.storeRoot = new File(toolLocation.getAbsoluteFile().getParentFile(), STORE_DIR_NAME);
+        this.maxBytes = maxBytes;
+        this.log = log;
+    }
+
+    /**
+     * @param toolsRoot - The directory that contains the JFrog CLI tool directories and the store
+     * @param maxBytes  - Maximum total size of the store. 0 disables the store.
+     * @param log       - The logger
+     * @return the store of the tools directory.
+     */
+    static CliContentStore inToolsRoot(File toolsRoot, long maxBytes, TaskListener log) {
+        return new CliContentStore(new File(toolsRoot, STORE_DIR_NAME), maxBytes, log);
+    }
+
+    /**
+     * Creates a link to the stored binary with the given sha256.
+     *
+     * @param sha256     - The sha256 of the binary
+     * @param binaryName - The name of the binary, for example 'jf' or 'jf.exe'
+     * @param target     - The file to create. Must not exist.
+     * @return true if the binary was found in the store and linked to the target, false otherwise.
+     */
+    boolean link(String sha256, String binaryName, File target) {
+        File entry = getEntry(sha256, binaryName);
+        if (entry == null || !entry.isFile()) {
+            return false;
+        }
+        try {
+            // A stored binary may be shared by several tool directories, so it is never modified in place.
+            // Still, make sure it wasn't corrupted on disk before using it.
+            if (!StringUtils.equalsIgnoreCase(sha256, ChecksumUtils.sha256Hex(entry))) {
+                log.getLogger().println("[CliContentStore] Stored CLI doesn't match its sha256, removing it: " + entry.getParent());
+                Util.deleteRecursive(entry.getParentFile());
+                return false;
+            }
+            linkOrCopy(entry, target);
+            // Mark as recently used for the LRU eviction
+            if (!entry.getParentFile().setLastModified(System.currentTimeMillis())) {
+                log.getLogger().println("[CliContentStore] Failed to update the last modified time of " + entry.getParent());
+            }
+            log.getLogger().println("[CliContentStore] Found CLI in the agent store: " + sha256);
+            return true;
+        } catch (NoSuchFileException e) {
+            // Evicted concurrently
+            return false;
+        } catch (IOException e) {
+            log.getLogger().println("[CliContentStore] Failed to use the stored CLI: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Adds a verified binary to the store and evicts the least recently used binaries if the store is full.
+     * Failures are logged and ignored, as the store is only an optimization.
+     *
+     * @param sha256     - The verified sha256 of the binary
+     * @param binaryName - The name of the binary, for example 'jf' or 'jf.exe'
+     * @param source     - The binary to add. Left in place.
+     */
+    void add(String sha256, String binaryName, File source) {
+        File entry = getEntry(sha256, binaryName);
+        if (entry == null) {
+            return;
+        }
+        File entryDir = entry.getParentFile();
+        try {
+            if (!entry.isFile()) {
+                Files.createDirectories(entryDir.toPath());
+                File temporaryFile = new File(entryDir, binaryName + ".tmp." + System.nanoTime());
+                try {
+                    linkOrCopy(source, temporaryFile);
+                    Files.move(temporaryFile.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temporaryFile.toPath());
+                }
+            }
+            if (!entryDir.setLastModified(System.currentTimeMillis())) {
+                log.getLogger().println("[CliContentStore] Failed to update the last modified time of " + entryDir);
+            }
+        } catch (IOException e) {
+            log.getLogger().println("[CliContentStore] Failed to add CLI to the agent store: " + e.getMessage());
+            return;
+        }
+        evict(entryDir);
+    }
+
+    /**
+     * Deletes the least recently used entries until the total size of the store is within the limit.
+     * Binaries that are still hard-linked from a tool directory don't take extra space, so they are not counted.
+     *
+     * @param keep - An entry directory that must not be evicted (the one that was just used)
+     */
+    void evict(File keep) {
+        File[] entryDirs = storeRoot.listFiles(File::isDirectory);
+        if (entryDirs == null) {
+            return;
+        }
+        List<StoreEntry> entries = new ArrayList<>();
+        long totalBytes = 0;
+        for (File entryDir : entryDirs) {
+            StoreEntry entry = new StoreEntry(entryDir);
+            entries.add(entry);
+            totalBytes += entry.size;
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+        for (StoreEntry entry : entries) {
+            if (totalBytes <= maxBytes) {
+                return;
+            }
+            if (entry.dir.equals(keep) || entry.size == 0) {
+                continue;
+            }
+            try {
+                Util.deleteRecursive(entry.dir);
+                totalBytes -= entry.size;
+                log.getLogger().println("[CliContentStore] Evicted CLI from the agent store: " + entry.dir.getName());
+            } catch (IOException e) {
+                log.getLogger().println("[CliContentStore] Failed to evict " + entry.dir + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private File getEntry(String sha256, String binaryName) {
+        if (maxBytes <= 0 || sha256 == null || !SHA256_PATTERN.matcher(sha256.toLowerCase()).matches()) {
+            return null;
+        }
+        return new File(new File(storeRoot, sha256.toLowerCase()), binaryName);
+    }
+
+    private static void linkOrCopy(File source, File target) throws IOException {
+        try {
+            Files.createLink(target.toPath(), source.toPath());
+        } catch (NoSuchFileException e) {
+            throw e;
+        } catch (UnsupportedOperationException | IOException e) {
+            // Hard links are not supported by the file system, or the store is on a different file system
+            Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Returns the number of hard links to the file, or 1 if the file system doesn't report it.
+     */
+    private static int getLinkCount(File file) {
+        try {
+            Object linkCount = Files.getAttribute(file.toPath(), "unix:nlink");
+            return linkCount instanceof Integer ? (Integer) linkCount : 1;
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            return 1;
+        }
+    }
+
+    private static class StoreEntry {
+        private final File dir;
+        private long size;
+        private long lastUsed;
+
+        private StoreEntry(File dir) {
+            this.dir = dir;
+            this.lastUsed = dir.lastModified();
+            File[] files = dir.listFiles(File::isFile);
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                if (getLinkCount(file) <= 1) {
+                    size += file.length();
+                }
+                lastUsed = Math.max(lastUsed, file.lastModified());
+            }
+        }
+    }
+}
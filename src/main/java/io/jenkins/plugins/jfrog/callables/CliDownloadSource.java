@@ -0,0 +1,51 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Serializable;
+
+/**
+ * A location JFrog CLI can be downloaded from: a JFrog Platform instance and the repository that holds the CLI
+ * binaries, for example releases.jfrog.io and 'jfrog-cli', or a remote repository in a configured Artifactory.
+ */
+public class CliDownloadSource implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final JFrogPlatformInstance instance;
+    private final String repository;
+
+    public CliDownloadSource(JFrogPlatformInstance instance, String repository) {
+        this.instance = instance;
+        this.repository = repository;
+    }
+
+    public JFrogPlatformInstance getInstance() {
+        return instance;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    /**
+     * @return a key that identifies the source, for example "https://releases.jfrog.io/artifactory/jfrog-cli".
+     */
+    public String getKey() {
+        return instance.inferArtifactoryUrl() + "/" + repository;
+    }
+
+    /**
+     * @return the URL of the CLI binary in this source, for example
+     * "https://releases.jfrog.io/artifactory/jfrog-cli/v2-jf/[RELEASE]/jfrog-cli-linux-amd64/jf".
+     */
+    public String getUrl(String version, String osDetails, String binaryName) {
+        return String.format("%s/v2-jf/%s/jfrog-cli-%s/%s", getKey(), StringUtils.defaultIfBlank(version, "[RELEASE]"),
+                osDetails, binaryName);
+    }
+
+    @Override
+    public String toString() {
+        return getKey();
+    }
+}
@@ -0,0 +1,123 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.remoting.VirtualChannel;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import io.jenkins.plugins.jfrog.OsUtils;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Collects everything the controller needs to know about a JFrog CLI tool directory in a single agent call: the OS
+ * of the agent, and the state of the installed binary. The controller decides whether to install from the result.
+ * <p>
+ * A 0-byte sha256 file, left behind by older plugin versions, is deleted while probing, as it is never valid. The use
+ * of the installed binary is recorded for {@link CliToolJanitor}.
+ * Runs inside an agent.
+ */
+@AllArgsConstructor
+public class CliInstallProbe extends MasterToSlaveFileCallable<CliInstallProbe.Result> {
+    private String binaryName;
+    /**
+     * Minimum age of the temporary files that are reported as stale.
+     */
+    private long tempMaxAgeMillis;
+
+    @Override
+    public Result invoke(File toolLocation, VirtualChannel channel) throws IOException {
+        Result result = new Result(OsUtils.getOsDetails());
+        File binary = new File(toolLocation, binaryName);
+        if (binary.isFile()) {
+            result.size = binary.length();
+            result.executable = binaryName.toLowerCase().endsWith(".exe") || binary.canExecute();
+            result.intact = ChecksumUtils.verifyInstalledBinary(binary);
+            CliToolJanitor.touchLastUsed(toolLocation);
+        }
+        File sha256File = new File(toolLocation, ChecksumUtils.SHA256_FILE_NAME);
+        if (sha256File.isFile()) {
+            if (sha256File.length() == 0) {
+                result.staleSha256FileDeleted = sha256File.delete();
+            } else {
+                result.localSha256 = new String(Files.readAllBytes(sha256File.toPath()), StandardCharsets.UTF_8);
+            }
+        }
+        File[] files = toolLocation.listFiles(File::isFile);
+        if (files != null) {
+            long now = System.currentTimeMillis();
+            for (File file : files) {
+                String name = file.getName();
+                if ((name.contains(".tmp.") || name.endsWith(".tmp")) && now - file.lastModified() >= tempMaxAgeMillis) {
+                    result.staleTempFiles++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The state of a JFrog CLI tool directory.
+     */
+    public static class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String osDetails;
+        private long size;
+        private boolean executable;
+        private boolean intact;
+        private String localSha256;
+        private boolean staleSha256FileDeleted;
+        private int staleTempFiles;
+
+        private Result(String osDetails) {
+            this.osDetails = osDetails;
+        }
+
+        /**
+         * @return the OS and architecture of the agent, for example "linux-amd64".
+         */
+        public String getOsDetails() {
+            return osDetails;
+        }
+
+        /**
+         * @return the size of the installed binary, or 0 if it doesn't exist.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        public boolean isExecutable() {
+            return executable;
+        }
+
+        /**
+         * @return false if the installed binary doesn't match the sha256 file next to it.
+         */
+        public boolean isIntact() {
+            return intact;
+        }
+
+        /**
+         * @return the content of the sha256 file of the installed binary, or null if there is none.
+         */
+        public String getLocalSha256() {
+            return localSha256;
+        }
+
+        public boolean isStaleSha256FileDeleted() {
+            return staleSha256FileDeleted;
+        }
+
+        /**
+         * @return the number of temporary files of interrupted downloads that are old enough to be deleted.
+         */
+        public int getStaleTempFiles() {
+            return staleTempFiles;
+        }
+    }
+}
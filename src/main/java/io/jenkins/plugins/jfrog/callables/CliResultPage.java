@@ -0,0 +1,117 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.jenkins.plugins.jfrog.callables.CliResultParser.CHECKPOINT_INTERVAL;
+import static io.jenkins.plugins.jfrog.callables.CliResultParser.MAPPER;
+import static io.jenkins.plugins.jfrog.callables.CliResultParser.ROOT;
+
+/**
+ * Reads a page of the items of an array in the JSON output of a JFrog CLI command (see {@link CliResultParser}).
+ * The output is read from the position of the nearest item before the page, as found in the index of the output.
+ * Runs inside an agent.
+ */
+@AllArgsConstructor
+public class CliResultPage extends MasterToSlaveFileCallable<ArrayList<Object>> {
+    /**
+     * The name of the array, or {@link CliResultParser#ROOT} if the output is an array.
+     */
+    private String array;
+    private int offset;
+    private int limit;
+
+    /**
+     * @return the items of the page, as maps, lists, strings, numbers and booleans. Empty after the end of the array.
+     */
+    @Override
+    public ArrayList<Object> invoke(File resultFile, VirtualChannel channel) throws IOException {
+        ArrayList<Object> items = new ArrayList<>();
+        List<Long> checkpoints = readCheckpoints(resultFile);
+        int checkpoint = checkpoints.isEmpty() ? -1 : Math.min(offset / CHECKPOINT_INTERVAL, checkpoints.size() - 1);
+        try (JsonParser parser = checkpoint < 0 ? MAPPER.getFactory().createParser(resultFile) :
+                MAPPER.getFactory().createParser(openAt(resultFile, checkpoints.get(checkpoint)))) {
+            if (checkpoint < 0 && !moveToArray(parser)) {
+                throw new IOException("The output of the command has no '" + array + "' array");
+            }
+            if (checkpoint >= 0 && parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("The index of the output is invalid: " + resultFile);
+            }
+            int index = checkpoint < 0 ? 0 : checkpoint * CHECKPOINT_INTERVAL;
+            while (items.size() < limit && parser.nextToken() != JsonToken.END_ARRAY) {
+                if (index++ < offset) {
+                    parser.skipChildren();
+                } else {
+                    items.add(parser.readValueAs(Object.class));
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * @return the positions of every {@value CliResultParser#CHECKPOINT_INTERVAL}th item of the array. Empty if the
+     * output wasn't indexed.
+     */
+    private List<Long> readCheckpoints(File resultFile) throws IOException {
+        File indexFile = CliResultParser.getIndexFile(resultFile);
+        if (!indexFile.isFile()) {
+            return List.of();
+        }
+        Map<String, List<Long>> index = MAPPER.readValue(indexFile, new TypeReference<Map<String, List<Long>>>() {
+        });
+        return index.getOrDefault(array, List.of());
+    }
+
+    /**
+     * Opens the output at the position of an item, as the continuation of an array: "[item, item, ...]".
+     */
+    private static InputStream openAt(File resultFile, long position) throws IOException {
+        FileInputStream input = new FileInputStream(resultFile);
+        try {
+            input.getChannel().position(position);
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+        return new SequenceInputStream(new ByteArrayInputStream("[".getBytes(StandardCharsets.UTF_8)), input);
+    }
+
+    /**
+     * Moves the parser to the start of the array.
+     *
+     * @return false if the output has no such array.
+     */
+    private boolean moveToArray(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (ROOT.equals(array)) {
+            return token == JsonToken.START_ARRAY;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.START_ARRAY && field.equals(array)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+}
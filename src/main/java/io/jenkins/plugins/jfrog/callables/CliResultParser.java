@@ -0,0 +1,115 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses the JSON output of a JFrog CLI command, written to a file by {@link CliCommandRunner}, into a compact summary.
+ * The fields of the output are kept in the summary, except for the arrays, which are only counted. Their items stay
+ * in the file, and are read a page at a time by {@link CliResultPage}. The fields are kept up to a total of
+ * {@value #MAX_FIELDS_SIZE} bytes of JSON, the larger ones are only named, so that a field with large nested arrays
+ * doesn't end up in the summary.
+ * <p>
+ * The position of every {@value #CHECKPOINT_INTERVAL}th item of each array is written to an index file next to the
+ * output, so that a page is read from the nearest position instead of from the start of the output.
+ * Runs inside an agent.
+ */
+public class CliResultParser extends MasterToSlaveFileCallable<CliResultParser.Result> {
+    /**
+     * The name of the array, when the output is an array rather than an object, as with 'jf rt search'.
+     */
+    public static final String ROOT = "";
+    static final ObjectMapper MAPPER = new ObjectMapper();
+    public static final int MAX_FIELDS_SIZE = 64 * 1024;
+    static final int CHECKPOINT_INTERVAL = 100;
+    private static final String INDEX_SUFFIX = ".index";
+
+    @Override
+    public Result invoke(File resultFile, VirtualChannel channel) throws IOException {
+        LinkedHashMap<String, Object> fields = new LinkedHashMap<>();
+        LinkedHashSet<String> omitted = new LinkedHashSet<>();
+        LinkedHashMap<String, Integer> arrays = new LinkedHashMap<>();
+        Map<String, List<Long>> index = new LinkedHashMap<>();
+        try (JsonParser parser = MAPPER.getFactory().createParser(resultFile)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                arrays.put(ROOT, countItems(parser, index.computeIfAbsent(ROOT, name -> new ArrayList<>())));
+            } else if (token == JsonToken.START_OBJECT) {
+                long fieldsSize = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    if (parser.nextToken() == JsonToken.START_ARRAY) {
+                        arrays.put(field, countItems(parser, index.computeIfAbsent(field, name -> new ArrayList<>())));
+                        continue;
+                    }
+                    // Maps, lists, strings, numbers and booleans
+                    long start = parser.getTokenLocation().getByteOffset();
+                    Object value = parser.readValueAs(Object.class);
+                    fieldsSize += parser.getCurrentLocation().getByteOffset() - start;
+                    if (fieldsSize > MAX_FIELDS_SIZE) {
+                        omitted.add(field);
+                    } else {
+                        fields.put(field, value);
+                    }
+                }
+            } else if (token != null) {
+                throw new IOException("The output of the command is not a JSON object or array: " + resultFile);
+            }
+        }
+        MAPPER.writeValue(getIndexFile(resultFile), index);
+        return new Result(fields, omitted, arrays);
+    }
+
+    /**
+     * Counts the items of the array of the current token, and moves to its end.
+     *
+     * @param checkpoints - Receives the position of every {@value #CHECKPOINT_INTERVAL}th item
+     */
+    private static int countItems(JsonParser parser, List<Long> checkpoints) throws IOException {
+        int count = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (count % CHECKPOINT_INTERVAL == 0) {
+                checkpoints.add(parser.getTokenLocation().getByteOffset());
+            }
+            parser.skipChildren();
+            count++;
+        }
+        return count;
+    }
+
+    static File getIndexFile(File resultFile) {
+        return new File(resultFile.getPath() + INDEX_SUFFIX);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+        /**
+         * The fields of the output, except for the arrays and the omitted fields.
+         */
+        private final LinkedHashMap<String, Object> fields;
+        /**
+         * The fields that are not kept, as they exceed {@value #MAX_FIELDS_SIZE} bytes.
+         */
+        private final LinkedHashSet<String> omitted;
+        /**
+         * The number of items of the arrays of the output.
+         */
+        private final LinkedHashMap<String, Integer> arrays;
+    }
+}
@@ -0,0 +1,142 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Looks up the servers already configured in a JFrog CLI home directory (see {@link ConfiguredServers}), and the
+ * servers a command references in its spec files and in its build tool configs.
+ * <p>
+ * The build tool configs are found as the CLI finds them: in the '.jfrog' directory nearest to the working directory,
+ * in it or in one of its parents, such as the workspace root when the command runs in a subdirectory, and in the
+ * 'projects' directory of the JFrog CLI home directory, for the build tools that have no config in the former.
+ * Runs inside an agent.
+ */
+@AllArgsConstructor
+public class CliServerReferences extends MasterToSlaveFileCallable<CliServerReferences.Result> {
+    /**
+     * The build tool configs, written by commands such as 'jf mvn-config', are in the 'projects' directory of the
+     * '.jfrog' directory, or of the JFrog CLI home directory.
+     */
+    private static final String JFROG_DIR = ".jfrog";
+    private static final String PROJECT_CONFIGS_DIR = "projects";
+    private static final Pattern SERVER_ID_PATTERN = Pattern.compile("^\\s*serverId:\\s*[\"']?([^\"'\\s#]+)");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * The working directory of the command.
+     */
+    private String workingDir;
+    /**
+     * The spec files of the command, absolute or relative to the working directory.
+     */
+    private List<String> specFiles;
+
+    @Override
+    public Result invoke(File jfrogHomeDir, VirtualChannel channel) throws IOException {
+        Set<String> referenced = new HashSet<>();
+        for (String specFile : specFiles) {
+            readSpecFile(Paths.get(workingDir).resolve(specFile), referenced);
+        }
+        readProjectConfigs(findJfrogDir(Paths.get(workingDir).toAbsolutePath()), referenced);
+        readProjectConfigs(jfrogHomeDir.toPath(), referenced);
+        Set<String> configured;
+        synchronized (ConfiguredServers.getLock(jfrogHomeDir)) {
+            configured = ConfiguredServers.read(jfrogHomeDir);
+        }
+        return new Result(configured, referenced);
+    }
+
+    /**
+     * Adds the server IDs of a spec file. A spec file that can't be read is left for the CLI to report.
+     */
+    private static void readSpecFile(Path specFile, Set<String> referenced) {
+        try {
+            JsonNode spec = MAPPER.readTree(specFile.toFile());
+            if (spec != null) {
+                referenced.addAll(spec.findValuesAsText("serverId"));
+            }
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    /**
+     * @return the '.jfrog' directory nearest to the working directory, in it or in one of its parents, or null if
+     * there is none.
+     */
+    static Path findJfrogDir(Path workingDir) {
+        for (Path dir = workingDir; dir != null; dir = dir.getParent()) {
+            Path jfrogDir = dir.resolve(JFROG_DIR);
+            if (Files.isDirectory(jfrogDir)) {
+                return jfrogDir;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the server IDs of the build tool configs in the 'projects' directory of a '.jfrog' or JFrog CLI home
+     * directory.
+     */
+    private static void readProjectConfigs(Path dir, Set<String> referenced) throws IOException {
+        Path projectConfigsDir = dir == null ? null : dir.resolve(PROJECT_CONFIGS_DIR);
+        if (projectConfigsDir == null || !Files.isDirectory(projectConfigsDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> projectConfigs = Files.newDirectoryStream(projectConfigsDir, "*.{yaml,yml}")) {
+            for (Path projectConfig : projectConfigs) {
+                readProjectConfig(projectConfig, referenced);
+            }
+        }
+    }
+
+    /**
+     * Adds the server IDs of a build tool config, for example the 'resolver' and 'deployer' servers of a Maven config.
+     */
+    private static void readProjectConfig(Path projectConfig, Set<String> referenced) {
+        try {
+            for (String line : Files.readAllLines(projectConfig, StandardCharsets.UTF_8)) {
+                Matcher matcher = SERVER_ID_PATTERN.matcher(line);
+                if (matcher.find()) {
+                    referenced.add(matcher.group(1));
+                }
+            }
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The servers already configured in the home directory.
+         */
+        private final Set<String> configured;
+        /**
+         * The servers referenced in the spec files and the build tool configs of the command.
+         */
+        private final Set<String> referenced;
+    }
+}
@@ -0,0 +1,299 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import io.jenkins.plugins.jfrog.Utils;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reclaims disk space in the directory that contains the JFrog CLI tool directories of an agent.
+ * <ul>
+ *     <li>Temporary files left behind by interrupted downloads and installations ({@code *.tmp.*}) are deleted once
+ *     they are older than the configured age.</li>
+ *     <li>If the installed binaries of all the tool directories exceed the configured budget, the binaries of the
+ *     least recently used tool directories are deleted. They are installed again the next time they are used.</li>
+ * </ul>
+ * A tool directory is only cleaned while holding its installation lease (see {@link InstallLease}), so installations
+ * that are in progress are never touched. The store of previously downloaded binaries is kept within its own limit
+ * (see {@link CliContentStore}).
+ * Runs inside an agent, on the parent directory of the tool directories.
+ */
+@AllArgsConstructor
+public class CliToolJanitor extends MasterToSlaveFileCallable<Void> {
+    /**
+     * Tool directories that were used within this period are never evicted, as a running build may be using them.
+     */
+    private static final long MIN_IDLE_MILLIS = TimeUnit.HOURS.toMillis(1);
+    /**
+     * Touched each time a build uses the tool directory (see {@link CliToolUse}) and each time it runs a command with
+     * its binary (see {@link CliBinaryUse}). The access time of the binary can't be relied on, as most file systems are
+     * mounted with 'relatime' or 'noatime'.
+     */
+    static final String LAST_USED_FILE_NAME = ".last-used";
+
+    /**
+     * Maximum total size of the binaries of the tool directories. 0 disables the eviction.
+     */
+    private long maxToolsBytes;
+    /**
+     * Minimum age of the temporary files to delete.
+     */
+    private long tempMaxAgeMillis;
+    /**
+     * Maximum total size of the agent-side store of previously downloaded binaries (see {@link CliContentStore}).
+     * 0 disables the store.
+     */
+    private long contentStoreMaxBytes;
+    /**
+     * The name of a tool directory that must not be evicted (the one that was just installed), or null.
+     */
+    private String keepToolDirName;
+    private TaskListener log;
+
+    @Override
+    public Void invoke(File toolsRoot, VirtualChannel channel) throws IOException {
+        File[] dirs = toolsRoot.listFiles(File::isDirectory);
+        if (dirs == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        List<ToolDir> toolDirs = new ArrayList<>();
+        for (File dir : dirs) {
+            if (CliContentStore.STORE_DIR_NAME.equals(dir.getName())) {
+                cleanStore(dir, now);
+                continue;
+            }
+            if (!isToolDir(dir)) {
+                continue;
+            }
+            ToolDir toolDir = new ToolDir(dir);
+            if (!cleanTempFiles(toolDir, now)) {
+                // Being installed
+                continue;
+            }
+            toolDirs.add(toolDir);
+        }
+        evictToolDirs(toolDirs, now);
+        if (contentStoreMaxBytes > 0) {
+            CliContentStore.inToolsRoot(toolsRoot, contentStoreMaxBytes, log).evict(null);
+        }
+        return null;
+    }
+
+    /**
+     * Deletes the old temporary files of a tool directory.
+     *
+     * @return false if the tool directory is being installed, true otherwise.
+     */
+    private boolean cleanTempFiles(ToolDir toolDir, long now) throws IOException {
+        List<File> tempFiles = listOldTempFiles(toolDir.dir, now);
+        if (tempFiles.isEmpty()) {
+            return true;
+        }
+        try (InstallLease lease = InstallLease.tryAcquire(toolDir.dir)) {
+            if (lease == null) {
+                log.getLogger().println("[CliToolJanitor] JFrog CLI is being installed, skipping: " + toolDir.dir);
+                return false;
+            }
+            for (File tempFile : tempFiles) {
+                delete(tempFile);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Deletes the temporary files of interrupted additions to the store. The store entries are evicted by the store.
+     */
+    private void cleanStore(File storeRoot, long now) {
+        File[] entryDirs = storeRoot.listFiles(File::isDirectory);
+        if (entryDirs == null) {
+            return;
+        }
+        for (File entryDir : entryDirs) {
+            for (File tempFile : listOldTempFiles(entryDir, now)) {
+                delete(tempFile);
+            }
+        }
+    }
+
+    /**
+     * Deletes the binaries of the least recently used tool directories, until the total size of the binaries is
+     * within the budget. Binaries that are hard links of the same file are counted once, and their size is only
+     * deducted when their last link is deleted, as the file is kept by the other tool directories or by the store.
+     */
+    private void evictToolDirs(List<ToolDir> toolDirs, long now) throws IOException {
+        if (maxToolsBytes <= 0) {
+            return;
+        }
+        Set<Object> countedFiles = new HashSet<>();
+        long totalBytes = 0;
+        for (ToolDir toolDir : toolDirs) {
+            for (Binary binary : toolDir.binaries) {
+                if (binary.fileKey == null || countedFiles.add(binary.fileKey)) {
+                    totalBytes += binary.size;
+                }
+            }
+        }
+        toolDirs.sort(Comparator.comparingLong(toolDir -> toolDir.lastUsed));
+        for (ToolDir toolDir : toolDirs) {
+            if (totalBytes <= maxToolsBytes) {
+                return;
+            }
+            if (toolDir.binaries.isEmpty() || toolDir.dir.getName().equals(keepToolDirName) || now - toolDir.lastUsed < MIN_IDLE_MILLIS) {
+                continue;
+            }
+            long freedBytes = 0;
+            try (InstallLease lease = InstallLease.tryAcquire(toolDir.dir)) {
+                if (lease == null) {
+                    continue;
+                }
+                for (Binary binary : toolDir.binaries) {
+                    boolean lastLink = getLinkCount(binary.file) <= 1;
+                    if (delete(binary.file) && lastLink) {
+                        freedBytes += binary.size;
+                    }
+                }
+                for (String binaryName : new String[]{Utils.getJfrogCliBinaryName(false), Utils.getJfrogCliBinaryName(true)}) {
+                    delete(new File(toolDir.dir, binaryName + CliVersionCache.VERSION_FILE_SUFFIX));
+                }
+                delete(new File(toolDir.dir, ChecksumUtils.SHA256_FILE_NAME));
+                delete(new File(toolDir.dir, ChecksumUtils.VERIFICATION_STAMP_FILE_NAME));
+            }
+            totalBytes -= freedBytes;
+            log.getLogger().println("[CliToolJanitor] Evicted least recently used JFrog CLI (" + (freedBytes / 1024 / 1024) +
+                    "MB freed): " + toolDir.dir);
+        }
+    }
+
+    private List<File> listOldTempFiles(File dir, long now) {
+        List<File> tempFiles = new ArrayList<>();
+        File[] files = dir.listFiles(File::isFile);
+        if (files == null) {
+            return tempFiles;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if ((name.contains(".tmp.") || name.endsWith(".tmp")) && now - file.lastModified() >= tempMaxAgeMillis) {
+                tempFiles.add(file);
+            }
+        }
+        return tempFiles;
+    }
+
+    /**
+     * @return true if the file was deleted.
+     */
+    private boolean delete(File file) {
+        try {
+            if (!Files.deleteIfExists(file.toPath())) {
+                return false;
+            }
+            if (file.getName().contains(".tmp")) {
+                log.getLogger().println("[CliToolJanitor] Deleted abandoned temporary file: " + file);
+            }
+            return true;
+        } catch (IOException e) {
+            log.getLogger().println("[CliToolJanitor] Failed to delete " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return the number of hard links of a file, or 1 if the file system doesn't report it.
+     */
+    private static int getLinkCount(File file) {
+        try {
+            return (Integer) Files.getAttribute(file.toPath(), "unix:nlink");
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * Records that a build uses the tool directory, so that it is not evicted. Failures are ignored, as the
+     * modification time of the sha256 file is used as well.
+     */
+    static void touchLastUsed(File toolDir) {
+        File lastUsed = new File(toolDir, LAST_USED_FILE_NAME);
+        try {
+            if (!lastUsed.createNewFile()) {
+                Files.setLastModifiedTime(lastUsed.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+            }
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    /**
+     * Records that a command runs the binary, if it is installed in a tool directory. Other directories that contain
+     * a 'jf' binary, such as the directories of a manual installation, are left alone.
+     *
+     * @param binaryPath - The path of the binary, as passed to the command line
+     */
+    static void touchLastUsedOfBinary(String binaryPath) {
+        File toolDir = new File(binaryPath).getParentFile();
+        if (toolDir != null && new File(toolDir, ChecksumUtils.SHA256_FILE_NAME).isFile()) {
+            touchLastUsed(toolDir);
+        }
+    }
+
+    /**
+     * @return true if the directory is a JFrog CLI tool directory.
+     */
+    private static boolean isToolDir(File dir) {
+        return new File(dir, InstallLease.LEASE_FILE_NAME).exists() || new File(dir, ChecksumUtils.SHA256_FILE_NAME).exists() ||
+                new File(dir, Utils.getJfrogCliBinaryName(false)).isFile() || new File(dir, Utils.getJfrogCliBinaryName(true)).isFile();
+    }
+
+    private static class ToolDir {
+        private final File dir;
+        private final List<Binary> binaries = new ArrayList<>();
+        private long lastUsed;
+
+        private ToolDir(File dir) {
+            this.dir = dir;
+            this.lastUsed = Math.max(new File(dir, ChecksumUtils.SHA256_FILE_NAME).lastModified(), new File(dir, LAST_USED_FILE_NAME).lastModified());
+            for (String binaryName : new String[]{Utils.getJfrogCliBinaryName(false), Utils.getJfrogCliBinaryName(true)}) {
+                File binary = new File(dir, binaryName);
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(binary.toPath(), BasicFileAttributes.class);
+                    binaries.add(new Binary(binary, attributes.size(), attributes.fileKey()));
+                    // Running the binary updates its access time, on file systems that record it on each access
+                    lastUsed = Math.max(lastUsed, Math.max(attributes.lastModifiedTime().toMillis(), attributes.lastAccessTime().toMillis()));
+                } catch (IOException e) {
+                    // Not installed
+                }
+            }
+        }
+    }
+
+    private static class Binary {
+        private final File file;
+        private final long size;
+        /**
+         * Identifies the binary on the file system, so that hard links are counted once. Null if not supported.
+         */
+        private final Object fileKey;
+
+        private Binary(File file, long size, Object fileKey) {
+            this.file = file;
+            this.size = size;
+            this.fileKey = fileKey;
+        }
+    }
+}
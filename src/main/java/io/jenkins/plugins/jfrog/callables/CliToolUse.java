@@ -0,0 +1,36 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.remoting.VirtualChannel;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Records that a build uses the JFrog CLI of a tool directory, so that {@link CliToolJanitor} doesn't evict it, and
+ * reads the sha256 of the installed binary. Used instead of {@link CliInstallProbe} when the installation was already
+ * verified earlier in the build.
+ * Runs inside an agent.
+ */
+@AllArgsConstructor
+public class CliToolUse extends MasterToSlaveFileCallable<String> {
+    private String binaryName;
+
+    /**
+     * @return the content of the sha256 file of the binary, an empty string if there is none, or null if the binary
+     * is not installed.
+     */
+    @Override
+    public String invoke(File toolLocation, VirtualChannel channel) throws IOException {
+        if (!new File(toolLocation, binaryName).isFile()) {
+            return null;
+        }
+        CliToolJanitor.touchLastUsed(toolLocation);
+        File sha256File = new File(toolLocation, ChecksumUtils.SHA256_FILE_NAME);
+        return sha256File.isFile() ? new String(Files.readAllBytes(sha256File.toPath()), StandardCharsets.UTF_8) : "";
+    }
+}
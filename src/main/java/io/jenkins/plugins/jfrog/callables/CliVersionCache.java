@@ -0,0 +1,150 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.model.TaskListener;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agent-side cache of the versions of JFrog CLI binaries, so that steps don't run 'jf -v' to learn a version that only
+ * changes when the binary is replaced.
+ * <p>
+ * A version is keyed by the identity of the binary: its path, size, modification time and file key (inode). A cached
+ * version is used only as long as a stat of the binary returns the same identity.
+ * The installer records the version of the binaries it installs in a file next to the binary, so that it survives
+ * agent restarts. The versions of other binaries, for example a manually installed CLI, are only kept in memory.
+ * Runs inside an agent.
+ */
+public class CliVersionCache {
+    /**
+     * The suffix of the file next to an installed binary that records its version, for example "jf.version".
+     */
+    public static final String VERSION_FILE_SUFFIX = ".version";
+    private static final long VERSION_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Key: the absolute path of the binary. Value: the identity of the binary and its version, separated by a newline.
+     */
+    private static final Map<String, String> VERSIONS = new ConcurrentHashMap<>();
+
+    /**
+     * @return the cached version of the binary, or null if it is unknown or the binary changed since it was cached.
+     */
+    static String get(File binary) {
+        String identity;
+        try {
+            identity = getIdentity(binary);
+        } catch (IOException e) {
+            return null;
+        }
+        String entry = VERSIONS.get(binary.getAbsolutePath());
+        if (entry == null) {
+            entry = readVersionFile(binary);
+            if (entry == null) {
+                return null;
+            }
+        }
+        String version = StringUtils.substringAfter(entry, "\n");
+        if (!identity.equals(StringUtils.substringBefore(entry, "\n")) || StringUtils.isBlank(version)) {
+            return null;
+        }
+        VERSIONS.put(binary.getAbsolutePath(), entry);
+        return version;
+    }
+
+    /**
+     * Caches the version of a binary.
+     *
+     * @param persist - True to also record the version next to the binary. Only for binaries managed by the installer.
+     */
+    static void put(File binary, String version, boolean persist) throws IOException {
+        String entry = getIdentity(binary) + "\n" + version;
+        VERSIONS.put(binary.getAbsolutePath(), entry);
+        if (persist) {
+            File versionFile = new File(binary.getPath() + VERSION_FILE_SUFFIX);
+            File tempFile = new File(versionFile.getPath() + ".tmp");
+            Files.write(tempFile.toPath(), entry.getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile.toPath(), versionFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Runs 'jf -v' with the binary the installer has just installed, and records its version next to it.
+     * Failures are only logged, as the version is read again by the first step that needs it.
+     */
+    static void recordInstalled(File binary, TaskListener log) {
+        try {
+            String version = readVersion(binary);
+            put(binary, version, true);
+        } catch (IOException e) {
+            log.getLogger().println("[CliVersionCache] Failed to read the version of " + binary.getAbsolutePath() + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs 'jf -v'.
+     *
+     * @return the version, for example "2.65.0".
+     */
+    static String readVersion(File binary) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(binary.getAbsolutePath(), "-v").redirectErrorStream(true).start();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream inputStream = process.getInputStream()) {
+            // The output is a single line, which fits in the pipe buffer, so it is read after the process exits
+            if (!process.waitFor(VERSION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IOException("'" + binary.getName() + " -v' did not complete within " + VERSION_TIMEOUT_SECONDS + " seconds");
+            }
+            inputStream.transferTo(output);
+        } finally {
+            process.destroy();
+        }
+        String versionOutput = output.toString(StandardCharsets.UTF_8).trim();
+        if (process.exitValue() != 0) {
+            throw new IOException("Failed to get JFrog CLI version: " + versionOutput);
+        }
+        return StringUtils.substringAfterLast(versionOutput, " ");
+    }
+
+    /**
+     * @return true if the binary is managed by the installer, which leaves a sha256 file next to the binaries it installs.
+     */
+    static boolean isInstalled(File binary) {
+        return new File(binary.getParentFile(), ChecksumUtils.SHA256_FILE_NAME).isFile();
+    }
+
+    private static String readVersionFile(File binary) {
+        File versionFile = new File(binary.getPath() + VERSION_FILE_SUFFIX);
+        try {
+            return versionFile.isFile() ? new String(Files.readAllBytes(versionFile.toPath()), StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String getIdentity(File binary) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(binary.toPath(), BasicFileAttributes.class);
+        // The file key is the device and inode on Unix. It is null on Windows.
+        Object fileKey = attributes.fileKey();
+        return attributes.size() + " " + attributes.lastModifiedTime().toMillis() + " " + (fileKey == null ? "" : fileKey);
+    }
+
+    /**
+     * Forget the versions kept in memory. Used by tests.
+     */
+    static void clear() {
+        VERSIONS.clear();
+    }
+}
@@ -0,0 +1,41 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Looks up the version of a JFrog CLI binary in the agent's cache (see {@link CliVersionCache}), or records it.
+ * Runs inside an agent.
+ */
+@AllArgsConstructor
+public class CliVersionLookup extends MasterToSlaveFileCallable<String> {
+    /**
+     * The path of the binary. Binaries found in the system path can't be cached, as their identity is unknown.
+     */
+    private String binaryPath;
+    /**
+     * The version to record, or null to look up the cached version.
+     */
+    private String version;
+
+    /**
+     * @return the cached version, or null if the version isn't cached or the binary changed since it was cached.
+     * Null as well when a version is recorded.
+     */
+    @Override
+    public String invoke(File workspace, VirtualChannel channel) throws IOException {
+        File binary = new File(binaryPath);
+        if (!binary.isAbsolute()) {
+            return null;
+        }
+        if (version == null) {
+            return CliVersionCache.get(binary);
+        }
+        CliVersionCache.put(binary, version, CliVersionCache.isInstalled(binary));
+        return null;
+    }
+}
@@ -0,0 +1,91 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records the servers configured in a JFrog CLI home directory, so that steps only configure the servers that are
+ * missing. The record is a file in the home directory, with a server ID per line.
+ * Runs inside an agent.
+ */
+@AllArgsConstructor
+public class ConfiguredServers extends MasterToSlaveFileCallable<Void> {
+    static final String RECORD_FILE_NAME = "jenkins-configured-servers";
+    /**
+     * Parallel steps of the same run update the same home directory. The locks are striped by directory, rather than
+     * kept per directory, so that they don't accumulate.
+     */
+    private static final Object[] LOCKS = new Object[64];
+
+    static {
+        for (int i = 0; i < LOCKS.length; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    /**
+     * The IDs of the servers that were configured.
+     */
+    private List<String> serverIds;
+
+    @Override
+    public Void invoke(File jfrogHomeDir, VirtualChannel channel) throws IOException {
+        synchronized (getLock(jfrogHomeDir)) {
+            add(jfrogHomeDir, serverIds);
+        }
+        return null;
+    }
+
+    /**
+     * @return the lock of the updates of the config and the record of a home directory.
+     */
+    static Object getLock(File jfrogHomeDir) {
+        return LOCKS[Math.floorMod(jfrogHomeDir.getAbsolutePath().hashCode(), LOCKS.length)];
+    }
+
+    /**
+     * @return the IDs of the servers configured in the home directory.
+     */
+    static Set<String> read(File jfrogHomeDir) throws IOException {
+        Set<String> serverIds = new LinkedHashSet<>();
+        Path record = jfrogHomeDir.toPath().resolve(RECORD_FILE_NAME);
+        if (Files.isRegularFile(record)) {
+            for (String line : Files.readAllLines(record, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    serverIds.add(line.trim());
+                }
+            }
+        }
+        return serverIds;
+    }
+
+    /**
+     * Adds servers to the record. Must be called with the lock of the home directory.
+     */
+    static void add(File jfrogHomeDir, Collection<String> serverIds) throws IOException {
+        Set<String> configured = read(jfrogHomeDir);
+        if (!configured.addAll(serverIds)) {
+            return;
+        }
+        Files.createDirectories(jfrogHomeDir.toPath());
+        Path tempFile = Files.createTempFile(jfrogHomeDir.toPath(), "record", ".tmp");
+        try {
+            Files.write(tempFile, configured, StandardCharsets.UTF_8);
+            Files.move(tempFile, jfrogHomeDir.toPath().resolve(RECORD_FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.model.TaskListener;
+
+import java.io.InterruptedIOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the bandwidth of JFrog CLI downloads using token buckets.
+ * <p>
+ * Every download draws from two buckets: the bucket of the agent, which is shared by all the downloads running in the
+ * agent JVM, and a bucket of its own, whose rate is the download's share of the budget of its site, as allocated by the
+ * controller (see {@link Share}). The share is refreshed every second, so the budget of a site is redistributed as
+ * downloads on other agents of the site start and complete.
+ * <p>
+ * A bucket lets a caller take more tokens than it holds and makes it sleep until the debt is paid, so concurrent
+ * downloads drawing from the same bucket progress at the same pace, and none of them is starved.
+ * Runs inside an agent.
+ */
+public class DownloadThrottle {
+    /**
+     * A throttle that doesn't limit the bandwidth.
+     */
+    static final DownloadThrottle UNLIMITED = new DownloadThrottle(0, null, TaskListener.NULL);
+    private static final String NOT_THROTTLED = "No longer throttled";
+    private static final long SHARE_REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * The bucket shared by all the downloads in this JVM.
+     */
+    private static final TokenBucket AGENT_BUCKET = new TokenBucket();
+
+    private final long agentBytesPerSecond;
+    private final Share share;
+    private final TaskListener log;
+    private final TokenBucket shareBucket = new TokenBucket();
+    private long nextShareRefresh;
+    private boolean refreshed;
+    private String loggedState;
+    private boolean shareFailureLogged;
+
+    /**
+     * @param agentBytesPerSecond - Maximum bandwidth of all the downloads on the agent, or 0 for unlimited
+     * @param share               - The share of the site budget allocated by the controller, or null if there is no budget
+     * @param log                 - The logger, to report when the download is throttled
+     */
+    public DownloadThrottle(long agentBytesPerSecond, Share share, TaskListener log) {
+        this.agentBytesPerSecond = agentBytesPerSecond;
+        this.share = share;
+        this.log = log;
+        if (agentBytesPerSecond > 0) {
+            AGENT_BUCKET.setRate(agentBytesPerSecond);
+        }
+    }
+
+    /**
+     * @return true if this throttle may limit the bandwidth of the download.
+     */
+    boolean isLimited() {
+        return agentBytesPerSecond > 0 || share != null;
+    }
+
+    /**
+     * Waits until the download may use the given number of bytes it has just received.
+     *
+     * @param bytes - The number of bytes received
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    void acquire(int bytes) throws InterruptedIOException {
+        if (!isLimited()) {
+            return;
+        }
+        try {
+            refresh();
+            shareBucket.acquire(bytes);
+            if (agentBytesPerSecond > 0) {
+                AGENT_BUCKET.acquire(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while the download was throttled");
+        }
+    }
+
+    /**
+     * Asks the controller for the current share of the site budget, at most once per {@link #SHARE_REFRESH_INTERVAL_NANOS},
+     * and logs the state of the throttle when it changes.
+     */
+    private synchronized void refresh() {
+        long now = System.nanoTime();
+        if (refreshed && now - nextShareRefresh < 0) {
+            return;
+        }
+        nextShareRefresh = now + SHARE_REFRESH_INTERVAL_NANOS;
+        refreshed = true;
+        String siteLimit = null;
+        try {
+            if (share != null) {
+                long shareBytesPerSecond = share.getBytesPerSecond();
+                shareBucket.setRate(shareBytesPerSecond);
+                siteLimit = shareBytesPerSecond > 0 ? share.describe() : null;
+            }
+        } catch (RuntimeException e) {
+            // The controller may be unreachable for a moment. Keep the last share rather than failing the download.
+            if (!shareFailureLogged) {
+                shareFailureLogged = true;
+                log.getLogger().println("[JFrogCliDownloader] WARNING: Failed to refresh the download bandwidth share: " + e.getMessage());
+            }
+            return;
+        }
+        List<String> limits = new ArrayList<>();
+        if (agentBytesPerSecond > 0) {
+            limits.add("agent limit " + formatRate(agentBytesPerSecond));
+        }
+        if (siteLimit != null) {
+            limits.add(siteLimit);
+        }
+        long rate = minRate(agentBytesPerSecond, shareBucket.getRate());
+        String state = rate > 0 ? "Throttled: downloading at up to " + formatRate(rate) + " (" + String.join(", ", limits) + ")" : NOT_THROTTLED;
+        // Only report that the download is not throttled when it was throttled before
+        if (!state.equals(loggedState) && (loggedState != null || rate > 0)) {
+            log.getLogger().println("[JFrogCliDownloader] " + state);
+        }
+        loggedState = state;
+    }
+
+    private static long minRate(long first, long second) {
+        if (first <= 0) {
+            return second;
+        }
+        return second <= 0 ? first : Math.min(first, second);
+    }
+
+    static String formatRate(long bytesPerSecond) {
+        if (bytesPerSecond >= 1024 * 1024) {
+            return String.format("%.1f MB/s", bytesPerSecond / (1024.0 * 1024));
+        }
+        return (bytesPerSecond / 1024) + " KB/s";
+    }
+
+    /**
+     * The share of a site bandwidth budget allocated by the controller to a download.
+     * On an agent, this is a proxy to the controller-side object.
+     */
+    public interface Share extends Serializable {
+        /**
+         * @return the bandwidth in bytes per second the download may currently use, or 0 for unlimited.
+         */
+        long getBytesPerSecond();
+
+        /**
+         * @return a description of the limit for the log, for example "site 'dc-east' budget of 50.0 MB/s shared by 3 downloads".
+         */
+        String describe();
+    }
+
+    /**
+     * A token bucket holding up to one second of tokens. Tokens are bytes.
+     */
+    static class TokenBucket {
+        private long bytesPerSecond;
+        private double tokens;
+        private long lastRefillNanos = System.nanoTime();
+
+        synchronized void setRate(long bytesPerSecond) {
+            refill();
+            this.bytesPerSecond = Math.max(0, bytesPerSecond);
+            tokens = Math.min(tokens, this.bytesPerSecond);
+        }
+
+        synchronized long getRate() {
+            return bytesPerSecond;
+        }
+
+        /**
+         * Takes the tokens, and sleeps until the bucket is no longer in debt if there were not enough of them.
+         */
+        void acquire(long bytes) throws InterruptedException {
+            long waitNanos;
+            synchronized (this) {
+                if (bytesPerSecond <= 0) {
+                    return;
+                }
+                refill();
+                tokens -= bytes;
+                if (tokens >= 0) {
+                    return;
+                }
+                waitNanos = (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond);
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            if (bytesPerSecond > 0) {
+                tokens = Math.min(bytesPerSecond, tokens + (double) (now - lastRefillNanos) * bytesPerSecond / TimeUnit.SECONDS.toNanos(1));
+            }
+            lastRefillNanos = now;
+        }
+    }
+}
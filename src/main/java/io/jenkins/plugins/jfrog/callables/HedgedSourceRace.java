@@ -0,0 +1,305 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.Secret;
+import io.jenkins.plugins.jfrog.OsUtils;
+import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
+import io.jenkins.plugins.jfrog.configuration.JenkinsProxyConfiguration;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.client.methods.HttpHead;
+import org.jfrog.build.client.ProxyConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Finds the JFrog CLI download source that responds first from the agent, using hedged HEAD requests.
+ * <p>
+ * The request to the preferred source is sent first. If it doesn't respond within the hedge delay, or fails, the
+ * request to the next source is sent, and so on. The first source that responds with the expected sha256 wins, and
+ * the requests to the other sources are aborted. A source that responds with another sha256, for example a mirror
+ * that wasn't updated yet, loses.
+ * <p>
+ * Only the HEAD requests are raced. The binary itself is then downloaded from the winner, so the bandwidth of the
+ * download isn't multiplied by the number of sources.
+ * Runs inside an agent.
+ */
+@AllArgsConstructor
+public class HedgedSourceRace extends MasterToSlaveFileCallable<HedgedSourceRace.Result> {
+    private JenkinsProxyConfiguration proxyConfiguration;
+    /**
+     * The sources, in order of preference.
+     */
+    private List<CliDownloadSource> sources;
+    private String version;
+    private String binaryName;
+    /**
+     * The sha256 the winner must respond with. If blank, the first source that responds wins.
+     */
+    private String expectedSha256;
+    private long hedgeDelayMillis;
+    private long timeoutMillis;
+    private TaskListener log;
+
+    @Override
+    public Result invoke(File toolLocation, VirtualChannel channel) throws IOException, InterruptedException {
+        String osDetails = OsUtils.getOsDetails();
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (CliDownloadSource source : sources) {
+            JFrogPlatformInstance instance = source.getInstance();
+            String artifactoryUrl = instance.inferArtifactoryUrl();
+            endpoints.add(new Endpoint(source.getUrl(version, osDetails, binaryName),
+                    Secret.toString(instance.getCredentialsConfig().getUsername()),
+                    Secret.toString(instance.getCredentialsConfig().getPassword()),
+                    Secret.toString(instance.getCredentialsConfig().getAccessToken()),
+                    proxyConfiguration.isProxyConfigured(artifactoryUrl) ? proxyConfiguration : null));
+        }
+        Result result = race(endpoints, expectedSha256, hedgeDelayMillis, timeoutMillis);
+        log.getLogger().println("[HedgedSourceRace] Downloading JFrog CLI from " + sources.get(result.getWinner()) +
+                " (responded in " + result.getLatencyMillis()[result.getWinner()] + "ms)");
+        return result;
+    }
+
+    /**
+     * Races the HEAD requests to the endpoints.
+     *
+     * @param endpoints        - The endpoints, in order of preference
+     * @param expectedSha256   - The sha256 the winner must respond with, or blank to accept any response
+     * @param hedgeDelayMillis - The time to wait for a response before sending the request to the next endpoint
+     * @param timeoutMillis    - Maximum time to wait for a winner
+     * @return the winner and the response time of the endpoints.
+     * @throws IOException if no endpoint responded with the expected sha256 within the timeout
+     */
+    static Result race(List<Endpoint> endpoints, String expectedSha256, long hedgeDelayMillis, long timeoutMillis)
+            throws IOException, InterruptedException {
+        Race race = new Race(endpoints, expectedSha256);
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(endpoints.size(), runnable -> {
+            Thread thread = new Thread(runnable, "jfrog-cli-hedged-source-race");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            race.executor = executor;
+            executor.execute(race::startNext);
+            if (endpoints.size() > 1) {
+                executor.scheduleWithFixedDelay(race::startNext, hedgeDelayMillis, hedgeDelayMillis, TimeUnit.MILLISECONDS);
+            }
+            int winner = race.winner.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return race.toResult(winner);
+        } catch (TimeoutException e) {
+            throw new IOException("None of the JFrog CLI download sources responded within " + timeoutMillis + "ms");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            race.abortAll();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The URL and credentials of the CLI binary in a source.
+     */
+    static class Endpoint {
+        private final String url;
+        private final String username;
+        private final String password;
+        private final String accessToken;
+        private final ProxyConfiguration proxyConfiguration;
+
+        Endpoint(String url, String username, String password, String accessToken, ProxyConfiguration proxyConfiguration) {
+            this.url = url;
+            this.username = username;
+            this.password = password;
+            this.accessToken = accessToken;
+            this.proxyConfiguration = proxyConfiguration;
+        }
+    }
+
+    /**
+     * The state of a race. The arrays are indexed by endpoint, and guarded by the race's monitor.
+     */
+    private static class Race {
+        private final List<Endpoint> endpoints;
+        private final String expectedSha256;
+        private final CompletableFuture<Integer> winner = new CompletableFuture<>();
+        private final HttpHead[] requests;
+        private final long[] startTimes;
+        private final long[] latencyMillis;
+        private final boolean[] responded;
+        private final boolean[] failed;
+        private final String[] sha256s;
+        private final List<String> errors = new ArrayList<>();
+        private int nextToStart;
+        private int failures;
+        private ScheduledExecutorService executor;
+
+        private Race(List<Endpoint> endpoints, String expectedSha256) {
+            this.endpoints = endpoints;
+            this.expectedSha256 = expectedSha256;
+            int size = endpoints.size();
+            this.requests = new HttpHead[size];
+            this.startTimes = new long[size];
+            this.latencyMillis = new long[size];
+            this.responded = new boolean[size];
+            this.failed = new boolean[size];
+            this.sha256s = new String[size];
+        }
+
+        /**
+         * Sends the request to the next endpoint, unless there is a winner already or all the requests were sent.
+         */
+        private void startNext() {
+            int index;
+            HttpHead request;
+            synchronized (this) {
+                if (winner.isDone() || nextToStart >= endpoints.size()) {
+                    return;
+                }
+                index = nextToStart++;
+                Endpoint endpoint = endpoints.get(index);
+                request = new HttpHead(ParallelRangeDownloader.encodeUrl(endpoint.url));
+                ArtifactoryHttpClients.setAuthorization(request, endpoint.username, endpoint.password, endpoint.accessToken);
+                requests[index] = request;
+                startTimes[index] = System.currentTimeMillis();
+            }
+            executor.execute(() -> send(index, request));
+        }
+
+        private void send(int index, HttpHead request) {
+            Endpoint endpoint = endpoints.get(index);
+            String sha256;
+            try {
+                sha256 = ArtifactoryHttpClients.getSha256(request, endpoint.url, endpoint.proxyConfiguration);
+            } catch (IOException | RuntimeException e) {
+                fail(index, endpoint.url + ": " + e.getMessage());
+                return;
+            }
+            synchronized (this) {
+                latencyMillis[index] = Math.max(1, System.currentTimeMillis() - startTimes[index]);
+                responded[index] = true;
+                sha256s[index] = sha256;
+            }
+            if (StringUtils.isNotBlank(expectedSha256) && !StringUtils.equalsIgnoreCase(expectedSha256, sha256)) {
+                fail(index, endpoint.url + ": expected sha256 " + expectedSha256 + " but got '" + sha256 + "'");
+                return;
+            }
+            winner.complete(index);
+        }
+
+        private void fail(int index, String error) {
+            boolean allFailed;
+            synchronized (this) {
+                failed[index] = true;
+                if (!winner.isDone()) {
+                    errors.add(error);
+                }
+                allFailed = ++failures == endpoints.size();
+            }
+            if (allFailed) {
+                winner.completeExceptionally(new IOException("None of the JFrog CLI download sources can be used: " + String.join("; ", errors)));
+                return;
+            }
+            // Don't wait for the hedge delay when the current request failed
+            startNext();
+        }
+
+        private synchronized void abortAll() {
+            for (HttpHead request : requests) {
+                if (request != null) {
+                    request.abort();
+                }
+            }
+        }
+
+        /**
+         * The requests that didn't complete get the time they were running as their latency, which is a lower bound.
+         */
+        private synchronized Result toResult(int winnerIndex) {
+            long now = System.currentTimeMillis();
+            List<Integer> ranking = new ArrayList<>();
+            for (int i = 0; i < endpoints.size(); i++) {
+                if (latencyMillis[i] == 0 && startTimes[i] > 0 && !failed[i]) {
+                    latencyMillis[i] = Math.max(1, now - startTimes[i]);
+                }
+                ranking.add(i);
+            }
+            // The winner first, then the other sources by their response time, then the ones that weren't tried,
+            // and the ones that failed last
+            ranking.sort(Comparator.<Integer>comparingInt(i -> i == winnerIndex ? 0 : failed[i] ? 3 : latencyMillis[i] > 0 ? 1 : 2)
+                    .thenComparingLong(i -> latencyMillis[i])
+                    .thenComparingInt(i -> i));
+            return new Result(winnerIndex, sha256s[winnerIndex], ranking, latencyMillis.clone(), responded.clone());
+        }
+    }
+
+    /**
+     * The outcome of a race.
+     */
+    public static class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int winner;
+        private final String sha256;
+        private final List<Integer> ranking;
+        private final long[] latencyMillis;
+        private final boolean[] responded;
+
+        private Result(int winner, String sha256, List<Integer> ranking, long[] latencyMillis, boolean[] responded) {
+            this.winner = winner;
+            this.sha256 = sha256;
+            this.ranking = ranking;
+            this.latencyMillis = latencyMillis;
+            this.responded = responded;
+        }
+
+        /**
+         * @return the index of the winning source.
+         */
+        public int getWinner() {
+            return winner;
+        }
+
+        /**
+         * @return the sha256 the winner responded with.
+         */
+        public String getSha256() {
+            return sha256;
+        }
+
+        /**
+         * @return the indexes of all the sources, in the order they should be downloaded from.
+         */
+        public List<Integer> getRanking() {
+            return ranking;
+        }
+
+        /**
+         * @return the response time of each source in milliseconds, a lower bound for the sources whose request
+         * was aborted (see {@link #hasResponded}), or 0 if the source wasn't tried or failed.
+         */
+        public long[] getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        /**
+         * @param index - The index of a source
+         * @return true if the source responded, so that its latency is its actual response time.
+         */
+        public boolean hasResponded(int index) {
+            return responded[index];
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.model.TaskListener;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An exclusive lease on a JFrog CLI tool directory, shared by all the processes that install JFrog CLI into it.
+ * <p>
+ * The in-JVM installation locks of the controller only serialize installations that are started by the same
+ * controller. When a tool directory is on a shared file system (NFS, EFS, SMB), several agent processes or
+ * controllers may install into it at the same time. The lease is an OS file lock on a lease file in the tool
+ * directory, so only one process downloads, and the others wait and then find the CLI up-to-date.
+ * <p>
+ * The lock is taken on a byte range beyond the end of the lease file, so that the lease file itself stays readable
+ * on Windows, where file locks are mandatory. While the lease is held, the holder writes a heartbeat to the lease
+ * file. If a file system doesn't release the lock of a crashed or hung holder, the waiters take the lease over once
+ * the heartbeat stops changing. Takeovers are serialized by a lock on a second file, so that two waiters that find the
+ * same lease stale don't both take it over. A holder that was taken over loses its lease, and must not finish its
+ * installation.
+ * <p>
+ * A waiter is woken up as soon as a lease of its own JVM is released. A lease held by another process can't notify
+ * the waiters, so they also poll the lease file.
+ * Runs inside an agent.
+ */
+class InstallLease implements Closeable {
+    static final String LEASE_FILE_NAME = ".jfrog-cli-install.lease";
+    static final String TAKEOVER_FILE_NAME = ".jfrog-cli-install.takeover";
+    static final long LOCK_POSITION = Long.MAX_VALUE - 1;
+    private static final long HEARTBEAT_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final long STALE_LEASE_MILLIS = TimeUnit.SECONDS.toMillis(90);
+    /**
+     * The interval to check a lease held by another process, which can't notify the waiters. Changed by tests.
+     */
+    static volatile long pollIntervalMillis = 500;
+
+    /**
+     * A JVM can't hold two locks on the same file, so the threads of the same JVM are serialized before taking the file lock.
+     */
+    private static final ConcurrentHashMap<String, ReentrantLock> JVM_LOCKS = new ConcurrentHashMap<>();
+    /**
+     * Signaled whenever a lease of this JVM is released, for the waiters of a file lock held in this JVM, for example
+     * through another path to the same shared tool directory. Guards {@link #releases}.
+     */
+    private static final Object RELEASED = new Object();
+    private static long releases;
+    private static final ScheduledExecutorService HEARTBEAT_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jfrog-cli-install-lease-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final File leaseFile;
+    private final ReentrantLock jvmLock;
+    private final FileChannel channel;
+    private final FileLock fileLock;
+    private final String owner;
+    private final ScheduledFuture<?> heartbeat;
+    private volatile boolean lost;
+
+    private InstallLease(File leaseFile, ReentrantLock jvmLock, FileChannel channel, FileLock fileLock, String owner) {
+        this.leaseFile = leaseFile;
+        this.jvmLock = jvmLock;
+        this.channel = channel;
+        this.fileLock = fileLock;
+        this.owner = owner;
+        this.heartbeat = HEARTBEAT_EXECUTOR.scheduleWithFixedDelay(this::beat, HEARTBEAT_INTERVAL_MILLIS,
+                HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Acquires the installation lease of the tool directory, waiting for the current holder to release it.
+     *
+     * @param toolLocation - The tool directory
+     * @param timeoutMillis - Maximum time to wait for the lease
+     * @param log          - The logger
+     * @return the lease. Must be closed to release it.
+     * @throws IOException          if the lease couldn't be acquired within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    static InstallLease acquire(File toolLocation, long timeoutMillis, TaskListener log) throws IOException, InterruptedException {
+        File leaseFile = new File(toolLocation, LEASE_FILE_NAME);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        ReentrantLock jvmLock = JVM_LOCKS.computeIfAbsent(leaseFile.getCanonicalPath(), k -> new ReentrantLock());
+        if (!jvmLock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new IOException("Timed out waiting for another installation of JFrog CLI in: " + toolLocation.getAbsolutePath());
+        }
+        try {
+            InstallLease lease = acquireFileLock(leaseFile, jvmLock, deadline, log);
+            jvmLock = null;
+            return lease;
+        } finally {
+            if (jvmLock != null) {
+                jvmLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Acquires the installation lease of the tool directory if it is free, without waiting.
+     * Used by maintenance tasks that must never touch a tool directory while JFrog CLI is being installed into it.
+     *
+     * @param toolLocation - The tool directory
+     * @return the lease, or null if it is held by another thread or process. Must be closed to release it.
+     */
+    static InstallLease tryAcquire(File toolLocation) throws IOException {
+        File leaseFile = new File(toolLocation, LEASE_FILE_NAME);
+        ReentrantLock jvmLock = JVM_LOCKS.computeIfAbsent(leaseFile.getCanonicalPath(), k -> new ReentrantLock());
+        if (jvmLock.isHeldByCurrentThread() || !jvmLock.tryLock()) {
+            return null;
+        }
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(leaseFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock fileLock = channel.tryLock(LOCK_POSITION, 1, false);
+            if (fileLock == null) {
+                return null;
+            }
+            String owner = getProcessName() + "/" + UUID.randomUUID();
+            writeLease(channel, owner);
+            if (!owner.equals(readOwner(leaseFile))) {
+                fileLock.release();
+                return null;
+            }
+            InstallLease lease = new InstallLease(leaseFile, jvmLock, channel, fileLock, owner);
+            channel = null;
+            jvmLock = null;
+            return lease;
+        } catch (OverlappingFileLockException e) {
+            return null;
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+            if (jvmLock != null) {
+                jvmLock.unlock();
+            }
+        }
+    }
+
+    private static InstallLease acquireFileLock(File leaseFile, ReentrantLock jvmLock, long deadline, TaskListener log)
+            throws IOException, InterruptedException {
+        String owner = getProcessName() + "/" + UUID.randomUUID();
+        String lastHeartbeat = null;
+        long lastHeartbeatChange = System.currentTimeMillis();
+        boolean waitLogged = false;
+        while (true) {
+            long releasesBefore = getReleases();
+            FileChannel channel = FileChannel.open(leaseFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                FileLock fileLock = tryLock(channel);
+                if (fileLock != null) {
+                    writeLease(channel, owner);
+                    // Make sure the lease file wasn't replaced by a takeover while it was being locked
+                    if (owner.equals(readOwner(leaseFile))) {
+                        InstallLease lease = new InstallLease(leaseFile, jvmLock, channel, fileLock, owner);
+                        channel = null;
+                        return lease;
+                    }
+                    fileLock.release();
+                    continue;
+                }
+            } finally {
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+
+            // The lease is held by another process. Keep track of its heartbeat using the local clock, so that the
+            // clocks of the other hosts don't matter.
+            String heartbeat = readLease(leaseFile);
+            long now = System.currentTimeMillis();
+            if (!StringUtils.equals(heartbeat, lastHeartbeat)) {
+                lastHeartbeat = heartbeat;
+                lastHeartbeatChange = now;
+            } else if (now - lastHeartbeatChange >= STALE_LEASE_MILLIS) {
+                if (takeOver(leaseFile, heartbeat)) {
+                    log.getLogger().println("[InstallLease] Installation lease is stale, taking over: " + StringUtils.trim(heartbeat));
+                }
+                lastHeartbeat = null;
+                lastHeartbeatChange = now;
+                continue;
+            }
+            if (now >= deadline) {
+                throw new IOException("Timed out waiting for another process to install JFrog CLI in: " +
+                        leaseFile.getParent() + " (lease holder: " + StringUtils.trim(heartbeat) + ")");
+            }
+            if (!waitLogged) {
+                log.getLogger().println("[InstallLease] Waiting for another process to install JFrog CLI: " + StringUtils.trim(heartbeat));
+                waitLogged = true;
+            }
+            awaitRelease(releasesBefore, Math.min(pollIntervalMillis, deadline - now));
+        }
+    }
+
+    /**
+     * @return the file lock of the lease, or null if it is held by another process or by another lease of this JVM.
+     */
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock(LOCK_POSITION, 1, false);
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private static long getReleases() {
+        synchronized (RELEASED) {
+            return releases;
+        }
+    }
+
+    /**
+     * Waits until a lease of this JVM is released, or the timeout elapses.
+     *
+     * @param releasesBefore - The number of releases before the file lock was tried, so that a release since then
+     *                       doesn't wait
+     * @param timeoutMillis  - Maximum time to wait
+     */
+    private static void awaitRelease(long releasesBefore, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (RELEASED) {
+            long remaining = timeoutMillis;
+            while (releases == releasesBefore && remaining > 0) {
+                RELEASED.wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * Wakes up the waiters of this JVM, after a file lock of the lease was released.
+     */
+    static void signalRelease() {
+        synchronized (RELEASED) {
+            releases++;
+            RELEASED.notifyAll();
+        }
+    }
+
+    /**
+     * Deletes a stale lease file, so that the next attempt locks a new one. The lease file is only deleted if it still
+     * has the stale content, while the takeover file is locked: a waiter that found the same lease stale finds the
+     * new lease of the waiter that took it over, or no lease file, and keeps waiting.
+     *
+     * @param leaseFile  - The lease file
+     * @param staleLease - The content of the lease file, which didn't change for {@link #STALE_LEASE_MILLIS}
+     * @return true if the lease file was deleted.
+     */
+    static boolean takeOver(File leaseFile, String staleLease) throws IOException {
+        File takeoverFile = new File(leaseFile.getParentFile(), TAKEOVER_FILE_NAME);
+        try (FileChannel channel = FileChannel.open(takeoverFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock takeoverLock = channel.tryLock();
+            if (takeoverLock == null) {
+                // Another process is taking the lease over
+                return false;
+            }
+            if (!StringUtils.equals(readLease(leaseFile), staleLease)) {
+                return false;
+            }
+            Files.deleteIfExists(leaseFile.toPath());
+            return true;
+        } catch (OverlappingFileLockException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return false if the lease was taken over by another process, after this process stopped sending heartbeats.
+     */
+    boolean isValid() {
+        return !lost && fileLock.isValid();
+    }
+
+    /**
+     * Throws if the lease was lost. Called before changing the tool directory.
+     */
+    void checkValid() throws IOException {
+        if (!isValid()) {
+            throw new IOException("The JFrog CLI installation lease was taken over by another process: " + leaseFile.getAbsolutePath());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        heartbeat.cancel(false);
+        try {
+            channel.close();
+        } finally {
+            jvmLock.unlock();
+            signalRelease();
+        }
+    }
+
+    private void beat() {
+        try {
+            if (!owner.equals(readOwner(leaseFile))) {
+                lost = true;
+                heartbeat.cancel(false);
+                return;
+            }
+            writeLease(channel, owner);
+        } catch (IOException e) {
+            // Missing a heartbeat is harmless, as long as the next one succeeds
+        }
+    }
+
+    private static void writeLease(FileChannel channel, String owner) throws IOException {
+        byte[] content = ("owner=" + owner + "\nheartbeat=" + System.currentTimeMillis() + "\n").getBytes(StandardCharsets.UTF_8);
+        channel.truncate(0);
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        long position = 0;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+    }
+
+    private static String readLease(File leaseFile) throws IOException {
+        try {
+            return new String(Files.readAllBytes(leaseFile.toPath()), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return "";
+        }
+    }
+
+    private static String readOwner(File leaseFile) throws IOException {
+        String lease = readLease(leaseFile);
+        return StringUtils.substringBetween(lease, "owner=", "\n");
+    }
+
+    private static String getProcessName() {
+        // "pid@hostname"
+        return ManagementFactory.getRuntimeMXBean().getName();
+    }
+}
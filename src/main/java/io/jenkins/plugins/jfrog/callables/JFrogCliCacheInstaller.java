@@ -0,0 +1,61 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Installs a JFrog CLI binary that was copied from the controller cache into the tool location.
+ * Verifies the sha256 of the copied bytes before moving the binary to its final location.
+ * Runs inside an agent.
+ */
+@AllArgsConstructor
+public class JFrogCliCacheInstaller extends MasterToSlaveFileCallable<Void> {
+    private String temporaryFileName;
+    private String binaryName;
+    private String expectedSha256;
+    /**
+     * Maximum total size of the agent-side store of previously installed binaries (see {@link CliContentStore}).
+     * 0 disables the store.
+     */
+    private long contentStoreMaxBytes;
+    /**
+     * Maximum time to wait for another process that installs JFrog CLI into the same tool directory (see {@link InstallLease}).
+     */
+    private int installTimeoutMinutes;
+    private TaskListener log;
+
+    @Override
+    public Void invoke(File toolLocation, VirtualChannel channel) throws IOException, InterruptedException {
+        File temporaryFile = new File(toolLocation, temporaryFileName);
+        File finalCliExecutable = new File(toolLocation, binaryName);
+        try (InstallLease lease = InstallLease.acquire(toolLocation, TimeUnit.MINUTES.toMillis(installTimeoutMinutes), log)) {
+            String actualSha256 = ChecksumUtils.sha256Hex(temporaryFile);
+            if (!StringUtils.equalsIgnoreCase(expectedSha256, actualSha256)) {
+                throw new IOException("Checksum mismatch for CLI copied from the controller: expected " + expectedSha256 + " but got " + actualSha256);
+            }
+            lease.checkValid();
+            log.getLogger().println("[JFrogCliCacheInstaller] Checksum verified, moving to final location: " + finalCliExecutable.getAbsolutePath());
+            Files.move(temporaryFile.toPath(), finalCliExecutable.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            if (!finalCliExecutable.setExecutable(true)) {
+                throw new IOException("No permission to add execution permission to binary: " + finalCliExecutable.getAbsolutePath());
+            }
+            JFrogCliDownloader.createSha256File(toolLocation, expectedSha256);
+            ChecksumUtils.writeVerificationStamp(finalCliExecutable, expectedSha256);
+            CliVersionCache.recordInstalled(finalCliExecutable, log);
+            new CliContentStore(toolLocation, contentStoreMaxBytes, log).add(expectedSha256, binaryName, finalCliExecutable);
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,97 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Adds servers to the JFrog CLI config file of a JFrog CLI home directory, and records them (see {@link ConfiguredServers}).
+ * The servers already in the config file are kept as they are.
+ * The file is only readable by its owner, like the files written by the CLI, and is replaced atomically, so that a
+ * parallel step never reads a partial config.
+ * Runs inside an agent.
+ */
+@AllArgsConstructor
+public class JFrogCliConfigFileWriter extends MasterToSlaveFileCallable<Boolean> {
+    private static final String CONFIG_FILE_PREFIX = "jfrog-cli.conf";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private String fileName;
+    /**
+     * The config of the servers to add.
+     */
+    private String content;
+
+    /**
+     * @return false if the home directory holds a config file in another format, for example converted by a newer
+     * CLI version. The servers must then be added with the CLI.
+     */
+    @Override
+    public Boolean invoke(File jfrogHomeDir, VirtualChannel channel) throws IOException {
+        synchronized (ConfiguredServers.getLock(jfrogHomeDir)) {
+            Files.createDirectories(jfrogHomeDir.toPath());
+            String[] fileNames = jfrogHomeDir.list();
+            if (fileNames != null) {
+                for (String name : fileNames) {
+                    if (name.startsWith(CONFIG_FILE_PREFIX) && !name.equals(fileName)) {
+                        return false;
+                    }
+                }
+            }
+            Path configFile = jfrogHomeDir.toPath().resolve(fileName);
+            ObjectNode config = (ObjectNode) MAPPER.readTree(content);
+            List<String> serverIds = getServerIds(config.withArray("servers"));
+            if (Files.isRegularFile(configFile)) {
+                config = merge((ObjectNode) MAPPER.readTree(configFile.toFile()), config);
+            }
+            // Temp files are created readable only by their owner. The name must not contain the name of the config file,
+            // as the steps look for it to know if the servers are configured.
+            Path tempFile = Files.createTempFile(jfrogHomeDir.toPath(), "config", ".tmp");
+            try {
+                Files.write(tempFile, MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(config));
+                Files.move(tempFile, configFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            ConfiguredServers.add(jfrogHomeDir, serverIds);
+            return true;
+        }
+    }
+
+    /**
+     * Adds the servers of the new config that are not in the existing config.
+     */
+    private static ObjectNode merge(ObjectNode existing, ObjectNode added) {
+        ArrayNode servers = existing.withArray("servers");
+        Set<String> existingIds = new HashSet<>(getServerIds(servers));
+        for (JsonNode server : added.withArray("servers")) {
+            if (existingIds.add(server.path("serverId").asText())) {
+                servers.add(server);
+            }
+        }
+        return existing;
+    }
+
+    private static List<String> getServerIds(ArrayNode servers) {
+        List<String> serverIds = new ArrayList<>();
+        for (JsonNode server : servers) {
+            serverIds.add(server.path("serverId").asText());
+        }
+        return serverIds;
+    }
+}
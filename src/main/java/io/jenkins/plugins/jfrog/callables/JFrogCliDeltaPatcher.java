@@ -0,0 +1,33 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Rebuilds a new JFrog CLI binary from the installed binary and a delta that was copied from the controller
+ * (see {@link BinaryDelta}). The installed binary is not modified.
+ * Returns the sha256 of the rebuilt binary, which must be compared with the expected sha256 before it is installed.
+ * Runs inside an agent.
+ */
+@AllArgsConstructor
+public class JFrogCliDeltaPatcher extends MasterToSlaveFileCallable<String> {
+    private String deltaFileName;
+    private String binaryName;
+    private String outputFileName;
+
+    @Override
+    public String invoke(File toolLocation, VirtualChannel channel) throws IOException {
+        File outputFile = new File(toolLocation, outputFileName);
+        try {
+            return BinaryDelta.applyDelta(new File(toolLocation, binaryName), new File(toolLocation, deltaFileName), outputFile);
+        } catch (IOException e) {
+            Files.deleteIfExists(outputFile.toPath());
+            throw e;
+        }
+    }
+}
@@ -3,15 +3,13 @@ package io.jenkins.plugins.jfrog.callables;
 import hudson.model.TaskListener;
 import hudson.remoting.VirtualChannel;
 import hudson.util.Secret;
-import io.jenkins.plugins.jfrog.JenkinsBuildInfoLog;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
 import io.jenkins.plugins.jfrog.OsUtils;
 import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
 import io.jenkins.plugins.jfrog.configuration.JenkinsProxyConfiguration;
 import jenkins.MasterToSlaveFileCallable;
 import lombok.AllArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.Header;
-import org.jfrog.build.extractor.clientConfiguration.client.artifactory.ArtifactoryManager;
 
 import java.io.File;
 import java.io.IOException;
@@ -21,8 +19,7 @@ import java.nio.file.FileSystemException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-
-import static org.jfrog.build.client.DownloadResponse.SHA256_HEADER_NAME;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Downloads JFrog CLI.
@@ -35,7 +32,7 @@ public class JFrogCliDownloader extends MasterToSlaveFileCallable<Void> {
      * The name of the file that contains the JFrog CLI binary sha256.
      * The file will help us determine if we should download an updated version or skip it.
      */
-    private static final String SHA256_FILE_NAME = "sha256";
+    private static final String SHA256_FILE_NAME = ChecksumUtils.SHA256_FILE_NAME;
 
     /**
      * decoded "[RELEASE]" for the download url
@@ -54,6 +51,33 @@ public class JFrogCliDownloader extends MasterToSlaveFileCallable<Void> {
     private TaskListener log;
     String repository;
     String binaryName;
+    /**
+     * The binary sha256 as resolved by the controller (see {@link io.jenkins.plugins.jfrog.Sha256LookupCache}).
+     * Null if the controller couldn't resolve it, in which case it is requested from Artifactory by the agent.
+     */
+    private String expectedSha256;
+    /**
+     * Maximum number of concurrent HTTP Range requests used to download the binary. 1 means a single stream.
+     */
+    private int downloadConnections;
+    /**
+     * Maximum total size of the agent-side store of previously downloaded binaries (see {@link CliContentStore}).
+     * 0 disables the store.
+     */
+    private long contentStoreMaxBytes;
+    /**
+     * Maximum time to wait for another process that installs JFrog CLI into the same tool directory (see {@link InstallLease}).
+     */
+    private int installTimeoutMinutes;
+    /**
+     * Maximum bandwidth of all the CLI downloads on the agent in bytes per second, or 0 for unlimited.
+     */
+    private long agentBytesPerSecond;
+    /**
+     * The share of the bandwidth budget of the agent's site allocated by the controller, or null if the agent's site
+     * has no budget (see {@link DownloadThrottle}).
+     */
+    private DownloadThrottle.Share bandwidthShare;
 
     @Override
     public Void invoke(File toolLocation, VirtualChannel channel) throws IOException, InterruptedException {
@@ -66,18 +90,21 @@ public class JFrogCliDownloader extends MasterToSlaveFileCallable<Void> {
             }
         }
         
-        // Check if this is a fresh install or an upgrade
-        File existingCli = new File(toolLocation, binaryName);
-        boolean isFreshInstall = !isExistingCliValid(existingCli);
-        
-        if (isFreshInstall) {
-            log.getLogger().println("[JFrogCliDownloader] Fresh installation detected");
-            performDownloadWithLock(toolLocation);
-        } else {
-            log.getLogger().println("[JFrogCliDownloader] Existing CLI found - attempting upgrade");
-            performDownloadWithLockForUpgrade(toolLocation, existingCli);
+        // Other agents or controllers may be installing into the same shared tool directory
+        try (InstallLease lease = InstallLease.acquire(toolLocation, TimeUnit.MINUTES.toMillis(installTimeoutMinutes), log)) {
+            // Check if this is a fresh install or an upgrade
+            File existingCli = new File(toolLocation, binaryName);
+            boolean isFreshInstall = !isExistingCliValid(existingCli);
+
+            if (isFreshInstall) {
+                log.getLogger().println("[JFrogCliDownloader] Fresh installation detected");
+                performDownloadWithLock(toolLocation, lease);
+            } else {
+                log.getLogger().println("[JFrogCliDownloader] Existing CLI found - attempting upgrade");
+                performDownloadWithLockForUpgrade(toolLocation, existingCli, lease);
+            }
         }
-        
+
         return null;
     }
     
@@ -87,49 +114,38 @@ public class JFrogCliDownloader extends MasterToSlaveFileCallable<Void> {
      * 
      * @param toolLocation The target directory
      * @param existingCli The existing CLI binary
+     * @param lease The installation lease of the tool directory
      * @throws IOException If download fails for non-recoverable reasons
      * @throws InterruptedException If interrupted
      */
-    private void performDownloadWithLockForUpgrade(File toolLocation, File existingCli) throws IOException, InterruptedException {
+    private void performDownloadWithLockForUpgrade(File toolLocation, File existingCli, InstallLease lease) throws IOException, InterruptedException {
         String version = StringUtils.defaultIfBlank(providedVersion, RELEASE);
         String cliUrlSuffix = String.format("/%s/v2-jf/%s/jfrog-cli-%s/%s", repository, version, OsUtils.getOsDetails(), binaryName);
 
-        JenkinsBuildInfoLog buildInfoLog = new JenkinsBuildInfoLog(log);
         String artifactoryUrl = instance.inferArtifactoryUrl();
+        String artifactorySha256 = resolveArtifactSha256(cliUrlSuffix);
         
-        try (ArtifactoryManager manager = new ArtifactoryManager(artifactoryUrl, 
-                Secret.toString(instance.getCredentialsConfig().getUsername()),
-                Secret.toString(instance.getCredentialsConfig().getPassword()), 
-                Secret.toString(instance.getCredentialsConfig().getAccessToken()), buildInfoLog)) {
-            
-            if (proxyConfiguration.isProxyConfigured(artifactoryUrl)) {
-                manager.setProxyConfiguration(proxyConfiguration);
-            }
-            
-            String artifactorySha256 = getArtifactSha256(manager, cliUrlSuffix);
-            
-            if (!shouldDownloadTool(toolLocation, artifactorySha256)) {
-                log.getLogger().println("[JFrogCliDownloader] CLI is up-to-date, skipping download");
-                return;
-            }
-            
-            if (version.equals(RELEASE)) {
-                log.getLogger().printf("[JFrogCliDownloader] Upgrading '%s' to latest version from: %s%n", 
-                                      binaryName, artifactoryUrl + cliUrlSuffix);
-            } else {
-                log.getLogger().printf("[JFrogCliDownloader] Upgrading '%s' to version %s from: %s%n", 
-                                      binaryName, version, artifactoryUrl + cliUrlSuffix);
-            }
-            
-            // Attempt upgrade with graceful fallback
-            boolean upgradeSucceeded = performAtomicDownloadForUpgrade(manager, cliUrlSuffix, toolLocation, 
-                                                                       artifactorySha256, existingCli);
-            
-            if (upgradeSucceeded) {
-                log.getLogger().println("[JFrogCliDownloader] Upgrade completed successfully");
-            } else {
-                log.getLogger().println("[JFrogCliDownloader] Upgrade skipped, using existing CLI version");
-            }
+        if (!shouldDownloadTool(toolLocation, binaryName, artifactorySha256)) {
+            log.getLogger().println("[JFrogCliDownloader] CLI is up-to-date, skipping download");
+            return;
+        }
+        
+        if (version.equals(RELEASE)) {
+            log.getLogger().printf("[JFrogCliDownloader] Upgrading '%s' to latest version from: %s%n", 
+                                  binaryName, artifactoryUrl + cliUrlSuffix);
+        } else {
+            log.getLogger().printf("[JFrogCliDownloader] Upgrading '%s' to version %s from: %s%n", 
+                                  binaryName, version, artifactoryUrl + cliUrlSuffix);
+        }
+        
+        // Attempt upgrade with graceful fallback
+        boolean upgradeSucceeded = performAtomicDownloadForUpgrade(cliUrlSuffix, toolLocation,
+                                                                   artifactorySha256, existingCli, lease);
+        
+        if (upgradeSucceeded) {
+            log.getLogger().println("[JFrogCliDownloader] Upgrade completed successfully");
+        } else {
+            log.getLogger().println("[JFrogCliDownloader] Upgrade skipped, using existing CLI version");
         }
     }
     
@@ -160,77 +176,97 @@ public class JFrogCliDownloader extends MasterToSlaveFileCallable<Void> {
      * Performs the actual download operation for fresh installations.
      * 
      * @param toolLocation The target directory for CLI installation
+     * @param lease The installation lease of the tool directory
      * @throws IOException If download fails
      * @throws InterruptedException If interrupted during download
      */
-    private void performDownloadWithLock(File toolLocation) throws IOException, InterruptedException {
+    private void performDownloadWithLock(File toolLocation, InstallLease lease) throws IOException, InterruptedException {
         // An empty string indicates the latest version.
         String version = StringUtils.defaultIfBlank(providedVersion, RELEASE);
         String cliUrlSuffix = String.format("/%s/v2-jf/%s/jfrog-cli-%s/%s", repository, version, OsUtils.getOsDetails(), binaryName);
 
-        JenkinsBuildInfoLog buildInfoLog = new JenkinsBuildInfoLog(log);
-
         // Downloading binary from Artifactory
         String artifactoryUrl = instance.inferArtifactoryUrl();
-        try (ArtifactoryManager manager = new ArtifactoryManager(artifactoryUrl, Secret.toString(instance.getCredentialsConfig().getUsername()),
-                Secret.toString(instance.getCredentialsConfig().getPassword()), Secret.toString(instance.getCredentialsConfig().getAccessToken()), buildInfoLog)) {
-            if (proxyConfiguration.isProxyConfigured(artifactoryUrl)) {
-                manager.setProxyConfiguration(proxyConfiguration);
-            }
-            // Getting updated cli binary's sha256 from Artifactory.
-            String artifactorySha256 = getArtifactSha256(manager, cliUrlSuffix);
-            if (shouldDownloadTool(toolLocation, artifactorySha256)) {
-                if (version.equals(RELEASE)) {
-                    log.getLogger().printf("[JFrogCliDownloader] Download '%s' latest version from: %s%n", binaryName, artifactoryUrl + cliUrlSuffix);
-                } else {
-                    log.getLogger().printf("[JFrogCliDownloader] Download '%s' version %s from: %s%n", binaryName, version, artifactoryUrl + cliUrlSuffix);
-                }
-                
-                // Download using atomic file operations for reliability
-                performAtomicDownload(manager, cliUrlSuffix, toolLocation, artifactorySha256);
-                
+        // Getting updated cli binary's sha256 from Artifactory.
+        String artifactorySha256 = resolveArtifactSha256(cliUrlSuffix);
+        if (shouldDownloadTool(toolLocation, binaryName, artifactorySha256)) {
+            if (version.equals(RELEASE)) {
+                log.getLogger().printf("[JFrogCliDownloader] Download '%s' latest version from: %s%n", binaryName, artifactoryUrl + cliUrlSuffix);
             } else {
-                log.getLogger().println("[JFrogCliDownloader] CLI is up-to-date, skipping download");
+                log.getLogger().printf("[JFrogCliDownloader] Download '%s' version %s from: %s%n", binaryName, version, artifactoryUrl + cliUrlSuffix);
             }
+
+            // Download using atomic file operations for reliability
+            performAtomicDownload(cliUrlSuffix, toolLocation, artifactorySha256, lease);
+
+        } else {
+            log.getLogger().println("[JFrogCliDownloader] CLI is up-to-date, skipping download");
         }
-        
+
         log.getLogger().println("[JFrogCliDownloader] Download completed successfully");
     }
     
     /**
-     * Downloads the CLI binary to a unique temporary file and verifies its integrity.
+     * Downloads the CLI binary to a temporary file and verifies its integrity.
+     * The sha256 of the downloaded bytes is computed during the download and compared to the sha256 provided by
+     * Artifactory, so that a truncated or corrupted download is never installed.
+     * The temporary file name is derived from the binary's sha256, so that if the download is interrupted, the next
+     * attempt resumes it instead of starting from scratch (see {@link ParallelRangeDownloader}).
+     * If the binary was already downloaded to this agent, it is linked from the agent store instead
+     * (see {@link CliContentStore}).
      *
-     * @param manager ArtifactoryManager for download operations
      * @param cliUrlSuffix URL suffix for the CLI binary
      * @param toolLocation Target directory for installation
+     * @param artifactorySha256 Expected SHA256 hash, may be empty
      * @return The downloaded temporary file (caller is responsible for cleanup)
      * @throws IOException If download or verification fails
+     * @throws InterruptedException If interrupted during download
      */
-    private File downloadToTemp(ArtifactoryManager manager, String cliUrlSuffix, File toolLocation) throws IOException {
-        String stageName = getStageNameFromThread();
-        String tempFileName = binaryName + ".tmp." +
-                stageName + "." +
-                System.currentTimeMillis() + "." +
-                Thread.currentThread().getId() + "." +
-                System.nanoTime();
-
-        File temporaryDownloadFile = new File(toolLocation, tempFileName);
+    private File downloadToTemp(String cliUrlSuffix, File toolLocation, String artifactorySha256) throws IOException, InterruptedException {
+        CliContentStore contentStore = new CliContentStore(toolLocation, contentStoreMaxBytes, log);
+        File storedBinary = new File(toolLocation, binaryName + ".tmp.cas." + System.nanoTime());
+        if (contentStore.link(artifactorySha256, binaryName, storedBinary)) {
+            return storedBinary;
+        }
+        String downloadId = StringUtils.isNotBlank(artifactorySha256) ?
+                StringUtils.left(artifactorySha256, 16) : Integer.toHexString(cliUrlSuffix.hashCode());
+        File temporaryDownloadFile = new File(toolLocation, binaryName + ".tmp.resume." + downloadId);
         log.getLogger().println("[JFrogCliDownloader] Downloading to temporary file: " + temporaryDownloadFile.getAbsolutePath());
-        manager.downloadToFile(cliUrlSuffix, temporaryDownloadFile.getPath());
+        String actualSha256 = createRangeDownloader(instance.inferArtifactoryUrl() + cliUrlSuffix).download(temporaryDownloadFile);
 
         if (!temporaryDownloadFile.exists()) {
             throw new IOException("Downloaded file doesn't exist: " + temporaryDownloadFile.getAbsolutePath());
         }
         long fileSize = temporaryDownloadFile.length();
         if (fileSize == 0) {
+            cleanupTempFile(temporaryDownloadFile);
             throw new IOException("Downloaded file is empty: " + temporaryDownloadFile.getAbsolutePath());
         }
+        if (StringUtils.isNotBlank(artifactorySha256) && !StringUtils.equalsIgnoreCase(actualSha256, artifactorySha256)) {
+            // Don't resume from a corrupted file on the next attempt
+            cleanupTempFile(temporaryDownloadFile);
+            cleanupTempFile(new File(temporaryDownloadFile.getPath() + ParallelRangeDownloader.PROGRESS_FILE_SUFFIX));
+            throw new IOException("Checksum mismatch for downloaded CLI: expected " + artifactorySha256 + " but got " + actualSha256);
+        }
         log.getLogger().println("[JFrogCliDownloader] Download verified: " + (fileSize / 1024 / 1024) + "MB");
+        contentStore.add(artifactorySha256, binaryName, temporaryDownloadFile);
         return temporaryDownloadFile;
     }
 
+    private ParallelRangeDownloader createRangeDownloader(String url) {
+        String artifactoryUrl = instance.inferArtifactoryUrl();
+        return new ParallelRangeDownloader(url,
+                Secret.toString(instance.getCredentialsConfig().getUsername()),
+                Secret.toString(instance.getCredentialsConfig().getPassword()),
+                Secret.toString(instance.getCredentialsConfig().getAccessToken()),
+                proxyConfiguration.isProxyConfigured(artifactoryUrl) ? proxyConfiguration : null,
+                downloadConnections, ParallelRangeDownloader.DEFAULT_CHUNK_SIZE,
+                new DownloadThrottle(agentBytesPerSecond, bandwidthShare, log), log);
+    }
+
     /**
-     * Sets executable permissions and creates the SHA256 verification file after a successful move.
+     * Sets executable permissions and creates the SHA256 verification files after a successful move.
+     * Also records the version of the new binary, so that steps don't need to run 'jf -v' (see {@link CliVersionCache}).
      */
     private void finalizeInstall(File finalCliExecutable, File toolLocation, String artifactorySha256) throws IOException {
         log.getLogger().println("[JFrogCliDownloader] Setting executable permissions");
@@ -239,23 +275,29 @@ public class JFrogCliDownloader extends MasterToSlaveFileCallable<Void> {
         }
         log.getLogger().println("[JFrogCliDownloader] Creating SHA256 verification file");
         createSha256File(toolLocation, artifactorySha256);
+        if (StringUtils.isNotBlank(artifactorySha256)) {
+            ChecksumUtils.writeVerificationStamp(finalCliExecutable, artifactorySha256);
+        }
+        CliVersionCache.recordInstalled(finalCliExecutable, log);
     }
 
     /**
      * Performs atomic download for fresh installations. Always throws on failure.
      *
-     * @param manager ArtifactoryManager for download operations
      * @param cliUrlSuffix URL suffix for the CLI binary
      * @param toolLocation Target directory for installation
      * @param artifactorySha256 Expected SHA256 hash for verification
+     * @param lease The installation lease of the tool directory
      * @throws IOException If download or file operations fail
+     * @throws InterruptedException If interrupted during download
      */
-    private void performAtomicDownload(ArtifactoryManager manager, String cliUrlSuffix,
-                                       File toolLocation, String artifactorySha256) throws IOException {
+    private void performAtomicDownload(String cliUrlSuffix, File toolLocation, String artifactorySha256, InstallLease lease)
+            throws IOException, InterruptedException {
         File finalCliExecutable = new File(toolLocation, binaryName);
         File temporaryDownloadFile = null;
         try {
-            temporaryDownloadFile = downloadToTemp(manager, cliUrlSuffix, toolLocation);
+            temporaryDownloadFile = downloadToTemp(cliUrlSuffix, toolLocation, artifactorySha256);
+            lease.checkValid();
             log.getLogger().println("[JFrogCliDownloader] Moving to final location: " + finalCliExecutable.getAbsolutePath());
             moveFileWithRetry(temporaryDownloadFile, finalCliExecutable);
             finalizeInstall(finalCliExecutable, toolLocation, artifactorySha256);
@@ -271,21 +313,22 @@ public class JFrogCliDownloader extends MasterToSlaveFileCallable<Void> {
      * Performs atomic download for upgrade scenario with graceful fallback.
      * Returns false if the target binary is locked on Windows, allowing the caller to use the existing CLI.
      *
-     * @param manager ArtifactoryManager for download operations
      * @param cliUrlSuffix URL suffix for the CLI binary
      * @param toolLocation Target directory for installation
      * @param artifactorySha256 Expected SHA256 hash for verification
      * @param existingCli The existing CLI binary file
+     * @param lease The installation lease of the tool directory
      * @return true if upgrade succeeded, false if skipped due to file locking
      * @throws IOException If download fails for non-recoverable reasons (not file locking)
+     * @throws InterruptedException If interrupted during download
      */
-    private boolean performAtomicDownloadForUpgrade(ArtifactoryManager manager, String cliUrlSuffix,
-                                                    File toolLocation, String artifactorySha256,
-                                                    File existingCli) throws IOException {
+    private boolean performAtomicDownloadForUpgrade(String cliUrlSuffix, File toolLocation, String artifactorySha256,
+                                                    File existingCli, InstallLease lease) throws IOException, InterruptedException {
         File finalCliExecutable = new File(toolLocation, binaryName);
         File temporaryDownloadFile = null;
         try {
-            temporaryDownloadFile = downloadToTemp(manager, cliUrlSuffix, toolLocation);
+            temporaryDownloadFile = downloadToTemp(cliUrlSuffix, toolLocation, artifactorySha256);
+            lease.checkValid();
             log.getLogger().println("[JFrogCliDownloader] Attempting to replace existing CLI: " + finalCliExecutable.getAbsolutePath());
             boolean moveSucceeded = tryMoveFileForUpgrade(temporaryDownloadFile, finalCliExecutable);
             if (!moveSucceeded) {
@@ -438,7 +481,7 @@ public class JFrogCliDownloader extends MasterToSlaveFileCallable<Void> {
      * as stale (triggering a re-download loop). Writing to a temp file and renaming
      * eliminates that window because the rename is atomic on all supported file systems.
      */
-    private static void createSha256File(File toolLocation, String artifactorySha256) throws IOException {
+    static void createSha256File(File toolLocation, String artifactorySha256) throws IOException {
         if (StringUtils.isBlank(artifactorySha256)) {
             return;
         }
@@ -458,10 +501,14 @@ public class JFrogCliDownloader extends MasterToSlaveFileCallable<Void> {
      * replaced with the correct hash.  The stale 0-byte file is deleted immediately so it
      * cannot confuse any concurrent readers.</p>
      *
+     * <p>If the sha256 file matches but the binary itself doesn't (for example after a truncated write), the tool is
+     * re-downloaded as well.</p>
+     *
      * @param toolLocation      - expected location of the tool on the fileSystem.
+     * @param binaryName        - name of the tool binary.
      * @param artifactorySha256 - sha256 of the expected file in artifactory.
      */
-    private static boolean shouldDownloadTool(File toolLocation, String artifactorySha256) throws IOException {
+    private static boolean shouldDownloadTool(File toolLocation, String binaryName, String artifactorySha256) throws IOException {
         // In case no sha256 was provided (for example when the users blocks headers) download the tool.
         if (artifactorySha256.isEmpty()) {
             return true;
@@ -478,52 +525,34 @@ public class JFrogCliDownloader extends MasterToSlaveFileCallable<Void> {
             Files.deleteIfExists(path);
             return true;
         }
-        return !StringUtils.equals(fileContent, artifactorySha256);
+        if (!StringUtils.equals(fileContent, artifactorySha256)) {
+            return true;
+        }
+        File binary = new File(toolLocation, binaryName);
+        return !binary.isFile() || !ChecksumUtils.verifyInstalledBinary(binary);
     }
 
     /**
-     * Send REST request to Artifactory to get binary's sha256.
+     * Returns the binary's sha256 resolved by the controller, or requests it from Artifactory if it wasn't resolved.
+     * The request is sent with the shared client of the Artifactory host, so the download that follows it reuses
+     * the same connection.
      *
-     * @param manager      - internal Artifactory Java manager.
-     * @param cliUrlSuffix - path to the specific JFrog CLI version in Artifactory, will be sent to Artifactory in the request.
+     * @param cliUrlSuffix - path to the specific JFrog CLI version in Artifactory.
      * @return binary's sha256
      * @throws IOException in case of any I/O error.
      */
-    private static String getArtifactSha256(ArtifactoryManager manager, String cliUrlSuffix) throws IOException {
-        Header[] headers = manager.downloadHeaders(cliUrlSuffix);
-        for (Header header : headers) {
-            String headerName = header.getName();
-            if (headerName.equalsIgnoreCase(SHA256_HEADER_NAME) ||
-                    headerName.equalsIgnoreCase("X-Artifactory-Checksum-Sha256")) {
-                return header.getValue();
-            }
+    private String resolveArtifactSha256(String cliUrlSuffix) throws IOException {
+        if (expectedSha256 != null) {
+            return expectedSha256;
         }
-        return StringUtils.EMPTY;
+        String artifactoryUrl = instance.inferArtifactoryUrl();
+        return ArtifactoryHttpClients.getSha256(artifactoryUrl + cliUrlSuffix,
+                Secret.toString(instance.getCredentialsConfig().getUsername()),
+                Secret.toString(instance.getCredentialsConfig().getPassword()),
+                Secret.toString(instance.getCredentialsConfig().getAccessToken()),
+                proxyConfiguration.isProxyConfigured(artifactoryUrl) ? proxyConfiguration : null);
     }
     
-    /**
-     * Extract stage name from current thread for better temp file naming.
-     * This helps identify which parallel stage is performing the download.
-     * 
-     * @return sanitized stage name or "unknown" if not determinable
-     */
-    private String getStageNameFromThread() {
-        try {
-            String threadName = Thread.currentThread().getName();
-            // Jenkins thread names often contain stage information
-            // Examples: "Branch indexing", "In Parallel 1", "Parallel Stage 2"
-            if (threadName.contains("Parallel")) {
-                // Extract stage info from thread name
-                String stageName = threadName.replaceAll("[^a-zA-Z0-9]", "_");
-                return stageName.length() > 20 ? stageName.substring(0, 20) : stageName;
-            }
-            // Fallback to thread ID if no recognizable stage name
-            return "thread" + Thread.currentThread().getId();
-        } catch (Exception e) {
-            return "unknown";
-        }
-    }
-
     /**
      * Determine whether the target CLI binary is Windows.
      */
@@ -0,0 +1,42 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.remoting.VirtualChannel;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.AllArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Computes the block checksums of the installed JFrog CLI binary, so that the controller can send a delta to upgrade
+ * it (see {@link BinaryDelta}).
+ * Returns null if the installed binary is missing, or isn't the expected binary.
+ * Runs inside an agent.
+ */
+@AllArgsConstructor
+public class JFrogCliSignatureCollector extends MasterToSlaveFileCallable<BinaryDelta.Signatures> {
+    private String binaryName;
+    /**
+     * The sha256 of the installed binary, that the delta will be computed for.
+     */
+    private String installedSha256;
+
+    @Override
+    public BinaryDelta.Signatures invoke(File toolLocation, VirtualChannel channel) throws IOException {
+        File installedCli = new File(toolLocation, binaryName);
+        File sha256File = new File(toolLocation, ChecksumUtils.SHA256_FILE_NAME);
+        if (!installedCli.isFile() || installedCli.length() < BinaryDelta.BLOCK_SIZE || !sha256File.isFile()) {
+            return null;
+        }
+        // The delta is cached on the controller for this sha256, so it must be computed for the right binary
+        String recordedSha256 = new String(Files.readAllBytes(sha256File.toPath()), StandardCharsets.UTF_8).trim();
+        if (!StringUtils.equalsIgnoreCase(recordedSha256, installedSha256) || !ChecksumUtils.verifyInstalledBinary(installedCli)) {
+            return null;
+        }
+        return BinaryDelta.computeSignatures(installedCli);
+    }
+}
@@ -0,0 +1,467 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.Util;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.jfrog.build.client.ProxyConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.jfrog.build.client.DownloadResponse.SHA256_HEADER_NAME;
+
+/**
+ * Downloads a file using several concurrent HTTP Range requests.
+ * <p>
+ * The file is split into fixed-size chunks that are written into a preallocated file using positional writes.
+ * The completed chunks are recorded in a sidecar progress file, so that an interrupted download is resumed from where
+ * it stopped instead of starting from scratch. If the server ignores Range requests, or the file is too small to
+ * benefit from splitting, the file is downloaded in a single stream.
+ * <p>
+ * The sha256 of the file is computed while it is downloaded. In a single stream, the digest is updated with each
+ * buffer as it is written. In a ranged download, each chunk is added to the digest as soon as all the chunks before it
+ * are complete, while the other chunks are still downloading, so the file is not read again after the download.
+ * The requests are sent with the shared client of the Artifactory host (see {@link ArtifactoryHttpClients}), and
+ * all the connections of the download draw from the same bandwidth limit (see {@link DownloadThrottle}).
+ * Runs inside an agent.
+ */
+class ParallelRangeDownloader {
+    static final String PROGRESS_FILE_SUFFIX = ".progress";
+    static final long DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("^bytes (\\d+)-(\\d+)/(\\d+)$");
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String accessToken;
+    private final ProxyConfiguration proxyConfiguration;
+    private final int connections;
+    private final long chunkSize;
+    private final DownloadThrottle throttle;
+    private final TaskListener log;
+
+    /**
+     * @param url                - The full URL of the file to download
+     * @param username           - Username for basic authentication, may be blank
+     * @param password           - Password for basic authentication, may be blank
+     * @param accessToken        - Access token for bearer authentication, may be blank. Takes precedence over username and password.
+     * @param proxyConfiguration - Proxy to use, or null to connect directly
+     * @param connections        - Maximum number of concurrent Range requests. 1 means a single stream.
+     * @param chunkSize          - Size of each Range request in bytes
+     * @param throttle           - Limits the bandwidth of the download
+     * @param log                - The logger
+     */
+    ParallelRangeDownloader(String url, String username, String password, String accessToken,
+                            ProxyConfiguration proxyConfiguration, int connections, long chunkSize,
+                            DownloadThrottle throttle, TaskListener log) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.accessToken = accessToken;
+        this.proxyConfiguration = proxyConfiguration;
+        this.connections = Math.max(1, connections);
+        this.chunkSize = chunkSize;
+        this.throttle = throttle;
+        this.log = log;
+    }
+
+    /**
+     * Downloads the file into the target. If a progress file of a previous interrupted download of the same file
+     * exists next to the target, the download is resumed.
+     * The progress file is kept on failure, and deleted on success.
+     *
+     * @param target - The file to download into
+     * @return lowercase hex-encoded sha256 of the downloaded file.
+     * @throws IOException          if the download fails
+     * @throws InterruptedException if interrupted
+     */
+    String download(File target) throws IOException, InterruptedException {
+        File progressFile = new File(target.getPath() + PROGRESS_FILE_SUFFIX);
+        // The shared client is not closed, so that its connections are reused by the next requests to Artifactory
+        CloseableHttpClient client = ArtifactoryHttpClients.getClient(url, proxyConfiguration);
+        MessageDigest digest = ChecksumUtils.newSha256Digest();
+        RangeProbe probe = probe(client, target, digest);
+        if (probe == null) {
+            // The file has already been downloaded in a single stream by the probe
+            Files.deleteIfExists(progressFile.toPath());
+            return Util.toHexString(digest.digest());
+        }
+        int chunks = (int) ((probe.length + chunkSize - 1) / chunkSize);
+        DownloadProgress progress = DownloadProgress.load(progressFile, url, probe.length, probe.validator, chunkSize);
+        if (progress != null && target.length() == probe.length) {
+            log.getLogger().println("[JFrogCliDownloader] Resuming interrupted download: " +
+                    progress.completedChunks() + "/" + chunks + " chunks already downloaded");
+        } else {
+            progress = new DownloadProgress(progressFile, url, probe.length, probe.validator, chunkSize);
+        }
+        log.getLogger().println("[JFrogCliDownloader] Downloading " + (probe.length / 1024 / 1024) + "MB in " + chunks +
+                " chunks using " + Math.min(connections, chunks) + " connections");
+        String sha256;
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() != probe.length) {
+                // Preallocate the file, so that chunks can be written at their position in any order
+                channel.truncate(0);
+                channel.write(ByteBuffer.allocate(1), probe.length - 1);
+            }
+            progress.save();
+            ChunkDigest chunkDigest = new ChunkDigest(channel, digest, probe.length, chunks);
+            // Chunks downloaded by a previous attempt are hashed up-front, as they are not in the page cache anymore
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                if (progress.isCompleted(chunk)) {
+                    chunkDigest.chunkCompleted(chunk);
+                }
+            }
+            downloadChunks(client, channel, progress, chunkDigest, chunks);
+            sha256 = chunkDigest.getSha256();
+        }
+        Files.deleteIfExists(progressFile.toPath());
+        return sha256;
+    }
+
+    /**
+     * Sends a single-byte Range request to learn the file size and whether the server supports Range requests.
+     * If the server ignores the Range header, the full response body is written into the target.
+     *
+     * @return the file length and validator, or null if the file was downloaded in a single stream.
+     */
+    private RangeProbe probe(CloseableHttpClient client, File target, MessageDigest digest) throws IOException {
+        HttpGet request = createRequest();
+        if (connections > 1) {
+            request.setHeader(HttpHeaders.RANGE, "bytes=0-0");
+        }
+        try (CloseableHttpResponse response = client.execute(request)) {
+            int status = response.getStatusLine().getStatusCode();
+            if (status == HttpStatus.SC_PARTIAL_CONTENT) {
+                Matcher matcher = parseContentRange(response);
+                long length = Long.parseLong(matcher.group(3));
+                if (length >= 2 * chunkSize) {
+                    return new RangeProbe(length, getValidator(response));
+                }
+                log.getLogger().println("[JFrogCliDownloader] File is too small to split, downloading in a single stream");
+                return downloadSingleStream(client, target, digest);
+            }
+            if (status == HttpStatus.SC_OK) {
+                if (connections > 1) {
+                    log.getLogger().println("[JFrogCliDownloader] Server doesn't support Range requests, downloading in a single stream");
+                }
+                writeResponse(response, target, digest);
+                return null;
+            }
+            throw new IOException("Failed to download " + url + ": " + response.getStatusLine());
+        }
+    }
+
+    private RangeProbe downloadSingleStream(CloseableHttpClient client, File target, MessageDigest digest) throws IOException {
+        try (CloseableHttpResponse response = client.execute(createRequest())) {
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new IOException("Failed to download " + url + ": " + response.getStatusLine());
+            }
+            writeResponse(response, target, digest);
+            return null;
+        }
+    }
+
+    private void writeResponse(CloseableHttpResponse response, File target, MessageDigest digest) throws IOException {
+        try (InputStream inputStream = response.getEntity().getContent();
+             OutputStream outputStream = Files.newOutputStream(target.toPath())) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                throttle.acquire(read);
+                outputStream.write(buffer, 0, read);
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    private void downloadChunks(CloseableHttpClient client, FileChannel channel, DownloadProgress progress,
+                                ChunkDigest chunkDigest, int chunks)
+            throws IOException, InterruptedException {
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(connections, chunks), runnable -> {
+            Thread thread = new Thread(runnable, "jfrog-cli-download-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                if (progress.isCompleted(chunk)) {
+                    continue;
+                }
+                int currentChunk = chunk;
+                futures.add(executor.submit(() -> {
+                    downloadChunkWithRetry(client, channel, progress, currentChunk);
+                    chunkDigest.chunkCompleted(currentChunk);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to download " + url + ": " + cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void downloadChunkWithRetry(CloseableHttpClient client, FileChannel channel, DownloadProgress progress, int chunk)
+            throws IOException, InterruptedException {
+        long retryDelayMs = 1000;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                downloadChunk(client, channel, chunk, progress.length);
+                progress.markCompleted(chunk);
+                return;
+            } catch (IOException e) {
+                if (attempt == MAX_CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                log.getLogger().println("[JFrogCliDownloader] Chunk " + chunk + " failed (" + e.getMessage() +
+                        "), retrying in " + retryDelayMs + "ms (attempt " + attempt + "/" + MAX_CHUNK_ATTEMPTS + ")");
+                Thread.sleep(retryDelayMs);
+                retryDelayMs *= 2;
+            }
+        }
+    }
+
+    private void downloadChunk(CloseableHttpClient client, FileChannel channel, int chunk, long length) throws IOException {
+        long start = chunk * chunkSize;
+        long end = Math.min(start + chunkSize, length) - 1;
+        HttpGet request = createRequest();
+        request.setHeader(HttpHeaders.RANGE, "bytes=" + start + "-" + end);
+        try (CloseableHttpResponse response = client.execute(request)) {
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT) {
+                throw new IOException("Unexpected response for range " + start + "-" + end + ": " + response.getStatusLine());
+            }
+            if (Long.parseLong(parseContentRange(response).group(1)) != start) {
+                throw new IOException("Unexpected Content-Range for range " + start + "-" + end);
+            }
+            long position = start;
+            try (InputStream inputStream = response.getEntity().getContent()) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    throttle.acquire(read);
+                    ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                    while (byteBuffer.hasRemaining()) {
+                        position += channel.write(byteBuffer, position);
+                    }
+                }
+            }
+            if (position != end + 1) {
+                throw new IOException("Incomplete range " + start + "-" + end + ": received " + (position - start) + " bytes");
+            }
+        }
+    }
+
+    private Matcher parseContentRange(CloseableHttpResponse response) throws IOException {
+        Header contentRange = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+        Matcher matcher = CONTENT_RANGE_PATTERN.matcher(contentRange == null ? "" : contentRange.getValue().trim());
+        if (!matcher.matches()) {
+            throw new IOException("Invalid Content-Range header in the response of " + url);
+        }
+        return matcher;
+    }
+
+    /**
+     * @return a value that changes when the file on the server changes, used to decide whether a partial download can be resumed.
+     */
+    private static String getValidator(CloseableHttpResponse response) {
+        for (String headerName : new String[]{SHA256_HEADER_NAME, "X-Artifactory-Checksum-Sha256", HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED}) {
+            Header header = response.getFirstHeader(headerName);
+            if (header != null && StringUtils.isNotBlank(header.getValue())) {
+                return header.getValue();
+            }
+        }
+        return "";
+    }
+
+    private HttpGet createRequest() {
+        HttpGet request = new HttpGet(encodeUrl(url));
+        ArtifactoryHttpClients.setAuthorization(request, username, password, accessToken);
+        return request;
+    }
+
+    /**
+     * Encode characters that are valid in Artifactory paths but not in URIs, such as the brackets of '[RELEASE]'.
+     */
+    static String encodeUrl(String url) {
+        return url.replace(" ", "%20").replace("[", "%5B").replace("]", "%5D");
+    }
+
+    /**
+     * Computes the sha256 of a file whose chunks complete in any order.
+     * Each chunk is added to the digest as soon as it and all the chunks before it are complete. The chunk is read
+     * back from the file right after it was written, so it is normally served from the page cache.
+     */
+    private class ChunkDigest {
+        private final FileChannel channel;
+        private final MessageDigest digest;
+        private final long length;
+        private final int chunks;
+        private final BitSet completed = new BitSet();
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private int nextChunk;
+
+        private ChunkDigest(FileChannel channel, MessageDigest digest, long length, int chunks) {
+            this.channel = channel;
+            this.digest = digest;
+            this.length = length;
+            this.chunks = chunks;
+        }
+
+        private synchronized void chunkCompleted(int chunk) throws IOException {
+            completed.set(chunk);
+            while (nextChunk < chunks && completed.get(nextChunk)) {
+                long position = nextChunk * chunkSize;
+                long end = Math.min(position + chunkSize, length);
+                while (position < end) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        throw new IOException("Unexpected end of file while hashing chunk " + nextChunk);
+                    }
+                    digest.update(buffer.array(), 0, read);
+                    position += read;
+                }
+                nextChunk++;
+            }
+        }
+
+        private synchronized String getSha256() throws IOException {
+            if (nextChunk != chunks) {
+                throw new IOException("Failed to hash the downloaded file: " + (chunks - nextChunk) + " chunks are missing");
+            }
+            return Util.toHexString(digest.digest());
+        }
+    }
+
+    private static class RangeProbe {
+        private final long length;
+        private final String validator;
+
+        private RangeProbe(long length, String validator) {
+            this.length = length;
+            this.validator = validator;
+        }
+    }
+
+    /**
+     * The sidecar progress file of a ranged download. Records which chunks were fully written to the target file.
+     */
+    static class DownloadProgress {
+        private final File file;
+        private final String url;
+        private final long length;
+        private final String validator;
+        private final long chunkSize;
+        private final BitSet completed = new BitSet();
+
+        DownloadProgress(File file, String url, long length, String validator, long chunkSize) {
+            this.file = file;
+            this.url = url;
+            this.length = length;
+            this.validator = validator;
+            this.chunkSize = chunkSize;
+        }
+
+        /**
+         * Loads the progress of a previous download.
+         *
+         * @return the progress, or null if there's no progress file or it belongs to a different file, version or chunk size.
+         */
+        static DownloadProgress load(File file, String url, long length, String validator, long chunkSize) {
+            if (!file.isFile()) {
+                return null;
+            }
+            Properties properties = new Properties();
+            try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                properties.load(inputStream);
+            } catch (IOException e) {
+                return null;
+            }
+            if (!url.equals(properties.getProperty("url")) ||
+                    !String.valueOf(length).equals(properties.getProperty("length")) ||
+                    !validator.equals(properties.getProperty("validator")) ||
+                    !String.valueOf(chunkSize).equals(properties.getProperty("chunkSize"))) {
+                return null;
+            }
+            DownloadProgress progress = new DownloadProgress(file, url, length, validator, chunkSize);
+            for (String chunk : StringUtils.split(properties.getProperty("completed", ""), ',')) {
+                try {
+                    progress.completed.set(Integer.parseInt(chunk.trim()));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return progress;
+        }
+
+        synchronized boolean isCompleted(int chunk) {
+            return completed.get(chunk);
+        }
+
+        synchronized int completedChunks() {
+            return completed.cardinality();
+        }
+
+        synchronized void markCompleted(int chunk) throws IOException {
+            completed.set(chunk);
+            save();
+        }
+
+        /**
+         * Atomically writes the progress file using a temp-then-rename approach.
+         */
+        synchronized void save() throws IOException {
+            Properties properties = new Properties();
+            properties.setProperty("url", url);
+            properties.setProperty("length", String.valueOf(length));
+            properties.setProperty("validator", validator);
+            properties.setProperty("chunkSize", String.valueOf(chunkSize));
+            List<String> chunks = new ArrayList<>();
+            completed.stream().forEach(chunk -> chunks.add(String.valueOf(chunk)));
+            properties.setProperty("completed", String.join(",", chunks));
+            File tempFile = new File(file.getPath() + ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(tempFile.toPath())) {
+                properties.store(outputStream, "JFrog CLI download progress");
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -16,7 +16,6 @@ import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.stream.Stream;
@@ -81,10 +80,11 @@ public class AddBuildInfoActionTest {
     }
 
     private void runCliCommand(String command, String output) throws IOException {
-        try (ByteArrayOutputStream taskOutputStream = new ByteArrayOutputStream()) {
-            taskOutputStream.writeBytes(output.getBytes(StandardCharsets.UTF_8));
-            JfStep jfStep = new JfStep(command);
-            JfStep.addBuildInfoActionIfNeeded(jfStep.getArgs(), new NullLog(), run, taskOutputStream);
+        JfStep jfStep = new JfStep(command);
+        BuildInfoOutputScanner buildInfoScanner = JfStep.createBuildInfoOutputScanner(jfStep.getArgs());
+        if (buildInfoScanner != null) {
+            buildInfoScanner.write(output.getBytes(StandardCharsets.UTF_8));
         }
+        JfStep.addBuildInfoActionIfNeeded(new NullLog(), run, buildInfoScanner);
     }
 }
@@ -0,0 +1,40 @@
+package io.jenkins.plugins.jfrog;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the JMH benchmarks of the plugin with 1 to 64 threads. Not run by the regular test phase:
+ * <pre>
+ *   mvn test -Dtest=BenchmarkRunner
+ * </pre>
+ * The results are written to target/jmh-report-&lt;threads&gt;-threads.json.
+ */
+public class BenchmarkRunner {
+    private static final int[] THREADS = {1, 4, 16, 64};
+
+    @Test
+    void runJmhBenchmarks() throws Exception {
+        for (int threads : THREADS) {
+            Options options = new OptionsBuilder()
+                    .include(BoundedCacheBenchmark.class.getName() + "\\.")
+                    .mode(Mode.Throughput)
+                    .timeUnit(TimeUnit.MICROSECONDS)
+                    .threads(threads)
+                    .forks(1)
+                    .warmupIterations(3)
+                    .measurementIterations(5)
+                    .shouldFailOnError(true)
+                    .result("target/jmh-report-" + threads + "-threads.json")
+                    .resultFormat(ResultFormatType.JSON)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.jenkins.plugins.jfrog;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.slaves.DumbSlave;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstallation;
+import hudson.tools.ToolInstaller;
+import hudson.tools.ToolInstallerDescriptor;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.TestExtension;
+
+import java.util.Collections;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BinaryInstallerRunIdTest {
+
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    @Test
+    public void testFreestyleRunId() throws Exception {
+        FreeStyleProject project = jenkinsRule.createFreeStyleProject("freestyle");
+        AtomicReference<String> runId = new AtomicReference<>();
+        project.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+                runId.set(BinaryInstaller.getCurrentRunId(listener));
+                return true;
+            }
+        });
+        FreeStyleBuild build = jenkinsRule.buildAndAssertSuccess(project);
+        assertEquals(build.getExternalizableId(), runId.get());
+    }
+
+    @Test
+    public void testNoRunningBuild() {
+        assertNull(BinaryInstaller.getCurrentRunId(TaskListener.NULL));
+    }
+
+    /**
+     * Two Pipeline builds install the CLI in parallel branches on the same 2-executor agent. Each installation must be
+     * attributed to its own build, although the executors of the agent are held by both builds.
+     */
+    @Test
+    public void testParallelPipelineRunIds() throws Exception {
+        DumbSlave agent = jenkinsRule.createSlave(Label.get("runid"));
+        agent.setNumExecutors(2);
+        jenkinsRule.jenkins.updateNode(agent);
+        jenkinsRule.waitOnline(agent);
+        JfrogInstallation installation = new JfrogInstallation("cli", null,
+                Collections.singletonList(new InstallSourceProperty(Collections.singletonList(new RunIdInstaller()))));
+        jenkinsRule.jenkins.getDescriptorByType(JfrogInstallation.DescriptorImpl.class).setInstallations(installation);
+
+        WorkflowJob first = createParallelJob("first");
+        WorkflowJob second = createParallelJob("second");
+        WorkflowRun firstRun = first.scheduleBuild2(0).waitForStart();
+        WorkflowRun secondRun = second.scheduleBuild2(0).waitForStart();
+        jenkinsRule.assertBuildStatusSuccess(jenkinsRule.waitForCompletion(firstRun));
+        jenkinsRule.assertBuildStatusSuccess(jenkinsRule.waitForCompletion(secondRun));
+
+        assertRunIds(firstRun);
+        assertRunIds(secondRun);
+    }
+
+    private WorkflowJob createParallelJob(String name) throws Exception {
+        WorkflowJob job = jenkinsRule.createProject(WorkflowJob.class, name);
+        job.setDefinition(new CpsFlowDefinition(
+                "parallel one: { node('runid') { tool 'cli' } }, two: { node('runid') { tool 'cli' } }", true));
+        return job;
+    }
+
+    private void assertRunIds(WorkflowRun run) throws Exception {
+        String log = JenkinsRule.getLog(run);
+        String expected = RunIdInstaller.PREFIX + run.getExternalizableId();
+        assertEquals(log, 2, log.split(Pattern.quote(expected), -1).length - 1);
+    }
+
+    /**
+     * Prints the build it was installed for. The first two installations wait for each other, so that both builds hold
+     * an executor of the agent while their build is determined.
+     */
+    public static class RunIdInstaller extends ToolInstaller {
+        static final String PREFIX = "Installing for ";
+        private static final CyclicBarrier BARRIER = new CyclicBarrier(2);
+
+        public RunIdInstaller() {
+            super(null);
+        }
+
+        @Override
+        public FilePath performInstallation(ToolInstallation tool, Node node, TaskListener log) throws InterruptedException {
+            log.getLogger().println(PREFIX + BinaryInstaller.getCurrentRunId(log));
+            if (!BARRIER.isBroken()) {
+                try {
+                    BARRIER.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    // The remaining installations run after the first two
+                }
+            }
+            return preferredLocation(tool, node);
+        }
+
+        @TestExtension("testParallelPipelineRunIds")
+        public static class DescriptorImpl extends ToolInstallerDescriptor<RunIdInstaller> {
+            @Override
+            public boolean isApplicable(Class<? extends ToolInstallation> toolType) {
+                return toolType == JfrogInstallation.class;
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package io.jenkins.plugins.jfrog;
+
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+import io.jenkins.plugins.jfrog.BinaryInstaller.InstallResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryInstallerSingleFlightTest {
+    private static final String TARGET = "https://acme.jfrog.io|jfrog-cli|2.60.0|linux-amd64";
+    private static final String OTHER_TARGET = "https://acme.jfrog.io|jfrog-cli|2.61.0|linux-amd64";
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        BinaryInstaller.progressReportIntervalMillis = TimeUnit.SECONDS.toMillis(30);
+    }
+
+    /**
+     * The callers that need the same binary wait for the leader, and complete on its result without installing.
+     */
+    @Test
+    void waitersCompleteOnLeaderResultTest() throws Exception {
+        String lockKey = "agent-1:/tools/jf/jf-result";
+        CountDownLatch release = new CountDownLatch(1);
+        Future<InstallResult> leader = startLeader(lockKey, TARGET, "job#1", (installation, recheck) -> {
+            release.await();
+            return true;
+        });
+
+        AtomicInteger installs = new AtomicInteger();
+        List<Future<InstallResult>> waiters = new ArrayList<>();
+        List<ByteArrayOutputStream> outputs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            outputs.add(output);
+            waiters.add(executor.submit(() -> BinaryInstaller.installSingleFlight(lockKey, TARGET, "job#2", deadline(), listener(output),
+                    (installation, recheck) -> installs.incrementAndGet() > 0)));
+            awaitOutput(output, "is being installed by job#1");
+        }
+        release.countDown();
+
+        assertEquals(InstallResult.VERIFIED, leader.get(10, TimeUnit.SECONDS));
+        for (int i = 0; i < waiters.size(); i++) {
+            assertEquals(InstallResult.VERIFIED, waiters.get(i).get(10, TimeUnit.SECONDS));
+            assertTrue(outputs.get(i).toString(StandardCharsets.UTF_8.name()).contains("was installed by job#1, skipping download"));
+        }
+        assertEquals(0, installs.get());
+    }
+
+    /**
+     * When the leader fails and there is no binary to fall back to, the waiters fail with its error instead of
+     * downloading again.
+     */
+    @Test
+    void leaderFailedTest() throws Exception {
+        String lockKey = "agent-1:/tools/jf/jf-failed";
+        CountDownLatch release = new CountDownLatch(1);
+        Future<InstallResult> leader = startLeader(lockKey, TARGET, "job#1", (installation, recheck) -> {
+            release.await();
+            throw new IOException("Connection refused");
+        });
+
+        AtomicInteger installs = new AtomicInteger();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Future<InstallResult> waiter = executor.submit(() -> BinaryInstaller.installSingleFlight(lockKey, TARGET, "job#2", deadline(),
+                listener(output), (installation, recheck) -> installs.incrementAndGet() > 0));
+        awaitOutput(output, "is being installed by job#1");
+        release.countDown();
+
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS));
+        assertEquals("Connection refused", leaderFailure.getCause().getMessage());
+        ExecutionException waiterFailure = assertThrows(ExecutionException.class, () -> waiter.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, waiterFailure.getCause());
+        assertTrue(waiterFailure.getCause().getMessage().contains("installation by job#1 failed and no existing binary is available: Connection refused"));
+        assertEquals(0, installs.get());
+    }
+
+    /**
+     * When the build of the leader is aborted, the waiters install on their own, one after the other, whether they
+     * need the binary of the leader or another one.
+     */
+    @Test
+    void leaderAbortedTest() throws Exception {
+        String lockKey = "agent-1:/tools/jf/jf-aborted";
+        CountDownLatch release = new CountDownLatch(1);
+        Future<InstallResult> leader = startLeader(lockKey, TARGET, "job#1", (installation, recheck) -> {
+            release.await();
+            throw new InterruptedException();
+        });
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger sameTargetInstalls = new AtomicInteger();
+        AtomicInteger otherTargetInstalls = new AtomicInteger();
+        ByteArrayOutputStream sameTargetOutput = new ByteArrayOutputStream();
+        ByteArrayOutputStream otherTargetOutput = new ByteArrayOutputStream();
+        Future<InstallResult> sameTarget = executor.submit(() -> BinaryInstaller.installSingleFlight(lockKey, TARGET, "job#2", deadline(),
+                listener(sameTargetOutput), (installation, recheck) -> install(recheck, running, sameTargetInstalls)));
+        Future<InstallResult> otherTarget = executor.submit(() -> BinaryInstaller.installSingleFlight(lockKey, OTHER_TARGET, "job#3", deadline(),
+                listener(otherTargetOutput), (installation, recheck) -> install(recheck, running, otherTargetInstalls)));
+        awaitOutput(sameTargetOutput, "is being installed by job#1");
+        awaitOutput(otherTargetOutput, "is being installed by job#1");
+        release.countDown();
+
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(InterruptedException.class, leaderFailure.getCause());
+        assertEquals(InstallResult.VERIFIED, sameTarget.get(10, TimeUnit.SECONDS));
+        assertEquals(InstallResult.VERIFIED, otherTarget.get(10, TimeUnit.SECONDS));
+        assertEquals(1, sameTargetInstalls.get());
+        assertEquals(1, otherTargetInstalls.get());
+    }
+
+    /**
+     * A waiter reports the progress of the leader to its own log, and stops waiting at its deadline.
+     */
+    @Test
+    void progressTimeoutTest() throws Exception {
+        BinaryInstaller.progressReportIntervalMillis = 50;
+        String lockKey = "agent-1:/tools/jf/jf-timeout";
+        CountDownLatch release = new CountDownLatch(1);
+        Future<InstallResult> leader = startLeader(lockKey, TARGET, "job#1", (installation, recheck) -> {
+            installation.status = "downloading, throttled";
+            release.await();
+            return true;
+        });
+
+        AtomicInteger installs = new AtomicInteger();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        InstallResult result = BinaryInstaller.installSingleFlight(lockKey, TARGET, "job#2", System.currentTimeMillis() + 500,
+                listener(output), (installation, recheck) -> installs.incrementAndGet() > 0);
+        release.countDown();
+
+        assertEquals(InstallResult.TIMED_OUT, result);
+        assertEquals(0, installs.get());
+        String log = output.toString(StandardCharsets.UTF_8.name());
+        assertTrue(log.contains("Still waiting for the JFrog CLI installation by job#1 (downloading, throttled, "), log);
+        assertEquals(InstallResult.VERIFIED, leader.get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Starts a leader installation, and returns once it runs.
+     */
+    private Future<InstallResult> startLeader(String lockKey, String installTarget, String owner,
+                                              BinaryInstaller.LeaderInstallation installation) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        Future<InstallResult> leader = executor.submit(() -> BinaryInstaller.installSingleFlight(lockKey, installTarget, owner, deadline(),
+                TaskListener.NULL, (inFlight, recheck) -> {
+                    started.countDown();
+                    return installation.install(inFlight, recheck);
+                }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        return leader;
+    }
+
+    /**
+     * An installation after the aborted leader, which must not run concurrently with another one.
+     */
+    private static boolean install(boolean recheck, AtomicInteger running, AtomicInteger installs) throws InterruptedException {
+        assertTrue(recheck);
+        assertEquals(1, running.incrementAndGet());
+        Thread.sleep(50);
+        running.decrementAndGet();
+        installs.incrementAndGet();
+        return true;
+    }
+
+    private static void awaitOutput(ByteArrayOutputStream output, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!output.toString(StandardCharsets.UTF_8.name()).contains(expected)) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for: " + expected);
+            Thread.sleep(10);
+        }
+    }
+
+    private static TaskListener listener(ByteArrayOutputStream output) {
+        return new StreamTaskListener(output, StandardCharsets.UTF_8);
+    }
+
+    private static long deadline() {
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+    }
+}
@@ -0,0 +1,115 @@
+package io.jenkins.plugins.jfrog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares the throughput of {@link BoundedCache} with the synchronized access-ordered {@link LinkedHashMap} it
+ * replaced in {@link InstallLedger}, under the access pattern of the installation fast path: mostly reads of keys that
+ * are in the cache, and an occasional write. Run with {@link BenchmarkRunner}.
+ * <p>
+ * With 800 keys all the keys fit in the cache. With 1500 keys, more than the maximal size of the cache, reads miss and
+ * writes evict, as on a controller with more agents and tool locations than the cache holds.
+ */
+public class BoundedCacheBenchmark {
+    private static final int MAX_SIZE = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Caches {
+        @Param({"bounded", "synchronized-lru"})
+        public String implementation;
+
+        @Param({"800", "1500"})
+        public int keyCount;
+
+        private Cache cache;
+        private String[] keys;
+
+        @Setup
+        public void setUp() {
+            cache = "bounded".equals(implementation) ? new Bounded() : new SynchronizedLru();
+            keys = new String[keyCount];
+            for (int i = 0; i < keyCount; i++) {
+                keys[i] = "agent-" + (i % 50) + ":/home/jenkins/tools/jf-" + i + "/linux-amd64/jf";
+                cache.put(keys[i], "job/build#" + i);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next = ThreadLocalRandom.current().nextInt(MAX_SIZE);
+
+        private int next(Caches caches) {
+            next = (next + 1) % caches.keys.length;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public Object get(Caches caches, Cursor cursor) {
+        return caches.cache.get(caches.keys[cursor.next(caches)]);
+    }
+
+    /**
+     * One write for every 16 reads.
+     */
+    @Benchmark
+    public Object mixed(Caches caches, Cursor cursor) {
+        int index = cursor.next(caches);
+        String key = caches.keys[index];
+        if ((index & 15) == 0) {
+            caches.cache.put(key, "job/build#" + index);
+            return key;
+        }
+        return caches.cache.get(key);
+    }
+
+    private interface Cache {
+        Object get(String key);
+
+        void put(String key, String value);
+    }
+
+    private static class Bounded implements Cache {
+        private final BoundedCache<String, String> cache = new BoundedCache<>(MAX_SIZE);
+
+        @Override
+        public Object get(String key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public void put(String key, String value) {
+            cache.put(key, value);
+        }
+    }
+
+    private static class SynchronizedLru implements Cache {
+        private final Map<String, String> cache = Collections.synchronizedMap(
+                new LinkedHashMap<String, String>(MAX_SIZE, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                        return size() > MAX_SIZE;
+                    }
+                });
+
+        @Override
+        public Object get(String key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public void put(String key, String value) {
+            cache.put(key, value);
+        }
+    }
+}
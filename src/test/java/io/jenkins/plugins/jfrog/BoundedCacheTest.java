@@ -0,0 +1,73 @@
+package io.jenkins.plugins.jfrog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedCacheTest {
+
+    @Test
+    void evictLeastRecentlyUsedTest() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put("key-" + i, "value-" + i);
+        }
+        // Access times are recorded with a granularity of 1ms
+        Thread.sleep(5);
+        cache.get("key-0");
+        for (int i = 100; i < 111; i++) {
+            cache.put("key-" + i, "value-" + i);
+        }
+        assertEquals(100, cache.size());
+        assertEquals("value-0", cache.get("key-0"));
+        assertEquals("value-110", cache.get("key-110"));
+        assertNull(cache.get("key-1"));
+    }
+
+    @Test
+    void removeTest() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10);
+        cache.put("agent-1:/tools/jf", "linux-amd64");
+        cache.put("agent-10:/tools/jf", "linux-arm64");
+        assertEquals("linux-amd64", cache.putIfAbsent("agent-1:/tools/jf", "mac-arm64"));
+        assertFalse(cache.remove("agent-1:/tools/jf", "mac-arm64"));
+        cache.removeKeysIf(key -> key.startsWith("agent-1:"));
+        assertNull(cache.get("agent-1:/tools/jf"));
+        assertEquals(1, cache.snapshot().size());
+        assertTrue(cache.remove("agent-10:/tools/jf", "linux-arm64"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void concurrentAccessTest() throws Exception {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread * 1000;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        cache.put(offset + i, i);
+                        Integer value = cache.get(offset + i / 2);
+                        assertTrue(value == null || value == i / 2);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // Writers don't wait for a running eviction, so the next write evicts what they added meanwhile
+        cache.put(-1, -1);
+        assertTrue(cache.size() <= 110, "size " + cache.size());
+    }
+}
@@ -0,0 +1,56 @@
+package io.jenkins.plugins.jfrog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChecksumUtilsTest {
+
+    @TempDir
+    File toolLocation;
+
+    @Test
+    void verifyInstalledBinaryTest() throws IOException {
+        File binary = createBinary("jfrog cli");
+        writeSha256(ChecksumUtils.sha256Hex(binary));
+
+        assertTrue(ChecksumUtils.verifyInstalledBinary(binary));
+        assertTrue(new File(toolLocation, ChecksumUtils.VERIFICATION_STAMP_FILE_NAME).exists());
+        // Verified by the stamp, without hashing again
+        assertTrue(ChecksumUtils.verifyInstalledBinary(binary));
+    }
+
+    @Test
+    void verifyModifiedBinaryTest() throws IOException {
+        File binary = createBinary("jfrog cli");
+        String sha256 = ChecksumUtils.sha256Hex(binary);
+        writeSha256(sha256);
+        ChecksumUtils.writeVerificationStamp(binary, sha256);
+
+        // Truncated binary
+        Files.write(binary.toPath(), "jfrog".getBytes(StandardCharsets.UTF_8));
+        assertFalse(ChecksumUtils.verifyInstalledBinary(binary));
+    }
+
+    @Test
+    void verifyWithoutSha256FileTest() throws IOException {
+        assertTrue(ChecksumUtils.verifyInstalledBinary(createBinary("jfrog cli")));
+    }
+
+    private File createBinary(String content) throws IOException {
+        File binary = new File(toolLocation, "jf");
+        Files.write(binary.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return binary;
+    }
+
+    private void writeSha256(String sha256) throws IOException {
+        Files.write(new File(toolLocation, ChecksumUtils.SHA256_FILE_NAME).toPath(), sha256.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,275 @@
+package io.jenkins.plugins.jfrog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.google.common.collect.ImmutableList;
+import io.jenkins.plugins.jfrog.callables.JFrogCliConfigFileWriter;
+import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
+import org.apache.commons.lang3.SystemUtils;
+import org.jfrog.build.client.Version;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.jenkins.plugins.jfrog.CliConfigWriter.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class CliConfigWriterTest {
+    private static final String KEY = "0123456789abcdef0123456789abcdef";
+    /**
+     * The path of a JFrog CLI binary to compare with. The tests that run the CLI use the 'jf' binary in the PATH if the
+     * variable is not set, and are skipped if there is none.
+     *
+     * <pre>
+     *   export JFROG_CLI_TEST_BINARY=/usr/local/bin/jf
+     * </pre>
+     */
+    private static final String CLI_BINARY_ENV_VAR = "JFROG_CLI_TEST_BINARY";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void isSupportedTest() {
+        assertFalse(isSupported(null));
+        assertFalse(isSupported(new Version("2.20.0")));
+        assertTrue(isSupported(MIN_CLI_VERSION));
+        assertTrue(isSupported(new Version("2.65.0")));
+        assertFalse(isSupported(new Version("3.0.0")));
+    }
+
+    @Test
+    void encryptTest() throws Exception {
+        String encrypted = encrypt("password", KEY);
+        assertNotEquals(encrypted, encrypt("password", KEY), "Each secret should get its own nonce");
+        assertEquals("password", decrypt(encrypted));
+        // Without a key, the secret is kept in plain text
+        assertEquals("password", encrypt("password", null));
+    }
+
+    @Test
+    void createServerTest() throws Exception {
+        JFrogPlatformInstance instance = new JFrogPlatformInstance("server1", "https://acme.jfrog.io/", null, "", "", "https://xray.acme.io");
+        JsonNode server = createServer(instance, "Admin", "password", null, true, KEY);
+        assertEquals("server1", server.get("serverId").asText());
+        assertEquals("https://acme.jfrog.io/", server.get("url").asText());
+        assertEquals("https://acme.jfrog.io/artifactory/", server.get("artifactoryUrl").asText());
+        assertEquals("https://acme.jfrog.io/distribution/", server.get("distributionUrl").asText());
+        assertEquals("https://xray.acme.io/", server.get("xrayUrl").asText());
+        assertEquals("admin", server.get("user").asText());
+        assertEquals("password", decrypt(server.get("password").asText()));
+        assertFalse(server.has("accessToken"));
+        assertTrue(server.get("isDefault").asBoolean());
+    }
+
+    @Test
+    void createServerWithAccessTokenTest() throws Exception {
+        JFrogPlatformInstance instance = new JFrogPlatformInstance("server2", "https://acme.jfrog.io", null, "", "", "");
+        String accessToken = createAccessToken("jfrt@01abc/users/deployer");
+        JsonNode server = createServer(instance, null, null, accessToken, false, null);
+        assertEquals("deployer", server.get("user").asText());
+        assertEquals(accessToken, server.get("accessToken").asText());
+        assertFalse(server.has("password"));
+        assertFalse(server.has("isDefault"));
+    }
+
+    /**
+     * Compares the config of a server with the config 'jf c add' writes for the same arguments:
+     * jf c add server1 --url=https://acme.jfrog.io --user=Admin --password=password --interactive=false
+     * The expected config is checked against the output of the CLI itself by {@link #cliAddGoldenTest()}.
+     */
+    @Test
+    void createServerGoldenTest() throws Exception {
+        String expected = "{\n" +
+                "  \"url\": \"https://acme.jfrog.io/\",\n" +
+                "  \"artifactoryUrl\": \"https://acme.jfrog.io/artifactory/\",\n" +
+                "  \"distributionUrl\": \"https://acme.jfrog.io/distribution/\",\n" +
+                "  \"xrayUrl\": \"https://acme.jfrog.io/xray/\",\n" +
+                "  \"missionControlUrl\": \"https://acme.jfrog.io/mc/\",\n" +
+                "  \"pipelinesUrl\": \"https://acme.jfrog.io/pipelines/\",\n" +
+                "  \"accessUrl\": \"https://acme.jfrog.io/access/\",\n" +
+                "  \"lifecycleUrl\": \"https://acme.jfrog.io/lifecycle/\",\n" +
+                "  \"user\": \"admin\",\n" +
+                "  \"password\": \"password\",\n" +
+                "  \"serverId\": \"server1\",\n" +
+                "  \"isDefault\": true\n" +
+                "}";
+        JsonNode server = createServer(createInstance("server1"), "Admin", "password", null, true, null);
+        assertEquals(MAPPER.readTree(expected), server);
+        // In the same order
+        assertEquals(ImmutableList.copyOf(MAPPER.readTree(expected).fieldNames()), ImmutableList.copyOf(server.fieldNames()));
+    }
+
+    /**
+     * Runs 'jf c add' and compares the config it writes with the config written here, field by field and in the same
+     * order. To regenerate the expected config of {@link #createServerGoldenTest()}, copy the server from the output
+     * of 'jf c add' with the arguments below.
+     */
+    @Test
+    void cliAddGoldenTest() throws Exception {
+        File cli = findCli();
+        File home = new File(tempDir, "cli-add");
+        runCli(cli, home, null, "c", "add", "server1", "--url=https://acme.jfrog.io", "--user=Admin", "--password=password", "--interactive=false");
+        File configFile = new File(home, CONFIG_FILE_NAME);
+        assertTrue(configFile.isFile(), "The CLI didn't write " + CONFIG_FILE_NAME + ": " + Arrays.toString(home.list()));
+
+        JsonNode expected = MAPPER.readTree(configFile).get("servers").get(0);
+        JsonNode server = createServer(createInstance("server1"), "Admin", "password", null, true, null);
+        assertEquals(expected, server);
+        assertEquals(ImmutableList.copyOf(expected.fieldNames()), ImmutableList.copyOf(server.fieldNames()));
+    }
+
+    /**
+     * The CLI reads and decrypts a config written here.
+     */
+    @Test
+    void cliReadsConfigTest() throws Exception {
+        File cli = findCli();
+        String accessToken = createAccessToken("jfrt@01abc/users/deployer");
+        assertTrue(writeConfig(createServer(createInstance("server1"), "Admin", "password", null, true, KEY),
+                createServer(createInstance("server2"), null, null, accessToken, false, KEY)));
+
+        // 'jf c export' prints the server with its secrets decrypted, as a base64 encoded token
+        JsonNode server1 = MAPPER.readTree(Base64.getDecoder().decode(runCli(cli, tempDir, KEY, "c", "export", "server1").trim()));
+        assertEquals("https://acme.jfrog.io/", server1.get("url").asText());
+        assertEquals("admin", server1.get("user").asText());
+        assertEquals("password", server1.get("password").asText());
+        JsonNode server2 = MAPPER.readTree(Base64.getDecoder().decode(runCli(cli, tempDir, KEY, "c", "export", "server2").trim()));
+        assertEquals(accessToken, server2.get("accessToken").asText());
+    }
+
+    @Test
+    void extractUsernameTest() {
+        assertEquals("admin", extractUsername(createAccessToken("jfac@01abc/users/admin")));
+        assertNull(extractUsername(createAccessToken("jfrt@01abc/groups/readers")));
+        assertNull(extractUsername("not-a-jwt"));
+    }
+
+    @Test
+    void writeConfigTest() throws Exception {
+        assertTrue(writeConfig(createServer(createInstance("server1"), "admin", "password", null, true, KEY)));
+        JsonNode config = MAPPER.readTree(new File(tempDir, CONFIG_FILE_NAME));
+        assertEquals(CONFIG_VERSION, config.get("version").asText());
+        assertTrue(config.get("enc").asBoolean());
+        assertEquals("server1", config.get("servers").get(0).get("serverId").asText());
+        // The temp files were moved or deleted
+        String[] files = tempDir.list();
+        assertNotNull(files);
+        assertFalse(Arrays.stream(files).anyMatch(file -> file.endsWith(".tmp")));
+    }
+
+    @Test
+    void addServersTest() throws Exception {
+        assertTrue(writeConfig(createServer(createInstance("server1"), "admin", "password", null, true, KEY)));
+        String password = MAPPER.readTree(new File(tempDir, CONFIG_FILE_NAME)).get("servers").get(0).get("password").asText();
+        assertTrue(writeConfig(createServer(createInstance("server1"), "admin", "password", null, true, KEY),
+                createServer(createInstance("server2"), "admin", "password", null, false, KEY)));
+
+        JsonNode servers = MAPPER.readTree(new File(tempDir, CONFIG_FILE_NAME)).get("servers");
+        assertEquals(2, servers.size());
+        // The servers already configured are kept as they are
+        assertEquals(password, servers.get(0).get("password").asText());
+        assertEquals("server2", servers.get(1).get("serverId").asText());
+    }
+
+    @Test
+    void convertedConfigTest() throws Exception {
+        Files.write(new File(tempDir, "jfrog-cli.conf.v7").toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+        assertFalse(writeConfig(createServer(createInstance("server1"), "admin", "password", null, true, KEY)));
+        assertFalse(new File(tempDir, CONFIG_FILE_NAME).exists());
+    }
+
+    private boolean writeConfig(JsonNode... servers) throws Exception {
+        ArrayNode serversNode = MAPPER.createArrayNode().addAll(Arrays.asList(servers));
+        return new JFrogCliConfigFileWriter(CONFIG_FILE_NAME, createConfig(serversNode, true)).invoke(tempDir, null);
+    }
+
+    /**
+     * @return the JFrog CLI binary to compare with. Skips the test if there is none, or if the config format of its
+     * version is not written here.
+     */
+    private static File findCli() throws Exception {
+        File cli = null;
+        String path = System.getenv(CLI_BINARY_ENV_VAR);
+        if (path != null && !path.isEmpty()) {
+            cli = new File(path);
+        } else {
+            for (String dir : System.getenv().getOrDefault("PATH", "").split(File.pathSeparator)) {
+                File candidate = new File(dir, SystemUtils.IS_OS_WINDOWS ? "jf.exe" : "jf");
+                if (candidate.canExecute()) {
+                    cli = candidate;
+                    break;
+                }
+            }
+        }
+        assumeTrue(cli != null && cli.canExecute(), "No JFrog CLI binary. Set " + CLI_BINARY_ENV_VAR + " to run the test.");
+        String version = runCli(cli, null, null, "--version").trim();
+        assumeTrue(isSupported(new Version(version.substring(version.lastIndexOf(' ') + 1))), "Unsupported JFrog CLI version: " + version);
+        return cli;
+    }
+
+    /**
+     * Runs the CLI without prompts and without network access to the servers.
+     *
+     * @param home - The JFrog CLI home directory, or null for a command that doesn't need one
+     * @param key  - The encryption key of the config, or null for a config in plain text
+     * @return the standard output of the CLI.
+     */
+    private static String runCli(File cli, File home, String key, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(cli.getAbsolutePath());
+        command.addAll(Arrays.asList(args));
+        ProcessBuilder builder = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT);
+        Map<String, String> env = builder.environment();
+        env.put("CI", "true");
+        env.put("JFROG_CLI_REPORT_USAGE", "false");
+        env.put("JFROG_CLI_AVOID_NEW_VERSION_WARNING", "true");
+        env.remove("JFROG_CLI_ENCRYPTION_KEY");
+        if (home != null) {
+            env.put("JFROG_CLI_HOME_DIR", home.getAbsolutePath());
+        }
+        if (key != null) {
+            env.put("JFROG_CLI_ENCRYPTION_KEY", key);
+        }
+        Process process = builder.start();
+        process.getOutputStream().close();
+        byte[] output = process.getInputStream().readAllBytes();
+        assertTrue(process.waitFor(1, TimeUnit.MINUTES), "The JFrog CLI timed out: " + command);
+        assertEquals(0, process.exitValue(), "The JFrog CLI failed: " + command);
+        return new String(output, StandardCharsets.UTF_8);
+    }
+
+    private static JFrogPlatformInstance createInstance(String serverId) {
+        return new JFrogPlatformInstance(serverId, "https://acme.jfrog.io", null, "", "", "");
+    }
+
+    private static String decrypt(String encrypted) throws Exception {
+        byte[] bytes = Base64.getDecoder().decode(encrypted);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(KEY.getBytes(StandardCharsets.UTF_8), "AES"), new GCMParameterSpec(128, bytes, 0, 12));
+        return new String(cipher.doFinal(bytes, 12, bytes.length - 12), StandardCharsets.UTF_8);
+    }
+
+    private static String createAccessToken(String subject) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = "{\"sub\":\"" + subject + "\",\"scp\":\"applied-permissions/user\"}";
+        return encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "." +
+                encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+}
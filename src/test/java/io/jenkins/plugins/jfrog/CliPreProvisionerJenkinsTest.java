@@ -0,0 +1,175 @@
+package io.jenkins.plugins.jfrog;
+
+import hudson.FilePath;
+import hudson.model.FreeStyleProject;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.slaves.DumbSlave;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstallation;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CliPreProvisionerJenkinsTest {
+
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    @Before
+    public void setUp() {
+        CliPreProvisioner.reset();
+        CountingInstaller.reset();
+        JfrogInstallation installation = new JfrogInstallation("cli", null,
+                Collections.singletonList(new InstallSourceProperty(Collections.singletonList(new CountingInstaller()))));
+        jenkinsRule.jenkins.getDescriptorByType(JfrogInstallation.DescriptorImpl.class).setInstallations(installation);
+    }
+
+    @After
+    public void tearDown() {
+        CliPreProvisioner.concurrencyOverride = 0;
+        CliPreProvisioner.reset();
+    }
+
+    @Test
+    public void testMayUseJfrogCli() throws Exception {
+        FreeStyleProject freestyle = jenkinsRule.createFreeStyleProject("freestyle");
+        assertFalse(CliPreProvisioner.mayUseJfrogCli(freestyle));
+        freestyle.getBuildersList().add(new JfrogBuilder("jf -v"));
+        assertTrue(CliPreProvisioner.mayUseJfrogCli(freestyle));
+        FreeStyleProject wrapped = jenkinsRule.createFreeStyleProject("wrapped");
+        wrapped.getBuildWrappersList().add(new JfrogCliWrapper());
+        assertTrue(CliPreProvisioner.mayUseJfrogCli(wrapped));
+        // The tools of a Pipeline are only known when it runs
+        assertTrue(CliPreProvisioner.mayUseJfrogCli(jenkinsRule.createProject(WorkflowJob.class, "pipeline")));
+    }
+
+    /**
+     * Only the agent a Pipeline branch was assigned to is provisioned, and not the agent of a Freestyle build that
+     * doesn't use JFrog CLI.
+     */
+    @Test
+    public void testProvisionAssignedNode() throws Exception {
+        // Agents that come online are provisioned too, so they are created before provisioning is enabled
+        DumbSlave pipelineAgent = jenkinsRule.createOnlineSlave(Label.get("pipeline"));
+        DumbSlave freestyleAgent = jenkinsRule.createOnlineSlave(Label.get("freestyle"));
+        CliPreProvisioner.concurrencyOverride = 2;
+
+        FreeStyleProject freestyle = jenkinsRule.createFreeStyleProject("freestyle");
+        freestyle.setAssignedLabel(Label.get("freestyle"));
+        jenkinsRule.buildAndAssertSuccess(freestyle);
+
+        WorkflowJob pipeline = jenkinsRule.createProject(WorkflowJob.class, "pipeline");
+        pipeline.setDefinition(new CpsFlowDefinition("node('pipeline') { echo 'assigned' }", true));
+        jenkinsRule.buildAndAssertSuccess(pipeline);
+
+        CountingInstaller.await(1);
+        // Let a wrong installation show up
+        Thread.sleep(500);
+        assertEquals(List.of(pipelineAgent.getNodeName()), CountingInstaller.getNodes());
+        assertFalse(CountingInstaller.getNodes().contains(freestyleAgent.getNodeName()));
+    }
+
+    @Test
+    public void testConcurrencyBound() throws Exception {
+        List<DumbSlave> agents = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            agents.add(jenkinsRule.createOnlineSlave());
+        }
+        CliPreProvisioner.concurrencyOverride = 2;
+        CountingInstaller.delayMillis = 300;
+        for (DumbSlave agent : agents) {
+            CliPreProvisioner.schedule(agent, false, 0);
+        }
+        CountingInstaller.await(agents.size());
+        assertEquals(agents.size(), CountingInstaller.getNodes().size());
+        assertEquals(2, CountingInstaller.maxConcurrent.get());
+    }
+
+    /**
+     * A refresh of the latest versions doesn't suppress the provisioning of all the tools on an assigned node, while a
+     * provisioning of all the tools suppresses the refresh.
+     */
+    @Test
+    public void testScheduleModes() throws Exception {
+        DumbSlave agent = jenkinsRule.createOnlineSlave();
+        DumbSlave otherAgent = jenkinsRule.createOnlineSlave();
+        CliPreProvisioner.concurrencyOverride = 2;
+        long quietPeriod = TimeUnit.MINUTES.toMillis(10);
+        assertTrue(CliPreProvisioner.schedule(agent, true, quietPeriod));
+        assertFalse(CliPreProvisioner.schedule(agent, true, quietPeriod));
+        assertTrue(CliPreProvisioner.schedule(agent, false, quietPeriod));
+        assertFalse(CliPreProvisioner.schedule(agent, false, quietPeriod));
+        CountingInstaller.await(1);
+
+        assertTrue(CliPreProvisioner.schedule(otherAgent, false, quietPeriod));
+        assertFalse(CliPreProvisioner.schedule(otherAgent, true, quietPeriod));
+    }
+
+    /**
+     * Records the nodes it installs on, and the maximum number of concurrent installations.
+     */
+    public static class CountingInstaller extends BinaryInstaller {
+        private static final List<String> NODES = new ArrayList<>();
+        private static final AtomicInteger concurrent = new AtomicInteger();
+        static final AtomicInteger maxConcurrent = new AtomicInteger();
+        static volatile long delayMillis;
+
+        public CountingInstaller() {
+            super(null);
+        }
+
+        static synchronized void reset() {
+            NODES.clear();
+            concurrent.set(0);
+            maxConcurrent.set(0);
+            delayMillis = 0;
+        }
+
+        static synchronized List<String> getNodes() {
+            return new ArrayList<>(NODES);
+        }
+
+        static void await(int installations) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+            while (getNodes().size() < installations && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue("Expected " + installations + " installations: " + getNodes(), getNodes().size() >= installations);
+        }
+
+        @Override
+        public FilePath performInstallation(ToolInstallation tool, Node node, TaskListener log) throws InterruptedException {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(delayMillis);
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            synchronized (CountingInstaller.class) {
+                NODES.add(node.getNodeName());
+            }
+            return preferredLocation(tool, node);
+        }
+
+        @TestExtension
+        public static final class DescriptorImpl extends BinaryInstaller.DescriptorImpl<CountingInstaller> {
+        }
+    }
+}
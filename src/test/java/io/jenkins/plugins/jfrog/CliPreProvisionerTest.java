@@ -0,0 +1,16 @@
+package io.jenkins.plugins.jfrog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CliPreProvisionerTest {
+
+    @Test
+    void installsLatestVersionTest() {
+        assertTrue(CliPreProvisioner.installsLatestVersion(new ReleasesInstaller()));
+        assertTrue(CliPreProvisioner.installsLatestVersion(new ArtifactoryInstaller("server", "jfrog-cli", "")));
+        assertFalse(CliPreProvisioner.installsLatestVersion(new ArtifactoryInstaller("server", "jfrog-cli", "2.70.0")));
+    }
+}
@@ -0,0 +1,55 @@
+package io.jenkins.plugins.jfrog;
+
+import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static io.jenkins.plugins.jfrog.CliServerSelector.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CliServerSelectorTest {
+    private static final List<JFrogPlatformInstance> INSTANCES = Arrays.asList(
+            createInstance("default"), createInstance("server-1"), createInstance("server-2"), createInstance("server-3"));
+
+    @Test
+    void getServerIdsTest() {
+        assertEquals(Set.of("server-1", "server-2", "server-3"), getServerIds(new String[]{
+                "mvn-config", "--server-id-resolve=server-1", "--server-id-deploy", "server-2", "--server-id", "server-3", "--repo-resolve-releases=libs"}));
+        assertEquals(Collections.emptySet(), getServerIds(new String[]{"rt", "u", "file", "repo/", "--server-id"}));
+    }
+
+    @Test
+    void getSpecFilesTest() {
+        assertEquals(Arrays.asList("upload.json", "/specs/download.json"),
+                getSpecFiles(new String[]{"rt", "u", "--spec=upload.json", "--spec-vars=a=b", "--spec", "/specs/download.json"}));
+    }
+
+    @Test
+    void selectTest() {
+        // The default server only
+        assertEquals(Arrays.asList("default"), getIds(select(INSTANCES, new String[]{"rt", "ping"}, Collections.emptySet())));
+        // The referenced servers, in the order they are configured in Jenkins
+        assertEquals(Arrays.asList("default", "server-1", "server-3"),
+                getIds(select(INSTANCES, new String[]{"rt", "ping", "--server-id=server-3"}, Set.of("server-1", "unknown"))));
+        // The config commands need all the servers
+        assertEquals(getIds(INSTANCES), getIds(select(INSTANCES, new String[]{"c", "show"}, Collections.emptySet())));
+    }
+
+    @Test
+    void getMissingTest() {
+        assertEquals(Arrays.asList("server-1", "server-3"), getIds(getMissing(INSTANCES, Set.of("default", "server-2"))));
+    }
+
+    private static List<String> getIds(List<JFrogPlatformInstance> instances) {
+        return instances.stream().map(JFrogPlatformInstance::getId).collect(Collectors.toList());
+    }
+
+    private static JFrogPlatformInstance createInstance(String serverId) {
+        return new JFrogPlatformInstance(serverId, "https://" + serverId + ".jfrog.io", null, "", "", "");
+    }
+}
@@ -0,0 +1,63 @@
+package io.jenkins.plugins.jfrog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ControllerCliCacheTest {
+    private static final int ENTRY_SIZE = 1024;
+
+    @TempDir
+    File cacheRoot;
+
+    @Test
+    void evictLeastRecentlyUsedTest() throws IOException {
+        File oldest = createEntry("a", 1000);
+        File middle = createEntry("b", 2000);
+        File newest = createEntry("c", 3000);
+
+        ControllerCliCache.evict(cacheRoot, 2 * ENTRY_SIZE, newest);
+
+        assertFalse(oldest.exists());
+        assertTrue(middle.exists());
+        assertTrue(newest.exists());
+    }
+
+    @Test
+    void evictKeepsEntryInUseTest() throws IOException {
+        File inUse = createEntry("a", 1000);
+        File other = createEntry("b", 2000);
+
+        ControllerCliCache.evict(cacheRoot, ENTRY_SIZE, inUse);
+
+        assertTrue(inUse.exists());
+        assertFalse(other.exists());
+    }
+
+    @Test
+    void evictWithinLimitTest() throws IOException {
+        File first = createEntry("a", 1000);
+        File second = createEntry("b", 2000);
+
+        ControllerCliCache.evict(cacheRoot, 2 * ENTRY_SIZE, second);
+
+        assertTrue(first.exists());
+        assertTrue(second.exists());
+    }
+
+    private File createEntry(String name, long lastUsed) throws IOException {
+        File entryDir = new File(cacheRoot, name);
+        Files.createDirectories(entryDir.toPath());
+        File binary = new File(entryDir, "jf");
+        Files.write(binary.toPath(), new byte[ENTRY_SIZE]);
+        assertTrue(binary.setLastModified(lastUsed));
+        assertTrue(entryDir.setLastModified(lastUsed));
+        return entryDir;
+    }
+}
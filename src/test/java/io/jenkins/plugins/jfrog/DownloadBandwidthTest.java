@@ -0,0 +1,63 @@
+package io.jenkins.plugins.jfrog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DownloadBandwidthTest {
+    private static final long MB = 1024 * 1024;
+
+    @BeforeEach
+    void setUp() {
+        DownloadBandwidth.clear();
+    }
+
+    @Test
+    void parseSiteBudgetsTest() {
+        Map<String, Long> budgets = DownloadBandwidth.parseSiteBudgets(" dc-east=51200, dc-west = 1024,bad,zero=0,nan=x");
+        assertEquals(2, budgets.size());
+        assertEquals(50 * MB, budgets.get("dc-east"));
+        assertEquals(MB, budgets.get("dc-west"));
+        assertTrue(DownloadBandwidth.parseSiteBudgets(null).isEmpty());
+    }
+
+    @Test
+    void fairShareTest() {
+        Map<String, Long> budgets = DownloadBandwidth.parseSiteBudgets("dc-east=30720,dc-west=10240");
+        Map<String, Long> east = DownloadBandwidth.getSites(Arrays.asList("linux", "dc-east"), budgets);
+        assertNull(DownloadBandwidth.allocate(DownloadBandwidth.getSites(Arrays.asList("linux"), budgets)));
+
+        DownloadBandwidth.Allocation first = DownloadBandwidth.allocate(east);
+        assertEquals(30 * MB, first.getBytesPerSecond());
+        DownloadBandwidth.Allocation second = DownloadBandwidth.allocate(east);
+        DownloadBandwidth.Allocation third = DownloadBandwidth.allocate(east);
+        assertEquals(10 * MB, first.getBytesPerSecond());
+        assertEquals(10 * MB, third.getBytesPerSecond());
+        assertEquals("site 'dc-east' budget of 30.0 MB/s shared by 3 downloads", first.describe());
+
+        // Downloads in another site don't take from the budget
+        DownloadBandwidth.Allocation west = DownloadBandwidth.allocate(DownloadBandwidth.getSites(Arrays.asList("dc-west"), budgets));
+        assertEquals(10 * MB, west.getBytesPerSecond());
+        assertEquals(10 * MB, first.getBytesPerSecond());
+
+        // The budget is redistributed when downloads complete
+        second.close();
+        third.close();
+        assertEquals(30 * MB, first.getBytesPerSecond());
+    }
+
+    @Test
+    void smallestShareTest() {
+        Map<String, Long> budgets = DownloadBandwidth.parseSiteBudgets("dc-east=30720,rack-1=20480");
+        DownloadBandwidth.Allocation onRack = DownloadBandwidth.allocate(DownloadBandwidth.getSites(Arrays.asList("dc-east", "rack-1"), budgets));
+        assertEquals(20 * MB, onRack.getBytesPerSecond());
+        DownloadBandwidth.allocate(DownloadBandwidth.getSites(Arrays.asList("dc-east"), budgets));
+        DownloadBandwidth.allocate(DownloadBandwidth.getSites(Arrays.asList("dc-east"), budgets));
+        assertEquals(10 * MB, onRack.getBytesPerSecond());
+        assertTrue(onRack.describe().startsWith("site 'dc-east'"));
+    }
+}
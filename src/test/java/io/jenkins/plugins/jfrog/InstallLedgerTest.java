@@ -0,0 +1,97 @@
+package io.jenkins.plugins.jfrog;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstallLedgerTest {
+    private static final String OS_KEY = "agent-1:/home/jenkins/tools/jf";
+    private static final String KEY = "agent-1:/home/jenkins/tools/jf/linux-amd64/jf";
+    private static final String SHA256 = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @BeforeEach
+    void setUp() {
+        InstallLedger.clear();
+    }
+
+    @Test
+    void persistTest() {
+        InstallLedger.onConnected("agent-1", "host-1/1000");
+        InstallLedger.putOs(OS_KEY, "linux-amd64");
+        InstallLedger.markVerified(KEY, "job#1", SHA256);
+        ObjectNode persisted = InstallLedger.write();
+
+        // Controller restart
+        InstallLedger.clear();
+        InstallLedger.read(persisted);
+        assertEquals("linux-amd64", InstallLedger.getOs(OS_KEY));
+        assertTrue(InstallLedger.isVerified(KEY, "job#1"));
+        assertFalse(InstallLedger.isVerified(KEY, "job#2"));
+
+        // The same agent reconnects after the restart
+        InstallLedger.onConnected("agent-1", "host-1/1000");
+        assertEquals("linux-amd64", InstallLedger.getOs(OS_KEY));
+        assertTrue(InstallLedger.isVerified(KEY, "job#1"));
+    }
+
+    @Test
+    void otherVersionDiscardedTest() {
+        InstallLedger.putOs(OS_KEY, "linux-amd64");
+        ObjectNode persisted = InstallLedger.write();
+        persisted.put("version", InstallLedger.FORMAT_VERSION + 1);
+
+        InstallLedger.clear();
+        InstallLedger.read(persisted);
+        assertNull(InstallLedger.getOs(OS_KEY));
+    }
+
+    @Test
+    void unknownOsNotPersistedTest() {
+        InstallLedger.putOs(OS_KEY, "unknown");
+        assertFalse(InstallLedger.write().path("os").has(OS_KEY));
+    }
+
+    @Test
+    void differentAgentTest() {
+        InstallLedger.onConnected("agent-1", "host-1/1000");
+        InstallLedger.putOs(OS_KEY, "linux-amd64");
+        InstallLedger.putOs("agent-10:/tools/jf", "linux-arm64");
+        InstallLedger.markVerified(KEY, "job#1", SHA256);
+
+        InstallLedger.onConnected("agent-1", "host-2/2000");
+        assertNull(InstallLedger.getOs(OS_KEY));
+        assertFalse(InstallLedger.isVerified(KEY, "job#1"));
+        // Nodes whose name starts with the same prefix are not affected
+        assertEquals("linux-arm64", InstallLedger.getOs("agent-10:/tools/jf"));
+    }
+
+    @Test
+    void checksumChangeTest() {
+        InstallLedger.markVerified(KEY, "job#1", SHA256);
+        assertTrue(InstallLedger.isVerified(KEY, "job#1", SHA256));
+        // The sha256 of the installed binary is unknown
+        assertFalse(InstallLedger.isVerified(KEY, "job#1", ""));
+        assertFalse(InstallLedger.isVerified(KEY, "job#1", SHA256.replace('0', 'f')));
+        assertFalse(InstallLedger.isVerified(KEY, "job#2", SHA256));
+
+        // Verified without a sha256
+        InstallLedger.markVerified(KEY, "job#1", null);
+        assertFalse(InstallLedger.isVerified(KEY, "job#1", SHA256));
+    }
+
+    @Test
+    void nodeDeletedTest() {
+        InstallLedger.onConnected("agent-1", "host-1/1000");
+        InstallLedger.putOs(OS_KEY, "linux-amd64");
+        InstallLedger.markVerified(KEY, "job#1", SHA256);
+        InstallLedger.onConnected("agent-10", "host-10/1000");
+
+        InstallLedger.onDeleted("agent-1");
+        assertNull(InstallLedger.getOs(OS_KEY));
+        assertFalse(InstallLedger.isVerified(KEY, "job#1"));
+        assertFalse(InstallLedger.write().path("fingerprints").has("agent-1"));
+        assertTrue(InstallLedger.write().path("fingerprints").has("agent-10"));
+    }
+}
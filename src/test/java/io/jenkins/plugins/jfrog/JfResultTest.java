@@ -0,0 +1,102 @@
+package io.jenkins.plugins.jfrog;
+
+import hudson.FilePath;
+import io.jenkins.plugins.jfrog.callables.CliResultParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.jenkins.plugins.jfrog.callables.CliResultParser.ROOT;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JfResultTest {
+    private static final String UPLOAD_OUTPUT = "{\n" +
+            "  \"status\": \"success\",\n" +
+            "  \"totals\": {\"success\": 3, \"failure\": 0},\n" +
+            "  \"files\": [{\"path\": \"a\"}, {\"path\": \"b\", \"props\": [1, 2]}, {\"path\": \"c\"}],\n" +
+            "  \"empty\": []\n" +
+            "}";
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void objectTest() throws Exception {
+        JfResult result = parse(UPLOAD_OUTPUT);
+        assertEquals(Set.of("status", "totals", "files", "empty"), result.getNames());
+        assertEquals("success", result.get("status"));
+        assertEquals(Map.of("success", 3, "failure", 0), result.get("totals"));
+        // The arrays are not in the result
+        assertNull(result.get("files"));
+        assertEquals(3, result.getSize("files"));
+        assertEquals(0, result.getSize("empty"));
+        assertEquals(-1, result.getSize("status"));
+        assertEquals(-1, result.getSize());
+
+        assertEquals(List.of(Map.of("path", "a"), Map.of("path", "b", "props", List.of(1, 2))), result.readPage("files", 0, 2));
+        assertEquals(List.of(Map.of("path", "c")), result.readPage("files", 2, 2));
+        assertEquals(List.of(), result.readPage("files", 3, 2));
+        assertThrows(IllegalArgumentException.class, () -> result.getItems("status", 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> result.readPage("files", 0, JfResult.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void arrayTest() throws Exception {
+        JfResult result = parse("[{\"path\": \"a\"}, {\"path\": \"b\"}, {\"path\": \"c\"}]\n");
+        assertEquals(Set.of(), result.getNames());
+        assertEquals(3, result.getSize());
+        assertEquals(List.of(Map.of("path", "b"), Map.of("path", "c")), result.readPage(ROOT, 1, 10));
+    }
+
+    @Test
+    void pageFromCheckpointTest() throws Exception {
+        StringBuilder output = new StringBuilder("{\"status\": \"success\", \"files\": [\n");
+        for (int i = 0; i < 1050; i++) {
+            output.append(i == 0 ? "" : ",\n").append("  {\"path\": \"").append(i).append("\", \"props\": [").append(i).append("]}");
+        }
+        output.append("\n], \"totals\": {\"success\": 1050}}");
+        JfResult result = parse(output.toString());
+        assertEquals(1050, result.getSize("files"));
+        assertEquals(Map.of("success", 1050), result.get("totals"));
+        // Starts in the middle of a checkpoint interval, and ends after the last checkpoint
+        List<Object> page = result.readPage("files", 950, 1000);
+        assertEquals(100, page.size());
+        assertEquals(Map.of("path", "950", "props", List.of(950)), page.get(0));
+        assertEquals(Map.of("path", "1049", "props", List.of(1049)), page.get(99));
+        assertEquals(List.of(Map.of("path", "200", "props", List.of(200))), result.readPage("files", 200, 1));
+    }
+
+    @Test
+    void omittedFieldTest() throws Exception {
+        String large = "x".repeat(CliResultParser.MAX_FIELDS_SIZE);
+        JfResult result = parse("{\"status\": \"success\", \"details\": {\"log\": \"" + large + "\"}, \"files\": []}");
+        assertEquals(Set.of("status", "details", "files"), result.getNames());
+        assertEquals("success", result.get("status"));
+        assertThrows(IllegalArgumentException.class, () -> result.get("details"));
+    }
+
+    @Test
+    void emptyTest() throws Exception {
+        JfResult result = parse("");
+        assertEquals(Set.of(), result.getNames());
+        assertEquals(-1, result.getSize());
+    }
+
+    @Test
+    void illegalOutputTest() {
+        assertThrows(IOException.class, () -> parse("\"text\""));
+        assertThrows(IOException.class, () -> parse("{ Illegal JSON }"));
+    }
+
+    private JfResult parse(String output) throws Exception {
+        File resultFile = File.createTempFile("result", ".json", tempDir);
+        Files.writeString(resultFile.toPath(), output);
+        return JfResult.parse(new FilePath(resultFile));
+    }
+}
@@ -4,6 +4,7 @@ import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.Launcher;
 import hudson.model.Job;
+import hudson.model.TaskListener;
 import hudson.util.ArgumentListBuilder;
 import io.jenkins.plugins.jfrog.configuration.CredentialsConfig;
 import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
@@ -79,6 +80,22 @@ public class JfStepTest {
         assertEquals("2.31.0", version.toString());
     }
 
+    @Test
+    void isVersionCacheableTest() {
+        Launcher localLauncher = new Launcher.LocalLauncher(TaskListener.NULL);
+        assertTrue(JfStep.isVersionCacheable(localLauncher));
+        // Decorated launchers, at any depth
+        Launcher decoratedLauncher = new Launcher.DecoratedLauncher(localLauncher) {
+        };
+        assertTrue(JfStep.isVersionCacheable(decoratedLauncher));
+        assertTrue(JfStep.isVersionCacheable(new Launcher.DecoratedLauncher(decoratedLauncher) {
+        }));
+        // Launchers of other plugins, such as the ones of the Docker plugin, and the launchers they decorate
+        assertFalse(JfStep.isVersionCacheable(mock(Launcher.class)));
+        assertFalse(JfStep.isVersionCacheable(new Launcher.DecoratedLauncher(mock(Launcher.class)) {
+        }));
+    }
+
     /**
      * Tests the addCredentialsArguments method logic with password-stdin vs.-- password flag.
      * Password-stdin flag should only be set if the CLI version is supported
@@ -0,0 +1,88 @@
+package io.jenkins.plugins.jfrog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonOutputScannerTest {
+
+    @Test
+    void nestedObjectTest() {
+        TestScanner scanner = new TestScanner();
+        write(scanner, "12:00:00 [Info] Deploying {1} artifacts...\n" +
+                "{\n" +
+                "  \"status\": \"success\",\n" +
+                "  \"files\": [{\"path\": \"a/b}\"}, {\"path\": \"c\\\"{d\"}],\n" +
+                "  \"totals\": {\"success\": 2, \"failure\": 0}\n" +
+                "}\n");
+        assertEquals(1, scanner.objects.size());
+        JsonNode object = scanner.objects.get(0);
+        assertEquals("success", object.get("status").asText());
+        assertEquals("a/b}", object.get("files").get(0).get("path").asText());
+        assertEquals("c\"{d", object.get("files").get(1).get("path").asText());
+        assertEquals(2, object.get("totals").get("success").asInt());
+    }
+
+    @Test
+    void splitWritesTest() {
+        TestScanner scanner = new TestScanner();
+        String output = "log line\n  {\"a\": {\"b\": \"x\"}}\nlog line\n{\"c\": 1}";
+        // One byte at a time, as the output may arrive in any chunks
+        for (byte b : output.getBytes(StandardCharsets.UTF_8)) {
+            scanner.write(b);
+        }
+        assertEquals(2, scanner.objects.size());
+        assertEquals("x", scanner.objects.get(0).get("a").get("b").asText());
+        assertEquals(1, scanner.objects.get(1).get("c").asInt());
+        assertEquals("{\"c\": 1}", scanner.getLastCandidate());
+    }
+
+    @Test
+    void illegalObjectTest() {
+        TestScanner scanner = new TestScanner();
+        write(scanner, "{ Illegal JSON }\n{\"a\": 1}\n");
+        assertEquals(1, scanner.objects.size());
+        write(scanner, "{ Illegal JSON }\n");
+        assertEquals(1, scanner.objects.size());
+        assertEquals("{ Illegal JSON }", scanner.getLastCandidate());
+    }
+
+    @Test
+    void largeObjectTest() {
+        TestScanner scanner = new TestScanner();
+        // An unbalanced brace is dropped once it exceeds the maximal size, and the scan continues
+        write(scanner, "{\n");
+        write(scanner, "x".repeat(JsonOutputScanner.MAX_OBJECT_SIZE) + "\n");
+        write(scanner, "{\"a\": 1}\n");
+        assertEquals(1, scanner.objects.size());
+        assertEquals("{\"a\": 1}", scanner.getLastCandidate());
+    }
+
+    @Test
+    void buildInfoOutputScannerTest() {
+        BuildInfoOutputScanner scanner = new BuildInfoOutputScanner();
+        write(scanner, "{\"a\": \"b\"}\n");
+        assertNull(scanner.getBuildInfoUrl());
+        write(scanner, "{\n  \"buildInfoUiUrl\": \"http://127.0.0.1:8081/ui/builds/test/1\"\n}\n");
+        assertEquals("http://127.0.0.1:8081/ui/builds/test/1", scanner.getBuildInfoUrl());
+    }
+
+    private static void write(JsonOutputScanner scanner, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        scanner.write(bytes, 0, bytes.length);
+    }
+
+    private static class TestScanner extends JsonOutputScanner {
+        private final List<JsonNode> objects = new ArrayList<>();
+
+        @Override
+        protected void onObject(JsonNode object) {
+            objects.add(object);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.jenkins.plugins.jfrog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutputCaptureTest {
+    @TempDir
+    File tempDir;
+
+    @Test
+    void inMemoryTest() throws Exception {
+        File spillFile = new File(tempDir, "output.log");
+        OutputCapture capture = new OutputCapture(16, spillFile);
+        write(capture, "hello ");
+        write(capture, "world");
+        assertFalse(capture.isSpilled());
+        assertFalse(spillFile.exists());
+        assertEquals("hello world", capture.getOutput());
+        assertEquals("hello world", capture.getTail());
+    }
+
+    @Test
+    void spillTest() throws Exception {
+        File spillFile = new File(tempDir, "output.log");
+        OutputCapture capture = new OutputCapture(8, spillFile);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            String line = "line " + i + "\n";
+            write(capture, line);
+            expected.append(line);
+        }
+        // Writes larger than the buffer
+        String large = "0123456789abcdefghij";
+        write(capture, large);
+        expected.append(large);
+        capture.write('!');
+        expected.append('!');
+
+        assertTrue(capture.isSpilled());
+        assertEquals("defghij!", capture.getTail());
+        assertEquals(expected.toString(), capture.getOutput());
+        // More output after reading it
+        write(capture, "more");
+        assertEquals(expected + "more", capture.getOutput());
+
+        capture.delete();
+        assertFalse(spillFile.exists());
+    }
+
+    @Test
+    void tailTest() throws Exception {
+        OutputCapture capture = new OutputCapture(10, null);
+        write(capture, "beginning of the output, ");
+        write(capture, "{\"a\":1}");
+        assertEquals("t, {\"a\":1}", capture.getTail());
+        assertThrows(IllegalStateException.class, capture::getOutput);
+    }
+
+    private static void write(OutputCapture capture, String text) throws Exception {
+        capture.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,60 @@
+package io.jenkins.plugins.jfrog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ReleaseVersionResolverTest {
+    private static final String KEY = "https://acme.jfrog.io/artifactory/jfrog-cli/v2-jf/2.70.0/jfrog-cli-linux-amd64/jf";
+
+    @BeforeEach
+    void setUp() {
+        Sha256LookupCache.clear();
+    }
+
+    @Test
+    void parseReleaseTest() throws IOException {
+        String storageJson = "{\"repo\": \"jfrog-cli\", \"path\": \"/v2-jf/2.70.0/jfrog-cli-linux-amd64/jf\"," +
+                "\"checksums\": {\"sha1\": \"abc\", \"sha256\": \"0123456789abcdef\"}}";
+        ReleaseVersionResolver.Release release = ReleaseVersionResolver.parseRelease(storageJson);
+        assertEquals("2.70.0", release.version);
+        assertEquals("0123456789abcdef", release.sha256);
+    }
+
+    @Test
+    void parseReleaseWithoutChecksumTest() throws IOException {
+        String storageJson = "{\"repo\": \"jfrog-cli\", \"path\": \"/v2-jf/2.70.0/jfrog-cli-linux-amd64/jf\"}";
+        assertEquals("", ReleaseVersionResolver.parseRelease(storageJson).sha256);
+    }
+
+    @Test
+    void parseUnresolvedReleaseTest() throws IOException {
+        assertNull(ReleaseVersionResolver.parseRelease("{\"repo\": \"jfrog-cli\", \"path\": \"/v2-jf/[RELEASE]/jfrog-cli-linux-amd64/jf\"}"));
+        assertNull(ReleaseVersionResolver.parseRelease("{\"repo\": \"jfrog-cli\", \"path\": \"/v1/1.0.0/jfrog-cli-linux-amd64/jfrog\"}"));
+        assertNull(ReleaseVersionResolver.parseRelease("{\"repo\": \"jfrog-cli\"}"));
+    }
+
+    @Test
+    void cacheSha256Test() throws Exception {
+        ReleaseVersionResolver.cacheSha256(KEY, "0123456789abcdef");
+        assertEquals("0123456789abcdef", Sha256LookupCache.lookup(KEY, () -> "fedcba9876543210"));
+    }
+
+    /**
+     * Without a checksum in the storage API response, the version check must get the sha256 from the server, so that
+     * an outdated binary is still downloaded again, instead of being taken for up-to-date.
+     */
+    @Test
+    void missingChecksumNotCachedTest() throws Exception {
+        String storageJson = "{\"repo\": \"jfrog-cli\", \"path\": \"/v2-jf/2.70.0/jfrog-cli-linux-amd64/jf\"}";
+        ReleaseVersionResolver.cacheSha256(KEY, ReleaseVersionResolver.parseRelease(storageJson).sha256);
+        String installedSha256 = "0000000000000000";
+        String expectedSha256 = Sha256LookupCache.lookup(KEY, () -> "0123456789abcdef");
+        assertNotEquals(installedSha256, expectedSha256);
+    }
+}
@@ -0,0 +1,77 @@
+package io.jenkins.plugins.jfrog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class Sha256LookupCacheTest {
+    private static final String KEY = "https://acme.jfrog.io/artifactory/jfrog-cli/v2-jf/[RELEASE]/jfrog-cli-linux-amd64/jf";
+
+    @BeforeEach
+    void setUp() {
+        Sha256LookupCache.clear();
+    }
+
+    @Test
+    void cachedLookupTest() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("sha", Sha256LookupCache.lookup(KEY, () -> {
+                requests.incrementAndGet();
+                return "sha";
+            }));
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void singleFlightTest() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> Sha256LookupCache.lookup(KEY, () -> {
+                    requests.incrementAndGet();
+                    release.await(10, TimeUnit.SECONDS);
+                    return "sha";
+                })));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("sha", result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void failureNotCachedTest() throws Exception {
+        assertThrows(IOException.class, () -> Sha256LookupCache.lookup(KEY, () -> {
+            throw new IOException("Connection refused");
+        }));
+        assertEquals("sha", Sha256LookupCache.lookup(KEY, () -> "sha"));
+    }
+
+    @Test
+    void emptyNotCachedTest() throws Exception {
+        assertEquals("", Sha256LookupCache.lookup(KEY, () -> ""));
+        assertEquals("sha", Sha256LookupCache.lookup(KEY, () -> "sha"));
+    }
+}
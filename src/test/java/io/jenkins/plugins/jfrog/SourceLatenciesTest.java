@@ -0,0 +1,58 @@
+package io.jenkins.plugins.jfrog;
+
+import io.jenkins.plugins.jfrog.callables.CliDownloadSource;
+import io.jenkins.plugins.jfrog.configuration.JFrogPlatformInstance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SourceLatenciesTest {
+    private static final CliDownloadSource PRIMARY = createSource("https://primary.jfrog.io");
+    private static final CliDownloadSource MIRROR = createSource("https://mirror.jfrog.io");
+
+    @BeforeEach
+    void setUp() {
+        SourceLatencies.clear();
+    }
+
+    @Test
+    void orderTest() {
+        SourceLatencies.record("agent-1", PRIMARY, 400);
+        SourceLatencies.record("agent-1", MIRROR, 100);
+        assertEquals(List.of(MIRROR, PRIMARY), SourceLatencies.order("agent-1", List.of(PRIMARY, MIRROR)));
+        // Not measured from another node
+        assertEquals(List.of(PRIMARY, MIRROR), SourceLatencies.order("agent-2", List.of(PRIMARY, MIRROR)));
+        assertEquals(200, SourceLatencies.getHedgeDelayMillis("agent-1", MIRROR));
+    }
+
+    /**
+     * An aborted request only raises the latency of a source, as the source may have been about to respond.
+     */
+    @Test
+    void lowerBoundTest() {
+        SourceLatencies.record("agent-1", PRIMARY, 400);
+        SourceLatencies.recordLowerBound("agent-1", PRIMARY, 100);
+        assertEquals(800, SourceLatencies.getHedgeDelayMillis("agent-1", PRIMARY));
+        SourceLatencies.recordLowerBound("agent-1", PRIMARY, 1400);
+        assertEquals(1400, SourceLatencies.getHedgeDelayMillis("agent-1", PRIMARY));
+        // Without a response time, the lower bound is the best estimate
+        SourceLatencies.recordLowerBound("agent-1", MIRROR, 300);
+        assertEquals(600, SourceLatencies.getHedgeDelayMillis("agent-1", MIRROR));
+    }
+
+    @Test
+    void nodeDeletedTest() {
+        SourceLatencies.record("agent-1", MIRROR, 100);
+        SourceLatencies.record("agent-2", MIRROR, 100);
+        SourceLatencies.onDeleted("agent-1");
+        assertEquals(List.of(PRIMARY, MIRROR), SourceLatencies.order("agent-1", List.of(PRIMARY, MIRROR)));
+        assertEquals(List.of(MIRROR, PRIMARY), SourceLatencies.order("agent-2", List.of(PRIMARY, MIRROR)));
+    }
+
+    private static CliDownloadSource createSource(String url) {
+        return new CliDownloadSource(new JFrogPlatformInstance("server", url, null, "", "", ""), "jfrog-cli");
+    }
+}
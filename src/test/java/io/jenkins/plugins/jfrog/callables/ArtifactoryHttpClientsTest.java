@@ -0,0 +1,147 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hudson.model.TaskListener;
+import org.jfrog.build.client.ProxyConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArtifactoryHttpClientsTest {
+    private static final String SHA256 = "4d8a6e7e5a1c2a0bd6d6a5b29b7e7f3e4d4b1f2a9c0c8e2d3b4a5f6e7d8c9b0a";
+
+    @TempDir
+    File tempDir;
+
+    private final byte[] content = "jfrog-cli".getBytes(StandardCharsets.UTF_8);
+    private final List<String> methods = new CopyOnWriteArrayList<>();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void sharedClientTest() {
+        ProxyConfiguration proxy = new ProxyConfiguration();
+        proxy.host = "proxy";
+        proxy.port = 8080;
+        assertSame(ArtifactoryHttpClients.getClient("https://acme/artifactory/a", null),
+                ArtifactoryHttpClients.getClient("https://acme/artifactory/v2-jf/[RELEASE]/jf", null));
+        assertNotSame(ArtifactoryHttpClients.getClient("https://acme/artifactory", null),
+                ArtifactoryHttpClients.getClient("https://acme:8443/artifactory", null));
+        assertNotSame(ArtifactoryHttpClients.getClient("https://acme/artifactory", null),
+                ArtifactoryHttpClients.getClient("https://acme/artifactory", proxy));
+    }
+
+    @Test
+    void createKeyTest() {
+        ProxyConfiguration proxy = new ProxyConfiguration();
+        proxy.host = "proxy";
+        proxy.port = 8080;
+        proxy.username = "user";
+        proxy.password = "secret";
+        String key = ArtifactoryHttpClients.createKey("https://acme/artifactory", proxy);
+        assertTrue(key.startsWith("https://acme:-1 via proxy:8080:user:"));
+        assertFalse(key.contains("secret"));
+        proxy.password = "other";
+        assertNotEquals(key, ArtifactoryHttpClients.createKey("https://acme/artifactory", proxy));
+    }
+
+    @Test
+    void connectionReuseTest() throws Exception {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/jfrog-cli/v2-jf/[RELEASE]/jf";
+        // The test server closes the connection after a HEAD request, so the download is sent first
+        new ParallelRangeDownloader(url, "", "", "token", null, 1, ParallelRangeDownloader.DEFAULT_CHUNK_SIZE,
+                DownloadThrottle.UNLIMITED, TaskListener.NULL)
+                .download(new File(tempDir, "jf"));
+        assertEquals(SHA256, ArtifactoryHttpClients.getSha256(url, "", "", "token", null));
+        assertEquals(List.of("GET", "HEAD"), methods);
+        // Both requests were sent on the same connection
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    void missingFileTest() {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/missing";
+        IOException e = assertThrows(IOException.class, () -> ArtifactoryHttpClients.getSha256(url, "", "", "", null));
+        assertTrue(e.getMessage().contains("404"));
+    }
+
+    /**
+     * The credentials are sent to the redirects on the Artifactory host, and not to the redirects to another host.
+     * The other host is the same server, with another host name.
+     */
+    @Test
+    void redirectTest() throws Exception {
+        String origin = "http://127.0.0.1:" + server.getAddress().getPort();
+        assertEquals(SHA256, ArtifactoryHttpClients.getSha256(origin + "/same-host-redirect", "", "", "token", null));
+        assertEquals(SHA256, ArtifactoryHttpClients.getSha256(origin + "/other-host-redirect", "user", "password", "", null));
+        assertEquals(List.of("/same-host-redirect Bearer token", "/jf Bearer token",
+                "/other-host-redirect Basic dXNlcjpwYXNzd29yZA==", "/jf null"), authorizations);
+    }
+
+    @Test
+    void serverErrorRetryTest() throws Exception {
+        failures.set(ArtifactoryHttpClients.MAX_RETRIES);
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/jf";
+        assertEquals(SHA256, ArtifactoryHttpClients.getSha256(url, "", "", "token", null));
+        assertEquals(ArtifactoryHttpClients.MAX_RETRIES + 1, methods.size());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        methods.add(exchange.getRequestMethod());
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        String path = exchange.getRequestURI().getPath();
+        authorizations.add(path + " " + exchange.getRequestHeaders().getFirst("Authorization"));
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            if (path.equals("/missing")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (path.endsWith("-redirect")) {
+                String host = path.equals("/same-host-redirect") ? "127.0.0.1" : "localhost";
+                exchange.getResponseHeaders().add("Location", "http://" + host + ":" + server.getAddress().getPort() + "/jf");
+                exchange.sendResponseHeaders(302, -1);
+                return;
+            }
+            if (failures.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            exchange.getResponseHeaders().add("X-Checksum-Sha256", SHA256);
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, content.length);
+            outputStream.write(content);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.Util;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryDeltaTest {
+
+    @TempDir
+    File tempDir;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void similarBinariesTest() throws Exception {
+        byte[] base = randomBytes(100 * BinaryDelta.BLOCK_SIZE + 123);
+        // Insert, replace and remove some bytes, so that the blocks after the changes are shifted
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        target.write(base, 0, 10 * BinaryDelta.BLOCK_SIZE);
+        target.write(randomBytes(1000));
+        target.write(base, 10 * BinaryDelta.BLOCK_SIZE, 40 * BinaryDelta.BLOCK_SIZE);
+        target.write(randomBytes(BinaryDelta.BLOCK_SIZE));
+        target.write(base, 51 * BinaryDelta.BLOCK_SIZE, base.length - 51 * BinaryDelta.BLOCK_SIZE - 77);
+
+        long copiedBytes = assertRebuilt(base, target.toByteArray());
+        assertTrue(copiedBytes >= 95L * BinaryDelta.BLOCK_SIZE, "Copied " + copiedBytes + " bytes");
+        assertTrue(new File(tempDir, "delta").length() < 4L * BinaryDelta.BLOCK_SIZE);
+    }
+
+    @Test
+    void unrelatedBinariesTest() throws Exception {
+        assertEquals(0, assertRebuilt(randomBytes(20 * BinaryDelta.BLOCK_SIZE), randomBytes(15 * BinaryDelta.BLOCK_SIZE + 1)));
+    }
+
+    @Test
+    void smallTargetTest() throws Exception {
+        assertRebuilt(randomBytes(3 * BinaryDelta.BLOCK_SIZE), randomBytes(100));
+        assertRebuilt(randomBytes(3 * BinaryDelta.BLOCK_SIZE), new byte[0]);
+    }
+
+    @Test
+    void rollingChecksumTest() {
+        byte[] bytes = randomBytes(BinaryDelta.BLOCK_SIZE + 10);
+        BinaryDelta.RollingChecksum checksum = new BinaryDelta.RollingChecksum(bytes, BinaryDelta.BLOCK_SIZE);
+        for (int i = 0; i < 10; i++) {
+            checksum.roll(bytes[i], bytes[i + BinaryDelta.BLOCK_SIZE]);
+        }
+        byte[] shifted = new byte[BinaryDelta.BLOCK_SIZE];
+        System.arraycopy(bytes, 10, shifted, 0, shifted.length);
+        assertEquals(new BinaryDelta.RollingChecksum(shifted, shifted.length).get(), checksum.get());
+    }
+
+    /**
+     * Computes and applies the delta, and asserts that the target was rebuilt.
+     *
+     * @return the number of bytes copied from the base.
+     */
+    private long assertRebuilt(byte[] base, byte[] target) throws Exception {
+        File baseFile = new File(tempDir, "base");
+        File targetFile = new File(tempDir, "target");
+        File deltaFile = new File(tempDir, "delta");
+        File outputFile = new File(tempDir, "output");
+        Files.write(baseFile.toPath(), base);
+        Files.write(targetFile.toPath(), target);
+
+        long copiedBytes = BinaryDelta.computeDelta(targetFile, BinaryDelta.computeSignatures(baseFile), deltaFile);
+        String sha256 = BinaryDelta.applyDelta(baseFile, deltaFile, outputFile);
+        assertArrayEquals(target, Files.readAllBytes(outputFile.toPath()));
+        assertEquals(Util.toHexString(ChecksumUtils.newSha256Digest().digest(target)), sha256);
+        return copiedBytes;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,113 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.remoting.RemoteOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.zip.InflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.condition.OS.WINDOWS;
+
+public class CliCommandRunnerTest {
+    @TempDir
+    File tempDir;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        flusher.shutdownNow();
+    }
+
+    @Test
+    @DisabledOnOs(WINDOWS)
+    void runCommandTest() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int exitCode;
+        try (InflaterOutputStream inflater = new InflaterOutputStream(output)) {
+            CliCommandRunner runner = new CliCommandRunner(List.of("sh", "-c", "for i in 1 2 3; do echo line $i; done; echo $GREETING; exit 3"),
+                    null, new String[]{"GREETING=hello"}, false, new RemoteOutputStream(log), new RemoteOutputStream(inflater), null);
+            exitCode = runner.invoke(tempDir, null);
+        }
+        assertEquals(3, exitCode);
+        assertEquals("line 1\nline 2\nline 3\nhello\n", output.toString(StandardCharsets.UTF_8));
+        // The command line is printed to the log only
+        assertTrue(log.toString(StandardCharsets.UTF_8).contains("$ sh -c"));
+    }
+
+    @Test
+    @DisabledOnOs(WINDOWS)
+    void resultFileTest() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        File resultFile = new File(tempDir, "result.json");
+        try (InflaterOutputStream inflater = new InflaterOutputStream(output)) {
+            CliCommandRunner runner = new CliCommandRunner(List.of("sh", "-c", "echo log >&2; echo '{\"a\": 1}'"),
+                    null, new String[0], true, new RemoteOutputStream(new ByteArrayOutputStream()), new RemoteOutputStream(inflater), resultFile.getPath());
+            assertEquals(0, runner.invoke(tempDir, null));
+        }
+        // The log is sent to the controller, and the result stays in the file
+        assertEquals("log\n", output.toString(StandardCharsets.UTF_8));
+        assertEquals("{\"a\": 1}\n", Files.readString(resultFile.toPath()));
+    }
+
+    @Test
+    void batchTest() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        BatchedOutputStream batched = new BatchedOutputStream(out, 8, 60_000, flusher);
+        batched.write("abc".getBytes(StandardCharsets.UTF_8));
+        batched.write('d');
+        batched.flush();
+        assertEquals(0, out.writes, "A partial batch should not be written on flush");
+        batched.write("efghi".getBytes(StandardCharsets.UTF_8));
+        assertEquals(1, out.writes);
+        assertEquals("abcd", out.toString(StandardCharsets.UTF_8));
+        // Writes larger than a batch are written as they are
+        batched.write("0123456789".getBytes(StandardCharsets.UTF_8));
+        assertEquals(3, out.writes);
+        batched.write('!');
+        batched.close();
+        assertEquals("abcdefghi0123456789!", out.toString(StandardCharsets.UTF_8));
+        assertEquals(4, out.writes);
+        assertTrue(out.closed);
+    }
+
+    @Test
+    void delayTest() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        BatchedOutputStream batched = new BatchedOutputStream(out, 1024, 10, flusher);
+        batched.write("line\n".getBytes(StandardCharsets.UTF_8));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (out.writes == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("line\n", out.toString(StandardCharsets.UTF_8));
+        batched.close();
+        assertEquals(1, out.writes);
+    }
+
+    private static class CountingOutputStream extends ByteArrayOutputStream {
+        private volatile int writes;
+        private boolean closed;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            super.write(b, off, len);
+            writes++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.Util;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CliContentStoreTest {
+    private static final long MAX_BYTES = 1024 * 1024;
+
+    @TempDir
+    File toolsDir;
+
+    @Test
+    void linkTest() throws IOException {
+        File binary = createBinary(new File(toolsDir, "cli-1"), "jfrog cli");
+        String sha256 = ChecksumUtils.sha256Hex(binary);
+        new CliContentStore(binary.getParentFile(), MAX_BYTES, TaskListener.NULL).add(sha256, "jf", binary);
+
+        // Another tool installation of the same binary
+        File otherToolLocation = new File(toolsDir, "cli-2");
+        assertTrue(otherToolLocation.mkdirs());
+        File target = new File(otherToolLocation, "jf");
+        assertTrue(new CliContentStore(otherToolLocation, MAX_BYTES, TaskListener.NULL).link(sha256, "jf", target));
+        assertArrayEquals(Files.readAllBytes(binary.toPath()), Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    void linkMissingTest() {
+        File target = new File(toolsDir, "jf");
+        assertFalse(new CliContentStore(toolsDir, MAX_BYTES, TaskListener.NULL).link(sha256Of("missing"), "jf", target));
+        assertFalse(target.exists());
+    }
+
+    @Test
+    void linkCorruptedTest() throws IOException {
+        File toolLocation = new File(toolsDir, "cli-1");
+        File binary = createBinary(toolLocation, "jfrog cli");
+        CliContentStore store = new CliContentStore(toolLocation, MAX_BYTES, TaskListener.NULL);
+        // Stored under a sha256 that doesn't match its content
+        String sha256 = sha256Of("other");
+        store.add(sha256, "jf", binary);
+
+        assertFalse(store.link(sha256, "jf", new File(toolLocation, "jf.link")));
+        assertFalse(new File(new File(toolsDir, CliContentStore.STORE_DIR_NAME), sha256).exists());
+    }
+
+    @Test
+    void disabledTest() throws IOException {
+        File binary = createBinary(new File(toolsDir, "cli-1"), "jfrog cli");
+        new CliContentStore(binary.getParentFile(), 0, TaskListener.NULL).add(ChecksumUtils.sha256Hex(binary), "jf", binary);
+        assertFalse(new File(toolsDir, CliContentStore.STORE_DIR_NAME).exists());
+    }
+
+    @Test
+    void evictTest() throws IOException {
+        File toolLocation = new File(toolsDir, "cli-1");
+        File first = createBinary(new File(toolsDir, "a"), "first");
+        File second = createBinary(new File(toolsDir, "b"), "second");
+        String firstSha256 = ChecksumUtils.sha256Hex(first);
+        String secondSha256 = ChecksumUtils.sha256Hex(second);
+        // Room for the second binary only
+        CliContentStore store = new CliContentStore(toolLocation, second.length(), TaskListener.NULL);
+        store.add(firstSha256, "jf", first);
+        // Make the first binary the only copy, so that evicting it frees space
+        Files.delete(first.toPath());
+        File storeRoot = new File(toolsDir, CliContentStore.STORE_DIR_NAME);
+        File firstEntry = new File(storeRoot, firstSha256);
+        assertTrue(new File(firstEntry, "jf").setLastModified(System.currentTimeMillis() - 60_000));
+        assertTrue(firstEntry.setLastModified(System.currentTimeMillis() - 60_000));
+        store.add(secondSha256, "jf", second);
+        Files.delete(second.toPath());
+        store.evict(null);
+
+        assertFalse(firstEntry.exists());
+        assertTrue(new File(storeRoot, secondSha256).exists());
+    }
+
+    private static File createBinary(File toolLocation, String content) throws IOException {
+        Files.createDirectories(toolLocation.toPath());
+        File binary = new File(toolLocation, "jf");
+        Files.write(binary.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return binary;
+    }
+
+    private static String sha256Of(String content) {
+        return Util.toHexString(ChecksumUtils.newSha256Digest().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
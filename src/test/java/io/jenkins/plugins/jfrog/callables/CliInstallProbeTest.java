@@ -0,0 +1,59 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import io.jenkins.plugins.jfrog.OsUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CliInstallProbeTest {
+
+    @TempDir
+    File toolLocation;
+
+    @Test
+    void emptyToolLocationTest() throws IOException {
+        CliInstallProbe.Result result = new CliInstallProbe("jf", TimeUnit.HOURS.toMillis(24)).invoke(toolLocation, null);
+        assertEquals(OsUtils.getOsDetails(), result.getOsDetails());
+        assertEquals(0, result.getSize());
+        assertNull(result.getLocalSha256());
+        assertEquals(0, result.getStaleTempFiles());
+    }
+
+    @Test
+    void installedBinaryTest() throws IOException {
+        File binary = new File(toolLocation, "jf");
+        Files.write(binary.toPath(), "jfrog cli".getBytes(StandardCharsets.UTF_8));
+        assertTrue(binary.setExecutable(true));
+        String sha256 = ChecksumUtils.sha256Hex(binary);
+        JFrogCliDownloader.createSha256File(toolLocation, sha256);
+        File tempFile = new File(toolLocation, "jf.tmp.resume.0123456789abcdef");
+        Files.write(tempFile.toPath(), new byte[10]);
+        assertTrue(tempFile.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2)));
+
+        CliInstallProbe.Result result = new CliInstallProbe("jf", TimeUnit.HOURS.toMillis(24)).invoke(toolLocation, null);
+        assertEquals(binary.length(), result.getSize());
+        assertTrue(result.isExecutable());
+        assertTrue(result.isIntact());
+        assertEquals(sha256, result.getLocalSha256());
+        assertEquals(1, result.getStaleTempFiles());
+    }
+
+    @Test
+    void staleSha256FileTest() throws IOException {
+        File sha256File = new File(toolLocation, ChecksumUtils.SHA256_FILE_NAME);
+        assertTrue(sha256File.createNewFile());
+
+        CliInstallProbe.Result result = new CliInstallProbe("jf", TimeUnit.HOURS.toMillis(24)).invoke(toolLocation, null);
+        assertTrue(result.isStaleSha256FileDeleted());
+        assertNull(result.getLocalSha256());
+        assertFalse(sha256File.exists());
+    }
+}
@@ -0,0 +1,81 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CliServerReferencesTest {
+    @TempDir
+    File workspace;
+    @TempDir
+    File jfrogHome;
+
+    @Test
+    void referencedServersTest() throws Exception {
+        write(workspace.toPath().resolve("spec.json"), "{\"files\": [{\"pattern\": \"a/*\", \"target\": \"repo/\"}]," +
+                " \"release-bundle\": {\"serverId\": \"spec-server\"}}");
+        write(workspace.toPath().resolve(".jfrog/projects/maven.yaml"), "version: 1\ntype: maven\nresolver:\n" +
+                "  serverId: resolve-server\n  snapshotRepo: libs-snapshot\ndeployer:\n  serverId: 'deploy-server' # comment\n");
+        write(workspace.toPath().resolve(".jfrog/projects/npm.yml"), "resolver:\n  serverId: \"npm-server\"\n");
+
+        CliServerReferences.Result result = new CliServerReferences(workspace.getAbsolutePath(), Arrays.asList("spec.json", "missing.json"))
+                .invoke(jfrogHome, null);
+        assertEquals(Set.of("spec-server", "resolve-server", "deploy-server", "npm-server"), result.getReferenced());
+        assertEquals(Collections.emptySet(), result.getConfigured());
+    }
+
+    @Test
+    void parentProjectConfigTest() throws Exception {
+        write(workspace.toPath().resolve(".jfrog/projects/maven.yaml"), "resolver:\n  serverId: root-server\n");
+        Path workingDir = Files.createDirectories(workspace.toPath().resolve("module/sub"));
+
+        CliServerReferences.Result result = new CliServerReferences(workingDir.toString(), Collections.emptyList())
+                .invoke(jfrogHome, null);
+        assertEquals(Set.of("root-server"), result.getReferenced());
+    }
+
+    @Test
+    void nearestProjectConfigTest() throws Exception {
+        write(workspace.toPath().resolve(".jfrog/projects/maven.yaml"), "resolver:\n  serverId: root-server\n");
+        write(workspace.toPath().resolve("module/.jfrog/projects/npm.yaml"), "resolver:\n  serverId: module-server\n");
+
+        CliServerReferences.Result result = new CliServerReferences(workspace.toPath().resolve("module").toString(), Collections.emptyList())
+                .invoke(jfrogHome, null);
+        // The CLI only uses the nearest '.jfrog' directory
+        assertEquals(Set.of("module-server"), result.getReferenced());
+    }
+
+    @Test
+    void homeProjectConfigTest() throws Exception {
+        write(jfrogHome.toPath().resolve("projects/gradle.yaml"), "deployer:\n  serverId: home-server\n");
+
+        CliServerReferences.Result result = new CliServerReferences(workspace.getAbsolutePath(), Collections.emptyList())
+                .invoke(jfrogHome, null);
+        assertEquals(Set.of("home-server"), result.getReferenced());
+    }
+
+    @Test
+    void configuredServersTest() throws Exception {
+        new ConfiguredServers(Arrays.asList("server-1", "server-2")).invoke(jfrogHome, null);
+        new ConfiguredServers(Arrays.asList("server-2", "server-3")).invoke(jfrogHome, null);
+
+        CliServerReferences.Result result = new CliServerReferences(workspace.getAbsolutePath(), Collections.emptyList())
+                .invoke(jfrogHome, null);
+        assertEquals(Set.of("server-1", "server-2", "server-3"), result.getConfigured());
+        assertEquals(Collections.emptySet(), result.getReferenced());
+    }
+
+    private static void write(Path path, String content) throws Exception {
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
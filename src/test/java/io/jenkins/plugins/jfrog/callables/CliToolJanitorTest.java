@@ -0,0 +1,175 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.model.TaskListener;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CliToolJanitorTest {
+    private static final long TEMP_MAX_AGE_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    @TempDir
+    File toolsRoot;
+
+    @Test
+    void deleteOldTempFilesTest() throws IOException {
+        File toolDir = createToolDir("cli-1", 10, 0);
+        File oldTempFile = createFile(new File(toolDir, "jf.tmp.resume.0123456789abcdef"), 10, TimeUnit.DAYS.toMillis(2));
+        File newTempFile = createFile(new File(toolDir, "jf.tmp.cas.12345"), 10, 0);
+
+        new CliToolJanitor(0, TEMP_MAX_AGE_MILLIS, 0, null, TaskListener.NULL).invoke(toolsRoot, null);
+        assertFalse(oldTempFile.exists());
+        assertTrue(newTempFile.exists());
+        assertTrue(new File(toolDir, "jf").exists());
+    }
+
+    @Test
+    void skipInstallInProgressTest() throws Exception {
+        File toolDir = createToolDir("cli-1", 10, 0);
+        File oldTempFile = createFile(new File(toolDir, "jf.tmp.resume.0123456789abcdef"), 10, TimeUnit.DAYS.toMillis(2));
+        try (InstallLease ignored = InstallLease.acquire(toolDir, 1000, TaskListener.NULL)) {
+            // The janitor runs on another thread, like the periodic cleanup
+            Thread janitor = new Thread(() -> {
+                try {
+                    new CliToolJanitor(0, TEMP_MAX_AGE_MILLIS, 0, null, TaskListener.NULL).invoke(toolsRoot, null);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            janitor.start();
+            janitor.join();
+        }
+        assertTrue(oldTempFile.exists());
+    }
+
+    @Test
+    void evictLeastRecentlyUsedTest() throws IOException {
+        File oldest = createToolDir("cli-1", 1000, TimeUnit.DAYS.toMillis(3));
+        File older = createToolDir("cli-2", 1000, TimeUnit.DAYS.toMillis(2));
+        File recent = createToolDir("cli-3", 1000, TimeUnit.MINUTES.toMillis(5));
+
+        // Room for two binaries
+        new CliToolJanitor(2000, TEMP_MAX_AGE_MILLIS, 0, null, TaskListener.NULL).invoke(toolsRoot, null);
+        assertFalse(new File(oldest, "jf").exists());
+        assertFalse(new File(oldest, ChecksumUtils.SHA256_FILE_NAME).exists());
+        assertTrue(new File(older, "jf").exists());
+        assertTrue(new File(recent, "jf").exists());
+    }
+
+    @Test
+    void keepToolDirTest() throws IOException {
+        File kept = createToolDir("cli-1", 1000, TimeUnit.DAYS.toMillis(3));
+        File other = createToolDir("cli-2", 1000, TimeUnit.DAYS.toMillis(2));
+
+        new CliToolJanitor(1000, TEMP_MAX_AGE_MILLIS, 0, "cli-1", TaskListener.NULL).invoke(toolsRoot, null);
+        assertTrue(new File(kept, "jf").exists());
+        assertFalse(new File(other, "jf").exists());
+    }
+
+    @Test
+    void hardLinksCountedOnceTest() throws IOException {
+        File first = createToolDir("cli-1", 1000, TimeUnit.DAYS.toMillis(3));
+        File second = new File(toolsRoot, "cli-2");
+        assertTrue(second.mkdirs());
+        try {
+            Files.createLink(new File(second, "jf").toPath(), new File(first, "jf").toPath());
+        } catch (UnsupportedOperationException | IOException e) {
+            // Hard links are not supported by the file system
+            return;
+        }
+        createFile(new File(second, ChecksumUtils.SHA256_FILE_NAME), 64, TimeUnit.DAYS.toMillis(2));
+
+        new CliToolJanitor(1000, TEMP_MAX_AGE_MILLIS, 0, null, TaskListener.NULL).invoke(toolsRoot, null);
+        assertTrue(new File(first, "jf").exists());
+        assertTrue(new File(second, "jf").exists());
+    }
+
+    @Test
+    void recentlyUsedTest() throws IOException {
+        // The access time of the binary is not updated by 'relatime' and 'noatime' mounts
+        File used = createToolDir("cli-1", 1000, TimeUnit.DAYS.toMillis(3));
+        File unused = createToolDir("cli-2", 1000, TimeUnit.DAYS.toMillis(2));
+        assertEquals("sha256", new CliToolUse("jf").invoke(used, null));
+        assertNull(new CliToolUse("jf.exe").invoke(used, null));
+
+        new CliToolJanitor(1000, TEMP_MAX_AGE_MILLIS, 0, null, TaskListener.NULL).invoke(toolsRoot, null);
+        assertTrue(new File(used, "jf").exists());
+        assertFalse(new File(unused, "jf").exists());
+        assertNull(new CliToolUse("jf").invoke(unused, null));
+    }
+
+    /**
+     * A build that runs the CLI of a tool directory keeps it from being evicted, long after it installed it.
+     */
+    @Test
+    void binaryUsedTest() throws IOException {
+        File used = createToolDir("cli-1", 1000, TimeUnit.DAYS.toMillis(3));
+        File unused = createToolDir("cli-2", 1000, TimeUnit.DAYS.toMillis(2));
+        new CliBinaryUse(new File(used, "jf").getPath()).invoke(toolsRoot, null);
+
+        new CliToolJanitor(1000, TEMP_MAX_AGE_MILLIS, 0, null, TaskListener.NULL).invoke(toolsRoot, null);
+        assertTrue(new File(used, "jf").exists());
+        assertFalse(new File(unused, "jf").exists());
+    }
+
+    @Test
+    void binaryOutsideToolDirTest() throws IOException {
+        File manual = new File(toolsRoot, "bin");
+        assertTrue(manual.mkdirs());
+        createFile(new File(manual, "jf"), 1000, 0);
+        new CliBinaryUse(new File(manual, "jf").getPath()).invoke(toolsRoot, null);
+        new CliBinaryUse("jf").invoke(toolsRoot, null);
+        assertFalse(new File(manual, CliToolJanitor.LAST_USED_FILE_NAME).exists());
+    }
+
+    @Test
+    void evictHardLinksTest() throws IOException {
+        File first = createToolDir("cli-1", 1000, TimeUnit.DAYS.toMillis(4));
+        File second = new File(toolsRoot, "cli-2");
+        assertTrue(second.mkdirs());
+        try {
+            Files.createLink(new File(second, "jf").toPath(), new File(first, "jf").toPath());
+        } catch (UnsupportedOperationException | IOException e) {
+            // Hard links are not supported by the file system
+            return;
+        }
+        createFile(new File(second, ChecksumUtils.SHA256_FILE_NAME), 64, TimeUnit.DAYS.toMillis(3));
+        File third = createToolDir("cli-3", 1000, TimeUnit.DAYS.toMillis(2));
+
+        // Deleting the first link frees nothing, so the second one is evicted as well
+        new CliToolJanitor(1000, TEMP_MAX_AGE_MILLIS, 0, null, TaskListener.NULL).invoke(toolsRoot, null);
+        assertFalse(new File(first, "jf").exists());
+        assertFalse(new File(second, "jf").exists());
+        assertTrue(new File(third, "jf").exists());
+    }
+
+    private File createToolDir(String name, int binarySize, long ageMillis) throws IOException {
+        File toolDir = new File(toolsRoot, name);
+        assertTrue(toolDir.mkdirs());
+        createFile(new File(toolDir, "jf"), binarySize, ageMillis);
+        Files.write(new File(toolDir, ChecksumUtils.SHA256_FILE_NAME).toPath(), "sha256".getBytes(StandardCharsets.UTF_8));
+        setAge(new File(toolDir, ChecksumUtils.SHA256_FILE_NAME), ageMillis);
+        return toolDir;
+    }
+
+    private static File createFile(File file, int size, long ageMillis) throws IOException {
+        Files.write(file.toPath(), new byte[size]);
+        return setAge(file, ageMillis);
+    }
+
+    private static File setAge(File file, long ageMillis) throws IOException {
+        FileTime time = FileTime.fromMillis(System.currentTimeMillis() - ageMillis);
+        Files.setLastModifiedTime(file.toPath(), time);
+        Files.setAttribute(file.toPath(), "basic:lastAccessTime", time);
+        return file;
+    }
+}
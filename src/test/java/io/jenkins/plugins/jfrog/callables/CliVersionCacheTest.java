@@ -0,0 +1,79 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.model.TaskListener;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CliVersionCacheTest {
+    @TempDir
+    File tempDir;
+
+    @BeforeEach
+    void setUp() {
+        CliVersionCache.clear();
+    }
+
+    @Test
+    void binaryChangeTest() throws Exception {
+        File binary = new File(tempDir, "jf");
+        Files.write(binary.toPath(), "binary-1".getBytes(StandardCharsets.UTF_8));
+        assertNull(CliVersionCache.get(binary));
+
+        CliVersionCache.put(binary, "2.65.0", false);
+        assertEquals("2.65.0", CliVersionCache.get(binary));
+        // Not managed by the installer
+        assertFalse(new File(tempDir, "jf" + CliVersionCache.VERSION_FILE_SUFFIX).exists());
+
+        // Replaced by a binary of another size
+        Files.write(binary.toPath(), "binary-two".getBytes(StandardCharsets.UTF_8));
+        assertNull(CliVersionCache.get(binary));
+    }
+
+    @Test
+    void persistedVersionTest() throws Exception {
+        File binary = new File(tempDir, "jf");
+        Files.write(binary.toPath(), "binary-1".getBytes(StandardCharsets.UTF_8));
+        CliVersionCache.put(binary, "2.65.0", true);
+
+        // Agent restart
+        CliVersionCache.clear();
+        assertEquals("2.65.0", CliVersionCache.get(binary));
+    }
+
+    @Test
+    void lookupTest() throws Exception {
+        File binary = new File(tempDir, "jf");
+        Files.write(binary.toPath(), "binary-1".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(tempDir, ChecksumUtils.SHA256_FILE_NAME).toPath(), "abc".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(new CliVersionLookup(binary.getAbsolutePath(), null).invoke(tempDir, null));
+        new CliVersionLookup(binary.getAbsolutePath(), "2.65.0").invoke(tempDir, null);
+        assertEquals("2.65.0", new CliVersionLookup(binary.getAbsolutePath(), null).invoke(tempDir, null));
+        // Binaries managed by the installer keep their version next to them
+        assertTrue(new File(tempDir, "jf" + CliVersionCache.VERSION_FILE_SUFFIX).isFile());
+        // A binary from the system path can't be identified
+        assertNull(new CliVersionLookup("jf", null).invoke(tempDir, null));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void recordInstalledTest() throws Exception {
+        File binary = new File(tempDir, "jf");
+        Files.write(binary.toPath(), "#!/bin/sh\necho 'jf version 2.65.0'\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(binary.setExecutable(true));
+        CliVersionCache.recordInstalled(binary, TaskListener.NULL);
+
+        CliVersionCache.clear();
+        assertEquals("2.65.0", CliVersionCache.get(binary));
+    }
+}
@@ -0,0 +1,98 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DownloadThrottleTest {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Test
+    void tokenBucketRateTest() throws Exception {
+        DownloadThrottle.TokenBucket bucket = new DownloadThrottle.TokenBucket();
+        bucket.setRate(1024 * 1024);
+        long start = System.nanoTime();
+        // 512KB at 1MB/s from an empty bucket
+        for (int i = 0; i < 8; i++) {
+            bucket.acquire(BUFFER_SIZE);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis >= 400, "elapsed " + elapsedMillis + "ms");
+        assertTrue(elapsedMillis < 5000, "elapsed " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void fairShareTest() throws Exception {
+        DownloadThrottle.TokenBucket bucket = new DownloadThrottle.TokenBucket();
+        bucket.setRate(1024 * 1024);
+        long[] received = new long[2];
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(800);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < received.length; i++) {
+            int download = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        bucket.acquire(BUFFER_SIZE);
+                        received[download] += BUFFER_SIZE;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // Both downloads progress at a similar pace
+        assertTrue(received[0] > 0 && received[1] > 0);
+        assertTrue(Math.abs(received[0] - received[1]) <= 3 * BUFFER_SIZE, received[0] + " vs " + received[1]);
+    }
+
+    @Test
+    void throttledStateLoggedTest() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        TaskListener log = new StreamTaskListener(output, StandardCharsets.UTF_8);
+        DownloadThrottle throttle = new DownloadThrottle(0, new FixedShare(10 * 1024 * 1024), log);
+        throttle.acquire(BUFFER_SIZE);
+        throttle.acquire(BUFFER_SIZE);
+        String logged = output.toString(StandardCharsets.UTF_8.name());
+        assertTrue(logged.contains("Throttled: downloading at up to 10.0 MB/s (site 'dc-east' budget)"), logged);
+        // The state is logged once, not for each buffer
+        assertEquals(logged.indexOf("Throttled"), logged.lastIndexOf("Throttled"));
+    }
+
+    @Test
+    void unlimitedTest() throws Exception {
+        assertFalse(DownloadThrottle.UNLIMITED.isLimited());
+        DownloadThrottle.UNLIMITED.acquire(Integer.MAX_VALUE);
+    }
+
+    private static class FixedShare implements DownloadThrottle.Share {
+        private final long bytesPerSecond;
+
+        private FixedShare(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        @Override
+        public long getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        @Override
+        public String describe() {
+            return "site 'dc-east' budget";
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.jfrog.build.client.DownloadResponse.SHA256_HEADER_NAME;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HedgedSourceRaceTest {
+    private static final String SHA256 = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+    private static final String OTHER_SHA256 = "fedcba9876543210fedcba9876543210fedcba9876543210fedcba9876543210";
+
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void fastestSourceWinsTest() throws Exception {
+        List<HedgedSourceRace.Endpoint> endpoints = Arrays.asList(
+                createEndpoint(200, 3000, SHA256),
+                createEndpoint(200, 0, SHA256));
+        HedgedSourceRace.Result result = HedgedSourceRace.race(endpoints, SHA256, 100, 10000);
+        assertEquals(1, result.getWinner());
+        assertEquals(SHA256, result.getSha256());
+        assertEquals(Arrays.asList(1, 0), result.getRanking());
+        // The request to the slow source was aborted, and got a lower bound as its latency
+        assertTrue(result.getLatencyMillis()[0] >= 100);
+        assertFalse(result.hasResponded(0));
+        assertTrue(result.getLatencyMillis()[1] > 0);
+        assertTrue(result.hasResponded(1));
+    }
+
+    @Test
+    void preferredSourceWinsTest() throws Exception {
+        List<HedgedSourceRace.Endpoint> endpoints = Arrays.asList(
+                createEndpoint(200, 0, SHA256),
+                createEndpoint(200, 0, SHA256));
+        HedgedSourceRace.Result result = HedgedSourceRace.race(endpoints, SHA256, 5000, 10000);
+        assertEquals(0, result.getWinner());
+        // The hedged request was never sent
+        assertEquals(0, result.getLatencyMillis()[1]);
+        assertFalse(result.hasResponded(1));
+    }
+
+    @Test
+    void checksumMismatchLosesTest() throws Exception {
+        List<HedgedSourceRace.Endpoint> endpoints = Arrays.asList(
+                createEndpoint(200, 0, OTHER_SHA256),
+                createEndpoint(200, 200, SHA256));
+        HedgedSourceRace.Result result = HedgedSourceRace.race(endpoints, SHA256, 5000, 10000);
+        assertEquals(1, result.getWinner());
+        assertEquals(Arrays.asList(1, 0), result.getRanking());
+    }
+
+    @Test
+    void failedSourceTest() throws Exception {
+        List<HedgedSourceRace.Endpoint> endpoints = Arrays.asList(
+                createEndpoint(404, 0, null),
+                createEndpoint(200, 0, OTHER_SHA256));
+        // Without an expected checksum, any source that responds wins
+        HedgedSourceRace.Result result = HedgedSourceRace.race(endpoints, "", 5000, 10000);
+        assertEquals(1, result.getWinner());
+        assertEquals(OTHER_SHA256, result.getSha256());
+    }
+
+    @Test
+    void allSourcesFailTest() throws Exception {
+        List<HedgedSourceRace.Endpoint> endpoints = Arrays.asList(
+                createEndpoint(404, 0, null),
+                createEndpoint(500, 0, null));
+        assertThrows(IOException.class, () -> HedgedSourceRace.race(endpoints, SHA256, 100, 10000));
+    }
+
+    /**
+     * Starts a server that responds to HEAD requests of the CLI binary.
+     *
+     * @param status        - The status to respond with
+     * @param latencyMillis - The time to wait before responding
+     * @param sha256        - The sha256 to respond with, or null
+     */
+    private HedgedSourceRace.Endpoint createEndpoint(int status, long latencyMillis, String sha256) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> respond(exchange, status, latencyMillis, sha256));
+        server.start();
+        servers.add(server);
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/jfrog-cli/v2-jf/2.50.0/jfrog-cli-linux-amd64/jf";
+        return new HedgedSourceRace.Endpoint(url, "", "", "", null);
+    }
+
+    private static void respond(HttpExchange exchange, int status, long latencyMillis, String sha256) throws IOException {
+        try {
+            Thread.sleep(latencyMillis);
+            if (sha256 != null) {
+                exchange.getResponseHeaders().add(SHA256_HEADER_NAME, sha256);
+            }
+            exchange.sendResponseHeaders(status, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+}
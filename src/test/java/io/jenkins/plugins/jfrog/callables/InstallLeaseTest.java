@@ -0,0 +1,123 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import hudson.model.TaskListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstallLeaseTest {
+
+    @TempDir
+    File toolLocation;
+
+    @AfterEach
+    void tearDown() {
+        InstallLease.pollIntervalMillis = 500;
+    }
+
+    @Test
+    void exclusiveLeaseTest() throws Exception {
+        try (InstallLease lease = InstallLease.acquire(toolLocation, 1000, TaskListener.NULL)) {
+            assertTrue(lease.isValid());
+            CompletableFuture<Void> other = CompletableFuture.runAsync(() -> {
+                try (InstallLease ignored = InstallLease.acquire(toolLocation, 200, TaskListener.NULL)) {
+                    fail("The lease is already held");
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            ExecutionException e = assertThrows(ExecutionException.class, other::get);
+            assertTrue(e.getCause().getMessage().contains("Timed out"));
+        }
+    }
+
+    @Test
+    void releaseTest() throws Exception {
+        InstallLease lease = InstallLease.acquire(toolLocation, 1000, TaskListener.NULL);
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+            try (InstallLease acquired = InstallLease.acquire(toolLocation, 10_000, TaskListener.NULL)) {
+                return acquired.isValid();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(200);
+        assertFalse(waiter.isDone());
+        lease.close();
+        assertTrue(waiter.get());
+        assertTrue(new File(toolLocation, InstallLease.LEASE_FILE_NAME).exists());
+    }
+
+    /**
+     * A waiter for a file lock held in the same JVM, for example through another path to the tool directory, is woken
+     * up when it is released instead of at its next poll.
+     */
+    @Test
+    void releaseNotifiedTest() throws Exception {
+        InstallLease.pollIntervalMillis = TimeUnit.MINUTES.toMillis(1);
+        File leaseFile = new File(toolLocation, InstallLease.LEASE_FILE_NAME);
+        CompletableFuture<Boolean> waiter;
+        try (FileChannel channel = FileChannel.open(leaseFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock(InstallLease.LOCK_POSITION, 1, false)) {
+            waiter = CompletableFuture.supplyAsync(() -> {
+                try (InstallLease acquired = InstallLease.acquire(toolLocation, 30_000, TaskListener.NULL)) {
+                    return acquired.isValid();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            Thread.sleep(200);
+            assertFalse(waiter.isDone());
+        }
+        InstallLease.signalRelease();
+        assertTrue(waiter.get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Two waiters find the same lease stale. Only the first takes it over, the second finds the new lease.
+     */
+    @Test
+    void takeOverOnceTest() throws Exception {
+        File leaseFile = new File(toolLocation, InstallLease.LEASE_FILE_NAME);
+        String staleLease = "owner=1@crashed/1\nheartbeat=1000\n";
+        Files.write(leaseFile.toPath(), staleLease.getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(InstallLease.takeOver(leaseFile, staleLease));
+        assertFalse(leaseFile.exists());
+        // The second waiter, before the first one created its lease
+        assertFalse(InstallLease.takeOver(leaseFile, staleLease));
+
+        try (InstallLease lease = InstallLease.acquire(toolLocation, 1000, TaskListener.NULL)) {
+            // The second waiter, after the first one acquired the lease
+            assertFalse(InstallLease.takeOver(leaseFile, staleLease));
+            assertTrue(leaseFile.exists());
+            assertTrue(lease.isValid());
+        }
+    }
+
+    @Test
+    void takeOverInProgressTest() throws Exception {
+        File leaseFile = new File(toolLocation, InstallLease.LEASE_FILE_NAME);
+        String staleLease = "owner=1@crashed/1\nheartbeat=1000\n";
+        Files.write(leaseFile.toPath(), staleLease.getBytes(StandardCharsets.UTF_8));
+
+        File takeoverFile = new File(toolLocation, InstallLease.TAKEOVER_FILE_NAME);
+        try (FileChannel channel = FileChannel.open(takeoverFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            assertFalse(InstallLease.takeOver(leaseFile, staleLease));
+            assertTrue(leaseFile.exists());
+        }
+    }
+}
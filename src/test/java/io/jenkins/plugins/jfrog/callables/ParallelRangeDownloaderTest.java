@@ -0,0 +1,138 @@
+package io.jenkins.plugins.jfrog.callables;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hudson.Util;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.jfrog.ChecksumUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelRangeDownloaderTest {
+    private static final Pattern RANGE_PATTERN = Pattern.compile("^bytes=(\\d+)-(\\d+)$");
+    private static final int CHUNK_SIZE = 1024;
+
+    @TempDir
+    File tempDir;
+
+    private final byte[] content = new byte[10 * CHUNK_SIZE + 100];
+    private final List<String> requestedRanges = new CopyOnWriteArrayList<>();
+    private boolean supportRanges = true;
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        new Random(42).nextBytes(content);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void rangedDownloadTest() throws Exception {
+        File target = new File(tempDir, "jf");
+        assertEquals(getContentSha256(), createDownloader(4).download(target));
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        // The probe and 11 chunks
+        assertEquals(12, requestedRanges.size());
+        assertFalse(new File(target.getPath() + ParallelRangeDownloader.PROGRESS_FILE_SUFFIX).exists());
+    }
+
+    @Test
+    void singleStreamFallbackTest() throws Exception {
+        supportRanges = false;
+        File target = new File(tempDir, "jf");
+        assertEquals(getContentSha256(), createDownloader(4).download(target));
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals(1, requestedRanges.size());
+    }
+
+    @Test
+    void resumeTest() throws Exception {
+        File target = new File(tempDir, "jf");
+        // Simulate an interrupted download: all chunks but the last one were written
+        Files.write(target.toPath(), new byte[content.length]);
+        try (RandomAccessFile file = new RandomAccessFile(target, "rw")) {
+            file.write(content, 0, 10 * CHUNK_SIZE);
+        }
+        ParallelRangeDownloader.DownloadProgress progress = new ParallelRangeDownloader.DownloadProgress(
+                new File(target.getPath() + ParallelRangeDownloader.PROGRESS_FILE_SUFFIX), getUrl(), content.length, "", CHUNK_SIZE);
+        for (int chunk = 0; chunk < 10; chunk++) {
+            progress.markCompleted(chunk);
+        }
+
+        assertEquals(getContentSha256(), createDownloader(4).download(target));
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        // The probe and the last chunk
+        assertEquals(List.of("bytes=0-0", "bytes=10240-10339"), requestedRanges);
+    }
+
+    @Test
+    void encodeUrlTest() {
+        assertEquals("https://acme/jfrog-cli/v2-jf/%5BRELEASE%5D/jfrog-cli-linux-amd64/jf",
+                ParallelRangeDownloader.encodeUrl("https://acme/jfrog-cli/v2-jf/[RELEASE]/jfrog-cli-linux-amd64/jf"));
+    }
+
+    @Test
+    void corruptedResumeTest() throws Exception {
+        File target = new File(tempDir, "jf");
+        // The chunks recorded as completed hold the wrong bytes
+        Files.write(target.toPath(), new byte[content.length]);
+        ParallelRangeDownloader.DownloadProgress progress = new ParallelRangeDownloader.DownloadProgress(
+                new File(target.getPath() + ParallelRangeDownloader.PROGRESS_FILE_SUFFIX), getUrl(), content.length, "", CHUNK_SIZE);
+        progress.markCompleted(0);
+
+        assertNotEquals(getContentSha256(), createDownloader(4).download(target));
+    }
+
+    private String getContentSha256() {
+        return Util.toHexString(ChecksumUtils.newSha256Digest().digest(content));
+    }
+
+    private ParallelRangeDownloader createDownloader(int connections) {
+        return new ParallelRangeDownloader(getUrl(), "", "", "", null, connections, CHUNK_SIZE, DownloadThrottle.UNLIMITED, TaskListener.NULL);
+    }
+
+    private String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/jfrog-cli/jf";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        requestedRanges.add(String.valueOf(range));
+        Matcher matcher = RANGE_PATTERN.matcher(range == null ? "" : range);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            if (!supportRanges || !matcher.matches()) {
+                exchange.sendResponseHeaders(200, content.length);
+                outputStream.write(content);
+                return;
+            }
+            int start = Integer.parseInt(matcher.group(1));
+            int end = Math.min(Integer.parseInt(matcher.group(2)), content.length - 1);
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+            exchange.sendResponseHeaders(206, end - start + 1);
+            outputStream.write(content, start, end - start + 1);
+        }
+    }
+}